@@ -9,6 +9,9 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A utility class that simplifies the process of delegating to external
@@ -17,20 +20,26 @@ import java.util.List;
  * environment, calling classes will acquire a string array that contains the
  * lines output by the native process, as well as a simple String appended to a
  * ProcessListener.
+ * <p/>
+ * Waiting for a native process is done without holding any monitors, so that
+ * runners can be used from virtual threads without pinning them to their
+ * carrier thread.
  *
  * @author Tony Burdett
  * @author Rob Davey
  * @date 13-Nov-2009
  */
 public class ProcessRunner {
-  private boolean stdoutFinished;
-  private boolean stderrFinished;
+  // only one command may be run at a time by each runner
+  private final Lock runLock = new ReentrantLock();
+  // counted down once each of stdout and stderr have been fully read
+  private CountDownLatch streamsFinished;
 
-  private String[] stdout;
-  private String[] stderr;
+  private volatile String[] stdout;
+  private volatile String[] stderr;
 
-  private boolean redirect = false;
-  private boolean unrecoverableException = false;
+  private volatile boolean redirect = false;
+  private volatile boolean unrecoverableException = false;
 
   private final Logger log =
     LoggerFactory.getLogger(getClass());
@@ -50,12 +59,24 @@ public class ProcessRunner {
    *
    * @param redirect true redirects stdout to stderr
    */
-  public synchronized void redirectStderr(boolean redirect) {
+  public void redirectStderr(boolean redirect) {
     this.redirect = redirect;
   }
 
-  public synchronized String[] runCommmand(String command)
+  public String[] runCommmand(String command)
       throws CommandExecutionException, IOException {
+    runLock.lock();
+    try {
+      return runCommandExclusively(command);
+    }
+    finally {
+      runLock.unlock();
+    }
+  }
+
+  private String[] runCommandExclusively(String command)
+      throws CommandExecutionException, IOException {
+    streamsFinished = new CountDownLatch(2);
     final Process process;
     if (System.getProperty("os.name").contains("Windows")) {
       process = new ProcessBuilder("cmd.exe", "/c", command).start();
@@ -198,21 +219,19 @@ public class ProcessRunner {
     }
   }
 
-  private synchronized void stdoutStreamFinished() {
-    this.stdoutFinished = true;
-    notifyAll();
+  private void stdoutStreamFinished() {
+    streamsFinished.countDown();
   }
 
-  private synchronized void stderrStreamFinished() {
-    this.stderrFinished = true;
-    notifyAll();
+  private void stderrStreamFinished() {
+    streamsFinished.countDown();
   }
 
-  private synchronized void updateStdout(String[] stdout) {
+  private void updateStdout(String[] stdout) {
     this.stdout = stdout;
   }
 
-  private synchronized void updateStderr(String[] stderr) {
+  private void updateStderr(String[] stderr) {
     this.stderr = stderr;
   }
 
@@ -223,12 +242,12 @@ public class ProcessRunner {
    *         exception occurs that cannot be recovered from, and reading from
    *         the process had to be aborted.
    */
-  private synchronized boolean isComplete() {
+  private boolean isComplete() {
     log.debug("Checking completion of the process...");
-    while (!(stdoutFinished && stderrFinished)) {
+    while (streamsFinished.getCount() > 0) {
       // not finished yet, so wait for notification
       try {
-        wait();
+        streamsFinished.await();
       }
       catch (InterruptedException e) {
         // ignore
@@ -246,4 +265,4 @@ public class ProcessRunner {
       return true;
     }
   }
-}
\ No newline at end of file
+}
@@ -2,19 +2,26 @@ package uk.ac.ebi.fgpt.conan.core.pipeline;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.fgpt.conan.core.process.ScatterProcessDecorator;
 import uk.ac.ebi.fgpt.conan.dao.ConanProcessDAO;
 import uk.ac.ebi.fgpt.conan.dao.ConanUserDAO;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
 
 /**
  * A parser for conan pipelines.xml files.  This parser reads, and if possible validates, the XML, and uses it to
  * construct a series of {@link uk.ac.ebi.fgpt.conan.model.ConanPipeline} objects.  Note that the processes referenced
  * in pipelines.xml MUST be present and available from the supplied {@link uk.ac.ebi.fgpt.conan.service.ConanProcessService},
- * else a {@link java.util.ServiceConfigurationError} will be thrown.
+ * else a {@link java.util.ServiceConfigurationError} will be thrown.  The same applies to dependencies between
+ * processes that cannot be satisfied.
  *
  * @author Tony Burdett
  * @date 16-Oct-2010
@@ -32,6 +39,11 @@ public abstract class AbstractPipelineXMLParser {
     public static final String PROCESS_ELEMENT = "process";
     public static final String PROCESS_NAME_ATTRIBUTE = "name";
     public static final String PROCESS_DISPLAYNAME_ATTRIBUTE = "displayName";
+    public static final String DEPENDS_ON_ELEMENT = "depends-on";
+    public static final String DEPENDS_ON_PROCESS_ATTRIBUTE = "process";
+    public static final String SCATTER_ELEMENT = "scatter";
+    public static final String SCATTER_PARAMETER_ATTRIBUTE = "parameter";
+    public static final String SCATTER_WIDTH_ATTRIBUTE = "width";
 
     private ConanUserDAO userDAO;
     private ConanProcessDAO processDAO;
@@ -76,4 +88,48 @@ public abstract class AbstractPipelineXMLParser {
      * @throws java.io.IOException if the resource supplied could not be read
      */
     public abstract Collection<ConanPipeline> parseAndValidatePipelineXML(URL pipelineXMLResource) throws IOException;
+
+    /**
+     * Declares the dependencies read for the processes of a pipeline.  Dependencies are keyed by the name of each
+     * process, which is its display name if one was given.
+     *
+     * @param conanPipeline the pipeline the dependencies were read for, which must already have its processes set
+     * @param dependencies  the names of the processes each process depends on, keyed by the name of that process
+     */
+    protected void declareDependencies(DefaultConanPipeline conanPipeline, Map<String, List<String>> dependencies) {
+        try {
+            conanPipeline.setDependencies(dependencies);
+        }
+        catch (IllegalArgumentException e) {
+            String msg = "pipelines.xml declares invalid process dependencies: " + e.getMessage();
+            getLog().error(msg);
+            throw new ServiceConfigurationError(msg, e);
+        }
+    }
+
+    /**
+     * Makes a process into a scatter stage, run once for each value of the named parameter.
+     *
+     * @param process        the process to scatter
+     * @param parameterName  the name of the parameter to scatter over, which the process must take
+     * @param fanOutWidthStr the maximum number of values to run at once, or null for the default
+     * @return the scattered process
+     */
+    protected ConanProcess scatterProcess(ConanProcess process, String parameterName, String fanOutWidthStr) {
+        int fanOutWidth = fanOutWidthStr == null
+                ? ScatterProcessDecorator.DEFAULT_FAN_OUT_WIDTH
+                : Integer.parseInt(fanOutWidthStr.trim());
+        for (ConanParameter parameter : process.getParameters()) {
+            if (parameter.getName().equals(parameterName)) {
+                getLog().trace("Scattering '" + process.getName() + "' over '" + parameterName + "', " +
+                                       fanOutWidth + " at a time");
+                return new ScatterProcessDecorator(process, parameter, fanOutWidth);
+            }
+        }
+
+        String msg = "pipelines.xml scatters process '" + process.getName() + "' over a parameter " +
+                "(" + parameterName + ") that it does not take";
+        getLog().error(msg);
+        throw new ServiceConfigurationError(msg);
+    }
 }
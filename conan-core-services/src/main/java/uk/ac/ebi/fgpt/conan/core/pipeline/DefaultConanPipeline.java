@@ -7,8 +7,7 @@ import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
 import uk.ac.ebi.fgpt.conan.model.ConanProcess;
 import uk.ac.ebi.fgpt.conan.model.ConanUser;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * A default implementation of a Conan pipeline.
@@ -22,6 +21,8 @@ public class DefaultConanPipeline implements ConanPipeline {
     private boolean isPrivate;
     private boolean isDaemonized;
     private List<ConanProcess> conanProcesses;
+    // process name -> names of the processes it depends on, empty unless this pipeline declares dependencies
+    private Map<String, List<String>> dependencies;
 
     private List<ConanParameter> allRequiredParameters;
 
@@ -37,6 +38,7 @@ public class DefaultConanPipeline implements ConanPipeline {
         this.isPrivate = isPrivate;
         this.isDaemonized = isDaemonized;
         this.conanProcesses = new ArrayList<ConanProcess>();
+        this.dependencies = new HashMap<String, List<String>>();
         this.allRequiredParameters = new ArrayList<ConanParameter>();
     }
 
@@ -67,6 +69,54 @@ public class DefaultConanPipeline implements ConanPipeline {
         }
     }
 
+    /**
+     * Declares the dependencies between the processes of this pipeline, keyed by process name, so that processes can
+     * run concurrently.  Every process in a pipeline with dependencies must have a unique name, and may only depend on
+     * processes that come before it: this guarantees that dependencies can never be circular.  Processes with no entry
+     * do not depend on anything, and can start as soon as the task does.  Setting an empty map reverts this pipeline to
+     * running its processes in order.
+     *
+     * @param dependencies the names of the processes each process depends on, keyed by the name of that process
+     * @throws IllegalArgumentException if process names are not unique, or a dependency is unknown or comes later
+     */
+    public void setDependencies(Map<String, List<String>> dependencies) throws IllegalArgumentException {
+        Map<String, List<String>> declared = new HashMap<String, List<String>>();
+        if (!dependencies.isEmpty()) {
+            List<String> processNames = new ArrayList<String>();
+            for (ConanProcess process : getProcesses()) {
+                if (processNames.contains(process.getName())) {
+                    throw new IllegalArgumentException(
+                            "Pipeline '" + getName() + "' declares dependencies, so cannot contain more than one " +
+                                    "process named '" + process.getName() + "'");
+                }
+                processNames.add(process.getName());
+            }
+            for (Map.Entry<String, List<String>> entry : dependencies.entrySet()) {
+                int index = processNames.indexOf(entry.getKey());
+                if (index == -1) {
+                    throw new IllegalArgumentException(
+                            "Pipeline '" + getName() + "' has no process named '" + entry.getKey() + "'");
+                }
+                for (String dependency : entry.getValue()) {
+                    int dependencyIndex = processNames.indexOf(dependency);
+                    if (dependencyIndex == -1 || dependencyIndex >= index) {
+                        throw new IllegalArgumentException(
+                                "Process '" + entry.getKey() + "' in pipeline '" + getName() + "' can only depend on " +
+                                        "processes declared before it, not '" + dependency + "'");
+                    }
+                }
+                declared.put(entry.getKey(), new ArrayList<String>(new LinkedHashSet<String>(entry.getValue())));
+            }
+            // processes without dependencies are still part of the graph
+            for (String processName : processNames) {
+                if (!declared.containsKey(processName)) {
+                    declared.put(processName, Collections.<String>emptyList());
+                }
+            }
+        }
+        this.dependencies = declared;
+    }
+
     public String getName() {
         return name;
     }
@@ -87,7 +137,45 @@ public class DefaultConanPipeline implements ConanPipeline {
         return conanProcesses;
     }
 
+    public boolean isConcurrent() {
+        return !dependencies.isEmpty();
+    }
+
+    public List<ConanProcess> getDependencies(ConanProcess process) throws IllegalArgumentException {
+        int index = indexOf(process);
+        if (index == -1) {
+            throw new IllegalArgumentException(
+                    "The process '" + process.getName() + "' is not part of the pipeline '" + getName() + "'");
+        }
+
+        List<ConanProcess> result = new ArrayList<ConanProcess>();
+        if (isConcurrent()) {
+            for (String dependency : dependencies.get(process.getName())) {
+                for (ConanProcess candidate : getProcesses()) {
+                    if (candidate.getName().equals(dependency)) {
+                        result.add(candidate);
+                    }
+                }
+            }
+        }
+        else if (index > 0) {
+            // processes run in order, so each depends on the one before
+            result.add(getProcesses().get(index - 1));
+        }
+        return result;
+    }
+
     public List<ConanParameter> getAllRequiredParameters() {
         return allRequiredParameters;
     }
+
+    private int indexOf(ConanProcess process) {
+        // the same process may appear more than once in a pipeline, so look for this instance first
+        for (int i = 0; i < getProcesses().size(); i++) {
+            if (getProcesses().get(i) == process) {
+                return i;
+            }
+        }
+        return getProcesses().indexOf(process);
+    }
 }
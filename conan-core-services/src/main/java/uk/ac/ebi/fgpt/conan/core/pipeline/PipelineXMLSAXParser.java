@@ -15,10 +15,7 @@ import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.SchemaFactory;
 import java.io.IOException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.ServiceConfigurationError;
+import java.util.*;
 
 /**
  * A parser for conan pipelines.xml files that uses a SAX XML parser to read the pipeline XML. This parser will validate
@@ -104,6 +101,7 @@ public class PipelineXMLSAXParser extends AbstractPipelineXMLParser {
         private Collection<ConanPipeline> conanPipelines;
         private DefaultConanPipeline currentPipeline;
         private List<ConanProcess> currentProcesses;
+        private Map<String, List<String>> currentDependencies;
         private ConanProcess currentProcess;
 
         private PipelineXMLContentHandler(Collection<ConanPipeline> conanPipelines) {
@@ -118,10 +116,19 @@ public class PipelineXMLSAXParser extends AbstractPipelineXMLParser {
             }
             else if (uri.equals(PIPELINES_SCHEMA_NAMESPACE) && localName.equals(PROCESSES_ELEMENT)) {
                 currentProcesses = readProcesses();
+                currentDependencies = new HashMap<String, List<String>>();
             }
             else if (uri.equals(PIPELINES_SCHEMA_NAMESPACE) && localName.equals(PROCESS_ELEMENT)) {
                 currentProcess = readProcess(attributes);
             }
+            else if (uri.equals(PIPELINES_SCHEMA_NAMESPACE) && localName.equals(DEPENDS_ON_ELEMENT)) {
+                readDependency(attributes);
+            }
+            else if (uri.equals(PIPELINES_SCHEMA_NAMESPACE) && localName.equals(SCATTER_ELEMENT)) {
+                currentProcess = scatterProcess(currentProcess,
+                                                attributes.getValue(SCATTER_PARAMETER_ATTRIBUTE),
+                                                attributes.getValue(SCATTER_WIDTH_ATTRIBUTE));
+            }
         }
 
         @Override
@@ -135,6 +142,7 @@ public class PipelineXMLSAXParser extends AbstractPipelineXMLParser {
             else if (uri.equals(PIPELINES_SCHEMA_NAMESPACE) && localName.equals(PROCESSES_ELEMENT)) {
                 if (currentPipeline != null) {
                     currentPipeline.setProcesses(currentProcesses);
+                    declareDependencies(currentPipeline, currentDependencies);
                 }
                 else {
                     getLog().warn(
@@ -199,6 +207,17 @@ public class PipelineXMLSAXParser extends AbstractPipelineXMLParser {
             return new ArrayList<ConanProcess>();
         }
 
+        private void readDependency(Attributes attributes) {
+            String dependency = attributes.getValue(DEPENDS_ON_PROCESS_ATTRIBUTE);
+            getLog().trace("Process '" + currentProcess.getName() + "' depends on '" + dependency + "'");
+            List<String> dependencies = currentDependencies.get(currentProcess.getName());
+            if (dependencies == null) {
+                dependencies = new ArrayList<String>();
+                currentDependencies.put(currentProcess.getName(), dependencies);
+            }
+            dependencies.add(dependency);
+        }
+
         private ConanProcess readProcess(Attributes attributes) {
             for (int i = 0; i < attributes.getLength(); i++) {
                 getLog().trace("Next attribute: " +
@@ -1,5 +1,6 @@
 package uk.ac.ebi.fgpt.conan.core.pipeline;
 
+import uk.ac.ebi.fgpt.conan.core.process.DisplayNameProcessDecorator;
 import uk.ac.ebi.fgpt.conan.dao.ConanProcessDAO;
 import uk.ac.ebi.fgpt.conan.dao.ConanUserDAO;
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
@@ -139,7 +140,12 @@ public class PipelineXMLStAXParser extends AbstractPipelineXMLParser {
         while (reader.hasNext()) {
             int event = reader.next();
             if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(PROCESSES_ELEMENT)) {
-                conanPipeline.setProcesses(readProcesses(reader));
+                Map<String, List<String>> dependencies = new HashMap<String, List<String>>();
+                conanPipeline.setProcesses(readProcesses(reader, dependencies));
+                declareDependencies(conanPipeline, dependencies);
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(PIPELINE_ELEMENT)) {
+                break;
             }
             else {
                 // skip
@@ -150,13 +156,33 @@ public class PipelineXMLStAXParser extends AbstractPipelineXMLParser {
         return conanPipeline;
     }
 
-    private List<ConanProcess> readProcesses(XMLStreamReader reader) throws XMLStreamException {
+    private List<ConanProcess> readProcesses(XMLStreamReader reader, Map<String, List<String>> dependencies)
+            throws XMLStreamException {
         List<ConanProcess> conanProcesses = new ArrayList<ConanProcess>();
         while (reader.hasNext()) {
             int event = reader.next();
             if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(PROCESS_ELEMENT)) {
                 conanProcesses.add(readProcess(reader));
             }
+            else if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(DEPENDS_ON_ELEMENT)) {
+                // dependencies are nested in the process they belong to, which is the last one read
+                String processName = conanProcesses.get(conanProcesses.size() - 1).getName();
+                if (!dependencies.containsKey(processName)) {
+                    dependencies.put(processName, new ArrayList<String>());
+                }
+                dependencies.get(processName).add(reader.getAttributeValue(null, DEPENDS_ON_PROCESS_ATTRIBUTE));
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(SCATTER_ELEMENT)) {
+                // scatter stages are also nested in their process
+                int last = conanProcesses.size() - 1;
+                conanProcesses.set(last, scatterProcess(conanProcesses.get(last),
+                                                        reader.getAttributeValue(null, SCATTER_PARAMETER_ATTRIBUTE),
+                                                        reader.getAttributeValue(null, SCATTER_WIDTH_ATTRIBUTE)));
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(PROCESSES_ELEMENT)) {
+                // stop at the end of this pipeline's processes, so the next pipeline can be read
+                break;
+            }
         }
 
         getLog().debug("Parsed " + conanProcesses.size() + " processes");
@@ -171,9 +197,11 @@ public class PipelineXMLStAXParser extends AbstractPipelineXMLParser {
         }
 
         String processName = reader.getAttributeValue(null, PROCESS_NAME_ATTRIBUTE);
+        String processDisplayName = reader.getAttributeValue(null, PROCESS_DISPLAYNAME_ATTRIBUTE);
         ConanProcess p = getProcessDAO().getProcess(processName);
         if (p != null) {
-            return p;
+            // dependencies refer to processes by display name, so this must be applied as it is by the SAX parser
+            return processDisplayName == null ? p : new DisplayNameProcessDecorator(p, processDisplayName);
         }
         else {
             String msg = "pipelines.xml references a process (" + processName + ") that was not loaded";
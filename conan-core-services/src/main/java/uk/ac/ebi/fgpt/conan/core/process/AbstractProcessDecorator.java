@@ -1,7 +1,9 @@
 package uk.ac.ebi.fgpt.conan.core.process;
 
+import uk.ac.ebi.fgpt.conan.model.AsyncConanProcess;
 import uk.ac.ebi.fgpt.conan.model.ConanParameter;
 import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessFuture;
 import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
 
 import java.util.Collection;
@@ -11,22 +13,54 @@ import java.util.Map;
  * An abstract implementation of the decorator pattern for decorating {@link ConanProcess}es with additional
  * functionality.  This abstract class should be subclassed anywhere where there is a requirement to enhance standard
  * processes discovered by SPI with additional features.
+ * <p/>
+ * Decorators are always {@link AsyncConanProcess}es, so that decorating a process never hides its ability to run
+ * asynchronously.  If the decorated process is not asynchronous, it is executed to completion instead.
  *
  * @author Tony Burdett
  * @date 09/09/11
  */
-public abstract class AbstractProcessDecorator implements ConanProcess {
+public abstract class AbstractProcessDecorator implements AsyncConanProcess {
     private ConanProcess process;
 
     public AbstractProcessDecorator(ConanProcess process) {
         this.process = process;
     }
 
+    /**
+     * Returns the process this decorator decorates.
+     *
+     * @return the decorated process
+     */
+    protected ConanProcess getProcess() {
+        return process;
+    }
+
+    /**
+     * Returns true if {@link #executeAsync(java.util.Map)} returns without waiting for the process to complete.  By
+     * default, this is only the case if the decorated process is itself asynchronous.
+     *
+     * @return true if this process runs asynchronously, false if it is executed to completion
+     */
+    public boolean isAsynchronous() {
+        return ProcessDispatcher.isAsynchronous(process);
+    }
+
     public boolean execute(Map<ConanParameter, String> parameters)
             throws ProcessExecutionException, IllegalArgumentException, InterruptedException {
         return process.execute(parameters);
     }
 
+    public ConanProcessFuture executeAsync(Map<ConanParameter, String> parameters)
+            throws ProcessExecutionException, IllegalArgumentException, InterruptedException {
+        if (process instanceof AsyncConanProcess) {
+            return ((AsyncConanProcess) process).executeAsync(parameters);
+        }
+        else {
+            return ConanProcessFuture.completed(process.execute(parameters));
+        }
+    }
+
     public String getName() {
         return process.getName();
     }
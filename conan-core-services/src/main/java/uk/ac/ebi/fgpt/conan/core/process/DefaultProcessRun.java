@@ -20,6 +20,7 @@ public class DefaultProcessRun implements ConanProcessRun {
     private int exitValue = -1;
     private ConanUser submitter;
     private String errorMessage = null;
+    private boolean skipped = false;
 
     public DefaultProcessRun(String processName, ConanUser submitter) {
         this.processName = processName;
@@ -80,6 +81,14 @@ public class DefaultProcessRun implements ConanProcessRun {
         this.errorMessage = errorMessage;
     }
 
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(boolean skipped) {
+        this.skipped = skipped;
+    }
+
     public ConanUser getUser() {
         return submitter;
     }
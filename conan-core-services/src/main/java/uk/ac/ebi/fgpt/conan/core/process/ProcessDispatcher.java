@@ -0,0 +1,103 @@
+package uk.ac.ebi.fgpt.conan.core.process;
+
+import uk.ac.ebi.fgpt.conan.model.AsyncConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessFuture;
+import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts processes without waiting for them to complete, so that a task can run several of its processes at once.
+ * {@link uk.ac.ebi.fgpt.conan.model.AsyncConanProcess}es are dispatched in the usual way; every other process is
+ * executed on a thread taken from a pool shared by all tasks, which grows to meet demand and shrinks once processes are
+ * idle.
+ * <p/>
+ * Process threads are daemon threads, so processes never prevent Conan from shutting down: tasks that were running at
+ * shutdown should be recovered once Conan restarts.
+ *
+ * @date 18-Oct-2026
+ */
+public class ProcessDispatcher {
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "conan-process-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ProcessDispatcher() {
+        // not instantiable
+    }
+
+    /**
+     * Starts the given process, returning a future that completes once the process does.
+     *
+     * @param process    the process to start
+     * @param parameters the parameters to supply to this process
+     * @return the result of the process, which may not yet be complete
+     * @throws ProcessExecutionException if an asynchronous process could not be dispatched
+     * @throws InterruptedException      if dispatching an asynchronous process was interrupted
+     */
+    public static ConanProcessFuture dispatch(final ConanProcess process, final Map<ConanParameter, String> parameters)
+            throws ProcessExecutionException, InterruptedException {
+        if (isAsynchronous(process)) {
+            return ((AsyncConanProcess) process).executeAsync(parameters);
+        }
+
+        final ConanProcessFuture result = new ConanProcessFuture();
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    result.complete(process.execute(parameters));
+                }
+                catch (ProcessExecutionException e) {
+                    result.fail(e);
+                }
+                catch (InterruptedException e) {
+                    result.fail(new ProcessExecutionException(1, "Process '" + process.getName() + "' " +
+                            "was interrupted", e));
+                }
+                catch (RuntimeException e) {
+                    result.fail(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns true if the given process runs asynchronously, returning from {@link
+     * uk.ac.ebi.fgpt.conan.model.AsyncConanProcess#executeAsync(java.util.Map)} without waiting for the work to
+     * complete.  Decorators are always asynchronous processes, so they are asked whether this is the case.
+     *
+     * @param process the process to check
+     * @return true if the process runs asynchronously
+     */
+    public static boolean isAsynchronous(ConanProcess process) {
+        if (process instanceof AbstractProcessDecorator) {
+            return ((AbstractProcessDecorator) process).isAsynchronous();
+        }
+        else {
+            return process instanceof AsyncConanProcess;
+        }
+    }
+
+    /**
+     * Runs the given work on a process thread, for work such as dispatching processes that should not hold up the
+     * thread that triggered it.
+     *
+     * @param work the work to run
+     */
+    static void execute(Runnable work) {
+        executor.execute(work);
+    }
+}
@@ -0,0 +1,45 @@
+package uk.ac.ebi.fgpt.conan.core.process;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the scheduler shared by every process that polls for the completion of work done outside of Conan, such as
+ * jobs dispatched to an LSF cluster or requests made to a REST API.  Each poll is a short task run on this scheduler at
+ * a fixed interval, so a handful of threads can monitor any number of in-flight processes.  Polls must never block for
+ * long, as this would hold up the monitoring of other processes.
+ * <p/>
+ * Monitor threads are daemon threads, so monitoring never prevents Conan from shutting down: processes that were being
+ * monitored at shutdown should be recovered once Conan restarts.
+ *
+ * @date 18-Oct-2026
+ */
+public class ProcessMonitorScheduler {
+    public static final int MONITOR_THREADS = 4;
+
+    private static final ScheduledExecutorService scheduler =
+            Executors.newScheduledThreadPool(MONITOR_THREADS, new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "conan-process-monitor-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private ProcessMonitorScheduler() {
+        // not instantiable
+    }
+
+    /**
+     * Returns the scheduler that process monitors should use to poll for completion.
+     *
+     * @return the shared process monitor scheduler
+     */
+    public static ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+}
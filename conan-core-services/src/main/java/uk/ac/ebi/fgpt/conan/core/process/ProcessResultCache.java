@@ -0,0 +1,279 @@
+package uk.ac.ebi.fgpt.conan.core.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.FingerprintedConanProcess;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers which processes have completed successfully for which inputs, so that a task can skip processes that have
+ * already done the same work - for example, when a task is resubmitted, or retried after a later process failed.
+ * Caching is opt-in: only the results of processes named in {@link #setProcessNames(java.util.Collection)} are cached,
+ * as many processes have side effects that must happen every time they run.
+ * <p/>
+ * Results are keyed by the name of the process and a canonical hash of the parameter values it was supplied, in which
+ * the order of parameters makes no difference.  Processes that implement {@link
+ * uk.ac.ebi.fgpt.conan.model.FingerprintedConanProcess} also contribute a fingerprint of their inputs to the hash, so
+ * their results are no longer used once their inputs change.  Otherwise, results expire once they are older than the
+ * time to live, and can be invalidated at any time for a single process execution, for every execution of a process,
+ * or altogether.
+ * <p/>
+ * Only the fact that a process completed is cached, not any output, and cached results are held in memory: they do not
+ * survive a restart.
+ *
+ * @date 18-Oct-2026
+ */
+public class ProcessResultCache {
+    // one week
+    public static final long DEFAULT_TIME_TO_LIVE = 7 * 24 * 60 * 60;
+
+    private Set<String> processNames;
+    private long timeToLive;
+
+    // process name -> hash of the inputs each execution completed with -> the time it completed, in milliseconds
+    private final ConcurrentMap<String, ConcurrentMap<String, Long>> results;
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    public ProcessResultCache() {
+        this.processNames = Collections.emptySet();
+        this.timeToLive = DEFAULT_TIME_TO_LIVE;
+        this.results = new ConcurrentHashMap<String, ConcurrentMap<String, Long>>();
+    }
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    public Set<String> getProcessNames() {
+        return processNames;
+    }
+
+    /**
+     * Sets the names of the processes whose results are cached.  The results of any other process are never cached, so
+     * these processes are always executed.
+     *
+     * @param processNames the names of the processes to cache the results of
+     */
+    public void setProcessNames(Collection<String> processNames) {
+        Assert.notNull(processNames, "The names of the processes to cache must be supplied");
+        this.processNames = Collections.unmodifiableSet(new HashSet<String>(processNames));
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Sets the time, in seconds, for which the result of a process is cached.  Defaults to {@link
+     * #DEFAULT_TIME_TO_LIVE}.  A time to live of zero means results never expire, and must be invalidated explicitly.
+     *
+     * @param timeToLive the number of seconds each cached result is kept for
+     */
+    public void setTimeToLive(long timeToLive) {
+        Assert.isTrue(timeToLive >= 0, "The time to live of cached process results cannot be negative");
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns true if the results of the given process are cached.
+     *
+     * @param process the process to check
+     * @return true if this process is cached
+     */
+    public boolean isCached(ConanProcess process) {
+        return processNames.contains(process.getName());
+    }
+
+    /**
+     * Returns true if the given process has already completed successfully with the supplied parameters, and the result
+     * has not expired or been invalidated.  Expired results found along the way are removed.
+     *
+     * @param process    the process about to be executed
+     * @param parameters the parameters this process is about to be executed with
+     * @return true if this process can be skipped
+     */
+    public boolean hasResult(ConanProcess process, Map<ConanParameter, String> parameters) {
+        if (!isCached(process)) {
+            return false;
+        }
+        ConcurrentMap<String, Long> processResults = results.get(process.getName());
+        if (processResults == null) {
+            return false;
+        }
+        String key = getKey(process, parameters);
+        if (key == null) {
+            return false;
+        }
+        Long completed = processResults.get(key);
+        if (completed == null) {
+            return false;
+        }
+        if (isExpired(completed)) {
+            processResults.remove(key, completed);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records that the given process completed successfully with the supplied parameters.  Nothing is recorded if this
+     * process is not cached, or its inputs could not be fingerprinted.
+     *
+     * @param process    the process that completed
+     * @param parameters the parameters this process was executed with
+     */
+    public void putResult(ConanProcess process, Map<ConanParameter, String> parameters) {
+        if (!isCached(process)) {
+            return;
+        }
+        String key = getKey(process, parameters);
+        if (key == null) {
+            getLog().debug("The inputs of process '" + process.getName() + "' could not be fingerprinted, " +
+                                   "so its result will not be cached");
+            return;
+        }
+        ConcurrentMap<String, Long> processResults = results.get(process.getName());
+        if (processResults == null) {
+            results.putIfAbsent(process.getName(), new ConcurrentHashMap<String, Long>());
+            processResults = results.get(process.getName());
+        }
+        processResults.put(key, System.currentTimeMillis());
+        removeExpired(processResults);
+    }
+
+    /**
+     * Invalidates the result of the given process for the supplied parameters, so that it will be executed again.
+     *
+     * @param process    the process to invalidate the result of
+     * @param parameters the parameters the result was cached for
+     */
+    public void invalidate(ConanProcess process, Map<ConanParameter, String> parameters) {
+        ConcurrentMap<String, Long> processResults = results.get(process.getName());
+        String key = getKey(process, parameters);
+        if (processResults != null && key != null) {
+            processResults.remove(key);
+        }
+    }
+
+    /**
+     * Invalidates every result cached for the process with the given name, so that it will be executed again whatever
+     * its parameters.
+     *
+     * @param processName the name of the process to invalidate the results of
+     */
+    public void invalidate(String processName) {
+        getLog().debug("Invalidating cached results of process '" + processName + "'");
+        results.remove(processName);
+    }
+
+    /**
+     * Invalidates every cached result.
+     */
+    public void clear() {
+        getLog().debug("Invalidating all cached process results");
+        results.clear();
+    }
+
+    /**
+     * Returns the number of results in this cache, including any that have expired but not yet been removed.
+     *
+     * @return the number of cached results
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, Long> processResults : results.values()) {
+            size += processResults.size();
+        }
+        return size;
+    }
+
+    private boolean isExpired(long completed) {
+        return timeToLive > 0 && System.currentTimeMillis() - completed > timeToLive * 1000L;
+    }
+
+    private void removeExpired(ConcurrentMap<String, Long> processResults) {
+        for (Map.Entry<String, Long> result : processResults.entrySet()) {
+            if (isExpired(result.getValue())) {
+                processResults.remove(result.getKey(), result.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the canonical hash of the inputs of the given process, or null if the process supplies a fingerprint of
+     * its inputs but cannot fingerprint them for these parameters.
+     *
+     * @param process    the process
+     * @param parameters the parameters of this process
+     * @return the hash of the parameters, fingerprint and scatter stage of this process
+     */
+    private String getKey(ConanProcess process, Map<ConanParameter, String> parameters) {
+        // sort parameters by name, so the order they were supplied in makes no difference
+        SortedMap<String, String> values = new TreeMap<String, String>();
+        for (Map.Entry<ConanParameter, String> parameter : parameters.entrySet()) {
+            values.put(parameter.getKey().getName(), parameter.getValue());
+        }
+
+        StringBuilder inputs = new StringBuilder();
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            appendField(inputs, value.getKey());
+            appendField(inputs, value.getValue());
+        }
+
+        // a scattered process does different work to the same process run once with all the values
+        ConanProcess next = process;
+        while (next instanceof AbstractProcessDecorator) {
+            if (next instanceof ScatterProcessDecorator) {
+                appendField(inputs, "scatter");
+                appendField(inputs, ((ScatterProcessDecorator) next).getScatterParameter().getName());
+            }
+            next = ((AbstractProcessDecorator) next).getProcess();
+        }
+        if (next instanceof FingerprintedConanProcess) {
+            String fingerprint = ((FingerprintedConanProcess) next).getInputFingerprint(parameters);
+            if (fingerprint == null) {
+                return null;
+            }
+            appendField(inputs, "fingerprint");
+            appendField(inputs, fingerprint);
+        }
+        return hash(inputs.toString());
+    }
+
+    private void appendField(StringBuilder inputs, String field) {
+        // length prefix every field, so no field can run into another
+        if (field == null) {
+            inputs.append("-1:");
+        }
+        else {
+            inputs.append(field.length()).append(":").append(field);
+        }
+    }
+
+    private String hash(String inputs) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(inputs.getBytes("UTF-8"));
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported on this platform", e);
+        }
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported on this platform", e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package uk.ac.ebi.fgpt.conan.core.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessFuture;
+import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
+
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * A scatter stage in a {@link uk.ac.ebi.fgpt.conan.model.ConanPipeline}, which decorates a process so that it runs once
+ * for every value of a multi-valued parameter.  Values are separated by newlines, just as they are in batch files.
+ * Each value is run as a separate sub-run of the decorated process, with no more than the fan-out width of sub-runs
+ * executing at once, and this process only completes once every sub-run has: the sub-runs are gathered back together
+ * before the next process in the pipeline can start.
+ * <p/>
+ * If a sub-run fails, no further sub-runs are started and, once those already running have finished, this process fails
+ * with an exception that lists as many of the failed values as fit in the error message of a process run.  Progress is
+ * kept as one bit per value rather than a record of every sub-run, and the whole stage is recorded as a single process
+ * run of the task.  This progress is only held in memory, so a scatter stage that is interrupted by a restart runs
+ * again for every value once its task is recovered.
+ *
+ * @date 18-Oct-2026
+ */
+public class ScatterProcessDecorator extends AbstractProcessDecorator {
+    public static final int DEFAULT_FAN_OUT_WIDTH = 4;
+    // the width, in bytes, of the ERROR_MESSAGE column that the summary of failed values is written to
+    public static final int MAX_SUMMARY_LENGTH = 200;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ConanParameter scatterParameter;
+    private final int fanOutWidth;
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    public ScatterProcessDecorator(ConanProcess process, ConanParameter scatterParameter, int fanOutWidth) {
+        super(process);
+        Assert.isTrue(process.getParameters().contains(scatterParameter),
+                      "Process '" + process.getName() + "' does not take the parameter to scatter over");
+        Assert.isTrue(fanOutWidth > 0, "The fan-out width of process '" + process.getName() + "' must be at least one");
+        this.scatterParameter = scatterParameter;
+        this.fanOutWidth = fanOutWidth;
+    }
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    /**
+     * Returns the multi-valued parameter that this process is scattered over.
+     *
+     * @return the parameter to scatter over
+     */
+    public ConanParameter getScatterParameter() {
+        return scatterParameter;
+    }
+
+    /**
+     * Returns the maximum number of sub-runs of this process that may execute at once.
+     *
+     * @return the fan-out width
+     */
+    public int getFanOutWidth() {
+        return fanOutWidth;
+    }
+
+    @Override
+    public boolean execute(Map<ConanParameter, String> parameters)
+            throws ProcessExecutionException, IllegalArgumentException, InterruptedException {
+        return executeAsync(parameters).get();
+    }
+
+    @Override
+    public ConanProcessFuture executeAsync(Map<ConanParameter, String> parameters)
+            throws ProcessExecutionException, IllegalArgumentException, InterruptedException {
+        List<String> values = getScatterValues(parameters.get(scatterParameter));
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No values of '" + scatterParameter.getName() + "' were supplied " +
+                                                       "for process '" + getName() + "' to scatter over");
+        }
+
+        getLog().debug("Scattering process '" + getName() + "' over " + values.size() + " values of " +
+                               "'" + scatterParameter.getName() + "', " + fanOutWidth + " at a time");
+        ScatterFuture result = new ScatterFuture(parameters, values);
+        result.dispatchSubRuns();
+        return result;
+    }
+
+    @Override
+    public boolean isAsynchronous() {
+        // sub-runs are always dispatched in the background
+        return true;
+    }
+
+    /**
+     * Splits a multi-valued parameter value into its separate values.  Values are separated by newlines, and blank
+     * values are ignored.
+     *
+     * @param value the multi-valued parameter value
+     * @return the separate values, in order
+     */
+    public static List<String> getScatterValues(String value) {
+        List<String> values = new ArrayList<String>();
+        if (value != null) {
+            for (String nextValue : value.split("\n")) {
+                nextValue = nextValue.trim();
+                if (!nextValue.isEmpty()) {
+                    values.add(nextValue);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The gathered result of every sub-run, which dispatches new sub-runs as running ones end.
+     */
+    private class ScatterFuture extends ConanProcessFuture {
+        private final Map<ConanParameter, String> parameters;
+        private final List<String> values;
+
+        // progress, guarded by this
+        private final BitSet succeeded;
+        private final BitSet failed;
+        private int nextValue;
+        private int running;
+        private boolean allTrue;
+        private boolean gathered;
+        private ProcessExecutionException firstFailure;
+        private boolean failureCausesAbort;
+
+        private ScatterFuture(Map<ConanParameter, String> parameters, List<String> values) {
+            this.parameters = parameters;
+            this.values = values;
+            this.succeeded = new BitSet(values.size());
+            this.failed = new BitSet(values.size());
+            this.nextValue = 0;
+            this.running = 0;
+            this.allTrue = true;
+            this.gathered = false;
+        }
+
+        /**
+         * Starts as many sub-runs as the fan-out width allows, or gathers the result once every sub-run has ended.
+         */
+        private void dispatchSubRuns() {
+            List<Integer> dispatching = new ArrayList<Integer>();
+            boolean gather = false;
+            synchronized (this) {
+                while (failed.isEmpty() && running < fanOutWidth && nextValue < values.size()) {
+                    dispatching.add(nextValue++);
+                    running++;
+                }
+                if (running == 0 && !gathered) {
+                    gathered = true;
+                    gather = true;
+                }
+            }
+
+            for (int index : dispatching) {
+                dispatchSubRun(index);
+            }
+            if (gather) {
+                gather();
+            }
+        }
+
+        private void dispatchSubRun(final int index) {
+            Map<ConanParameter, String> subRunParameters = new HashMap<ConanParameter, String>(parameters);
+            subRunParameters.put(scatterParameter, values.get(index));
+
+            ConanProcessFuture subRun;
+            try {
+                subRun = ProcessDispatcher.dispatch(getProcess(), subRunParameters);
+            }
+            catch (ProcessExecutionException e) {
+                subRun = new ConanProcessFuture();
+                subRun.fail(e);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                subRun = new ConanProcessFuture();
+                subRun.fail(new ProcessExecutionException(1, "Dispatching '" + values.get(index) + "' was interrupted",
+                                                          e));
+            }
+            catch (RuntimeException e) {
+                subRun = new ConanProcessFuture();
+                subRun.fail(e);
+            }
+
+            final ConanProcessFuture result = subRun;
+            result.addCompletionListener(new Runnable() {
+                public void run() {
+                    subRunEnded(index, result);
+                }
+            });
+        }
+
+        private void subRunEnded(int index, ConanProcessFuture subRun) {
+            boolean result = false;
+            ProcessExecutionException failure = null;
+            try {
+                result = subRun.get();
+            }
+            catch (ProcessExecutionException e) {
+                failure = e;
+            }
+            catch (RuntimeException e) {
+                failure = new ProcessExecutionException(1, e);
+            }
+            catch (InterruptedException e) {
+                // never happens, the sub-run has completed
+                Thread.currentThread().interrupt();
+                failure = new ProcessExecutionException(1, e);
+            }
+
+            synchronized (this) {
+                running--;
+                if (failure == null) {
+                    succeeded.set(index);
+                    allTrue &= result;
+                }
+                else {
+                    getLog().error("Process '" + getName() + "' failed for '" + values.get(index) + "'", failure);
+                    failed.set(index);
+                    if (firstFailure == null) {
+                        firstFailure = failure;
+                    }
+                    failureCausesAbort |= failure.causesAbort();
+                }
+                getLog().debug("Process '" + getName() + "': " + succeeded.cardinality() + " of " + values.size() +
+                                       " values done, " + failed.cardinality() + " failed");
+            }
+
+            // dispatch the next sub-run on a process thread, as this may be a thread monitoring other processes
+            ProcessDispatcher.execute(new Runnable() {
+                public void run() {
+                    dispatchSubRuns();
+                }
+            });
+        }
+
+        private void gather() {
+            ProcessExecutionException failure;
+            synchronized (this) {
+                if (failed.isEmpty()) {
+                    getLog().debug("Process '" + getName() + "' completed for all " + values.size() + " values");
+                    failure = null;
+                }
+                else {
+                    failure = new ProcessExecutionException(firstFailure.getExitValue(),
+                                                            "Process '" + getName() + "' failed",
+                                                            summariseFailures());
+                    failure.setProcessOutput(firstFailure.getProcessOutput());
+                    failure.setProcessExecutionHost(firstFailure.getProcessExecutionHost());
+                    if (failureCausesAbort) {
+                        failure.setExceptionCausesAbort();
+                    }
+                }
+            }
+
+            if (failure == null) {
+                complete(allTrue);
+            }
+            else {
+                fail(failure);
+            }
+        }
+
+        private String summariseFailures() {
+            StringBuilder summary = new StringBuilder();
+            summary.append(failed.cardinality()).append(" of ").append(values.size()).append(" values of '")
+                    .append(scatterParameter.getName()).append("' failed");
+            if (nextValue < values.size()) {
+                summary.append(", ").append(values.size() - nextValue).append(" were not run");
+            }
+            summary.append(": ");
+            int reported = 0;
+            int i = failed.nextSetBit(0);
+            int summaryLength = getEncodedLength(summary.toString());
+            while (i >= 0) {
+                String next = (reported == 0 ? "" : ", ") + values.get(i);
+                // leave room to say how many values were left out
+                int nextLength = getEncodedLength(next);
+                if (summaryLength + nextLength + 20 > MAX_SUMMARY_LENGTH) {
+                    break;
+                }
+                summary.append(next);
+                summaryLength += nextLength;
+                reported++;
+                i = failed.nextSetBit(i + 1);
+            }
+            if (failed.cardinality() > reported) {
+                summary.append(reported == 0 ? "" : " and ").append(failed.cardinality() - reported).append(" more");
+            }
+            return truncate(summary.toString(), MAX_SUMMARY_LENGTH);
+        }
+
+        private int getEncodedLength(String text) {
+            return text.getBytes(UTF8).length;
+        }
+
+        /**
+         * Shortens the given text until it fits in the given number of bytes once encoded as UTF-8, without splitting a
+         * character.
+         *
+         * @param text      the text to shorten
+         * @param maxLength the maximum encoded length, in bytes
+         * @return the text, shortened if necessary
+         */
+        private String truncate(String text, int maxLength) {
+            int end = text.length();
+            while (end > 0 && getEncodedLength(text.substring(0, end)) > maxLength) {
+                end = text.offsetByCodePoints(end, -1);
+            }
+            return text.substring(0, end);
+        }
+    }
+}
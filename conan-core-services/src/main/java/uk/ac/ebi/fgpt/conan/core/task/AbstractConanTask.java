@@ -3,17 +3,27 @@ package uk.ac.ebi.fgpt.conan.core.task;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.ac.ebi.fgpt.conan.core.process.DefaultProcessRun;
+import uk.ac.ebi.fgpt.conan.core.process.ProcessDispatcher;
+import uk.ac.ebi.fgpt.conan.core.process.ProcessResultCache;
 import uk.ac.ebi.fgpt.conan.model.*;
 import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
 import uk.ac.ebi.fgpt.conan.service.exception.TaskExecutionException;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * An abstract implementation of a {@link uk.ac.ebi.fgpt.conan.model.ConanTask} that contains execute() implementations
  * and some useful protected methods for firing status events.  Concrete implementations should define how to construct
  * and manipulate each task.  This task implementation is designed to support the addition of listeners to report on
  * changes in each task.
+ * <p/>
+ * Processes are executed one at a time, in pipeline order, unless the pipeline declares dependencies between its
+ * processes: in that case, every process whose dependencies have completed is run at once.
+ * <p/>
+ * If a {@link uk.ac.ebi.fgpt.conan.core.process.ProcessResultCache} is set, processes that have already completed for
+ * identical inputs are not executed again: they are recorded as skipped process runs instead.
  *
  * @author Tony Burdett
  * @date 13-Oct-2010
@@ -42,6 +52,15 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
     // listeners
     private Set<ConanTaskListener> listeners;
 
+    // limits the processes that can run at once, if set by the service executing this task
+    private transient ProcessConcurrencyLimiter concurrencyLimiter;
+    // notified when an asynchronous process completes, if set by the service executing this task
+    private transient ProcessCompletionListener processCompletionListener;
+    // remembers the processes that have completed for each set of inputs, if set by the service executing this task
+    private transient ProcessResultCache processResultCache;
+    // the asynchronous process this task is waiting on, if any
+    private transient ConanProcessFuture pendingProcess;
+
     private Logger log = LoggerFactory.getLogger(getClass());
 
     protected AbstractConanTask(int firstTaskIndex) {
@@ -76,6 +95,63 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
         return listeners.remove(listener);
     }
 
+    protected ProcessConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Sets the limiter that this task must acquire a slot from before starting each process.  If a slot cannot be
+     * acquired, execution stops before the process starts and this task returns to the {@link
+     * uk.ac.ebi.fgpt.conan.model.ConanTask.State#SUBMITTED} state, to be executed again once the limiter releases it.
+     *
+     * @param concurrencyLimiter the limiter to acquire process slots from, or null to run without limits
+     */
+    public void setConcurrencyLimiter(ProcessConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    protected ProcessCompletionListener getProcessCompletionListener() {
+        return processCompletionListener;
+    }
+
+    /**
+     * Sets the listener to notify when an {@link uk.ac.ebi.fgpt.conan.model.AsyncConanProcess} completes.  If a
+     * listener is set, this task does not wait for asynchronous processes to complete: execution stops once the process
+     * has started, leaving this task running, and the listener is notified once the process completes.  The service
+     * executing this task should then execute it again, to continue with the rest of the pipeline.  If no listener is
+     * set, this task waits for every process to complete.
+     *
+     * @param processCompletionListener the listener to notify when an asynchronous process completes, or null to wait
+     *                                  for every process
+     */
+    public void setProcessCompletionListener(ProcessCompletionListener processCompletionListener) {
+        this.processCompletionListener = processCompletionListener;
+    }
+
+    protected ProcessResultCache getProcessResultCache() {
+        return processResultCache;
+    }
+
+    /**
+     * Sets the cache of process results that this task checks before executing each process.  Processes that have
+     * already completed for the same inputs are skipped, and processes that complete are added to the cache.
+     *
+     * @param processResultCache the cache of process results, or null to always execute every process
+     */
+    public void setProcessResultCache(ProcessResultCache processResultCache) {
+        this.processResultCache = processResultCache;
+    }
+
+    /**
+     * Returns true if this task has left an asynchronous process running, and must be executed again once it has
+     * completed.
+     *
+     * @return true if this task is waiting on an asynchronous process
+     */
+    public boolean hasPendingProcess() {
+        return pendingProcess != null;
+    }
+
     public void setId(String ID) {
         this.ID = ID;
     }
@@ -176,35 +252,90 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
     }
 
     public boolean execute() throws TaskExecutionException, InterruptedException {
-        // check the current state for execution
-        checkState();
+        if (getPipeline().isConcurrent()) {
+            return executeConcurrently();
+        }
+
+        // check the current state for execution, unless we are picking up the result of a process we left running
+        if (pendingProcess == null) {
+            checkState();
+        }
+        else if (getCurrentState() == ConanTask.State.ABORTED) {
+            // aborted whilst a process was left running, so give up its slot and ignore the result
+            pendingProcess = null;
+            if (getConcurrencyLimiter() != null) {
+                getConcurrencyLimiter().release(this, getPipeline().getProcesses().get(currentExecutionIndex));
+            }
+            throw new TaskExecutionException("This task has been aborted, so will not execute.");
+        }
 
         getLog().debug("Executing task " + getId());
         try {
             // do processes in order
-            while (!isPaused() && getCurrentProcess() != null) {
-                if (Thread.interrupted()) {
-                    // this thread has been interrupted by a shutdown request, so stop executing
-                    throw new InterruptedException();
+            while (pendingProcess != null || (!isPaused() && getCurrentProcess() != null)) {
+                ConanProcess process = getCurrentProcess();
+                ProcessConcurrencyLimiter limiter = getConcurrencyLimiter();
+                ConanProcessFuture result = pendingProcess;
+                pendingProcess = null;
+
+                Map<ConanParameter, String> nextProcessParams = Collections.emptyMap();
+                if (result == null) {
+                    if (Thread.interrupted()) {
+                        // this thread has been interrupted by a shutdown request, so stop executing
+                        throw new InterruptedException();
+                    }
+
+                    // extract only those parameters we need
+                    nextProcessParams = getProcessParameters(process);
+
+                    // skip this process if it has already completed for the same inputs
+                    if (hasCachedResult(process, nextProcessParams)) {
+                        fireProcessStartedEvent();
+                        fireProcessSkippedEvent();
+                        continue;
+                    }
+
+                    // check this process may run now, otherwise stop until a slot is free
+                    if (limiter != null && !limiter.tryAcquire(this, process)) {
+                        fireTaskWaitingEvent(process);
+                        return false;
+                    }
                 }
 
-                // extract only those parameters we need
-                Map<ConanParameter, String> nextProcessParams = new HashMap<ConanParameter, String>();
-                for (ConanParameter param : getCurrentProcess().getParameters()) {
-                    nextProcessParams.put(param, getParameterValues().get(param));
+                // the slot for this process is kept whilst we wait for it in the background
+                boolean leftRunning = false;
+                try {
+                    if (result == null) {
+                        // increment the execution index and fire an event as we're about to start
+                        getLog().debug("Process being executed for task " + getId() + " is " +
+                                               process.getName() + ", " + "supplying parameters: " +
+                                               nextProcessParams);
+                        fireProcessStartedEvent();
+
+                        // now execute
+                        result = startProcess(process, nextProcessParams);
+                        if (!result.isDone()) {
+                            // leave the process running, and carry on once it completes
+                            getLog().debug("Task '" + getId() + "' will continue once " +
+                                                   "process '" + process.getName() + "' completes");
+                            leaveRunning(result);
+                            leftRunning = true;
+                            return false;
+                        }
+                    }
+
+                    // throws any exception the process failed with
+                    result.get();
+                    cacheResult(process);
+
+                    // once finished, update the end date
+                    fireProcessEndedEvent();
+                }
+                finally {
+                    if (limiter != null && !leftRunning) {
+                        limiter.release(this, process);
+                    }
                 }
-
-                // increment the execution index and fire an event as we're about to start
-                getLog().debug("Process being executed for task " + getId() + " is " +
-                                       getCurrentProcess().getName() + ", " + "supplying parameters: " +
-                                       nextProcessParams);
-                fireProcessStartedEvent();
-
-                // now execute
-                getCurrentProcess().execute(nextProcessParams);
-
-                // once finished, update the end date
-                fireProcessEndedEvent();
             }
 
             // finalise task execution
@@ -248,6 +379,301 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
         }
     }
 
+    /**
+     * Executes the processes of a pipeline that declares dependencies between them.  Every process whose dependencies
+     * have completed is started at once, and this task then waits, starting further processes as each one ends.
+     * Processes that have already completed, according to the execution index and their most recent process run, are
+     * not run again, so a failed or paused task carries on from where it stopped.  Once a process fails or this task is
+     * paused no further processes are started, but those already running are left to finish.
+     *
+     * @return true if every process completed, false otherwise
+     * @throws TaskExecutionException if a process failed
+     * @throws InterruptedException   if this task was interrupted
+     */
+    private boolean executeConcurrently() throws TaskExecutionException, InterruptedException {
+        checkState();
+
+        getLog().debug("Executing task " + getId() + ", running processes concurrently where dependencies allow");
+        ProcessConcurrencyLimiter limiter = getConcurrencyLimiter();
+        Set<ConanProcess> completed = getCompletedProcesses();
+        Map<ConanProcess, ConanProcessFuture> running = new IdentityHashMap<ConanProcess, ConanProcessFuture>();
+        Map<ConanProcess, DefaultProcessRun> runs = new IdentityHashMap<ConanProcess, DefaultProcessRun>();
+        BlockingQueue<ConanProcess> ended = new LinkedBlockingQueue<ConanProcess>();
+        Exception failure = null;
+        ConanProcess waitingProcess = null;
+        try {
+            while (true) {
+                if (failure == null && !isPaused()) {
+                    if (Thread.interrupted()) {
+                        // this thread has been interrupted by a shutdown request, so stop executing
+                        throw new InterruptedException();
+                    }
+                    waitingProcess = startReadyProcesses(completed, running, runs, ended);
+                }
+                if (running.isEmpty()) {
+                    break;
+                }
+
+                // wait for the next process to end
+                ConanProcess process = ended.take();
+                ConanProcessFuture result = running.remove(process);
+                DefaultProcessRun run = runs.remove(process);
+                try {
+                    // throws any exception the process failed with
+                    result.get();
+                    cacheResult(process);
+                    completed.add(process);
+                    updateExecutionIndex(completed);
+                    fireProcessEndedEvent(process, run);
+                }
+                catch (ProcessExecutionException e) {
+                    getLog().error("Process '" + process.getName() + "' failed to execute, " +
+                                           "exit code " + e.getExitValue());
+                    getLog().debug("Execution exception follows", e);
+                    fireProcessFailedEvent(process, run, e);
+                    failure = (failure == null ? e : failure);
+                }
+                catch (RuntimeException e) {
+                    getLog().error("An unexpected runtime exception occurred whilst executing task " +
+                                           "'" + getId() + "'", e);
+                    getLog().error("Process '" + process.getName() + "' failed to execute");
+                    fireProcessFailedEvent(process, run, 1);
+                    failure = (failure == null ? e : failure);
+                }
+                finally {
+                    if (limiter != null) {
+                        limiter.release(this, process);
+                    }
+                }
+            }
+
+            if (failure != null) {
+                if (failure instanceof ProcessExecutionException &&
+                        ((ProcessExecutionException) failure).causesAbort()) {
+                    // critical fail, should cause instant abort
+                    abort();
+                }
+                throw new TaskExecutionException(failure);
+            }
+            else if (waitingProcess != null && !isPaused()) {
+                // nothing is running that could free a slot, so stop until the limiter releases this task
+                fireTaskWaitingEvent(waitingProcess);
+                return false;
+            }
+            else {
+                // finalise task execution
+                return checkExitStatus();
+            }
+        }
+        catch (InterruptedException e) {
+            // log this exception, processes that are still running are left to finish but can no longer be tracked
+            getLog().error("Executing task '" + getId() + "' was interrupted", e);
+            for (ConanProcess process : running.keySet()) {
+                fireProcessInterruptedEvent(process, runs.get(process));
+                if (limiter != null) {
+                    limiter.release(this, process);
+                }
+            }
+            throw e;
+        }
+        finally {
+            // finally, if we have completed or stopped, remove all listeners so this object is dereferenced
+            if (getCurrentState() == ConanTask.State.COMPLETED || getCurrentState() == ConanTask.State.ABORTED) {
+                setListeners(Collections.<ConanTaskListener>emptySet());
+            }
+            getLog().debug("Task '" + getId() + "' execution ended");
+        }
+    }
+
+    /**
+     * Starts every process that is ready to run: those that have not completed, are not running and have had all
+     * their dependencies complete.  Processes that have already completed for the same inputs are skipped instead, so
+     * that the processes depending on them become ready in turn.  Processes that cannot acquire a slot from the
+     * concurrency limiter are passed over, and will be tried again once another process of this task ends.  If none of
+     * this task's processes are running, though, there is nothing to wait for, and so the first process that could not
+     * get a slot is returned.  This task has then been recorded as waiting by the limiter.
+     *
+     * @param completed the processes that have completed
+     * @param running   the processes that are running, to which started processes are added
+     * @param runs      the process run of each running process, to which started processes are added
+     * @param ended     the queue to add each started process to once it ends
+     * @return the process this task must wait for a slot to run, or null if this task need not wait
+     */
+    private ConanProcess startReadyProcesses(Set<ConanProcess> completed,
+                                             Map<ConanProcess, ConanProcessFuture> running,
+                                             Map<ConanProcess, DefaultProcessRun> runs,
+                                             BlockingQueue<ConanProcess> ended) {
+        ProcessConcurrencyLimiter limiter = getConcurrencyLimiter();
+        ConanProcess blockedProcess = null;
+        for (ConanProcess process : getPipeline().getProcesses()) {
+            if (completed.contains(process) || running.containsKey(process) ||
+                    !completed.containsAll(getPipeline().getDependencies(process))) {
+                continue;
+            }
+            Map<ConanParameter, String> processParams = getProcessParameters(process);
+            if (hasCachedResult(process, processParams)) {
+                // dependencies always come first, so processes depending on this one are still to be checked
+                DefaultProcessRun run = fireProcessStartedEvent(process);
+                completed.add(process);
+                updateExecutionIndex(completed);
+                fireProcessSkippedEvent(process, run);
+                continue;
+            }
+            if (limiter != null && !limiter.tryAcquire(this, process, false)) {
+                // our own processes may free a slot, so don't wait on the limiter yet
+                blockedProcess = (blockedProcess == null ? process : blockedProcess);
+                continue;
+            }
+            startConcurrentProcess(process, processParams, running, runs, ended);
+        }
+
+        if (blockedProcess != null && running.isEmpty()) {
+            if (!limiter.tryAcquire(this, blockedProcess)) {
+                return blockedProcess;
+            }
+            // a slot was released in the meantime
+            startConcurrentProcess(blockedProcess, getProcessParameters(blockedProcess), running, runs, ended);
+        }
+        return null;
+    }
+
+    private void startConcurrentProcess(final ConanProcess process,
+                                        Map<ConanParameter, String> processParams,
+                                        Map<ConanProcess, ConanProcessFuture> running,
+                                        Map<ConanProcess, DefaultProcessRun> runs,
+                                        final BlockingQueue<ConanProcess> ended) {
+        getLog().debug("Process being executed for task " + getId() + " is " + process.getName() + ", " +
+                               "supplying parameters: " + processParams);
+        runs.put(process, fireProcessStartedEvent(process));
+
+        ConanProcessFuture result;
+        try {
+            result = ProcessDispatcher.dispatch(process, processParams);
+        }
+        catch (ProcessExecutionException e) {
+            result = new ConanProcessFuture();
+            result.fail(e);
+        }
+        catch (InterruptedException e) {
+            // stop once this process has been recorded as running
+            Thread.currentThread().interrupt();
+            result = new ConanProcessFuture();
+            result.fail(new ProcessExecutionException(1, "Dispatching '" + process.getName() + "' was interrupted", e));
+        }
+        catch (RuntimeException e) {
+            result = new ConanProcessFuture();
+            result.fail(e);
+        }
+        running.put(process, result);
+        result.addCompletionListener(new Runnable() {
+            public void run() {
+                ended.add(process);
+            }
+        });
+    }
+
+    /**
+     * Returns the processes of a concurrent pipeline that have already completed.  These are the processes before the
+     * execution index, and every other process whose most recent process run completed successfully.
+     *
+     * @return the completed processes
+     */
+    private Set<ConanProcess> getCompletedProcesses() {
+        Map<String, ConanProcessRun> lastRuns = new HashMap<String, ConanProcessRun>();
+        for (ConanProcessRun run : getConanProcessRuns()) {
+            lastRuns.put(run.getProcessName(), run);
+        }
+
+        Set<ConanProcess> completed = Collections.newSetFromMap(new IdentityHashMap<ConanProcess, Boolean>());
+        List<ConanProcess> processes = getPipeline().getProcesses();
+        for (int i = 0; i < processes.size(); i++) {
+            ConanProcessRun run = lastRuns.get(processes.get(i).getName());
+            if (i < currentExecutionIndex || (run != null && run.getEndDate() != null && run.getExitValue() == 0)) {
+                completed.add(processes.get(i));
+            }
+        }
+        updateExecutionIndex(completed);
+        return completed;
+    }
+
+    /**
+     * Moves the execution index of a concurrent pipeline on to the first process that has not completed.
+     *
+     * @param completed the completed processes
+     */
+    private synchronized void updateExecutionIndex(Set<ConanProcess> completed) {
+        List<ConanProcess> processes = getPipeline().getProcesses();
+        int index = 0;
+        while (index < processes.size() && completed.contains(processes.get(index))) {
+            index++;
+        }
+        currentExecutionIndex = index;
+    }
+
+    /**
+     * Extracts only those parameter values of this task that the given process needs.
+     *
+     * @param process the process to supply parameters to
+     * @return the parameter values for this process
+     */
+    private Map<ConanParameter, String> getProcessParameters(ConanProcess process) {
+        Map<ConanParameter, String> processParams = new HashMap<ConanParameter, String>();
+        for (ConanParameter param : process.getParameters()) {
+            processParams.put(param, getParameterValues().get(param));
+        }
+        return processParams;
+    }
+
+    private boolean hasCachedResult(ConanProcess process, Map<ConanParameter, String> parameters) {
+        ProcessResultCache cache = getProcessResultCache();
+        if (cache != null && cache.hasResult(process, parameters)) {
+            getLog().debug("Process '" + process.getName() + "' has already completed for the same inputs, " +
+                                   "so task '" + getId() + "' will skip it");
+            return true;
+        }
+        else {
+            return false;
+        }
+    }
+
+    private void cacheResult(ConanProcess process) {
+        ProcessResultCache cache = getProcessResultCache();
+        if (cache != null && cache.isCached(process)) {
+            cache.putResult(process, getProcessParameters(process));
+        }
+    }
+
+    /**
+     * Starts the given process.  {@link uk.ac.ebi.fgpt.conan.model.AsyncConanProcess}es are dispatched without waiting
+     * for them to complete if a {@link ProcessCompletionListener} has been set; every other process is executed to
+     * completion, and returned as an already completed future.
+     *
+     * @param process    the process to start
+     * @param parameters the parameters to supply to this process
+     * @return the result of the process, which may not yet be complete
+     * @throws ProcessExecutionException if the process failed
+     * @throws InterruptedException      if execution of the process was interrupted
+     */
+    protected ConanProcessFuture startProcess(ConanProcess process, Map<ConanParameter, String> parameters)
+            throws ProcessExecutionException, InterruptedException {
+        if (process instanceof AsyncConanProcess && getProcessCompletionListener() != null) {
+            return ((AsyncConanProcess) process).executeAsync(parameters);
+        }
+        else {
+            return ConanProcessFuture.completed(process.execute(parameters));
+        }
+    }
+
+    private void leaveRunning(ConanProcessFuture result) {
+        final ProcessCompletionListener listener = getProcessCompletionListener();
+        pendingProcess = result;
+        result.addCompletionListener(new Runnable() {
+            public void run() {
+                listener.processCompleted(AbstractConanTask.this);
+            }
+        });
+    }
+
     public void submit() {
         // resubmitting does nothing
         if (!isSubmitted()) {
@@ -278,8 +704,10 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
     }
 
     public void retryLastProcess() {
-        // wind execution index back one
-        currentExecutionIndex--;
+        // wind execution index back one, unless processes run concurrently: then every incomplete process is retried
+        if (!getPipeline().isConcurrent()) {
+            currentExecutionIndex--;
+        }
         // and reset paused flag
         getLog().debug("Retrying task '" + getName() + "', no longer paused");
         this.paused = false;
@@ -361,7 +789,10 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
     protected void fireTaskStartedEvent() {
         if (getCurrentState() == State.SUBMITTED) {
             updateCurrentStatusMessage("Started");
-            this.startDate = new Date();
+            // tasks that waited for a process slot part way through have already started
+            if (this.startDate == null) {
+                this.startDate = new Date();
+            }
         }
         else {
             updateCurrentStatusMessage("Restarted");
@@ -376,6 +807,17 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
         }
     }
 
+    protected void fireTaskWaitingEvent(ConanProcess process) {
+        getLog().debug("Task " + getId() + " is waiting for a free slot to do " + process.getName());
+        updateCurrentState(State.SUBMITTED);
+        updateCurrentStatusMessage("Waiting to do " + process.getName());
+
+        ConanTaskEvent event = new ConanTaskEvent(this, getCurrentState(), process, null);
+        for (ConanTaskListener listener : getListeners()) {
+            listener.stateChanged(event);
+        }
+    }
+
     protected void fireTaskRecoveryEvent() {
         getLog().debug("Task " + getId() + " was recovered successfully!");
         updateCurrentState(State.RECOVERED);
@@ -449,60 +891,104 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
     protected void fireProcessStartedEvent() {
         getLog().debug("Task " + getId() + " is commencing next process, " + getCurrentProcess().getName() + " " +
                                "(execution index = " + currentExecutionIndex + ")");
+        fireProcessStartedEvent(getCurrentProcess());
+    }
+
+    protected DefaultProcessRun fireProcessStartedEvent(ConanProcess process) {
         updateCurrentState(State.RUNNING);
 
         // create our process run object for the process we're going to execute
-        DefaultProcessRun pr = new DefaultProcessRun(getCurrentProcess().getName(), getSubmitter());
+        DefaultProcessRun pr = new DefaultProcessRun(process.getName(), getSubmitter());
         processRuns.add(pr);
         pr.setStartDate(new Date());
 
-        updateCurrentStatusMessage("Doing " + getCurrentProcess().getName());
-        ConanTaskEvent event = new ConanTaskEvent(this, getCurrentState(), getCurrentProcess(), pr);
+        updateCurrentStatusMessage("Doing " + process.getName());
+        ConanTaskEvent event = new ConanTaskEvent(this, getCurrentState(), process, pr);
         for (ConanTaskListener listener : getListeners()) {
             listener.processStarted(event);
         }
+        return pr;
     }
 
     protected void fireProcessEndedEvent() {
-        getLog().debug("Task " + getId() + " finished its current process");
-        updateCurrentStatusMessage("Finished " + getCurrentProcess().getName());
+        ConanProcess process = getCurrentProcess();
 
         // increment the execution index
         currentExecutionIndex++;
 
-        // get the last process run object, and set it's end date
-        DefaultProcessRun pr = (DefaultProcessRun) processRuns.get(processRuns.size() - 1);
+        // get the last process run object to update
+        fireProcessEndedEvent(process, (DefaultProcessRun) processRuns.get(processRuns.size() - 1));
+    }
+
+    protected void fireProcessEndedEvent(ConanProcess process, DefaultProcessRun pr) {
+        getLog().debug("Task " + getId() + " finished process " + process.getName());
+        updateCurrentStatusMessage("Finished " + process.getName());
+
+        // set the end date of the process run
         pr.setEndDate(new Date());
         pr.setExitValue(0);
         pr.setErrorMessage(null);
 
-        ConanTaskEvent event = new ConanTaskEvent(this, getCurrentState(), getLastProcess(), pr);
+        ConanTaskEvent event = new ConanTaskEvent(this, getCurrentState(), process, pr);
+        for (ConanTaskListener listener : getListeners()) {
+            listener.processEnded(event);
+        }
+    }
+
+    protected void fireProcessSkippedEvent() {
+        ConanProcess process = getCurrentProcess();
+
+        // increment the execution index
+        currentExecutionIndex++;
+
+        // get the last process run object to update
+        fireProcessSkippedEvent(process, (DefaultProcessRun) processRuns.get(processRuns.size() - 1));
+    }
+
+    protected void fireProcessSkippedEvent(ConanProcess process, DefaultProcessRun pr) {
+        getLog().debug("Task " + getId() + " skipped process " + process.getName());
+        updateCurrentStatusMessage("Skipped " + process.getName());
+
+        // skipped process runs end as soon as they start
+        pr.setEndDate(pr.getStartDate());
+        pr.setExitValue(0);
+        pr.setErrorMessage(null);
+        pr.setSkipped(true);
+
+        ConanTaskEvent event = new ConanTaskEvent(this, getCurrentState(), process, pr);
         for (ConanTaskListener listener : getListeners()) {
             listener.processEnded(event);
         }
     }
 
     protected void fireProcessFailedEvent(ProcessExecutionException pex) {
-        updateCurrentStatusMessage("Failed at " + getCurrentProcess().getName());
-        updateCurrentState(State.FAILED);
+        ConanProcess process = getCurrentProcess();
 
         // increment the execution index
         currentExecutionIndex++;
 
-        // get the last process run object, and set it's end date
-        DefaultProcessRun pr = (DefaultProcessRun) processRuns.get(processRuns.size() - 1);
+        // get the last process run object to update
+        fireProcessFailedEvent(process, (DefaultProcessRun) processRuns.get(processRuns.size() - 1), pex);
+    }
+
+    protected void fireProcessFailedEvent(ConanProcess process, DefaultProcessRun pr, ProcessExecutionException pex) {
+        updateCurrentStatusMessage("Failed at " + process.getName());
+        updateCurrentState(State.FAILED);
+
+        // set the end date of the process run
         pr.setEndDate(new Date());
         pr.setExitValue(pex.getExitValue());
         pr.setErrorMessage(pex.getErrorMessage());
 
         ConanTaskEvent event =
-                new ConanTaskEvent(this, getCurrentState(), getLastProcess(), pr, pex);
+                new ConanTaskEvent(this, getCurrentState(), process, pr, pex);
         for (ConanTaskListener listener : getListeners()) {
             listener.processFailed(event);
         }
 
         // log error output
-        getLog().error("Task " + getId() + " failed its current process, exit code " + pex.getExitValue());
+        getLog().error("Task " + getId() + " failed process " + process.getName() + ", " +
+                               "exit code " + pex.getExitValue());
         StringBuilder errorContent = new StringBuilder();
         errorContent.append("Output follows...\n");
         for (String s : pex.getProcessOutput()) {
@@ -512,42 +998,54 @@ public abstract class AbstractConanTask<P extends ConanPipeline> implements Cona
     }
 
     protected void fireProcessFailedEvent(int exitValue) {
-        getLog().debug("Task " + getId() + " failed its current process, exit code " + exitValue);
-        updateCurrentStatusMessage("Failed at " + getCurrentProcess().getName());
-        updateCurrentState(State.FAILED);
+        ConanProcess process = getCurrentProcess();
 
         // increment the execution index
         currentExecutionIndex++;
 
-        // get the last process run object, and set it's end date
-        DefaultProcessRun pr = (DefaultProcessRun) processRuns.get(processRuns.size() - 1);
+        // get the last process run object to update
+        fireProcessFailedEvent(process, (DefaultProcessRun) processRuns.get(processRuns.size() - 1), exitValue);
+    }
+
+    protected void fireProcessFailedEvent(ConanProcess process, DefaultProcessRun pr, int exitValue) {
+        getLog().debug("Task " + getId() + " failed process " + process.getName() + ", exit code " + exitValue);
+        updateCurrentStatusMessage("Failed at " + process.getName());
+        updateCurrentState(State.FAILED);
+
+        // set the end date of the process run
         pr.setEndDate(new Date());
         pr.setExitValue(exitValue);
         pr.setErrorMessage(null);
 
         ConanTaskEvent event =
-                new ConanTaskEvent(this, getCurrentState(), getLastProcess(), pr);
+                new ConanTaskEvent(this, getCurrentState(), process, pr);
         for (ConanTaskListener listener : getListeners()) {
             listener.processFailed(event);
         }
     }
 
     protected void fireProcessInterruptedEvent() {
-        getLog().debug("Task " + getId() + " was interrupted during " + getCurrentProcess().getName());
-        updateCurrentStatusMessage("Killed at " + getCurrentProcess().getName());
-        updateCurrentState(State.FAILED);
+        ConanProcess process = getCurrentProcess();
 
         // increment the execution index
         currentExecutionIndex++;
 
-        // get the last process run object, and set it's end date
-        DefaultProcessRun pr = (DefaultProcessRun) processRuns.get(processRuns.size() - 1);
+        // get the last process run object to update
+        fireProcessInterruptedEvent(process, (DefaultProcessRun) processRuns.get(processRuns.size() - 1));
+    }
+
+    protected void fireProcessInterruptedEvent(ConanProcess process, DefaultProcessRun pr) {
+        getLog().debug("Task " + getId() + " was interrupted during " + process.getName());
+        updateCurrentStatusMessage("Killed at " + process.getName());
+        updateCurrentState(State.FAILED);
+
+        // set the end date of the process run
         pr.setEndDate(new Date());
         pr.setExitValue(1);
         pr.setErrorMessage(null);
 
         ConanTaskEvent event =
-                new ConanTaskEvent(this, getCurrentState(), getLastProcess(), pr);
+                new ConanTaskEvent(this, getCurrentState(), process, pr);
         for (ConanTaskListener listener : getListeners()) {
             listener.processFailed(event);
         }
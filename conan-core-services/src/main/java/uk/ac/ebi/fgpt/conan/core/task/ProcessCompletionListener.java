@@ -0,0 +1,22 @@
+package uk.ac.ebi.fgpt.conan.core.task;
+
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+
+/**
+ * A listener that is notified when an {@link uk.ac.ebi.fgpt.conan.model.AsyncConanProcess} that an {@link
+ * AbstractConanTask} left running in the background has completed.  Implementations should arrange for the task to be
+ * executed again, so that it can pick up the result of this process and continue with the rest of its pipeline.
+ * <p/>
+ * Listeners are called by whichever thread completed the process, so must not block.
+ *
+ * @date 18-Oct-2026
+ */
+public interface ProcessCompletionListener {
+    /**
+     * Called once the process this task left running has completed.
+     *
+     * @param task the task waiting on the process
+     */
+    void processCompleted(ConanTask<? extends ConanPipeline> task);
+}
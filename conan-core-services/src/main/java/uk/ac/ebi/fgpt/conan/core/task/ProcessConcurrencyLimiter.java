@@ -0,0 +1,259 @@
+package uk.ac.ebi.fgpt.conan.core.task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+
+import java.util.*;
+
+/**
+ * Limits the number of processes that can be executing at once, for each pipeline and for each process.  Limits are
+ * keyed by the name of the pipeline or process, and pipelines or processes without a limit are unrestricted.  A task
+ * must acquire a slot from this limiter before it starts each process, and release it once that process ends.
+ * <p/>
+ * Tasks that cannot acquire a slot do not wait for one: they are recorded as waiting, and should stop executing.  Once a
+ * slot they were waiting on is released, every task waiting on it is passed to the {@link SlotListener} so that it can be
+ * executed again.  These tasks then compete for the free slots afresh, and any that miss out will wait again.
+ *
+ * @date 18-Oct-2026
+ */
+public class ProcessConcurrencyLimiter {
+    private final SlotListener slotListener;
+
+    private Map<String, Integer> pipelineLimits;
+    private Map<String, Integer> processLimits;
+
+    // pipeline or process name -> the number of slots in use, and the tasks waiting for one; guarded by this
+    private final Map<String, Integer> pipelinesInUse;
+    private final Map<String, Integer> processesInUse;
+    private final Map<String, Set<ConanTask<? extends ConanPipeline>>> pipelineWaiters;
+    private final Map<String, Set<ConanTask<? extends ConanPipeline>>> processWaiters;
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    public ProcessConcurrencyLimiter(SlotListener slotListener) {
+        Assert.notNull(slotListener, "A SlotListener must be supplied");
+        this.slotListener = slotListener;
+        this.pipelineLimits = Collections.emptyMap();
+        this.processLimits = Collections.emptyMap();
+        this.pipelinesInUse = new HashMap<String, Integer>();
+        this.processesInUse = new HashMap<String, Integer>();
+        this.pipelineWaiters = new HashMap<String, Set<ConanTask<? extends ConanPipeline>>>();
+        this.processWaiters = new HashMap<String, Set<ConanTask<? extends ConanPipeline>>>();
+    }
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    public Map<String, Integer> getPipelineLimits() {
+        return pipelineLimits;
+    }
+
+    /**
+     * Sets the maximum number of processes that may be executing at once for tasks of each pipeline, keyed by pipeline
+     * name.
+     *
+     * @param pipelineLimits the concurrency limit for each pipeline name
+     */
+    public synchronized void setPipelineLimits(Map<String, Integer> pipelineLimits) {
+        this.pipelineLimits = copyLimits(pipelineLimits);
+    }
+
+    public Map<String, Integer> getProcessLimits() {
+        return processLimits;
+    }
+
+    /**
+     * Sets the maximum number of executions of each process that may be running at once, across all tasks and
+     * pipelines, keyed by process name.
+     *
+     * @param processLimits the concurrency limit for each process name
+     */
+    public synchronized void setProcessLimits(Map<String, Integer> processLimits) {
+        this.processLimits = copyLimits(processLimits);
+    }
+
+    /**
+     * Attempts to acquire a slot for the given task to execute the given process.  If there is a free slot for both
+     * the pipeline of this task and the process, the slot is taken and this method returns true.  Otherwise, the task is
+     * recorded as waiting on the limit it could not get past and this method returns false; the task will be passed to
+     * the {@link SlotListener} once a slot is released.
+     *
+     * @param task    the task that wants to execute the process
+     * @param process the process to execute
+     * @return true if a slot was acquired, false if the task must wait
+     */
+    public boolean tryAcquire(ConanTask<? extends ConanPipeline> task, ConanProcess process) {
+        return tryAcquire(task, process, true);
+    }
+
+    /**
+     * Attempts to acquire a slot for the given task to execute the given process, optionally without recording the task
+     * as waiting if there is no free slot.  Tasks that are still running other processes can use this to try again
+     * once one of their own processes ends, rather than being passed to the {@link SlotListener} whilst they are still
+     * executing.
+     *
+     * @param task    the task that wants to execute the process
+     * @param process the process to execute
+     * @param wait    whether to record the task as waiting if no slot is free
+     * @return true if a slot was acquired, false if not
+     */
+    public synchronized boolean tryAcquire(ConanTask<? extends ConanPipeline> task,
+                                           ConanProcess process,
+                                           boolean wait) {
+        if (pipelineLimits.isEmpty() && processLimits.isEmpty()) {
+            return true;
+        }
+
+        String pipelineName = getPipelineName(task);
+        String processName = process.getName();
+        if (!hasFreeSlot(pipelineLimits, pipelinesInUse, pipelineName)) {
+            if (wait) {
+                getLog().debug("Task '" + task.getId() + "' must wait for a free slot " +
+                                       "in pipeline '" + pipelineName + "'");
+                addWaiter(pipelineWaiters, pipelineName, task);
+            }
+            return false;
+        }
+        if (!hasFreeSlot(processLimits, processesInUse, processName)) {
+            if (wait) {
+                getLog().debug("Task '" + task.getId() + "' must wait for a free slot " +
+                                       "for process '" + processName + "'");
+                addWaiter(processWaiters, processName, task);
+            }
+            return false;
+        }
+
+        takeSlot(pipelineLimits, pipelinesInUse, pipelineName);
+        takeSlot(processLimits, processesInUse, processName);
+        return true;
+    }
+
+    /**
+     * Releases the slot acquired by the given task to execute the given process, and passes every task that was waiting
+     * on this pipeline or process to the {@link SlotListener}.  This must be called exactly once for each successful
+     * call to {@link #tryAcquire(uk.ac.ebi.fgpt.conan.model.ConanTask, uk.ac.ebi.fgpt.conan.model.ConanProcess)}, once
+     * the process has ended for any reason.
+     *
+     * @param task    the task that executed the process
+     * @param process the process that was executed
+     */
+    public void release(ConanTask<? extends ConanPipeline> task, ConanProcess process) {
+        List<ConanTask<? extends ConanPipeline>> released = new ArrayList<ConanTask<? extends ConanPipeline>>();
+        synchronized (this) {
+            String pipelineName = getPipelineName(task);
+            String processName = process.getName();
+            if (freeSlot(pipelinesInUse, pipelineName)) {
+                releaseWaiters(pipelineWaiters.remove(pipelineName), released);
+            }
+            if (freeSlot(processesInUse, processName)) {
+                releaseWaiters(processWaiters.remove(processName), released);
+            }
+        }
+
+        // notify outside the lock, as the listener will usually resubmit these tasks
+        for (ConanTask<? extends ConanPipeline> waitingTask : released) {
+            getLog().debug("A slot has been released, task '" + waitingTask.getId() + "' can try again");
+            slotListener.slotAvailable(waitingTask);
+        }
+    }
+
+    /**
+     * Returns the number of tasks that are currently waiting for a free slot.
+     *
+     * @return the number of waiting tasks
+     */
+    public synchronized int getWaitingTaskCount() {
+        Set<ConanTask<? extends ConanPipeline>> waiting = new HashSet<ConanTask<? extends ConanPipeline>>();
+        for (Set<ConanTask<? extends ConanPipeline>> waiters : pipelineWaiters.values()) {
+            waiting.addAll(waiters);
+        }
+        for (Set<ConanTask<? extends ConanPipeline>> waiters : processWaiters.values()) {
+            waiting.addAll(waiters);
+        }
+        return waiting.size();
+    }
+
+    private Map<String, Integer> copyLimits(Map<String, Integer> limits) {
+        if (limits == null) {
+            return Collections.emptyMap();
+        }
+        for (Map.Entry<String, Integer> limit : limits.entrySet()) {
+            Assert.isTrue(limit.getValue() != null && limit.getValue() > 0,
+                          "The concurrency limit for '" + limit.getKey() + "' must be at least one");
+        }
+        return Collections.unmodifiableMap(new HashMap<String, Integer>(limits));
+    }
+
+    private String getPipelineName(ConanTask<? extends ConanPipeline> task) {
+        return task.getPipeline() == null ? null : task.getPipeline().getName();
+    }
+
+    private boolean hasFreeSlot(Map<String, Integer> limits, Map<String, Integer> inUse, String name) {
+        Integer limit = limits.get(name);
+        Integer used = inUse.get(name);
+        return limit == null || used == null || used < limit;
+    }
+
+    private void takeSlot(Map<String, Integer> limits, Map<String, Integer> inUse, String name) {
+        // only count slots for limited pipelines and processes
+        if (limits.containsKey(name)) {
+            Integer used = inUse.get(name);
+            inUse.put(name, used == null ? 1 : used + 1);
+        }
+    }
+
+    private boolean freeSlot(Map<String, Integer> inUse, String name) {
+        Integer used = inUse.get(name);
+        if (used == null) {
+            // this pipeline or process was not limited when the slot was taken
+            return false;
+        }
+        if (used > 1) {
+            inUse.put(name, used - 1);
+        }
+        else {
+            inUse.remove(name);
+        }
+        return true;
+    }
+
+    private void addWaiter(Map<String, Set<ConanTask<? extends ConanPipeline>>> waiters,
+                           String name,
+                           ConanTask<? extends ConanPipeline> task) {
+        Set<ConanTask<? extends ConanPipeline>> waiting = waiters.get(name);
+        if (waiting == null) {
+            waiting = new LinkedHashSet<ConanTask<? extends ConanPipeline>>();
+            waiters.put(name, waiting);
+        }
+        waiting.add(task);
+    }
+
+    private void releaseWaiters(Set<ConanTask<? extends ConanPipeline>> waiting,
+                                List<ConanTask<? extends ConanPipeline>> released) {
+        if (waiting != null) {
+            for (ConanTask<? extends ConanPipeline> task : waiting) {
+                if (!released.contains(task)) {
+                    released.add(task);
+                }
+            }
+        }
+    }
+
+    /**
+     * A listener that is notified when a task that was waiting for a slot in a {@link ProcessConcurrencyLimiter} may be
+     * able to acquire one.  Implementations should arrange for the task to be executed again, without blocking.
+     */
+    public interface SlotListener {
+        /**
+         * Called once a slot this task was waiting on has been released.
+         *
+         * @param task the task that was waiting
+         */
+        void slotAvailable(ConanTask<? extends ConanPipeline> task);
+    }
+}
@@ -0,0 +1,225 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.model.ConanUser;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ConanUserDAO} that decorates another user DAO, caching users retrieved by ID.  Users are looked up by ID
+ * for every task and process run mapped from the database, so caching these lookups avoids repeatedly fetching the
+ * same handful of users.
+ * <p/>
+ * The cache holds at most {@link #getMaxSize()} users, evicting the least recently used first, and each entry expires
+ * {@link #getTimeToLive()} milliseconds after it was loaded.  Saving or deleting a user through this DAO invalidates
+ * that user's entry.  Changes made directly to the underlying datasource, bypassing this DAO, will only be seen once
+ * the cached entry expires.  All other lookups are passed straight through to the decorated DAO.
+ *
+ * @date 18-Oct-2026
+ */
+public class CachingConanUserDAO implements ConanUserDAO {
+    private final Map<String, CachedUser> userCache;
+
+    private ConanUserDAO userDAO;
+
+    private int maxSize = 500;
+    private long timeToLive = 10 * 60 * 1000;
+
+    // incremented on every invalidation, so that lookups racing an invalidation don't re-cache stale users
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    public CachingConanUserDAO() {
+        this.userCache = new LinkedHashMap<String, CachedUser>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                if (size() > getMaxSize()) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                else {
+                    return false;
+                }
+            }
+        };
+    }
+
+    public CachingConanUserDAO(ConanUserDAO userDAO) {
+        this();
+        this.userDAO = userDAO;
+    }
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    public ConanUserDAO getUserDAO() {
+        return userDAO;
+    }
+
+    public void setUserDAO(ConanUserDAO userDAO) {
+        this.userDAO = userDAO;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of users held in the cache.  Defaults to 500.
+     *
+     * @param maxSize the maximum number of cached users
+     */
+    public void setMaxSize(int maxSize) {
+        Assert.isTrue(maxSize > 0, "maxSize must be greater than zero");
+        this.maxSize = maxSize;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Sets the time, in milliseconds, that a user remains cached after it has been loaded.  Defaults to 10 minutes.
+     *
+     * @param timeToLive the cache entry lifetime in milliseconds
+     */
+    public void setTimeToLive(long timeToLive) {
+        Assert.isTrue(timeToLive > 0, "timeToLive must be greater than zero");
+        this.timeToLive = timeToLive;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the proportion of lookups by ID that were served from the cache, or zero if there have been no lookups.
+     *
+     * @return the cache hit ratio
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int getSize() {
+        synchronized (userCache) {
+            return userCache.size();
+        }
+    }
+
+    /**
+     * Discards every cached user
+     */
+    public void clear() {
+        synchronized (userCache) {
+            generation++;
+            userCache.clear();
+        }
+    }
+
+    public ConanUser getUser(String userID) {
+        long loadGeneration;
+        synchronized (userCache) {
+            CachedUser cachedUser = userCache.get(userID);
+            if (cachedUser != null) {
+                if (cachedUser.expires > System.currentTimeMillis()) {
+                    hits.incrementAndGet();
+                    return cachedUser.user;
+                }
+                userCache.remove(userID);
+            }
+            loadGeneration = generation;
+        }
+
+        // load outside the lock, so one slow lookup doesn't hold up every other mapper
+        misses.incrementAndGet();
+        ConanUser user = getUserDAO().getUser(userID);
+        if (user != null) {
+            synchronized (userCache) {
+                if (loadGeneration == generation) {
+                    userCache.put(userID, new CachedUser(user, System.currentTimeMillis() + getTimeToLive()));
+                }
+            }
+        }
+        return user;
+    }
+
+    public Collection<ConanUser> getUsers() {
+        return getUserDAO().getUsers();
+    }
+
+    public ConanUser getUserByRestApiKey(String restApiKey) {
+        return getUserDAO().getUserByRestApiKey(restApiKey);
+    }
+
+    public Collection<ConanUser> getUserByUserName(String userName) {
+        return getUserDAO().getUserByUserName(userName);
+    }
+
+    public Collection<ConanUser> getUserByEmail(String userEmailAddress) {
+        return getUserDAO().getUserByEmail(userEmailAddress);
+    }
+
+    public ConanUser saveUser(ConanUser user) throws IllegalArgumentException {
+        try {
+            return getUserDAO().saveUser(user);
+        }
+        finally {
+            invalidate(user.getId());
+        }
+    }
+
+    public void deleteUser(ConanUser user) {
+        try {
+            getUserDAO().deleteUser(user);
+        }
+        finally {
+            invalidate(user.getId());
+        }
+    }
+
+    /**
+     * Removes the user with the given ID from the cache, if present
+     *
+     * @param userID the ID of the user to invalidate
+     */
+    public void invalidate(String userID) {
+        if (userID != null) {
+            synchronized (userCache) {
+                generation++;
+                userCache.remove(userID);
+            }
+            getLog().trace("Invalidated cached user " + userID);
+        }
+    }
+
+    private static class CachedUser {
+        private final ConanUser user;
+        private final long expires;
+
+        private CachedUser(ConanUser user, long expires) {
+            this.user = user;
+            this.expires = expires;
+        }
+    }
+}
@@ -2,22 +2,36 @@ package uk.ac.ebi.fgpt.conan.dao;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import uk.ac.ebi.fgpt.conan.core.pipeline.DefaultConanPipeline;
 import uk.ac.ebi.fgpt.conan.core.process.DefaultProcessRun;
 import uk.ac.ebi.fgpt.conan.core.task.AbstractConanTask;
 import uk.ac.ebi.fgpt.conan.core.task.ConanTaskListener;
 import uk.ac.ebi.fgpt.conan.core.task.DatabaseRecoveredConanTask;
+import uk.ac.ebi.fgpt.conan.dao.dialect.OracleSQLDialect;
+import uk.ac.ebi.fgpt.conan.dao.dialect.SQLDialect;
+import uk.ac.ebi.fgpt.conan.dao.id.BlockIDAllocator;
+import uk.ac.ebi.fgpt.conan.dao.id.SequenceIDBlockSource;
 import uk.ac.ebi.fgpt.conan.model.*;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -29,20 +43,16 @@ import java.util.*;
  */
 public class DatabaseConanTaskDAO implements ConanTaskDAO {
     /**
-     * SQL queries required for Conan oracle DB
+     * SQL queries required for Conan DB.  Queries that return a single page of results are declared here ordered but
+     * unbounded, and have the paging clause added by the configured {@link SQLDialect}.
      */
-    public static final String SEQUENCE_SELECT =
-            "select SEQ_CONAN.NEXTVAL from dual";
-
     public static final String TASK_SELECT =
             "select ID, NAME, START_DATE, END_DATE, USER_ID, PIPELINE_NAME, PRIORITY, FIRST_PROCESS_INDEX, STATE, STATUS_MESSAGE, CURRENT_EXECUTED_INDEX, CREATION_DATE " +
-                    "from CONAN_TASKS";
+                    "from CONAN_TASKS t";
     public static final String TASK_SELECT_BY_ID = TASK_SELECT + " " +
             "where ID = ?";
     public static final String TASK_SELECT_BY_DATE = TASK_SELECT + " " +
-            "where ROWNUM <= ? and ROWNUM >= ? order by START_DATE";
-    public static final String TASK_SELECT_BY_PARAM = TASK_SELECT + " " +
-            "where ROWNUM <= ? and ROWNUM >= ? order by ?";
+            "order by START_DATE, ID";
     public static final String TASK_SELECT_PENDING = TASK_SELECT + " " +
             "where STATE = 'CREATED' or STATE = 'SUBMITTED' or STATE = 'RECOVERED' or STATE = 'PAUSED' or STATE = 'FAILED'";
     public static final String TASK_SELECT_RUNNING = TASK_SELECT + " " +
@@ -51,26 +61,79 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
             "where (STATE = 'COMPLETED' or STATE = 'ABORTED')";
     public static final String TASK_SELECT_INCOMPLETE = TASK_SELECT + " " +
             "where (STATE != 'COMPLETED' and STATE != 'ABORTED')";
-    public static final String TASK_SELECT_COMPLETED_PAGED =
-            "select ID, NAME, START_DATE, END_DATE, USER_ID, PIPELINE_NAME, PRIORITY, FIRST_PROCESS_INDEX, STATE, STATUS_MESSAGE, CURRENT_EXECUTED_INDEX, CREATION_DATE " +
-                    "from (" + TASK_SELECT + " where (STATE = 'COMPLETED' or STATE = 'ABORTED') order by END_DATE desc) " +
-                    "where ROWNUM <= ? and ROWNUM >= ?";
+    public static final String TASK_SELECT_COMPLETED_BY_END_DATE = TASK_SELECT_COMPLETED + " " +
+            "order by END_DATE desc nulls last, ID desc";
+    // tasks with no end date sort last, as if they ended at the epoch, just as page tokens record them
+    public static final String TASK_SELECT_COMPLETED_AFTER = TASK_SELECT_COMPLETED + " " +
+            "and (nvl(END_DATE, ?) < ? or (nvl(END_DATE, ?) = ? and ID < ?)) " +
+            "order by END_DATE desc nulls last, ID desc";
+    public static final String TASK_SUMMARY_SELECT =
+            "select t.ID, t.NAME, t.START_DATE, t.END_DATE, t.PIPELINE_NAME, t.PRIORITY, t.FIRST_PROCESS_INDEX, t.STATE, t.STATUS_MESSAGE, t.CURRENT_EXECUTED_INDEX, t.CREATION_DATE, " +
+                    "t.USER_ID, u.USER_NAME, u.FIRST_NAME, u.LAST_NAME, u.EMAIL " +
+                    "from CONAN_TASKS t left outer join CONAN_USERS u on u.ID = t.USER_ID";
+    public static final String TASK_SUMMARY_SELECT_PENDING = TASK_SUMMARY_SELECT + " " +
+            "where t.STATE = 'CREATED' or t.STATE = 'SUBMITTED' or t.STATE = 'RECOVERED' or t.STATE = 'PAUSED' or t.STATE = 'FAILED'";
+    public static final String TASK_SUMMARY_SELECT_RUNNING = TASK_SUMMARY_SELECT + " " +
+            "where t.STATE = 'RUNNING'";
+    public static final String TASK_SUMMARY_SELECT_COMPLETED = TASK_SUMMARY_SELECT + " " +
+            "where (t.STATE = 'COMPLETED' or t.STATE = 'ABORTED')";
+    public static final String TASK_SUMMARY_SELECT_COMPLETED_BY_END_DATE = TASK_SUMMARY_SELECT_COMPLETED + " " +
+            "order by t.END_DATE desc nulls last, t.ID desc";
+    public static final String TASK_SUMMARY_SELECT_COMPLETED_AFTER = TASK_SUMMARY_SELECT_COMPLETED + " " +
+            "and (nvl(t.END_DATE, ?) < ? or (nvl(t.END_DATE, ?) = ? and t.ID < ?)) " +
+            "order by t.END_DATE desc nulls last, t.ID desc";
     public static final String TASK_SEARCH_NAME = TASK_SELECT_COMPLETED + " " +
-            "and NAME like ?";
-    public static final String TASK_SEARCH_NAME_USER = TASK_SEARCH_NAME + " " +
-            "and USER_ID = ?";
-    public static final String TASK_SEARCH_NAME_FROM_DATE = TASK_SEARCH_NAME + " " +
-            "and END_DATE > ?";
-    public static final String TASK_SEARCH_NAME_TO_DATE = TASK_SEARCH_NAME + " " +
-            "and END_DATE < ?";
-    public static final String TASK_SEARCH_NAME_FROM_TO_DATE = TASK_SEARCH_NAME_FROM_DATE + " " +
-            "and END_DATE < ?";
-    public static final String TASK_SEARCH_NAME_USER_FROM_DATE = TASK_SEARCH_NAME_USER + " " +
-            "and END_DATE > ?";
-    public static final String TASK_SEARCH_NAME_USER_TO_DATE = TASK_SEARCH_NAME_USER + " " +
-            "and END_DATE < ?";
-    public static final String TASK_SEARCH_NAME_USER_FROM_TO_DATE = TASK_SEARCH_NAME_USER_FROM_DATE + " " +
-            "and END_DATE < ?";
+            "and lower(NAME) like :name";
+    public static final String TASK_SEARCH_IDS = TASK_SELECT_COMPLETED + " " +
+            "and ID in (:taskids)";
+    public static final String TASK_SEARCH_USER_FILTER = " " +
+            "and USER_ID = :userid";
+    public static final String TASK_SEARCH_FROM_DATE_FILTER = " " +
+            "and END_DATE > :fromdate";
+    public static final String TASK_SEARCH_TO_DATE_FILTER = " " +
+            "and END_DATE < :todate";
+    public static final String TASK_QUERY_STATE_FILTER =
+            "t.STATE in (:states)";
+    public static final String TASK_QUERY_PRIORITY_FILTER =
+            "t.PRIORITY in (:priorities)";
+    public static final String TASK_QUERY_PIPELINE_FILTER =
+            "t.PIPELINE_NAME in (:pipelines)";
+    public static final String TASK_QUERY_USER_FILTER =
+            "t.USER_ID in (:userids)";
+    public static final String TASK_QUERY_NAME_FILTER =
+            "lower(t.NAME) like :name";
+    public static final String TASK_QUERY_CREATED_FROM_FILTER =
+            "t.CREATION_DATE >= :createdfrom";
+    public static final String TASK_QUERY_CREATED_TO_FILTER =
+            "t.CREATION_DATE < :createdto";
+    public static final String TASK_QUERY_COMPLETED_FILTER =
+            "(t.STATE = 'COMPLETED' or t.STATE = 'ABORTED')";
+    public static final String TASK_QUERY_COMPLETED_FROM_FILTER =
+            "t.END_DATE >= :completedfrom";
+    public static final String TASK_QUERY_COMPLETED_TO_FILTER =
+            "t.END_DATE < :completedto";
+    // a format, taking the index of the parameter filter to make its parameter names unique
+    public static final String TASK_QUERY_PARAMETER_FILTER =
+            "exists (select 1 from CONAN_PARAMETERS p " +
+                    "where p.TASK_ID = t.ID and p.PARAMETER_NAME = :paramname%1$d and p.PARAMETER_VALUE = :paramvalue%1$d)";
+    public static final String TASK_ARCHIVE_SELECT =
+            "select ID, NAME, START_DATE, END_DATE, USER_ID, PIPELINE_NAME, PRIORITY, FIRST_PROCESS_INDEX, STATE, STATUS_MESSAGE, CURRENT_EXECUTED_INDEX, CREATION_DATE " +
+                    "from CONAN_TASKS_ARCHIVE";
+    public static final String TASK_ARCHIVE_SELECT_BY_ID = TASK_ARCHIVE_SELECT + " " +
+            "where ID = ?";
+    public static final String TASK_ARCHIVE_SEARCH_NAME = TASK_ARCHIVE_SELECT + " " +
+            "where lower(NAME) like :name";
+    public static final String TASK_ARCHIVE_SEARCH_IDS = TASK_ARCHIVE_SELECT + " " +
+            "where ID in (:taskids)";
+    public static final String TASK_NAME_SELECT =
+            "select ID, NAME from CONAN_TASKS";
+    public static final String TASK_NAME_SELECT_BY_PREFIX =
+            "select distinct NAME from CONAN_TASKS where lower(NAME) like ? order by NAME";
+    public static final String TASK_NAME_SELECT_WITH_ARCHIVE = TASK_NAME_SELECT + " " +
+            "union all select ID, NAME from CONAN_TASKS_ARCHIVE";
+    public static final String TASK_NAME_SELECT_BY_PREFIX_WITH_ARCHIVE =
+            "select NAME from CONAN_TASKS where lower(NAME) like ? " +
+                    "union select NAME from CONAN_TASKS_ARCHIVE where lower(NAME) like ? order by NAME";
     public static final String TASK_INSERT =
             "insert into CONAN_TASKS (" +
                     "ID, NAME, START_DATE, END_DATE, USER_ID, PIPELINE_NAME, PRIORITY, FIRST_PROCESS_INDEX, STATE, STATUS_MESSAGE, CURRENT_EXECUTED_INDEX, CREATION_DATE) " +
@@ -81,34 +144,37 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
                     "where ID = ?";
 
     public static final String PROCESS_SELECT =
-            "select ID, NAME, START_DATE, END_DATE, USER_ID, EXIT_CODE, TASK_ID " +
+            "select ID, NAME, START_DATE, END_DATE, USER_ID, EXIT_CODE, TASK_ID, SKIPPED " +
                     "from CONAN_PROCESSES";
     public static final String PROCESS_SELECT_BY_TASK_ID = PROCESS_SELECT + " " +
             "where TASK_ID = ?";
     public static final String PROCESS_SELECT_BY_TASKS = PROCESS_SELECT + " " +
             "where TASK_ID in (:taskids)";
     public static final String PROCESS_SELECT_FOR_PENDING_TASKS =
-            "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID " +
+            "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID, p.SKIPPED " +
                     "from CONAN_PROCESSES p, CONAN_TASKS t " +
                     "where p.TASK_ID = t.ID and (t.STATE = 'CREATED' or t.STATE = 'SUBMITTED' or t.STATE = 'RECOVERED' or t.STATE = 'PAUSED' or t.STATE = 'FAILED')";
     public static final String PROCESS_SELECT_FOR_RUNNING_TASKS =
-            "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID " +
+            "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID, p.SKIPPED " +
                     "from CONAN_PROCESSES p, CONAN_TASKS t " +
                     "where p.TASK_ID = t.ID and t.STATE = 'RUNNING'";
     public static final String PROCESS_SELECT_FOR_COMPLETED_TASKS =
-            "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID " +
+            "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID, p.SKIPPED " +
                     "from CONAN_PROCESSES p, CONAN_TASKS t " +
                     "where p.TASK_ID = t.ID and (t.STATE = 'COMPLETED' or t.STATE = 'ABORTED')";
     public static final String PROCESS_SELECT_FOR_OTHER_TASKS =
-        "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID " +
+        "select p.ID, p.NAME, p.START_DATE, p.END_DATE, p.USER_ID, p.EXIT_CODE, p.TASK_ID, p.SKIPPED " +
                 "from CONAN_PROCESSES p, CONAN_TASKS t " +
                 "where p.TASK_ID = t.ID and t.STATE != 'COMPLETED' and t.STATE != 'ABORTED' and t.STATE != 'RUNNING' and t.STATE = 'CREATED' and t.STATE = 'SUBMITTED' and t.STATE = 'RECOVERED' and t.STATE = 'PAUSED' and t.STATE = 'FAILED'";
+    public static final String PROCESS_ARCHIVE_SELECT_BY_TASK_ID =
+            "select ID, NAME, START_DATE, END_DATE, USER_ID, EXIT_CODE, TASK_ID, SKIPPED " +
+                    "from CONAN_PROCESSES_ARCHIVE where TASK_ID = ?";
     public static final String PROCESS_INSERT =
             "insert into CONAN_PROCESSES (" +
-                    "ID, NAME, START_DATE, END_DATE, USER_ID, EXIT_CODE, TASK_ID, ERROR_MESSAGE) " +
-                    "values (?, ?, ?, ?, ?, ?, ?, ?)";
+                    "ID, NAME, START_DATE, END_DATE, USER_ID, EXIT_CODE, TASK_ID, ERROR_MESSAGE, SKIPPED) " +
+                    "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
     public static final String PROCESS_UPDATE =
-            "update CONAN_PROCESSES set NAME = ?, START_DATE = ?, END_DATE = ?, USER_ID = ?, EXIT_CODE = ?, TASK_ID = ?, ERROR_MESSAGE = ? " +
+            "update CONAN_PROCESSES set NAME = ?, START_DATE = ?, END_DATE = ?, USER_ID = ?, EXIT_CODE = ?, TASK_ID = ?, ERROR_MESSAGE = ?, SKIPPED = ? " +
                     "where ID = ?";
 
     public static final String PARAMETER_SELECT =
@@ -134,21 +200,53 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         "select p.ID, p.PARAMETER_NAME, p.PARAMETER_VALUE, p.TASK_ID " +
                 "from CONAN_PARAMETERS p, CONAN_TASKS t " +
                 "where p.TASK_ID = t.ID and t.STATE != 'COMPLETED' and t.STATE != 'ABORTED' and t.STATE != 'RUNNING' and t.STATE = 'CREATED' and t.STATE = 'SUBMITTED' and t.STATE = 'RECOVERED' and t.STATE = 'PAUSED' and t.STATE = 'FAILED'";
+    public static final String PARAMETER_ARCHIVE_SELECT_BY_TASK_ID =
+            "select ID, PARAMETER_NAME, PARAMETER_VALUE, TASK_ID " +
+                    "from CONAN_PARAMETERS_ARCHIVE where TASK_ID = ?";
     public static final String PARAMETER_INSERT =
             "insert into CONAN_PARAMETERS (" +
                     "PARAMETER_NAME, PARAMETER_VALUE, TASK_ID) " +
                     "values (?, ?, ?)";
+    public static final String PARAMETER_UPDATE =
+            "update CONAN_PARAMETERS set PARAMETER_VALUE = ? where ID = ?";
     public static final String PARAMETER_DELETE =
             "delete from CONAN_PARAMETERS where TASK_ID = ?";
+    public static final String PARAMETER_DELETE_BY_ID =
+            "delete from CONAN_PARAMETERS where ID = ?";
+
+    // the ConanTaskOrdering properties, and the column or expression each sorts on, qualified by the CONAN_TASKS alias
+    private static final Map<String, String> propertyToColumnMap;
+
+    static {
+        Map<String, String> map = new HashMap<String, String>();
+        map.put("id", "t.ID");
+        map.put("name", "t.NAME");
+        map.put("pipeline", "t.PIPELINE_NAME");
+        map.put("submitter", "t.USER_ID");
+        map.put("priority", getEnumOrderingExpression("t.PRIORITY", ConanTask.Priority.values()));
+        map.put("currentState", getEnumOrderingExpression("t.STATE", ConanTask.State.values()));
+        map.put("creationDate", "t.CREATION_DATE");
+        map.put("startDate", "t.START_DATE");
+        map.put("completionDate", "t.END_DATE");
+        propertyToColumnMap = Collections.unmodifiableMap(map);
+    }
 
     private ConanPipelineDAO pipelineDAO;
     private ConanUserDAO userDAO;
 
     private JdbcTemplate jdbcTemplate;
 
+    private TransactionTemplate transactionTemplate;
+    private BlockIDAllocator idAllocator;
+    private SQLDialect sqlDialect = new OracleSQLDialect();
+
+    private TaskNameIndex taskNameIndex;
+    private boolean taskNameIndexLoaded;
+
+    private boolean archiveEnabled;
+
     private Set<ConanTaskListener> conanTaskListeners;
 
-    private Map<String, String> propertyToColumnMap;
     private int maxQueryParams = 500;
 
     private Logger log = LoggerFactory.getLogger(getClass());
@@ -174,6 +272,12 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         return userDAO;
     }
 
+    /**
+     * Sets the user DAO used to resolve the submitters of tasks and process runs.  A user is looked up for every row
+     * mapped, so this should normally be a {@link CachingConanUserDAO}.
+     *
+     * @param userDAO the user DAO to resolve users with
+     */
     public void setUserDAO(ConanUserDAO userDAO) {
         this.userDAO = userDAO;
     }
@@ -186,6 +290,117 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    /**
+     * Gets the allocator used to assign IDs to new tasks and process runs.  If none has been set, IDs are reserved in blocks from the
+     * Conan sequence.
+     *
+     * @return the ID allocator for this DAO
+     */
+    public BlockIDAllocator getIDAllocator() {
+        if (idAllocator == null) {
+            Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+            idAllocator = new BlockIDAllocator(new SequenceIDBlockSource(getJdbcTemplate(), getSQLDialect()));
+        }
+        return idAllocator;
+    }
+
+    public void setIDAllocator(BlockIDAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    public SQLDialect getSQLDialect() {
+        return sqlDialect;
+    }
+
+    /**
+     * Sets the dialect used to generate the database specific parts of this DAO's SQL.  Defaults to Oracle.
+     *
+     * @param sqlDialect the SQL dialect of the backing database
+     */
+    public void setSQLDialect(SQLDialect sqlDialect) {
+        Assert.notNull(sqlDialect, "An SQLDialect must be supplied");
+        this.sqlDialect = sqlDialect;
+    }
+
+    /**
+     * Gets the transaction template used to group related writes into a single transaction.  If no transaction manager
+     * has been set explicitly, a {@link DataSourceTransactionManager} over the datasource of the JdbcTemplate is used.
+     *
+     * @return the transaction template for writes
+     */
+    public TransactionTemplate getTransactionTemplate() {
+        if (transactionTemplate == null) {
+            Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+            transactionTemplate =
+                    new TransactionTemplate(new DataSourceTransactionManager(getJdbcTemplate().getDataSource()));
+        }
+        return transactionTemplate;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public int getMaxQueryParams() {
+        return maxQueryParams;
+    }
+
+    /**
+     * Sets the maximum number of bind parameters to use in a single <code>in (...)</code> list when fetching child rows
+     * for a set of tasks.  Oracle limits in lists to 1000 entries, the default is 500.
+     *
+     * @param maxQueryParams the maximum number of IDs to query for at once
+     */
+    public void setMaxQueryParams(int maxQueryParams) {
+        Assert.isTrue(maxQueryParams > 0, "maxQueryParams must be greater than zero");
+        this.maxQueryParams = maxQueryParams;
+    }
+
+    public TaskNameIndex getTaskNameIndex() {
+        return taskNameIndex;
+    }
+
+    /**
+     * Sets an index over task names, used to resolve name searches to task IDs instead of scanning the task table with
+     * <code>like '%...%'</code>.  The index is loaded with the names of every stored task the first time it is needed,
+     * and from then on is kept up to date as tasks are written through this DAO.  Tasks written by other Conan
+     * instances sharing the same database will not be found until this index is reloaded.  If no index is set, name
+     * searches are done by the database.
+     *
+     * @param taskNameIndex the index of task names
+     */
+    public void setTaskNameIndex(TaskNameIndex taskNameIndex) {
+        this.taskNameIndex = taskNameIndex;
+        this.taskNameIndexLoaded = false;
+    }
+
+    /**
+     * Discards the contents of the task name index, if there is one, so that it is reloaded from the database the next
+     * time it is used.
+     */
+    public void reloadTaskNameIndex() {
+        synchronized (this) {
+            taskNameIndexLoaded = false;
+        }
+    }
+
+    public boolean isArchiveEnabled() {
+        return archiveEnabled;
+    }
+
+    /**
+     * Sets whether old tasks may have been moved into the archive tables by a {@link DatabaseTaskArchiver}.  If so,
+     * requests for a task by ID, and searches of completed tasks, fall back to the archive for tasks that are no longer
+     * in the live tables.  All other queries only ever consider live tasks.  Defaults to false.
+     *
+     * @param archiveEnabled whether to include archived tasks in lookups and searches
+     */
+    public void setArchiveEnabled(boolean archiveEnabled) {
+        this.archiveEnabled = archiveEnabled;
+        // archived task names are only indexed when the archive is enabled
+        reloadTaskNameIndex();
+    }
+
     public Set<ConanTaskListener> getConanTaskListeners() {
         return conanTaskListeners;
     }
@@ -200,9 +415,19 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
 
     public ConanTask<? extends ConanPipeline> getTask(String taskID) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        ConanTask<? extends ConanPipeline> taskDB = getJdbcTemplate().queryForObject(TASK_SELECT_BY_ID,
-                                                                                     new Object[]{taskID},
-                                                                                     new ConanTaskMapper());
+        ConanTask<? extends ConanPipeline> taskDB;
+        try {
+            taskDB = getJdbcTemplate().queryForObject(TASK_SELECT_BY_ID,
+                                                      new Object[]{taskID},
+                                                      new ConanTaskMapper());
+        }
+        catch (EmptyResultDataAccessException e) {
+            if (isArchiveEnabled()) {
+                getLog().debug("Task " + taskID + " is not live, looking for it in the archive");
+                return getArchivedTask(taskID);
+            }
+            throw e;
+        }
 
         //additional sets
         List<ConanTask<? extends ConanPipeline>> singleList =
@@ -213,7 +438,25 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         return taskDB;
     }
 
-    public <P extends ConanPipeline> ConanTask<P> saveTask(ConanTask<P> conanTask) {
+    /**
+     * Retrieves a task, with its parameters and process runs, from the archive tables.
+     *
+     * @param taskID the ID of the archived task
+     * @return the archived task
+     * @throws EmptyResultDataAccessException if there is no archived task with this ID
+     */
+    protected ConanTask<? extends ConanPipeline> getArchivedTask(String taskID) {
+        ConanTask<? extends ConanPipeline> taskDB = getJdbcTemplate().queryForObject(TASK_ARCHIVE_SELECT_BY_ID,
+                                                                                     new Object[]{taskID},
+                                                                                     new ConanTaskMapper());
+        Map<String, DatabaseRecoveredConanTask> tasksByID = new HashMap<String, DatabaseRecoveredConanTask>();
+        tasksByID.put(taskDB.getId(), (DatabaseRecoveredConanTask) taskDB);
+        getJdbcTemplate().query(PARAMETER_ARCHIVE_SELECT_BY_TASK_ID, new ConanParameterMapper(tasksByID), taskID);
+        getJdbcTemplate().query(PROCESS_ARCHIVE_SELECT_BY_TASK_ID, new ConanProcessMapper(tasksByID), taskID);
+        return taskDB;
+    }
+
+    public <P extends ConanPipeline> ConanTask<P> saveTask(final ConanTask<P> conanTask) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
         if (conanTask.getSubmitter().getId() == null) {
             userDAO.saveUser(conanTask.getSubmitter());
@@ -228,62 +471,232 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
             firstExecutedIndex = 0;
         }
 
-        if (conanTask.getId() == null) {
-            int taskID = getJdbcTemplate().queryForInt(SEQUENCE_SELECT);
-            getJdbcTemplate().update(TASK_INSERT,
-                                     taskID,
-                                     conanTask.getName(),
-                                     javaDateToSQLDate(conanTask.getStartDate()),
-                                     javaDateToSQLDate(conanTask.getCompletionDate()),
-                                     conanTask.getSubmitter().getId(),
-                                     conanTask.getPipeline().getName(),
-                                     conanTask.getPriority().toString(),
-                                     firstExecutedIndex,
-                                     conanTask.getCurrentState().toString(),
-                                     conanTask.getStatusMessage(),
-                                     currentExecutedIndex,
-                                     javaDateToSQLDate(conanTask.getCreationDate()));
-            conanTask.setId(Integer.toString(taskID));
-            //save parameters
-            Map<ConanParameter, String> params = conanTask.getParameterValues();
-            for (ConanParameter conanParameter : params.keySet()) {
-                getJdbcTemplate().update(PARAMETER_INSERT,
-                                         conanParameter.getName(),
-                                         params.get(conanParameter),
-                                         taskID);
+        final int currentIndex = currentExecutedIndex;
+        final int firstIndex = firstExecutedIndex;
+        // write the task row and its parameters together, so we never leave a task with a partial set of parameters
+        getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                if (conanTask.getId() == null) {
+                    long taskID = getIDAllocator().nextID();
+                    getJdbcTemplate().update(TASK_INSERT,
+                                             taskID,
+                                             conanTask.getName(),
+                                             javaDateToSQLDate(conanTask.getStartDate()),
+                                             javaDateToSQLDate(conanTask.getCompletionDate()),
+                                             conanTask.getSubmitter().getId(),
+                                             conanTask.getPipeline().getName(),
+                                             conanTask.getPriority().toString(),
+                                             firstIndex,
+                                             conanTask.getCurrentState().toString(),
+                                             conanTask.getStatusMessage(),
+                                             currentIndex,
+                                             javaDateToSQLDate(conanTask.getCreationDate()));
+                    conanTask.setId(Long.toString(taskID));
+                    //save parameters
+                    insertParameters(conanTask.getId(), conanTask.getParameterValues());
+                }
+                else {
+                    getJdbcTemplate().update(TASK_UPDATE,
+                                             conanTask.getName(),
+                                             javaDateToSQLDate(conanTask.getStartDate()),
+                                             javaDateToSQLDate(conanTask.getCompletionDate()),
+                                             conanTask.getSubmitter().getId(),
+                                             conanTask.getPipeline().getName(),
+                                             conanTask.getPriority().toString(),
+                                             firstIndex,
+                                             conanTask.getCurrentState().toString(),
+                                             conanTask.getStatusMessage(),
+                                             currentIndex,
+                                             javaDateToSQLDate(conanTask.getCreationDate()),
+                                             conanTask.getId());
+                    //only write parameters that have changed
+                    synchronizeParameters(conanTask.getId(), conanTask.getParameterValues());
+                }
             }
+        });
+        indexTaskName(conanTask);
+        return conanTask;
+    }
 
+    /**
+     * Inserts all the given parameter values for a new task as a single JDBC batch.
+     *
+     * @param taskID the ID of the task these parameters belong to
+     * @param params the parameter values to insert
+     */
+    protected void insertParameters(String taskID, Map<ConanParameter, String> params) {
+        if (params == null || params.isEmpty()) {
+            return;
         }
-        else {
-            getJdbcTemplate().update(TASK_UPDATE,
-                                     conanTask.getName(),
-                                     javaDateToSQLDate(conanTask.getStartDate()),
-                                     javaDateToSQLDate(conanTask.getCompletionDate()),
-                                     conanTask.getSubmitter().getId(),
-                                     conanTask.getPipeline().getName(),
-                                     conanTask.getPriority().toString(),
-                                     firstExecutedIndex,
-                                     conanTask.getCurrentState().toString(),
-                                     conanTask.getStatusMessage(),
-                                     currentExecutedIndex,
-                                     javaDateToSQLDate(conanTask.getCreationDate()),
-                                     conanTask.getId());
-            //delete and save parameters
-            getJdbcTemplate().update(PARAMETER_DELETE,
-                                     conanTask.getId());
-            Map<ConanParameter, String> params = conanTask.getParameterValues();
-            for (ConanParameter conanParameter : params.keySet()) {
-                getJdbcTemplate().update(PARAMETER_INSERT,
-                                         conanParameter.getName(), params.get(conanParameter), conanTask.getId());
+        List<Object[]> batchArgs = new ArrayList<Object[]>();
+        for (Map.Entry<ConanParameter, String> param : params.entrySet()) {
+            batchArgs.add(new Object[]{param.getKey().getName(), param.getValue(), taskID});
+        }
+        getJdbcTemplate().batchUpdate(PARAMETER_INSERT, batchArgs);
+    }
+
+    /**
+     * Brings the stored parameters of an existing task in line with the given parameter values.  The stored rows are
+     * read once and compared by parameter name, and then only the rows that differ are inserted, updated or deleted,
+     * with each kind of change sent as a single JDBC batch.  If nothing has changed, no writes are issued at all.
+     *
+     * @param taskID the ID of the task these parameters belong to
+     * @param params the current parameter values of the task
+     */
+    protected void synchronizeParameters(String taskID, Map<ConanParameter, String> params) {
+        // index the values we want to end up with by name
+        Map<String, String> wanted = new HashMap<String, String>();
+        if (params != null) {
+            for (Map.Entry<ConanParameter, String> param : params.entrySet()) {
+                wanted.put(param.getKey().getName(), param.getValue());
+            }
+        }
+
+        // read what we've already got
+        List<DatabaseConanParameter> stored = getJdbcTemplate().query(PARAMETER_SELECT_BY_TASK_ID,
+                                                                      new StoredParameterMapper(),
+                                                                      taskID);
+
+        List<Object[]> updates = new ArrayList<Object[]>();
+        List<Object[]> deletes = new ArrayList<Object[]>();
+        Set<String> seen = new HashSet<String>();
+        for (DatabaseConanParameter storedParam : stored) {
+            String name = storedParam.getName();
+            if (!wanted.containsKey(name) || !seen.add(name)) {
+                // no longer a parameter of this task, or a duplicate row for this name
+                deletes.add(new Object[]{storedParam.getID()});
+            }
+            else if (!ObjectUtils.nullSafeEquals(wanted.get(name), storedParam.getValue())) {
+                updates.add(new Object[]{wanted.get(name), storedParam.getID()});
+            }
+        }
+        List<Object[]> inserts = new ArrayList<Object[]>();
+        for (Map.Entry<String, String> param : wanted.entrySet()) {
+            if (!seen.contains(param.getKey())) {
+                inserts.add(new Object[]{param.getKey(), param.getValue(), taskID});
             }
+        }
 
+        if (!deletes.isEmpty()) {
+            getJdbcTemplate().batchUpdate(PARAMETER_DELETE_BY_ID, deletes);
         }
-        return conanTask;
+        if (!updates.isEmpty()) {
+            getJdbcTemplate().batchUpdate(PARAMETER_UPDATE, updates);
+        }
+        if (!inserts.isEmpty()) {
+            getJdbcTemplate().batchUpdate(PARAMETER_INSERT, inserts);
+        }
+        getLog().trace("Synchronized parameters for task " + taskID + ": " + inserts.size() + " inserted, " +
+                               updates.size() + " updated, " + deletes.size() + " deleted");
     }
 
     public <P extends ConanPipeline> ConanTask<P> updateTask(ConanTask<P> conanTask)
             throws IllegalArgumentException {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        getJdbcTemplate().update(TASK_UPDATE, getTaskUpdateArgs(conanTask));
+        indexTaskName(conanTask);
+        return conanTask;
+    }
+
+    public void writeTaskUpdates(List<ConanTask<? extends ConanPipeline>> conanTasks,
+                                 Map<String, List<ConanProcessRun>> processRuns)
+            throws IllegalArgumentException {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+
+        final List<Object[]> taskUpdates = new ArrayList<Object[]>();
+        for (ConanTask<? extends ConanPipeline> conanTask : conanTasks) {
+            taskUpdates.add(getTaskUpdateArgs(conanTask));
+        }
+
+        // process runs are only given IDs once the batch has committed
+        final List<Object[]> processInserts = new ArrayList<Object[]>();
+        final List<Object[]> processUpdates = new ArrayList<Object[]>();
+        final Map<ConanProcessRun, Long> newProcessRunIDs = new IdentityHashMap<ConanProcessRun, Long>();
+        for (Map.Entry<String, List<ConanProcessRun>> entry : processRuns.entrySet()) {
+            for (ConanProcessRun conanProcessRun : entry.getValue()) {
+                if (conanProcessRun.getUser().getId() == null) {
+                    userDAO.saveUser(conanProcessRun.getUser());
+                }
+
+                if (conanProcessRun.getId() == null) {
+                    long processRunID = getIDAllocator().nextID();
+                    newProcessRunIDs.put(conanProcessRun, processRunID);
+                    processInserts.add(getProcessInsertArgs(processRunID, entry.getKey(), conanProcessRun));
+                }
+                else {
+                    processUpdates.add(getProcessUpdateArgs(entry.getKey(), conanProcessRun));
+                }
+            }
+        }
+
+        getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+            @Override protected void doInTransactionWithoutResult(TransactionStatus status) {
+                if (!taskUpdates.isEmpty()) {
+                    getJdbcTemplate().batchUpdate(TASK_UPDATE, taskUpdates);
+                }
+                if (!processInserts.isEmpty()) {
+                    getJdbcTemplate().batchUpdate(PROCESS_INSERT, processInserts);
+                }
+                if (!processUpdates.isEmpty()) {
+                    getJdbcTemplate().batchUpdate(PROCESS_UPDATE, processUpdates);
+                }
+            }
+        });
+
+        for (Map.Entry<ConanProcessRun, Long> entry : newProcessRunIDs.entrySet()) {
+            entry.getKey().setId(Long.toString(entry.getValue()));
+        }
+        for (ConanTask<? extends ConanPipeline> conanTask : conanTasks) {
+            indexTaskName(conanTask);
+        }
+        getLog().trace("Wrote batch of " + taskUpdates.size() + " task updates, " + processInserts.size() + " " +
+                               "new process runs and " + processUpdates.size() + " process run updates");
+    }
+
+    public <P extends ConanPipeline> ConanTask<P> saveProcessRun(
+            String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException {
+        writeProcessRun(conanTaskID, conanProcessRun);
+        return (ConanTask<P>) getTask(conanTaskID);
+    }
+
+    public void writeProcessRun(String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException {
+        writeProcessRunAndReturnID(conanTaskID, conanProcessRun);
+    }
+
+    public String writeProcessRunAndReturnID(String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+
+        if (conanProcessRun.getUser().getId() == null) {
+            userDAO.saveUser(conanProcessRun.getUser());
+        }
+
+        if (conanProcessRun.getId() == null) {
+            long processRunID = getIDAllocator().nextID();
+            getJdbcTemplate().update(PROCESS_INSERT, getProcessInsertArgs(processRunID, conanTaskID, conanProcessRun));
+
+            conanProcessRun.setId(Long.toString(processRunID));
+        }
+        else {
+            int updated = getJdbcTemplate().update(PROCESS_UPDATE, getProcessUpdateArgs(conanTaskID, conanProcessRun));
+            if (updated == 0) {
+                throw new IllegalArgumentException("There is no process run with ID '" + conanProcessRun.getId() + "' " +
+                                                           "to update for task '" + conanTaskID + "'");
+            }
+        }
+
+        return conanProcessRun.getId();
+    }
+
+    /**
+     * Assembles the arguments for {@link #TASK_UPDATE} from the current state of the given task.
+     *
+     * @param conanTask the task being updated
+     * @return the bind arguments, in statement order
+     */
+    private Object[] getTaskUpdateArgs(ConanTask<? extends ConanPipeline> conanTask) {
         // current position
         int currentExecutedIndex;
         if (conanTask.getCurrentProcess() != null) {
@@ -305,60 +718,42 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
             firstExecutedIndex = 0;
         }
 
-        getJdbcTemplate().update(TASK_UPDATE,
-                                 conanTask.getName(),
-                                 javaDateToSQLDate(conanTask.getStartDate()),
-                                 javaDateToSQLDate(conanTask.getCompletionDate()),
-                                 conanTask.getSubmitter().getId(),
-                                 conanTask.getPipeline().getName(),
-                                 conanTask.getPriority().toString(),
-                                 firstExecutedIndex,
-                                 conanTask.getCurrentState().toString(),
-                                 conanTask.getStatusMessage(),
-                                 currentExecutedIndex,
-                                 javaDateToSQLDate(conanTask.getCreationDate()),
-                                 conanTask.getId());
-
-        return conanTask;
+        return new Object[]{conanTask.getName(),
+                            javaDateToSQLDate(conanTask.getStartDate()),
+                            javaDateToSQLDate(conanTask.getCompletionDate()),
+                            conanTask.getSubmitter().getId(),
+                            conanTask.getPipeline().getName(),
+                            conanTask.getPriority().toString(),
+                            firstExecutedIndex,
+                            conanTask.getCurrentState().toString(),
+                            conanTask.getStatusMessage(),
+                            currentExecutedIndex,
+                            javaDateToSQLDate(conanTask.getCreationDate()),
+                            conanTask.getId()};
     }
 
-    public <P extends ConanPipeline> ConanTask<P> saveProcessRun(
-            String conanTaskID, ConanProcessRun conanProcessRun)
-            throws IllegalArgumentException {
-        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-
-        ConanTask taskDB = getTask(conanTaskID);
-        if (conanProcessRun.getUser().getId() == null) {
-            userDAO.saveUser(conanProcessRun.getUser());
-        }
-
-        if (conanProcessRun.getId() == null) {
-            int processRunID = getJdbcTemplate().queryForInt(SEQUENCE_SELECT);
-            getJdbcTemplate().update(PROCESS_INSERT,
-                                     processRunID,
-                                     conanProcessRun.getProcessName(),
-                                     javaDateToSQLDate(conanProcessRun.getStartDate()),
-                                     javaDateToSQLDate(conanProcessRun.getEndDate()),
-                                     conanProcessRun.getUser().getId(),
-                                     conanProcessRun.getExitValue(),
-                                     conanTaskID,
-                                     conanProcessRun.getErrorMessage());
-
-            conanProcessRun.setId(Integer.toString(processRunID));
-        }
-        else {
-            getJdbcTemplate().update(PROCESS_UPDATE,
-                                     conanProcessRun.getProcessName(),
-                                     javaDateToSQLDate(conanProcessRun.getStartDate()),
-                                     javaDateToSQLDate(conanProcessRun.getEndDate()),
-                                     conanProcessRun.getUser().getId(),
-                                     conanProcessRun.getExitValue(),
-                                     conanTaskID,
-                                     conanProcessRun.getErrorMessage(),
-                                     conanProcessRun.getId());
-        }
+    private Object[] getProcessInsertArgs(long processRunID, String conanTaskID, ConanProcessRun conanProcessRun) {
+        return new Object[]{processRunID,
+                            conanProcessRun.getProcessName(),
+                            javaDateToSQLDate(conanProcessRun.getStartDate()),
+                            javaDateToSQLDate(conanProcessRun.getEndDate()),
+                            conanProcessRun.getUser().getId(),
+                            conanProcessRun.getExitValue(),
+                            conanTaskID,
+                            conanProcessRun.getErrorMessage(),
+                            conanProcessRun.isSkipped() ? 1 : 0};
+    }
 
-        return taskDB;
+    private Object[] getProcessUpdateArgs(String conanTaskID, ConanProcessRun conanProcessRun) {
+        return new Object[]{conanProcessRun.getProcessName(),
+                            javaDateToSQLDate(conanProcessRun.getStartDate()),
+                            javaDateToSQLDate(conanProcessRun.getEndDate()),
+                            conanProcessRun.getUser().getId(),
+                            conanProcessRun.getExitValue(),
+                            conanTaskID,
+                            conanProcessRun.getErrorMessage(),
+                            conanProcessRun.isSkipped() ? 1 : 0,
+                            conanProcessRun.getId()};
     }
 
     public List<ConanTask<? extends ConanPipeline>> getAllTasks() {
@@ -367,23 +762,22 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
                 getJdbcTemplate().query(TASK_SELECT, new ConanTaskMapper());
 
         //additional sets
-        addConanTaskChildren(conanTasks);
+        addConanTaskChildren(conanTasks, TaskType.ALL);
         return conanTasks;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getAllTasksSummary() {
+    public List<ConanTaskSummary> getAllTasksSummary() {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        return getJdbcTemplate().query(TASK_SELECT, new ConanTaskMapper());
+        return getJdbcTemplate().query(TASK_SUMMARY_SELECT, new ConanTaskSummaryMapper());
     }
 
     public List<ConanTask<? extends ConanPipeline>> getAllTasks(int maxRecords, int startingFrom) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
 
         List<ConanTask<? extends ConanPipeline>> conanTasks =
-                getJdbcTemplate().query(TASK_SELECT_BY_DATE,
+                getJdbcTemplate().query(getSQLDialect().getPagedQuery(TASK_SELECT_BY_DATE),
                                         new ConanTaskMapper(),
-                                        startingFrom + maxRecords,
-                                        startingFrom);
+                                        getSQLDialect().getPagingArgs(maxRecords, startingFrom));
 
         //additional sets
         addConanTaskChildren(conanTasks);
@@ -393,16 +787,7 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
     public List<ConanTask<? extends ConanPipeline>> getAllTasks(int maxRecords, int startingFrom, String orderBy) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
 
-        List<ConanTask<? extends ConanPipeline>> conanTasks =
-                getJdbcTemplate().query(TASK_SELECT_BY_PARAM,
-                                        new ConanTaskMapper(),
-                                        startingFrom + maxRecords,
-                                        startingFrom,
-                                        orderBy);
-
-        //additional sets
-        addConanTaskChildren(conanTasks);
-        return conanTasks;
+        return queryOrderedPage(TASK_SELECT, maxRecords, startingFrom, orderBy);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getPendingTasks() {
@@ -415,9 +800,14 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         return conanTasks;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getPendingTasksSummary() {
+    public List<ConanTaskSummary> getPendingTasksSummary() {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        return getJdbcTemplate().query(TASK_SUMMARY_SELECT_PENDING, new ConanTaskSummaryMapper());
+    }
+
+    public List<ConanTask<? extends ConanPipeline>> getPendingTasks(int maxRecords, int startingFrom, String orderBy) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        return getJdbcTemplate().query(TASK_SELECT_PENDING, new ConanTaskMapper());
+        return queryOrderedPage(TASK_SELECT_PENDING, maxRecords, startingFrom, orderBy);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getRunningTasks() {
@@ -430,9 +820,14 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         return conanTasks;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getRunningTasksSummary() {
+    public List<ConanTaskSummary> getRunningTasksSummary() {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        return getJdbcTemplate().query(TASK_SELECT_RUNNING, new ConanTaskMapper());
+        return getJdbcTemplate().query(TASK_SUMMARY_SELECT_RUNNING, new ConanTaskSummaryMapper());
+    }
+
+    public List<ConanTask<? extends ConanPipeline>> getRunningTasks(int maxRecords, int startingFrom, String orderBy) {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        return queryOrderedPage(TASK_SELECT_RUNNING, maxRecords, startingFrom, orderBy);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getCompletedTasks() {
@@ -459,91 +854,120 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         return conanTasks;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary() {
+    public List<ConanTaskSummary> getCompletedTasksSummary() {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        return getJdbcTemplate().query(TASK_SELECT_COMPLETED, new ConanTaskMapper());
+        return getJdbcTemplate().query(TASK_SUMMARY_SELECT_COMPLETED, new ConanTaskSummaryMapper());
     }
 
     public List<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, int startingFrom) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
         List<ConanTask<? extends ConanPipeline>> conanTasks =
-                getJdbcTemplate().query(TASK_SELECT_COMPLETED_PAGED,
+                getJdbcTemplate().query(getSQLDialect().getPagedQuery(TASK_SELECT_COMPLETED_BY_END_DATE),
                                         new ConanTaskMapper(),
-                                        startingFrom + maxRecords,
-                                        startingFrom);
+                                        getSQLDialect().getPagingArgs(maxRecords, startingFrom));
 
-        //additional sets
-        addConanTaskChildren(conanTasks, TaskType.COMPLETED);
+        //additional sets, only for the tasks on this page
+        addConanTaskChildren(conanTasks);
         return conanTasks;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary(int maxRecords, int startingFrom) {
+    public List<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, int startingFrom) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        return getJdbcTemplate().query(TASK_SELECT_COMPLETED_PAGED,
-                                       new ConanTaskMapper(),
-                                       startingFrom + maxRecords,
-                                       startingFrom);
+        return getJdbcTemplate().query(getSQLDialect().getPagedQuery(TASK_SUMMARY_SELECT_COMPLETED_BY_END_DATE),
+                                       new ConanTaskSummaryMapper(),
+                                       getSQLDialect().getPagingArgs(maxRecords, startingFrom));
     }
 
-    public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name) {
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, String pageToken)
+            throws IllegalArgumentException {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> page =
+                ConanTaskPage.fromResults(queryCompletedPage(TASK_SELECT_COMPLETED_BY_END_DATE,
+                                                             TASK_SELECT_COMPLETED_AFTER,
+                                                             new ConanTaskMapper(),
+                                                             maxRecords,
+                                                             pageToken),
+                                          maxRecords);
+
+        //additional sets, only for the tasks on this page
+        addConanTaskChildren(page.getTasks());
+        return page;
+    }
+
+    public ConanTaskPage<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, String pageToken)
+            throws IllegalArgumentException {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        return ConanTaskPage.fromSummaryResults(queryCompletedPage(TASK_SUMMARY_SELECT_COMPLETED_BY_END_DATE,
+                                                                   TASK_SUMMARY_SELECT_COMPLETED_AFTER,
+                                                                   new ConanTaskSummaryMapper(),
+                                                                   maxRecords,
+                                                                   pageToken),
+                                                maxRecords);
+    }
+
+    /**
+     * Runs one of the keyset paging queries for completed tasks, fetching one more row than the page size so that the
+     * caller can tell whether there is another page without counting.
+     */
+    private <T> List<T> queryCompletedPage(String orderedQuery,
+                                           String orderedAfterQuery,
+                                           RowMapper<T> mapper,
+                                           int maxRecords,
+                                           String pageToken) throws IllegalArgumentException {
+        ConanTaskPage.checkPageSize(maxRecords);
+        if (pageToken == null) {
+            return getJdbcTemplate().query(getSQLDialect().getLimitedQuery(orderedQuery), mapper, maxRecords + 1);
+        }
+        else {
+            ConanTaskPage.PageToken token = ConanTaskPage.PageToken.decode(pageToken);
+            Timestamp lastCompletionDate = javaDateToSQLDate(token.getCompletionDate());
+            Timestamp noCompletionDate = javaDateToSQLDate(new Date(0));
+            long lastTaskID;
+            try {
+                lastTaskID = Long.parseLong(token.getTaskID());
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed page token '" + pageToken + "'", e);
+            }
+            return getJdbcTemplate().query(getSQLDialect().getLimitedQuery(orderedAfterQuery),
+                                           mapper,
+                                           noCompletionDate,
+                                           lastCompletionDate,
+                                           noCompletionDate,
+                                           lastCompletionDate,
+                                           lastTaskID,
+                                           maxRecords + 1);
+        }
+    }
+
+    public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name) {
         getLog().debug("Searching completed tasks by task name {" + name + "}");
-        return getJdbcTemplate().query(TASK_SEARCH_NAME,
-                                       new ConanTaskMapper(),
-                                       "%" + name + "%");
+        return searchCompletedTasks(name, null, null, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name, String userID) {
-        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
         getLog().debug("Searching completed tasks by task name and user id {" + name + ", " + userID + "}");
-        return getJdbcTemplate().query(TASK_SEARCH_NAME_USER,
-                                       new ConanTaskMapper(),
-                                       "%" + name + "%",
-                                       userID);
+        return searchCompletedTasks(name, userID, null, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name, Date fromDate) {
-        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
         getLog().debug(
                 "Searching completed tasks by task name and from date {" + name + ", " + fromDate.toString() + "}");
-        return getJdbcTemplate().query(TASK_SEARCH_NAME_FROM_DATE,
-                                       new ConanTaskMapper(),
-                                       "%" + name + "%",
-                                       new java.sql.Date(fromDate.getTime()));
+        return searchCompletedTasks(name, null, fromDate, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name, Date fromDate, Date toDate) {
-        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        if (fromDate == null) {
-            getLog().debug(
-                    "Searching completed tasks by task name and to date {" + name + ", " + toDate.toString() + "}");
-            return getJdbcTemplate().query(TASK_SEARCH_NAME_TO_DATE,
-                                           new ConanTaskMapper(),
-                                           "%" + name + "%",
-                                           new java.sql.Date(toDate.getTime()));
-        }
-        else {
-            getLog().debug("Searching completed tasks by task name, from date and to date {" + name + ", " +
-                                   fromDate.toString() + "," + toDate.toString() + "}");
-            return getJdbcTemplate().query(TASK_SEARCH_NAME_FROM_TO_DATE,
-                                           new ConanTaskMapper(),
-                                           "%" + name + "%",
-                                           new java.sql.Date(fromDate.getTime()),
-                                           new java.sql.Date(toDate.getTime()));
-        }
+        getLog().debug("Searching completed tasks by task name, from date and to date {" + name + ", " +
+                               fromDate + "," + toDate + "}");
+        return searchCompletedTasks(name, null, fromDate, toDate);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name,
                                                                          String userID,
                                                                          Date fromDate) {
-        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
         getLog().debug("Searching completed tasks by task name, user ID and from date {" + name + ", " +
                                userID + "," + fromDate.toString() + "}");
-        return getJdbcTemplate().query(TASK_SEARCH_NAME_USER_FROM_DATE,
-                                       new ConanTaskMapper(),
-                                       userID,
-                                       "%" + name + "%",
-                                       new java.sql.Date(fromDate.getTime()));
+        return searchCompletedTasks(name, userID, fromDate, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name,
@@ -551,24 +975,327 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
                                                                          Date fromDate,
                                                                          Date toDate) {
         Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
-        if (fromDate == null) {
-            getLog().debug("Searching completed tasks by task name, user ID and to date {" + name + ", " +
-                                   userID + "," + toDate.toString() + "}");
-            return getJdbcTemplate().query(TASK_SEARCH_NAME_USER_TO_DATE,
-                                           new ConanTaskMapper(),
-                                           "%" + name + "%",
-                                           userID,
-                                           new java.sql.Date(toDate.getTime()));
+        NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(getJdbcTemplate());
+
+        // optional filters, applied by the database alongside the name match
+        StringBuilder filters = new StringBuilder();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (userID != null) {
+            filters.append(TASK_SEARCH_USER_FILTER);
+            params.addValue("userid", userID);
+        }
+        if (fromDate != null) {
+            filters.append(TASK_SEARCH_FROM_DATE_FILTER);
+            params.addValue("fromdate", javaDateToSQLDate(fromDate));
+        }
+        if (toDate != null) {
+            filters.append(TASK_SEARCH_TO_DATE_FILTER);
+            params.addValue("todate", javaDateToSQLDate(toDate));
+        }
+
+        // keyed by ID, in case a task is archived part way through the search and so is found twice
+        Map<String, ConanTask<? extends ConanPipeline>> conanTasks =
+                new HashMap<String, ConanTask<? extends ConanPipeline>>();
+        TaskNameIndex index = getLoadedTaskNameIndex();
+        if (index == null || name == null || name.length() == 0) {
+            // no index, or nothing to look up in it, so match names in the database
+            params.addValue("name", "%" + (name == null ? "" : name.toLowerCase()) + "%");
+            addTasksByID(conanTasks, namedTemplate.query(TASK_SEARCH_NAME + filters, params, new ConanTaskMapper()));
+            if (isArchiveEnabled()) {
+                addTasksByID(conanTasks, namedTemplate.query(TASK_ARCHIVE_SEARCH_NAME + filters,
+                                                             params,
+                                                             new ConanTaskMapper()));
+            }
+        }
+        else {
+            Set<String> taskIDs = index.findTaskIDs(name);
+            getLog().debug("Task name index matched " + taskIDs.size() + " tasks for '" + name + "'");
+            searchTasksByID(namedTemplate, TASK_SEARCH_IDS + filters, params, taskIDs, conanTasks);
+            if (isArchiveEnabled()) {
+                // only tasks that weren't live can be in the archive
+                Set<String> archivedTaskIDs = new HashSet<String>(taskIDs);
+                archivedTaskIDs.removeAll(conanTasks.keySet());
+                searchTasksByID(namedTemplate, TASK_ARCHIVE_SEARCH_IDS + filters, params, archivedTaskIDs, conanTasks);
+            }
+        }
+
+        List<ConanTask<? extends ConanPipeline>> results =
+                new ArrayList<ConanTask<? extends ConanPipeline>>(conanTasks.values());
+        Collections.sort(results, ConanTaskPage.COMPLETION_ORDER);
+        return results;
+    }
+
+    /**
+     * Runs a search with an <code>ID in (:taskids)</code> clause for the given task IDs, in chunks of no more than
+     * {@link #getMaxQueryParams()}, and adds every task found to the results.
+     */
+    private void searchTasksByID(NamedParameterJdbcTemplate namedTemplate,
+                                 String sql,
+                                 MapSqlParameterSource params,
+                                 Collection<String> taskIDs,
+                                 Map<String, ConanTask<? extends ConanPipeline>> results) {
+        List<String> chunk = new ArrayList<String>();
+        for (String taskID : taskIDs) {
+            chunk.add(taskID);
+            if (chunk.size() == getMaxQueryParams()) {
+                addTasksByID(results,
+                             namedTemplate.query(sql, params.addValue("taskids", chunk), new ConanTaskMapper()));
+                chunk = new ArrayList<String>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            addTasksByID(results, namedTemplate.query(sql, params.addValue("taskids", chunk), new ConanTaskMapper()));
+        }
+    }
+
+    private void addTasksByID(Map<String, ConanTask<? extends ConanPipeline>> results,
+                              List<ConanTask<? extends ConanPipeline>> conanTasks) {
+        for (ConanTask<? extends ConanPipeline> conanTask : conanTasks) {
+            results.put(conanTask.getId(), conanTask);
+        }
+    }
+
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> queryTasks(ConanTaskQuery query)
+            throws IllegalArgumentException {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        getLog().debug("Querying tasks: " + query);
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> page =
+                query.getPage(queryTaskPage(TASK_SELECT, query, new ConanTaskMapper()));
+
+        //additional sets, only for the tasks on this page
+        addConanTaskChildren(page.getTasks());
+        return page;
+    }
+
+    public ConanTaskPage<ConanTaskSummary> queryTasksSummary(ConanTaskQuery query) throws IllegalArgumentException {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        getLog().debug("Querying task summaries: " + query);
+        return query.getSummaryPage(queryTaskPage(TASK_SUMMARY_SELECT, query, new ConanTaskSummaryMapper()));
+    }
+
+    /**
+     * Compiles a task query into a single parameterized SQL statement over the given select, and runs it.  Every filter
+     * becomes a where clause, the page token becomes a keyset condition that seeks past the end of the previous page,
+     * and one more row than the page size is fetched so that the caller can tell whether there is another page.
+     *
+     * @param select the select to filter, which must alias CONAN_TASKS as "t"
+     * @param query  the query to compile
+     * @param mapper the row mapper for the select
+     * @return the tasks on the requested page, plus the first task of the next page if there is one
+     * @throws IllegalArgumentException if the page token of the query is malformed
+     */
+    private <T> List<T> queryTaskPage(String select, ConanTaskQuery query, RowMapper<T> mapper)
+            throws IllegalArgumentException {
+        List<String> filters = new ArrayList<String>();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (query.getStates() != null) {
+            filters.add(TASK_QUERY_STATE_FILTER);
+            params.addValue("states", getNames(query.getStates()));
+        }
+        if (query.getPriorities() != null) {
+            filters.add(TASK_QUERY_PRIORITY_FILTER);
+            params.addValue("priorities", getNames(query.getPriorities()));
+        }
+        if (query.getPipelineNames() != null) {
+            filters.add(TASK_QUERY_PIPELINE_FILTER);
+            params.addValue("pipelines", new ArrayList<String>(query.getPipelineNames()));
+        }
+        if (query.getSubmitterIDs() != null) {
+            filters.add(TASK_QUERY_USER_FILTER);
+            params.addValue("userids", new ArrayList<String>(query.getSubmitterIDs()));
+        }
+        if (query.getName() != null) {
+            filters.add(TASK_QUERY_NAME_FILTER);
+            params.addValue("name", "%" + query.getName().toLowerCase() + "%");
+        }
+        if (query.getCreatedFrom() != null) {
+            filters.add(TASK_QUERY_CREATED_FROM_FILTER);
+            params.addValue("createdfrom", javaDateToSQLDate(query.getCreatedFrom()));
+        }
+        if (query.getCreatedTo() != null) {
+            filters.add(TASK_QUERY_CREATED_TO_FILTER);
+            params.addValue("createdto", javaDateToSQLDate(query.getCreatedTo()));
+        }
+        if (query.getCompletedFrom() != null || query.getCompletedTo() != null) {
+            filters.add(TASK_QUERY_COMPLETED_FILTER);
+            if (query.getCompletedFrom() != null) {
+                filters.add(TASK_QUERY_COMPLETED_FROM_FILTER);
+                params.addValue("completedfrom", javaDateToSQLDate(query.getCompletedFrom()));
+            }
+            if (query.getCompletedTo() != null) {
+                filters.add(TASK_QUERY_COMPLETED_TO_FILTER);
+                params.addValue("completedto", javaDateToSQLDate(query.getCompletedTo()));
+            }
+        }
+        if (query.getParameterValues() != null) {
+            int i = 0;
+            for (Map.Entry<String, String> parameterValue : query.getParameterValues().entrySet()) {
+                filters.add(String.format(TASK_QUERY_PARAMETER_FILTER, i));
+                params.addValue("paramname" + i, parameterValue.getKey());
+                params.addValue("paramvalue" + i, parameterValue.getValue());
+                i++;
+            }
+        }
+
+        String ordering = getOrderingColumnName(query.getOrderBy());
+        ConanTaskQuery.PagePosition position = query.getPagePosition();
+        if (position != null) {
+            filters.add(getKeysetFilter(ordering, position.getSortValue() == null, query.isDescending()));
+            params.addValue("lastid", parseID(position.getTaskID(), query.getPageToken()));
+            if (position.getSortValue() != null) {
+                params.addValue("lastvalue", getSortValueArgument(query, position.getSortValue()));
+            }
+        }
+
+        StringBuilder sql = new StringBuilder(select);
+        for (int i = 0; i < filters.size(); i++) {
+            sql.append(i == 0 ? " where " : " and ").append(filters.get(i));
+        }
+        // the same orderings as the ConanTaskOrdering comparators, reversed for descending queries
+        sql.append(" order by ").append(ordering)
+                .append(query.isDescending() ? " desc nulls last, t.ID desc" : " nulls first, t.ID");
+
+        // expand named parameters, including in lists, so the dialect's positional limit can be added
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql.toString());
+        String positionalSQL = NamedParameterUtils.substituteNamedParameters(parsedSql, params);
+        List<Object> args = new ArrayList<Object>();
+        for (Object value : NamedParameterUtils.buildValueArray(parsedSql, params, null)) {
+            if (value instanceof Collection) {
+                args.addAll((Collection<?>) value);
+            }
+            else {
+                args.add(value);
+            }
+        }
+        args.add(query.getMaxRecords() + 1);
+        return getJdbcTemplate().query(getSQLDialect().getLimitedQuery(positionalSQL), mapper, args.toArray());
+    }
+
+    /**
+     * Gets the condition that selects only rows that sort after the last task of the previous page, given the ordering
+     * expression and whether that task's sort value was null.  Ascending orderings put nulls first, and descending
+     * orderings put them last.
+     */
+    private String getKeysetFilter(String ordering, boolean nullValue, boolean descending) {
+        String comparison = descending ? " < " : " > ";
+        String idFilter = "t.ID" + comparison + ":lastid";
+        if (ordering.equals("t.ID")) {
+            // ordering by ID alone
+            return idFilter;
+        }
+        else if (nullValue) {
+            return descending
+                    ? "(" + ordering + " is null and " + idFilter + ")"
+                    : "((" + ordering + " is null and " + idFilter + ") or " + ordering + " is not null)";
+        }
+        else {
+            String valueFilter = "(" + ordering + comparison + ":lastvalue or " +
+                    "(" + ordering + " = :lastvalue and " + idFilter + ")";
+            return descending ? valueFilter + " or " + ordering + " is null)" : valueFilter + ")";
+        }
+    }
+
+    /**
+     * Converts a sort value decoded from a page token into the value to compare the ordering column or expression with
+     */
+    private Object getSortValueArgument(ConanTaskQuery query, Object sortValue) throws IllegalArgumentException {
+        if (sortValue instanceof Date) {
+            return javaDateToSQLDate((Date) sortValue);
+        }
+        else if (sortValue instanceof Enum) {
+            // enums are ordered by a case expression giving their ordinal
+            return ((Enum<?>) sortValue).ordinal();
+        }
+        else if (query.getOrderBy().equals("submitter")) {
+            return parseID((String) sortValue, query.getPageToken());
         }
         else {
-            getLog().debug("Searching completed tasks by task name, user ID, from date and to date {" + name + ", " +
-                                   userID + ", " + fromDate.toString() + "," + toDate.toString() + "}");
-            return getJdbcTemplate().query(TASK_SEARCH_NAME_USER_FROM_TO_DATE,
-                                           new ConanTaskMapper(),
-                                           "%" + name + "%",
-                                           userID,
-                                           new java.sql.Date(fromDate.getTime()),
-                                           new java.sql.Date(toDate.getTime()));
+            return sortValue;
+        }
+    }
+
+    private long parseID(String id, String pageToken) throws IllegalArgumentException {
+        try {
+            return Long.parseLong(id);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed page token '" + pageToken + "'", e);
+        }
+    }
+
+    private List<String> getNames(Collection<? extends Enum<?>> values) {
+        List<String> names = new ArrayList<String>();
+        for (Enum<?> value : values) {
+            names.add(value.name());
+        }
+        return names;
+    }
+
+    public List<String> getTaskNamesStartingWith(String prefix, int maxResults) {
+        TaskNameIndex index = getLoadedTaskNameIndex();
+        if (index != null) {
+            return index.findNamesStartingWith(prefix, maxResults);
+        }
+        else {
+            Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+            String pattern = prefix.toLowerCase() + "%";
+            if (isArchiveEnabled()) {
+                return getJdbcTemplate().queryForList(
+                        getSQLDialect().getLimitedQuery(TASK_NAME_SELECT_BY_PREFIX_WITH_ARCHIVE),
+                        String.class,
+                        pattern,
+                        pattern,
+                        maxResults);
+            }
+            else {
+                return getJdbcTemplate().queryForList(getSQLDialect().getLimitedQuery(TASK_NAME_SELECT_BY_PREFIX),
+                                                      String.class,
+                                                      pattern,
+                                                      maxResults);
+            }
+        }
+    }
+
+    /**
+     * Gets the task name index, loading it with the names of every stored task if this has not been done already.
+     * Archived tasks are included if the archive is enabled, as they can still be found by name searches.
+     *
+     * @return the loaded task name index, or null if this DAO has no index
+     */
+    protected TaskNameIndex getLoadedTaskNameIndex() {
+        TaskNameIndex index = getTaskNameIndex();
+        if (index != null) {
+            synchronized (this) {
+                if (!taskNameIndexLoaded) {
+                    Assert.notNull(getJdbcTemplate(),
+                                   getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+                    long start = System.currentTimeMillis();
+                    final TaskNameIndex loadingIndex = index;
+                    loadingIndex.clear();
+                    String sql = isArchiveEnabled() ? TASK_NAME_SELECT_WITH_ARCHIVE : TASK_NAME_SELECT;
+                    getJdbcTemplate().query(sql, new RowCallbackHandler() {
+                        public void processRow(ResultSet resultSet) throws SQLException {
+                            loadingIndex.index(resultSet.getString(1), resultSet.getString(2));
+                        }
+                    });
+                    taskNameIndexLoaded = true;
+                    getLog().debug("Loaded " + index.size() + " task names into the task name index in " +
+                                           (System.currentTimeMillis() - start) + "ms");
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Adds the name of a newly written task to the task name index, if there is one.  It doesn't matter whether or not
+     * the index has been loaded yet, as indexing the same task twice has no effect.
+     *
+     * @param conanTask the task that has been written
+     */
+    protected void indexTaskName(ConanTask<? extends ConanPipeline> conanTask) {
+        if (getTaskNameIndex() != null && conanTask.getId() != null) {
+            getTaskNameIndex().index(conanTask.getId(), conanTask.getName());
         }
     }
 
@@ -576,11 +1303,20 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         PENDING,
         RUNNING,
         COMPLETED,
-        OTHER
+        OTHER,
+        SELECTED,
+        ALL
     }
 
+    /**
+     * Adds parameters and process runs to exactly the tasks supplied, fetching children by task ID in batches of at
+     * most {@link #getMaxQueryParams()} IDs.  Use this whenever the list of tasks is a page or a filtered subset, so
+     * that we don't fetch children for every task with the same state.
+     *
+     * @param tasks the tasks to populate
+     */
     protected void addConanTaskChildren(List<ConanTask<? extends ConanPipeline>> tasks) {
-        addConanTaskChildren(tasks, TaskType.OTHER);
+        addConanTaskChildren(tasks, TaskType.SELECTED);
     }
 
     protected void addConanTaskChildren(List<ConanTask<? extends ConanPipeline>> tasks,
@@ -608,12 +1344,19 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         // map of genes and their properties
         ConanParameterMapper parameterMapper = new ConanParameterMapper(tasksByID);
 
+        if (tasksByID.isEmpty()) {
+            // nothing to fetch
+            return;
+        }
         if (tasksByID.entrySet().size() == 1) {
             // only requesting params for a single task, don't fetch all
             getJdbcTemplate().query(PARAMETER_SELECT_BY_TASK_ID, parameterMapper, tasksByID.keySet().iterator().next());
         }
         else {
             switch (type) {
+                case SELECTED:
+                    queryByTaskIDs(PARAMETER_SELECT_BY_TASKS, parameterMapper, tasksByID.keySet());
+                    break;
                 case PENDING:
                     getJdbcTemplate().query(PARAMETER_SELECT_FOR_PENDING_TASKS, parameterMapper);
                     break;
@@ -636,12 +1379,19 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         // map of genes and their properties
         ConanProcessMapper processMapper = new ConanProcessMapper(tasksByID);
 
+        if (tasksByID.isEmpty()) {
+            // nothing to fetch
+            return;
+        }
         if (tasksByID.entrySet().size() == 1) {
             // only requesting processes for a single task, don't fetch all
             getJdbcTemplate().query(PROCESS_SELECT_BY_TASK_ID, processMapper, tasksByID.keySet().iterator().next());
         }
         else {
             switch (type) {
+                case SELECTED:
+                    queryByTaskIDs(PROCESS_SELECT_BY_TASKS, processMapper, tasksByID.keySet());
+                    break;
                 case PENDING:
                     getJdbcTemplate().query(PROCESS_SELECT_FOR_PENDING_TASKS, processMapper);
                     break;
@@ -661,46 +1411,92 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
     }
 
     /**
-     * Gets the column name to use in SQL queries given a task property name
+     * Runs a query with a <code>TASK_ID in (:taskids)</code> clause for the given task IDs, splitting the IDs into
+     * chunks of no more than {@link #getMaxQueryParams()} so as not to exceed database limits on the size of an in
+     * list.
+     *
+     * @param sql     the query to run, which must declare a named parameter "taskids"
+     * @param mapper  the row mapper that attaches results to tasks
+     * @param taskIDs the IDs of the tasks to fetch rows for
+     */
+    protected void queryByTaskIDs(String sql, RowMapper<?> mapper, Collection<String> taskIDs) {
+        NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(getJdbcTemplate());
+        List<String> chunk = new ArrayList<String>();
+        for (String taskID : taskIDs) {
+            chunk.add(taskID);
+            if (chunk.size() == getMaxQueryParams()) {
+                namedTemplate.query(sql, new MapSqlParameterSource("taskids", chunk), mapper);
+                chunk = new ArrayList<String>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            namedTemplate.query(sql, new MapSqlParameterSource("taskids", chunk), mapper);
+        }
+    }
+
+    /**
+     * Fetches one page of the results of a task query, ordered by the given task property, along with the children of
+     * just the tasks on that page.
+     *
+     * @param query        the unordered task query
+     * @param maxRecords   the maximum number of tasks to return
+     * @param startingFrom the first task index to return
+     * @param orderBy      the ConanTask property name to order by
+     * @return the requested page of tasks
+     */
+    private List<ConanTask<? extends ConanPipeline>> queryOrderedPage(String query,
+                                                                      int maxRecords,
+                                                                      int startingFrom,
+                                                                      String orderBy) {
+        // nulls first and ID last, to sort exactly as the ConanTaskOrdering comparators do
+        String orderedQuery = query + " order by " + getOrderingColumnName(orderBy) + " nulls first, t.ID";
+        List<ConanTask<? extends ConanPipeline>> conanTasks =
+                getJdbcTemplate().query(getSQLDialect().getPagedQuery(orderedQuery),
+                                        new ConanTaskMapper(),
+                                        getSQLDialect().getPagingArgs(maxRecords, startingFrom));
+
+        //additional sets, only for the tasks on this page
+        addConanTaskChildren(conanTasks);
+        return conanTasks;
+    }
+
+    /**
+     * Gets the column name, or expression, to use in SQL queries given a task property name.  Only the properties in
+     * {@link ConanTaskOrdering} are mapped, so user supplied property names are never written into SQL; any other
+     * property orders by creation date.
      *
      * @param orderBy the ConanTask property name to order by
      * @return the field name in the database to order by
      */
     private String getOrderingColumnName(String orderBy) {
-        if (propertyToColumnMap == null) {
-            propertyToColumnMap = new HashMap<String, String>();
-            propertyToColumnMap.put("name", "NAME");
-            propertyToColumnMap.put("pipeline", "PIPELINE_NAME");
-            propertyToColumnMap.put("submitter", "USER_ID");
-            propertyToColumnMap.put("completionDate", "END_DATE");
-            propertyToColumnMap.put("priority", "PRIORITY");
-        }
+        return propertyToColumnMap.get(ConanTaskOrdering.isOrderable(orderBy)
+                                               ? orderBy
+                                               : ConanTaskOrdering.DEFAULT_PROPERTY);
+    }
 
-        if (propertyToColumnMap.containsKey(orderBy)) {
-            return propertyToColumnMap.get(orderBy);
-        }
-        else {
-            return "END_DATE";
+    /**
+     * Gets an SQL expression that sorts an enum column in the order the enum values are declared, rather than
+     * alphabetically
+     *
+     * @param column the column holding the enum value names
+     * @param values the enum values, in declared order
+     * @return a case expression giving the ordinal of each value
+     */
+    private static String getEnumOrderingExpression(String column, Enum<?>[] values) {
+        StringBuilder sb = new StringBuilder("case ").append(column);
+        for (Enum<?> value : values) {
+            sb.append(" when '").append(value.name()).append("' then ").append(value.ordinal());
         }
+        return sb.append(" end").toString();
     }
 
     /**
      * Maps database rows to ConanTask objects
      */
     private class ConanTaskMapper implements RowMapper<ConanTask<? extends ConanPipeline>> {
-        private Map<String, ConanUser> userCache = new HashMap<String, ConanUser>();
-
         public ConanTask<? extends ConanPipeline> mapRow(ResultSet resultSet, int i)
                 throws SQLException {
-            ConanUser submitter;
-            String userID = resultSet.getString(5);
-            if (userCache.containsKey(userID)) {
-                submitter = userCache.get(userID);
-            }
-            else {
-                submitter = getUserDAO().getUser(userID);
-                userCache.put(userID, submitter);
-            }
+            ConanUser submitter = getUserDAO().getUser(resultSet.getString(5));
 
             ConanPipeline conanPipeline = getPipelineDAO().getPipeline(resultSet.getString(6));
             if (conanPipeline == null) {
@@ -718,15 +1514,15 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
             task.setName(resultSet.getString(2));
 
             //Dates
-            task.setStartDate(sqlDateToJavaDate(resultSet.getString(3)));
-            task.setCompletionDate(sqlDateToJavaDate(resultSet.getString(4)));
+            task.setStartDate(sqlDateToJavaDate(resultSet.getTimestamp(3)));
+            task.setCompletionDate(sqlDateToJavaDate(resultSet.getTimestamp(4)));
             //State and status message
             task.setCurrentState(ConanTask.State.valueOf(resultSet.getString(9)));
             task.setCurrentStatusMessage(resultSet.getString(10));
             //First process and executed process indexes
             task.setCurrentExecutionIndex(resultSet.getInt(11));
             task.setFirstTaskIndex(resultSet.getInt(8));
-            task.setCreationDate(sqlDateToJavaDate(resultSet.getString(12)));
+            task.setCreationDate(sqlDateToJavaDate(resultSet.getTimestamp(12)));
 
             // register listeners
             registerListeners(task);
@@ -735,37 +1531,74 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         }
     }
 
+    /**
+     * Maps rows from the narrow task summary projection to ConanTaskSummary objects.  Pipelines are only used to name
+     * the processes at the stored execution indices, and no listeners are registered.
+     */
+    private class ConanTaskSummaryMapper implements RowMapper<ConanTaskSummary> {
+        private Map<String, ConanPipeline> pipelines = new HashMap<String, ConanPipeline>();
+
+        public ConanTaskSummary mapRow(ResultSet resultSet, int i) throws SQLException {
+            ConanTaskSummary summary = new ConanTaskSummary();
+            summary.setId(resultSet.getString("ID"));
+            summary.setName(resultSet.getString("NAME"));
+            summary.setPriority(ConanTask.Priority.valueOf(resultSet.getString("PRIORITY")));
+            summary.setCurrentState(ConanTask.State.valueOf(resultSet.getString("STATE")));
+            summary.setStatusMessage(resultSet.getString("STATUS_MESSAGE"));
+            summary.setStartDate(sqlDateToJavaDate(resultSet.getTimestamp("START_DATE")));
+            summary.setCompletionDate(sqlDateToJavaDate(resultSet.getTimestamp("END_DATE")));
+            summary.setCreationDate(sqlDateToJavaDate(resultSet.getTimestamp("CREATION_DATE")));
+            summary.setSubmitter(new ConanTaskSummary.Submitter(resultSet.getString("USER_ID"),
+                                                                resultSet.getString("USER_NAME"),
+                                                                resultSet.getString("FIRST_NAME"),
+                                                                resultSet.getString("LAST_NAME"),
+                                                                resultSet.getString("EMAIL")));
+
+            String pipelineName = resultSet.getString("PIPELINE_NAME");
+            if (!pipelines.containsKey(pipelineName)) {
+                pipelines.put(pipelineName, getPipelineDAO().getPipeline(pipelineName));
+            }
+            ConanPipeline conanPipeline = pipelines.get(pipelineName);
+            List<ConanProcess> processes;
+            if (conanPipeline == null) {
+                // as for full tasks, never leave the pipeline unset
+                summary.setPipeline(new ConanTaskSummary.Reference("Unknown pipeline '" + pipelineName + "'"));
+                processes = Collections.emptyList();
+            }
+            else {
+                summary.setPipeline(new ConanTaskSummary.Reference(pipelineName));
+                processes = conanPipeline.getProcesses();
+            }
+            summary.setExecutionPosition(processes,
+                                         resultSet.getInt("FIRST_PROCESS_INDEX"),
+                                         resultSet.getInt("CURRENT_EXECUTED_INDEX"));
+            return summary;
+        }
+    }
+
     /**
      * Maps database rows to ConanProcess objects, attaching them to one of the supplied tasks where possible
      */
     private class ConanProcessMapper implements RowMapper<ConanProcessRun> {
         private Map<String, DatabaseRecoveredConanTask> tasksByID;
-        private Map<String, ConanUser> userCache = new HashMap<String, ConanUser>();
 
         private ConanProcessMapper(Map<String, DatabaseRecoveredConanTask> tasksByID) {
             this.tasksByID = tasksByID;
         }
 
         public DefaultProcessRun mapRow(ResultSet resultSet, int i) throws SQLException {
-            ConanUser submitter;
-            String userID = resultSet.getString(5);
-            if (userCache.containsKey(userID)) {
-                submitter = userCache.get(userID);
-            }
-            else {
-                submitter = getUserDAO().getUser(userID);
-                userCache.put(userID, submitter);
-            }
+            ConanUser submitter = getUserDAO().getUser(resultSet.getString(5));
 
             String taskID = Long.toString(resultSet.getLong(7));
 
             // build the process
             DefaultProcessRun process = new DefaultProcessRun(resultSet.getString(2),
-                                                              sqlDateToJavaDate(resultSet.getString(3)),
-                                                              sqlDateToJavaDate(resultSet.getString(4)),
+                                                              sqlDateToJavaDate(resultSet.getTimestamp(3)),
+                                                              sqlDateToJavaDate(resultSet.getTimestamp(4)),
                                                               submitter);
             process.setId(resultSet.getString(1));
             process.setExitValue(resultSet.getInt(6));
+            process.setSkipped(resultSet.getInt(8) == 1);
 
             // add to appropriate task
             if (tasksByID.containsKey(taskID)) {
@@ -811,6 +1644,16 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         }
     }
 
+    /**
+     * Maps database rows to ConanParameter objects without attaching them to any task, used to compare stored
+     * parameters with the current values of a task
+     */
+    private class StoredParameterMapper implements RowMapper<DatabaseConanParameter> {
+        public DatabaseConanParameter mapRow(ResultSet resultSet, int i) throws SQLException {
+            return new DatabaseConanParameter(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3));
+        }
+    }
+
     public class DatabaseConanParameter implements ConanParameter {
         private String name;
         private String value;
@@ -844,7 +1687,7 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
             return ID;
         }
 
-        private String getValue() {
+        String getValue() {
             return value;
         }
     }
@@ -856,17 +1699,12 @@ public class DatabaseConanTaskDAO implements ConanTaskDAO {
         return new Timestamp(date.getTime());
     }
 
-    private java.util.Date sqlDateToJavaDate(String date) {
+    private java.util.Date sqlDateToJavaDate(Timestamp date) {
         if (date == null) {
             return null;
         }
-        DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        try {
-            return df.parse(date);
-        }
-        catch (Exception e) {
-            return null;
-        }
+        // keep full millisecond precision, keyset paging relies on dates round-tripping exactly
+        return new java.util.Date(date.getTime());
     }
 
     protected void registerListeners(ConanTask<? extends ConanPipeline> conanTask) {
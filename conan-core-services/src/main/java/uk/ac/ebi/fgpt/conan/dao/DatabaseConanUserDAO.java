@@ -4,7 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.util.Assert;
 import uk.ac.ebi.fgpt.conan.core.user.ConanUserWithPermissions;
+import uk.ac.ebi.fgpt.conan.dao.id.BlockIDAllocator;
+import uk.ac.ebi.fgpt.conan.dao.id.SequenceIDBlockSource;
 import uk.ac.ebi.fgpt.conan.model.ConanUser;
 
 import javax.sql.DataSource;
@@ -20,9 +23,6 @@ import java.util.Collection;
  * @date 27-Oct-2010
  */
 public class DatabaseConanUserDAO implements ConanUserDAO {
-    public static final String SEQUENCE_SELECT =
-            "select SEQ_CONAN.NEXTVAL from dual";
-
     public static final String USER_SELECT =
             "select  ID, USER_NAME, FIRST_NAME, LAST_NAME, EMAIL, RESTAPIKEY, PERMISSIONS " +
                     "from CONAN_USERS";
@@ -47,6 +47,7 @@ public class DatabaseConanUserDAO implements ConanUserDAO {
             "delete from CONAN_USERS where ID = ?";
 
     private JdbcTemplate jdbcTemplate;
+    private BlockIDAllocator idAllocator;
 
     private Logger log = LoggerFactory.getLogger(getClass());
 
@@ -66,6 +67,24 @@ public class DatabaseConanUserDAO implements ConanUserDAO {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    /**
+     * Gets the allocator used to assign IDs to new users.  If none has been set, IDs are reserved in blocks from the
+     * Conan sequence.
+     *
+     * @return the ID allocator for this DAO
+     */
+    public BlockIDAllocator getIDAllocator() {
+        if (idAllocator == null) {
+            Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+            idAllocator = new BlockIDAllocator(new SequenceIDBlockSource(getJdbcTemplate()));
+        }
+        return idAllocator;
+    }
+
+    public void setIDAllocator(BlockIDAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
     public Collection<ConanUser> getUserByUserName(String userName) {
         return getJdbcTemplate().query(USER_SELECT_BY_USERNAME,
                                        new Object[]{userName},
@@ -100,7 +119,7 @@ public class DatabaseConanUserDAO implements ConanUserDAO {
 
         //There is no such user in database
         if (userCheck == 0) {
-            int userID = getJdbcTemplate().queryForInt(SEQUENCE_SELECT);
+            long userID = getIDAllocator().nextID();
             getJdbcTemplate().update(USER_INSERT,
                                      userID,
                                      user.getUserName(),
@@ -110,7 +129,7 @@ public class DatabaseConanUserDAO implements ConanUserDAO {
                                      user.getRestApiKey(),
                                      user.getPermissions().toString());
             if (user instanceof ConanUserWithPermissions) {
-                ((ConanUserWithPermissions) user).setId(Integer.toString(userID));
+                ((ConanUserWithPermissions) user).setId(Long.toString(userID));
             }
             else {
                 getLog().warn("User acquired from database was of unexpected type " +
@@ -0,0 +1,293 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.dao.dialect.OracleSQLDialect;
+import uk.ac.ebi.fgpt.conan.dao.dialect.SQLDialect;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically moves tasks that finished a long time ago out of the live Conan tables and into archive tables, so that
+ * the queries Conan runs to find and recover outstanding work only ever touch a small, recent set of rows.
+ * <p/>
+ * Tasks that have been completed or aborted for more than {@link #getArchiveAfterDays()} days are archived, together
+ * with their parameters and process runs.  Each batch of at most {@link #getBatchSize()} tasks is copied into the
+ * archive and deleted from the live tables in a single transaction, so a task is always in exactly one place, and the
+ * archiver pauses for {@link #getBatchPause()} milliseconds between batches so as not to compete with normal work.
+ * Archived tasks can still be retrieved by ID and found by searches through a {@link DatabaseConanTaskDAO} with
+ * archiving enabled.
+ *
+ * @date 18-Oct-2026
+ */
+public class DatabaseTaskArchiver {
+    public static final String TASK_SELECT_ARCHIVABLE =
+            "select ID from CONAN_TASKS " +
+                    "where (STATE = 'COMPLETED' or STATE = 'ABORTED') and END_DATE < ? " +
+                    "order by END_DATE, ID";
+    public static final String TASK_ARCHIVE_INSERT =
+            "insert into CONAN_TASKS_ARCHIVE (" +
+                    "ID, NAME, START_DATE, END_DATE, USER_ID, PIPELINE_NAME, PRIORITY, FIRST_PROCESS_INDEX, STATE, STATUS_MESSAGE, CURRENT_EXECUTED_INDEX, CREATION_DATE) " +
+                    "select ID, NAME, START_DATE, END_DATE, USER_ID, PIPELINE_NAME, PRIORITY, FIRST_PROCESS_INDEX, STATE, STATUS_MESSAGE, CURRENT_EXECUTED_INDEX, CREATION_DATE " +
+                    "from CONAN_TASKS where ID in (:taskids)";
+    public static final String PROCESS_ARCHIVE_INSERT =
+            "insert into CONAN_PROCESSES_ARCHIVE (" +
+                    "ID, NAME, START_DATE, END_DATE, USER_ID, EXIT_CODE, TASK_ID, ERROR_MESSAGE, SKIPPED) " +
+                    "select ID, NAME, START_DATE, END_DATE, USER_ID, EXIT_CODE, TASK_ID, ERROR_MESSAGE, SKIPPED " +
+                    "from CONAN_PROCESSES where TASK_ID in (:taskids)";
+    public static final String PARAMETER_ARCHIVE_INSERT =
+            "insert into CONAN_PARAMETERS_ARCHIVE (" +
+                    "ID, PARAMETER_NAME, PARAMETER_VALUE, TASK_ID) " +
+                    "select ID, PARAMETER_NAME, PARAMETER_VALUE, TASK_ID " +
+                    "from CONAN_PARAMETERS where TASK_ID in (:taskids)";
+    public static final String TASK_ARCHIVED_DELETE =
+            "delete from CONAN_TASKS where ID in (:taskids)";
+    public static final String PROCESS_ARCHIVED_DELETE =
+            "delete from CONAN_PROCESSES where TASK_ID in (:taskids)";
+    public static final String PARAMETER_ARCHIVED_DELETE =
+            "delete from CONAN_PARAMETERS where TASK_ID in (:taskids)";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SQLDialect sqlDialect = new OracleSQLDialect();
+
+    private int archiveAfterDays = 90;
+    private int batchSize = 100;
+    private long batchPause = 1000;
+    private long archiveInterval = 6 * 60 * 60 * 1000;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean stopped;
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Gets the transaction template used to archive each batch of tasks in a single transaction.  If no transaction
+     * manager has been set explicitly, a {@link DataSourceTransactionManager} over the datasource of the JdbcTemplate
+     * is used.
+     *
+     * @return the transaction template for this archiver
+     */
+    public TransactionTemplate getTransactionTemplate() {
+        if (transactionTemplate == null) {
+            Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+            transactionTemplate =
+                    new TransactionTemplate(new DataSourceTransactionManager(getJdbcTemplate().getDataSource()));
+        }
+        return transactionTemplate;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public SQLDialect getSQLDialect() {
+        return sqlDialect;
+    }
+
+    public void setSQLDialect(SQLDialect sqlDialect) {
+        Assert.notNull(sqlDialect, "An SQLDialect must be supplied");
+        this.sqlDialect = sqlDialect;
+    }
+
+    public int getArchiveAfterDays() {
+        return archiveAfterDays;
+    }
+
+    /**
+     * Sets the number of days after completion that a task is archived.  Defaults to 90.
+     *
+     * @param archiveAfterDays the age, in days, of completed tasks to archive
+     */
+    public void setArchiveAfterDays(int archiveAfterDays) {
+        Assert.isTrue(archiveAfterDays > 0, "archiveAfterDays must be greater than zero");
+        this.archiveAfterDays = archiveAfterDays;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of tasks archived in a single transaction.  Defaults to 100.  On Oracle, this must be no
+     * more than 1000, the limit on the size of an in list.
+     *
+     * @param batchSize the maximum number of tasks per batch
+     */
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero");
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchPause() {
+        return batchPause;
+    }
+
+    /**
+     * Sets the time, in milliseconds, to pause between batches.  Defaults to 1000.
+     *
+     * @param batchPause the pause between batches in milliseconds
+     */
+    public void setBatchPause(long batchPause) {
+        Assert.isTrue(batchPause >= 0, "batchPause must not be negative");
+        this.batchPause = batchPause;
+    }
+
+    public long getArchiveInterval() {
+        return archiveInterval;
+    }
+
+    /**
+     * Sets the time, in milliseconds, between archiving runs.  Defaults to 6 hours.
+     *
+     * @param archiveInterval the interval between archiving runs in milliseconds
+     */
+    public void setArchiveInterval(long archiveInterval) {
+        Assert.isTrue(archiveInterval > 0, "archiveInterval must be greater than zero");
+        this.archiveInterval = archiveInterval;
+    }
+
+    /**
+     * Starts archiving tasks in the background, once every archive interval.
+     */
+    public void init() {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        stopped = false;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "conan-task-archiver");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    archiveTasks();
+                }
+                catch (RuntimeException e) {
+                    // don't let one failure cancel every future run
+                    getLog().error("Failed to archive completed tasks, will retry in " +
+                                           getArchiveInterval() + "ms", e);
+                }
+            }
+        }, getArchiveInterval(), getArchiveInterval(), TimeUnit.MILLISECONDS);
+        getLog().debug("Scheduled archiving of tasks completed more than " + getArchiveAfterDays() + " days ago");
+    }
+
+    /**
+     * Stops archiving tasks.  Any batch in progress is allowed to finish.
+     */
+    public void destroy() {
+        stopped = true;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            }
+            catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Archives every task that has been completed or aborted for longer than the archive period, in batches.  This
+     * normally runs in the background, but may also be called directly.
+     *
+     * @return the number of tasks archived
+     */
+    public int archiveTasks() {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        long start = System.currentTimeMillis();
+        Timestamp cutoff = new Timestamp(start - TimeUnit.DAYS.toMillis(getArchiveAfterDays()));
+        String archivableQuery = getSQLDialect().getLimitedQuery(TASK_SELECT_ARCHIVABLE);
+
+        int archived = 0;
+        while (true) {
+            List<String> taskIDs =
+                    getJdbcTemplate().queryForList(archivableQuery, String.class, cutoff, getBatchSize());
+            if (taskIDs.isEmpty()) {
+                break;
+            }
+            archiveBatch(taskIDs);
+            archived += taskIDs.size();
+            if (taskIDs.size() < getBatchSize() || stopped) {
+                break;
+            }
+
+            // throttle, so that archiving a large backlog doesn't starve normal work
+            try {
+                Thread.sleep(getBatchPause());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (archived > 0) {
+            getLog().info("Archived " + archived + " tasks completed before " + cutoff + " in " +
+                                  (System.currentTimeMillis() - start) + "ms");
+        }
+        return archived;
+    }
+
+    /**
+     * Copies the given tasks, with their parameters and process runs, into the archive tables and removes them from the
+     * live tables, all in one transaction.
+     *
+     * @param taskIDs the IDs of the tasks to archive
+     */
+    protected void archiveBatch(List<String> taskIDs) {
+        final NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(getJdbcTemplate());
+        final MapSqlParameterSource params = new MapSqlParameterSource("taskids", taskIDs);
+        getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+            @Override protected void doInTransactionWithoutResult(TransactionStatus status) {
+                // parents before children on the way in, children before parents on the way out
+                namedTemplate.update(TASK_ARCHIVE_INSERT, params);
+                namedTemplate.update(PROCESS_ARCHIVE_INSERT, params);
+                namedTemplate.update(PARAMETER_ARCHIVE_INSERT, params);
+                namedTemplate.update(PARAMETER_ARCHIVED_DELETE, params);
+                namedTemplate.update(PROCESS_ARCHIVED_DELETE, params);
+                namedTemplate.update(TASK_ARCHIVED_DELETE, params);
+            }
+        });
+        getLog().debug("Archived batch of " + taskIDs.size() + " tasks");
+    }
+}
@@ -6,8 +6,18 @@ import org.springframework.util.Assert;
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
 import uk.ac.ebi.fgpt.conan.model.ConanProcessRun;
 import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskPage;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskQuery;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskSummary;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An implementation of {@link uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO} that uses JDBC to access a database storing Conan
@@ -15,19 +25,86 @@ import java.util.*;
  * <p/>
  * This is a very naive implementation that should not be used in production systems, as all created tasks are stored in
  * memory: if the application even needs to be restarted, all provenance information on created tasks will be lost.
+ * <p/>
+ * Tasks are bucketed by state and indexed by submitter, pipeline and completion date as they are stored, so listing
+ * tasks costs time proportional to the number of tasks returned rather than the number held.
+ * <p/>
+ * Readers never wait for writers.  Tasks and indexes are held in concurrent structures that are only ever modified by
+ * one writer at a time, and a stored task is replaced in place, so a lookup by ID always sees either the old or the new
+ * version of a task.  Pending, running and incomplete task listings are copied from an immutable snapshot of the state
+ * buckets, so they are always consistent; only the first listing after an incomplete task changes takes the write lock,
+ * briefly, to rebuild the snapshot.  Listings of completed tasks read the completion index directly, and may miss a
+ * task whose completion date is changing at that moment.
+ * <p/>
+ * By default every task ever run is loaded at startup and held forever.  In read-through mode (see {@link
+ * #setReadThrough(boolean)}) only incomplete tasks are loaded eagerly: completed tasks are fetched from the persistence
+ * DAO when first requested by ID and held in a least-recently-used cache of at most {@link
+ * #getMaxCachedCompletedTasks()} tasks, and listings or searches of completed tasks are passed straight through to the
+ * persistence DAO.  Startup time and heap then scale with the number of active tasks rather than the size of the task
+ * history.
  *
  * @author Tony Burdett
  * @date 18-Oct-2010
  */
 public class InMemoryConanTaskDAO implements ConanTaskDAO {
-    private final Map<String, ConanTask<? extends ConanPipeline>> allTasks;
+    private final ConcurrentMap<String, ConanTask<? extends ConanPipeline>> allTasks;
+
+    // state -> tasks currently in that state, in the order they entered it; guarded by writeLock
+    private final Map<ConanTask.State, Map<String, ConanTask<? extends ConanPipeline>>> tasksByState;
+    // submitter user ID -> IDs of their tasks
+    private final ConcurrentMap<String, Set<String>> taskIDsByUser;
+    // pipeline name -> IDs of tasks running that pipeline
+    private final ConcurrentMap<String, Set<String>> taskIDsByPipeline;
+    // completed and aborted tasks, most recently completed first
+    private final ConcurrentNavigableMap<CompletionKey, ConanTask<? extends ConanPipeline>> completedTasks;
+    // task ID -> the values that task is currently indexed under
+    private final ConcurrentMap<String, IndexEntry> indexEntries;
+    // IDs of the completed tasks held in read-through mode, least recently used first; guarded by writeLock
+    private final Map<String, Boolean> cachedCompletedTaskIDs;
+
+    // serializes all writers, so each task is moved between indexes by one thread at a time
+    private final ReentrantLock writeLock;
+    // incremented whenever a state bucket changes, marking the current state snapshot as stale
+    private volatile int stateVersion;
+    private volatile StateSnapshot stateSnapshot;
 
     private ConanTaskDAO conanTaskPersistenceDAO;
 
+    private boolean readThrough = false;
+    private int maxCachedCompletedTasks = 1000;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
     private Logger log = LoggerFactory.getLogger(getClass());
 
     public InMemoryConanTaskDAO() {
-        this.allTasks = new HashMap<String, ConanTask<? extends ConanPipeline>>();
+        this.allTasks = new ConcurrentHashMap<String, ConanTask<? extends ConanPipeline>>();
+        this.tasksByState = new EnumMap<ConanTask.State, Map<String, ConanTask<? extends ConanPipeline>>>(
+                ConanTask.State.class);
+        for (ConanTask.State state : ConanTask.State.values()) {
+            tasksByState.put(state, new LinkedHashMap<String, ConanTask<? extends ConanPipeline>>());
+        }
+        this.taskIDsByUser = new ConcurrentHashMap<String, Set<String>>();
+        this.taskIDsByPipeline = new ConcurrentHashMap<String, Set<String>>();
+        this.completedTasks = new ConcurrentSkipListMap<CompletionKey, ConanTask<? extends ConanPipeline>>();
+        this.indexEntries = new ConcurrentHashMap<String, IndexEntry>();
+        this.cachedCompletedTaskIDs = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                if (size() > getMaxCachedCompletedTasks()) {
+                    // always called with the write lock held, from index()
+                    unindex(eldest.getKey());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                else {
+                    return false;
+                }
+            }
+        };
+        this.writeLock = new ReentrantLock();
+        this.stateSnapshot = new StateSnapshot(-1, tasksByState);
     }
 
     protected Logger getLog() {
@@ -43,6 +120,74 @@ public class InMemoryConanTaskDAO implements ConanTaskDAO {
         this.conanTaskPersistenceDAO = conanTaskDAO;
     }
 
+    public boolean isReadThrough() {
+        return readThrough;
+    }
+
+    /**
+     * Sets whether this DAO loads only incomplete tasks at startup, reading completed tasks through from the
+     * persistence DAO on demand.  Defaults to false, in which case every task is loaded at startup.  This must be set
+     * before {@link #init()} is called.
+     *
+     * @param readThrough true to hold only incomplete and recently used completed tasks in memory
+     */
+    public void setReadThrough(boolean readThrough) {
+        this.readThrough = readThrough;
+    }
+
+    public int getMaxCachedCompletedTasks() {
+        return maxCachedCompletedTasks;
+    }
+
+    /**
+     * Sets the maximum number of completed tasks held in memory in read-through mode.  Defaults to 1000.
+     *
+     * @param maxCachedCompletedTasks the maximum number of cached completed tasks
+     */
+    public void setMaxCachedCompletedTasks(int maxCachedCompletedTasks) {
+        Assert.isTrue(maxCachedCompletedTasks > 0, "maxCachedCompletedTasks must be greater than zero");
+        this.maxCachedCompletedTasks = maxCachedCompletedTasks;
+    }
+
+    /**
+     * Gets the number of lookups by ID served from memory.  Hits are only counted in read-through mode, so that normal
+     * lookups don't all contend on a single counter.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the proportion of lookups by ID that were served from memory, or zero if there have been no lookups.
+     *
+     * @return the cache hit ratio
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int getCachedCompletedTaskCount() {
+        writeLock.lock();
+        try {
+            return cachedCompletedTaskIDs.size();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
     public void init() {
         synchronizeInMemoryTasksWithPersistenceDAO();
     }
@@ -52,19 +197,55 @@ public class InMemoryConanTaskDAO implements ConanTaskDAO {
     }
 
     public ConanTask<? extends ConanPipeline> getTask(String taskID) {
-        if (allTasks.containsKey(taskID)) {
-            return allTasks.get(taskID);
+        ConanTask<? extends ConanPipeline> task = allTasks.get(taskID);
+        if (!isReadThrough()) {
+            return task;
+        }
+
+        if (task != null) {
+            hits.incrementAndGet();
+            // refresh this task's position in the cache, unless that would mean waiting for a writer
+            if (writeLock.tryLock()) {
+                try {
+                    cachedCompletedTaskIDs.get(taskID);
+                }
+                finally {
+                    writeLock.unlock();
+                }
+            }
+            return task;
         }
-        // no task with this id if we got to here, so return null
-        return null;
+
+        // not in memory, so this must be a completed task: load it without holding the lock, and cache it
+        misses.incrementAndGet();
+        task = getConanTaskPersistenceDAO().getTask(taskID);
+        if (task != null) {
+            writeLock.lock();
+            try {
+                // prefer any copy stored while we were loading, as it will be the one being updated
+                ConanTask<? extends ConanPipeline> storedTask = allTasks.get(taskID);
+                if (storedTask != null) {
+                    return storedTask;
+                }
+                index(task);
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+        return task;
     }
 
     public <P extends ConanPipeline> ConanTask<P> saveTask(ConanTask<P> newConanTask) {
         // save task to DB
         ConanTask<P> task = getConanTaskPersistenceDAO().saveTask(newConanTask);
         // update object reference
-        synchronized (allTasks) {
-            allTasks.put(task.getId(), task);
+        writeLock.lock();
+        try {
+            index(task);
+        }
+        finally {
+            writeLock.unlock();
         }
         // and return the DB result
         return task;
@@ -75,8 +256,12 @@ public class InMemoryConanTaskDAO implements ConanTaskDAO {
         // update task in DB
         ConanTask<P> task = getConanTaskPersistenceDAO().updateTask(conanTask);
         // update object reference
-        synchronized (allTasks) {
-            allTasks.put(task.getId(), task);
+        writeLock.lock();
+        try {
+            index(task);
+        }
+        finally {
+            writeLock.unlock();
         }
         // and return the DB result
         return task;
@@ -88,154 +273,434 @@ public class InMemoryConanTaskDAO implements ConanTaskDAO {
         // save process run
         ConanTask<P> task = getConanTaskPersistenceDAO().saveProcessRun(conanTaskID, conanProcessRun);
         // update object reference
-        synchronized (allTasks) {
-            allTasks.put(task.getId(), task);
+        writeLock.lock();
+        try {
+            index(task);
+        }
+        finally {
+            writeLock.unlock();
         }
         // and return the db result
         return task;
     }
 
+    public void writeProcessRun(String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException {
+        // the cached task already holds this process run, so there is nothing to refresh
+        getConanTaskPersistenceDAO().writeProcessRun(conanTaskID, conanProcessRun);
+    }
+
+    public String writeProcessRunAndReturnID(String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException {
+        return getConanTaskPersistenceDAO().writeProcessRunAndReturnID(conanTaskID, conanProcessRun);
+    }
+
+    public void writeTaskUpdates(List<ConanTask<? extends ConanPipeline>> conanTasks,
+                                 Map<String, List<ConanProcessRun>> processRuns)
+            throws IllegalArgumentException {
+        getConanTaskPersistenceDAO().writeTaskUpdates(conanTasks, processRuns);
+        // update object references
+        writeLock.lock();
+        try {
+            for (ConanTask<? extends ConanPipeline> conanTask : conanTasks) {
+                index(conanTask);
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name) {
-        return getCompletedTasks();
+        return searchCompletedTasks(name, null, null, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name, String userID) {
-        return getCompletedTasks();
+        return searchCompletedTasks(name, userID, null, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name, Date fromDate) {
-        return getCompletedTasks();
+        return searchCompletedTasks(name, null, fromDate, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name, Date fromDate, Date toDate) {
-        return getCompletedTasks();
+        return searchCompletedTasks(name, null, fromDate, toDate);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name, String userID, Date fromDate) {
-        return getCompletedTasks();
+        return searchCompletedTasks(name, userID, fromDate, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name,
                                                                          String userID,
                                                                          Date fromDate,
                                                                          Date toDate) {
-        return getCompletedTasks();
+        if (isReadThrough()) {
+            return getConanTaskPersistenceDAO().searchCompletedTasks(name, userID, fromDate, toDate);
+        }
+
+        String fragment = name == null ? "" : name.toLowerCase();
+        List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
+        if (userID != null) {
+            // a single user's tasks are usually far fewer than all completed tasks in the date range
+            Set<String> taskIDs = taskIDsByUser.get(userID);
+            if (taskIDs != null) {
+                for (String taskID : taskIDs) {
+                    IndexEntry entry = indexEntries.get(taskID);
+                    CompletionKey key = entry == null ? null : entry.completionKey;
+                    if (key != null && key.isWithin(fromDate, toDate)) {
+                        addIfNameMatches(results, allTasks.get(taskID), fragment);
+                    }
+                }
+            }
+            Collections.sort(results, ConanTaskPage.COMPLETION_ORDER);
+        }
+        else {
+            // seek straight to the end of the date range and walk towards older tasks until we pass the start
+            SortedMap<CompletionKey, ConanTask<? extends ConanPipeline>> range = toDate == null
+                    ? completedTasks
+                    : completedTasks.tailMap(new CompletionKey(toDate.getTime(), null), false);
+            for (Map.Entry<CompletionKey, ConanTask<? extends ConanPipeline>> entry : range.entrySet()) {
+                if (!entry.getKey().isWithin(fromDate, null)) {
+                    break;
+                }
+                addIfNameMatches(results, entry.getValue(), fragment);
+            }
+        }
+        return results;
+    }
+
+    public List<String> getTaskNamesStartingWith(String prefix, int maxResults) {
+        return getConanTaskPersistenceDAO().getTaskNamesStartingWith(prefix, maxResults);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getAllTasks() {
-        List<ConanTask<? extends ConanPipeline>> result = new ArrayList<ConanTask<? extends ConanPipeline>>();
-        synchronized (allTasks) {
-            for (ConanTask<? extends ConanPipeline> task : allTasks.values()) {
-                result.add(task);
-            }
+        if (isReadThrough()) {
+            return getConanTaskPersistenceDAO().getAllTasks();
         }
-        return result;
+
+        return new ArrayList<ConanTask<? extends ConanPipeline>>(allTasks.values());
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getAllTasksSummary() {
+    public List<ConanTaskSummary> getAllTasksSummary() {
         return getConanTaskPersistenceDAO().getAllTasksSummary();
     }
 
     public List<ConanTask<? extends ConanPipeline>> getAllTasks(int maxRecords, int startingFrom) {
-        return getAllTasks().subList(startingFrom, startingFrom + maxRecords);
+        return getAllTasks(maxRecords, startingFrom, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getAllTasks(int maxRecords, int startingFrom, String orderBy) {
-        return getAllTasks().subList(startingFrom, startingFrom + maxRecords);
+        if (isReadThrough()) {
+            return getConanTaskPersistenceDAO().getAllTasks(maxRecords, startingFrom, orderBy);
+        }
+        return getOrderedPage(allTasks.values(), maxRecords, startingFrom, orderBy);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getPendingTasks() {
-        List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
-        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
-            if (task.getCurrentState().compareTo(ConanTask.State.RUNNING) < 0) {
-                results.add(task);
-            }
-        }
-
-        // sort based on most recent first
-        Collections.sort(results, new Comparator<ConanTask<? extends ConanPipeline>>() {
-            public int compare(ConanTask<? extends ConanPipeline> task1, ConanTask<? extends ConanPipeline> task2) {
-                if (task1.getCreationDate().before(task2.getCreationDate())) {
-                    return -1;
-                }
-                else {
-                    if (task1.getCreationDate().after(task2.getCreationDate())) {
-                        return -1;
-                    }
-                    else {
-                        return 0;
-                    }
-                }
-            }
-        });
-        Collections.reverse(results);
-
-        return results;
+        return new ArrayList<ConanTask<? extends ConanPipeline>>(getStateSnapshot().pendingTasks);
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getPendingTasksSummary() {
+    public List<ConanTaskSummary> getPendingTasksSummary() {
         return getConanTaskPersistenceDAO().getPendingTasksSummary();
     }
 
+    public List<ConanTask<? extends ConanPipeline>> getPendingTasks(int maxRecords, int startingFrom, String orderBy) {
+        return getOrderedPage(getStateSnapshot().pendingTasks, maxRecords, startingFrom, orderBy);
+    }
+
     public List<ConanTask<? extends ConanPipeline>> getRunningTasks() {
-        List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
-        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
-            if (task.getCurrentState() == ConanTask.State.RUNNING) {
-                results.add(task);
-            }
-        }
-        return results;
+        return new ArrayList<ConanTask<? extends ConanPipeline>>(getStateSnapshot().runningTasks);
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getRunningTasksSummary() {
+    public List<ConanTaskSummary> getRunningTasksSummary() {
         return getConanTaskPersistenceDAO().getRunningTasksSummary();
     }
 
+    public List<ConanTask<? extends ConanPipeline>> getRunningTasks(int maxRecords, int startingFrom, String orderBy) {
+        return getOrderedPage(getStateSnapshot().runningTasks, maxRecords, startingFrom, orderBy);
+    }
+
     public List<ConanTask<? extends ConanPipeline>> getCompletedTasks() {
+        // TODO - remove this hack which filters out everything older than 72 hours old, replace with sane paging strategy
+        int seventytwoHours = 60 * 60 * 72 * 1000;
+        Date pastDate = new Date(System.currentTimeMillis() - seventytwoHours);
+        if (isReadThrough()) {
+            return getConanTaskPersistenceDAO().searchCompletedTasks("", pastDate);
+        }
+
         List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
-        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
-            if (task.getCurrentState() == ConanTask.State.COMPLETED ||
-                    task.getCurrentState() == ConanTask.State.ABORTED) {
-                // TODO - remove this hack which filters out everything older than 72 hours old, replace with sane paging strategy
-                int seventytwoHours = 60 * 60 * 72 * 1000;
-                Date pastDate = new Date(System.currentTimeMillis() - seventytwoHours);
-                if (task.getCompletionDate().after(pastDate)) {
-                    results.add(task);
-                }
+        // most recent first, so stop at the first task completed too long ago
+        for (Map.Entry<CompletionKey, ConanTask<? extends ConanPipeline>> entry : completedTasks.entrySet()) {
+            if (!entry.getKey().isWithin(pastDate, null)) {
+                break;
             }
+            results.add(entry.getValue());
         }
         return results;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary() {
+    public List<ConanTaskSummary> getCompletedTasksSummary() {
         return getConanTaskPersistenceDAO().getCompletedTasksSummary();
     }
 
     public List<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, int startingFrom) {
+        if (isReadThrough()) {
+            return getConanTaskPersistenceDAO().getCompletedTasks(maxRecords, startingFrom);
+        }
+
+        return getPage(completedTasks.values(), maxRecords, startingFrom);
+    }
+
+    public List<ConanTask<? extends ConanPipeline>> getIncompleteTasks() {
+        return new ArrayList<ConanTask<? extends ConanPipeline>>(getStateSnapshot().incompleteTasks);
+    }
+
+    public List<ConanTask<? extends ConanPipeline>> getIncompleteTasks(int maxRecords, int startingFrom) {
+        List<ConanTask<? extends ConanPipeline>> incompleteTasks = getStateSnapshot().incompleteTasks;
+        int from = Math.min(startingFrom, incompleteTasks.size());
+        int to = (int) Math.min((long) from + maxRecords, incompleteTasks.size());
+        return new ArrayList<ConanTask<? extends ConanPipeline>>(incompleteTasks.subList(from, to));
+    }
+
+    public List<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, int startingFrom) {
+        return ConanTaskSummary.fromTasks(getCompletedTasks(maxRecords, startingFrom));
+    }
+
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, String pageToken)
+            throws IllegalArgumentException {
+        if (isReadThrough()) {
+            return getConanTaskPersistenceDAO().getCompletedTasks(maxRecords, pageToken);
+        }
+
+        ConanTaskPage.PageToken token = pageToken == null ? null : ConanTaskPage.PageToken.decode(pageToken);
+        // the completion index is already in page order, so seek past the token and take the next page
+        SortedMap<CompletionKey, ConanTask<? extends ConanPipeline>> remaining = token == null
+                ? completedTasks
+                : completedTasks.tailMap(new CompletionKey(token.getCompletionDate(), token.getTaskID()), false);
+        List<ConanTask<? extends ConanPipeline>> results = getPage(remaining.values(), maxRecords + 1, 0);
+        return ConanTaskPage.fromResults(results, maxRecords);
+    }
+
+    public ConanTaskPage<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, String pageToken)
+            throws IllegalArgumentException {
+        return getConanTaskPersistenceDAO().getCompletedTasksSummary(maxRecords, pageToken);
+    }
+
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> queryTasks(ConanTaskQuery query)
+            throws IllegalArgumentException {
+        if (isReadThrough() && !query.isIncompleteOnly()) {
+            // only incomplete tasks are guaranteed to be held
+            return getConanTaskPersistenceDAO().queryTasks(query);
+        }
+
         List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
-        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
-            if (task.getCurrentState() == ConanTask.State.COMPLETED ||
-                    task.getCurrentState() == ConanTask.State.ABORTED) {
+        for (ConanTask<? extends ConanPipeline> task : getQueryCandidates(query)) {
+            if (query.matches(task) && query.follows(task)) {
                 results.add(task);
             }
         }
-        if ((startingFrom + maxRecords) > results.size()) {
-            return results;
+        Collections.sort(results, query.getComparator());
+        return query.getPage(getPage(results, query.getMaxRecords() + 1, 0));
+    }
+
+    public ConanTaskPage<ConanTaskSummary> queryTasksSummary(ConanTaskQuery query) throws IllegalArgumentException {
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> page = queryTasks(query);
+        return new ConanTaskPage<ConanTaskSummary>(ConanTaskSummary.fromTasks(page.getTasks()),
+                                                   page.getNextPageToken());
+    }
+
+    /**
+     * Gets every task submitted by the given user, in no particular order.  In read-through mode, this includes only
+     * incomplete tasks and those completed tasks currently cached.
+     *
+     * @param userID the ID of the user that submitted the tasks
+     * @return the tasks submitted by this user
+     */
+    public List<ConanTask<? extends ConanPipeline>> getTasksBySubmitter(String userID) {
+        return getTasksByID(taskIDsByUser.get(userID));
+    }
+
+    /**
+     * Gets every task that runs the pipeline with the given name, in no particular order.  In read-through mode, this
+     * includes only incomplete tasks and those completed tasks currently cached.
+     *
+     * @param pipelineName the name of the pipeline
+     * @return the tasks running this pipeline
+     */
+    public List<ConanTask<? extends ConanPipeline>> getTasksByPipeline(String pipelineName) {
+        return getTasksByID(taskIDsByPipeline.get(pipelineName));
+    }
+
+    protected void synchronizeInMemoryTasksWithPersistenceDAO() {
+        writeLock.lock();
+        try {
+            // synch up the contents of our cache (i.e. the map "allTasks") with all tasks from the database
+            allTasks.clear();
+            for (Map<String, ConanTask<? extends ConanPipeline>> bucket : tasksByState.values()) {
+                bucket.clear();
+            }
+            taskIDsByUser.clear();
+            taskIDsByPipeline.clear();
+            completedTasks.clear();
+            indexEntries.clear();
+            cachedCompletedTaskIDs.clear();
+            stateVersion++;
+            getLog().debug("Rebuilding cache by recovering " + (isReadThrough() ? "incomplete" : "all") + " tasks " +
+                                   "from the persistence DAO");
+            long start = System.currentTimeMillis();
+            List<ConanTask<? extends ConanPipeline>> dbTasks = isReadThrough()
+                    ? getConanTaskPersistenceDAO().getIncompleteTasks()
+                    : getConanTaskPersistenceDAO().getAllTasks();
+            for (ConanTask<? extends ConanPipeline> task : dbTasks) {
+                index(task);
+            }
+            long end = System.currentTimeMillis();
+            double time = ((double) (end - start)) / 1000;
+            getLog().info("In memory task cache rebuilt - recovered " + dbTasks.size() + " tasks in  " + time + " s.");
         }
-        else {
-            return results.subList(startingFrom, startingFrom + maxRecords);
+        finally {
+            writeLock.unlock();
         }
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getIncompleteTasks() {
+    /**
+     * Gets the current snapshot of incomplete tasks by state, first rebuilding it if any task has changed state since
+     * it was taken.
+     *
+     * @return an up to date snapshot of the state buckets
+     */
+    private StateSnapshot getStateSnapshot() {
+        StateSnapshot snapshot = stateSnapshot;
+        if (snapshot.version != stateVersion) {
+            writeLock.lock();
+            try {
+                // the version only changes under the write lock, so the buckets are consistent with it here
+                snapshot = stateSnapshot;
+                if (snapshot.version != stateVersion) {
+                    snapshot = new StateSnapshot(stateVersion, tasksByState);
+                    stateSnapshot = snapshot;
+                }
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Stores a task, moving it between indexes if its state, submitter, pipeline or completion date have changed since
+     * it was last stored.  In read-through mode, storing a completed task may evict the least recently used completed
+     * task.  Callers must hold the write lock.
+     *
+     * @param task the task to store
+     */
+    private void index(ConanTask<? extends ConanPipeline> task) {
+        String taskID = task.getId();
+        IndexEntry previous = indexEntries.get(taskID);
+        IndexEntry current = new IndexEntry(task);
+
+        // replace rather than remove and re-add, so concurrent lookups by ID never miss this task
+        allTasks.put(taskID, task);
+        if (previous != null) {
+            if (previous.state != null) {
+                tasksByState.get(previous.state).remove(taskID);
+            }
+            if (previous.userID != null && !previous.userID.equals(current.userID)) {
+                removeFrom(taskIDsByUser, previous.userID, taskID);
+            }
+            if (previous.pipelineName != null && !previous.pipelineName.equals(current.pipelineName)) {
+                removeFrom(taskIDsByPipeline, previous.pipelineName, taskID);
+            }
+            if (previous.completionKey != null &&
+                    (current.completionKey == null || previous.completionKey.compareTo(current.completionKey) != 0)) {
+                completedTasks.remove(previous.completionKey);
+            }
+        }
+        if (current.state != null) {
+            tasksByState.get(current.state).put(taskID, task);
+        }
+        addTo(taskIDsByUser, current.userID, taskID);
+        addTo(taskIDsByPipeline, current.pipelineName, taskID);
+        if (current.completionKey != null) {
+            completedTasks.put(current.completionKey, task);
+        }
+        indexEntries.put(taskID, current);
+        if (isIncomplete(current.state) || (previous != null && isIncomplete(previous.state))) {
+            stateVersion++;
+        }
+
+        if (isReadThrough()) {
+            if (current.completionKey != null) {
+                cachedCompletedTaskIDs.put(taskID, Boolean.TRUE);
+            }
+            else {
+                // incomplete tasks are always held, so never count against the cache
+                cachedCompletedTaskIDs.remove(taskID);
+            }
+        }
+    }
+
+    /**
+     * Removes a task from the task map and every index, but not from the cache of completed task IDs.  Callers must
+     * hold the write lock.
+     *
+     * @param taskID the ID of the task to remove
+     */
+    private void unindex(String taskID) {
+        IndexEntry previous = indexEntries.remove(taskID);
+        if (previous != null) {
+            if (previous.state != null) {
+                tasksByState.get(previous.state).remove(taskID);
+            }
+            removeFrom(taskIDsByUser, previous.userID, taskID);
+            removeFrom(taskIDsByPipeline, previous.pipelineName, taskID);
+            if (previous.completionKey != null) {
+                completedTasks.remove(previous.completionKey);
+            }
+            if (isIncomplete(previous.state)) {
+                stateVersion++;
+            }
+        }
+        allTasks.remove(taskID);
+    }
+
+    private static boolean isIncomplete(ConanTask.State state) {
+        return state != null && state != ConanTask.State.COMPLETED && state != ConanTask.State.ABORTED;
+    }
+
+    private void addTo(Map<String, Set<String>> index, String key, String taskID) {
+        if (key != null) {
+            Set<String> taskIDs = index.get(key);
+            if (taskIDs == null) {
+                // readers iterate these sets without locking
+                taskIDs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                index.put(key, taskIDs);
+            }
+            taskIDs.add(taskID);
+        }
+    }
+
+    private void removeFrom(Map<String, Set<String>> index, String key, String taskID) {
+        if (key != null) {
+            Set<String> taskIDs = index.get(key);
+            if (taskIDs != null) {
+                taskIDs.remove(taskID);
+                if (taskIDs.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    private List<ConanTask<? extends ConanPipeline>> getTasksByID(Set<String> taskIDs) {
         List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
-        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
-            if (task.getCurrentState() != ConanTask.State.COMPLETED &&
-                    task.getCurrentState() != ConanTask.State.ABORTED) {
-                // TODO - remove this hack which filters out everything older than 72 hours old, replace with sane paging strategy
-                int seventytwoHours = 60 * 60 * 72 * 1000;
-                Date pastDate = new Date(System.currentTimeMillis() - seventytwoHours);
-                if (task.getCompletionDate().after(pastDate)) {
+        if (taskIDs != null) {
+            for (String taskID : taskIDs) {
+                // may have been evicted since the ID was read
+                ConanTask<? extends ConanPipeline> task = allTasks.get(taskID);
+                if (task != null) {
                     results.add(task);
                 }
             }
@@ -243,39 +708,189 @@ public class InMemoryConanTaskDAO implements ConanTaskDAO {
         return results;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getIncompleteTasks(int maxRecords, int startingFrom) {
+    /**
+     * Gets the smallest set of tasks that the indexes show must contain every task the query matches: the tasks of the
+     * given submitters or pipelines, the incomplete or completed tasks, or a range of the completion index.  The query
+     * still has to be tested against each task returned.
+     */
+    private Collection<ConanTask<? extends ConanPipeline>> getQueryCandidates(ConanTaskQuery query) {
+        Set<String> candidateIDs = null;
+        if (query.getSubmitterIDs() != null) {
+            candidateIDs = getIndexedTaskIDs(taskIDsByUser, query.getSubmitterIDs());
+        }
+        if (query.getPipelineNames() != null) {
+            Set<String> pipelineTaskIDs = getIndexedTaskIDs(taskIDsByPipeline, query.getPipelineNames());
+            if (candidateIDs == null || pipelineTaskIDs.size() < candidateIDs.size()) {
+                candidateIDs = pipelineTaskIDs;
+            }
+        }
+        if (candidateIDs != null) {
+            return getTasksByID(candidateIDs);
+        }
+
+        if (query.isIncompleteOnly()) {
+            return getStateSnapshot().incompleteTasks;
+        }
+        if (query.getCompletedFrom() != null || query.getCompletedTo() != null) {
+            // walk the completion index from the end of the range towards older tasks until we pass the start
+            SortedMap<CompletionKey, ConanTask<? extends ConanPipeline>> range = query.getCompletedTo() == null
+                    ? completedTasks
+                    : completedTasks.tailMap(new CompletionKey(query.getCompletedTo().getTime(), null), false);
+            List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
+            for (Map.Entry<CompletionKey, ConanTask<? extends ConanPipeline>> entry : range.entrySet()) {
+                if (query.getCompletedFrom() != null &&
+                        entry.getKey().completionDate < query.getCompletedFrom().getTime()) {
+                    break;
+                }
+                results.add(entry.getValue());
+            }
+            return results;
+        }
+        if (query.getStates() != null) {
+            boolean completeOnly = true;
+            for (ConanTask.State state : query.getStates()) {
+                completeOnly = completeOnly && !isIncomplete(state);
+            }
+            if (completeOnly) {
+                return completedTasks.values();
+            }
+        }
+        return allTasks.values();
+    }
+
+    private Set<String> getIndexedTaskIDs(Map<String, Set<String>> index, Set<String> keys) {
+        Set<String> taskIDs = new HashSet<String>();
+        for (String key : keys) {
+            Set<String> keyTaskIDs = index.get(key);
+            if (keyTaskIDs != null) {
+                taskIDs.addAll(keyTaskIDs);
+            }
+        }
+        return taskIDs;
+    }
+
+    private List<ConanTask<? extends ConanPipeline>> getPage(Collection<ConanTask<? extends ConanPipeline>> tasks,
+                                                             int maxRecords,
+                                                             int startingFrom) {
         List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
-        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
-            if (task.getCurrentState() != ConanTask.State.COMPLETED &&
-                    task.getCurrentState() != ConanTask.State.ABORTED) {
+        int position = 0;
+        for (ConanTask<? extends ConanPipeline> task : tasks) {
+            if (results.size() >= maxRecords) {
+                break;
+            }
+            if (position++ >= startingFrom) {
                 results.add(task);
             }
         }
-        if ((startingFrom + maxRecords) > results.size()) {
-            return results;
+        return results;
+    }
+
+    private List<ConanTask<? extends ConanPipeline>> getOrderedPage(
+            Collection<ConanTask<? extends ConanPipeline>> tasks, int maxRecords, int startingFrom, String orderBy) {
+        List<ConanTask<? extends ConanPipeline>> sorted = new ArrayList<ConanTask<? extends ConanPipeline>>(tasks);
+        Collections.sort(sorted, ConanTaskOrdering.getComparator(orderBy));
+        return getPage(sorted, maxRecords, startingFrom);
+    }
+
+    private void addIfNameMatches(List<ConanTask<? extends ConanPipeline>> results,
+                                  ConanTask<? extends ConanPipeline> task,
+                                  String fragment) {
+        if (task == null) {
+            return;
         }
-        else {
-            return results.subList(startingFrom, startingFrom + maxRecords);
+        if (task.getName() == null ? fragment.length() == 0 : task.getName().toLowerCase().contains(fragment)) {
+            results.add(task);
         }
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary(int maxRecords, int startingFrom) {
-        return getCompletedTasks(maxRecords, startingFrom);
+    /**
+     * The position of a completed task in {@link ConanTaskPage#COMPLETION_ORDER}.  Tasks are mutable, so the completion
+     * index is keyed on a copy of the values it is sorted by rather than on the tasks themselves.  A key with no task
+     * ID sorts after every task completed at the same time.
+     */
+    private static class CompletionKey implements Comparable<CompletionKey> {
+        private final long completionDate;
+        private final String taskID;
+
+        private CompletionKey(Date completionDate, String taskID) {
+            this(completionDate == null ? 0 : completionDate.getTime(), taskID);
+        }
+
+        private CompletionKey(long completionDate, String taskID) {
+            this.completionDate = completionDate;
+            this.taskID = taskID;
+        }
+
+        private boolean isWithin(Date fromDate, Date toDate) {
+            return (fromDate == null || completionDate > fromDate.getTime()) &&
+                    (toDate == null || completionDate < toDate.getTime());
+        }
+
+        public int compareTo(CompletionKey that) {
+            if (completionDate != that.completionDate) {
+                return completionDate > that.completionDate ? -1 : 1;
+            }
+            return -ConanTaskPage.compareIDs(taskID, that.taskID);
+        }
     }
 
-    protected void synchronizeInMemoryTasksWithPersistenceDAO() {
-        synchronized (allTasks) {
-            // synch up the contents of our cache (i.e. the map "allTasks") with all tasks from the database
-            allTasks.clear();
-            getLog().debug("Rebuilding cache by recovering tasks from the persistence DAO");
-            long start = System.currentTimeMillis();
-            List<ConanTask<? extends ConanPipeline>> dbTasks = getConanTaskPersistenceDAO().getAllTasks();
-            for (ConanTask<? extends ConanPipeline> task : dbTasks) {
-                allTasks.put(task.getId(), task);
+    /**
+     * An immutable view of the incomplete tasks in each state, taken at a given state version
+     */
+    private static class StateSnapshot {
+        private final int version;
+        private final List<ConanTask<? extends ConanPipeline>> pendingTasks;
+        private final List<ConanTask<? extends ConanPipeline>> runningTasks;
+        private final List<ConanTask<? extends ConanPipeline>> incompleteTasks;
+
+        private StateSnapshot(int version,
+                              Map<ConanTask.State, Map<String, ConanTask<? extends ConanPipeline>>> tasksByState) {
+            this.version = version;
+            List<ConanTask<? extends ConanPipeline>> pending = new ArrayList<ConanTask<? extends ConanPipeline>>();
+            List<ConanTask<? extends ConanPipeline>> incomplete = new ArrayList<ConanTask<? extends ConanPipeline>>();
+            for (ConanTask.State state : ConanTask.State.values()) {
+                if (state == ConanTask.State.COMPLETED || state == ConanTask.State.ABORTED) {
+                    continue;
+                }
+                if (state.compareTo(ConanTask.State.RUNNING) < 0) {
+                    pending.addAll(tasksByState.get(state).values());
+                }
+                incomplete.addAll(tasksByState.get(state).values());
             }
-            long end = System.currentTimeMillis();
-            double time = ((double) (end - start)) / 1000;
-            getLog().info("In memory task cache rebuilt - recovered " + dbTasks.size() + " tasks in  " + time + " s.");
+
+            // sort based on most recent first
+            Collections.sort(pending, new Comparator<ConanTask<? extends ConanPipeline>>() {
+                public int compare(ConanTask<? extends ConanPipeline> task1,
+                                   ConanTask<? extends ConanPipeline> task2) {
+                    long date1 = task1.getCreationDate() == null ? 0 : task1.getCreationDate().getTime();
+                    long date2 = task2.getCreationDate() == null ? 0 : task2.getCreationDate().getTime();
+                    return date1 > date2 ? -1 : (date1 == date2 ? 0 : 1);
+                }
+            });
+
+            this.pendingTasks = Collections.unmodifiableList(pending);
+            this.runningTasks = Collections.unmodifiableList(new ArrayList<ConanTask<? extends ConanPipeline>>(
+                    tasksByState.get(ConanTask.State.RUNNING).values()));
+            this.incompleteTasks = Collections.unmodifiableList(incomplete);
+        }
+    }
+
+    /**
+     * The values a task was indexed under when it was last stored
+     */
+    private static class IndexEntry {
+        private final ConanTask.State state;
+        private final String userID;
+        private final String pipelineName;
+        private final CompletionKey completionKey;
+
+        private IndexEntry(ConanTask<? extends ConanPipeline> task) {
+            this.state = task.getCurrentState();
+            this.userID = task.getSubmitter() == null ? null : task.getSubmitter().getId();
+            this.pipelineName = task.getPipeline() == null ? null : task.getPipeline().getName();
+            this.completionKey = state == ConanTask.State.COMPLETED || state == ConanTask.State.ABORTED
+                    ? new CompletionKey(task.getCompletionDate(), task.getId())
+                    : null;
         }
     }
 }
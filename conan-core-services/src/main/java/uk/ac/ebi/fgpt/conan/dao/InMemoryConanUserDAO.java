@@ -114,4 +114,16 @@ public class InMemoryConanUserDAO implements ConanUserDAO {
     public synchronized Collection<ConanUser> getUsers() {
         return users;
     }
+
+    public synchronized void deleteUser(ConanUser user) {
+        Iterator<ConanUser> userIt = users.iterator();
+        while (userIt.hasNext()) {
+            ConanUser nextUser = userIt.next();
+            if (nextUser.getId().equals(user.getId())) {
+                getLog().debug("Removing user " + nextUser.getId() + " '" + nextUser.getUserName() + "'");
+                userIt.remove();
+                break;
+            }
+        }
+    }
 }
@@ -69,6 +69,11 @@ public class LdapConanUserDAO implements ConanUserDAO {
                 "Cannot save users to LDAP server, this is for anonymous verification only");
     }
 
+    public void deleteUser(ConanUser user) {
+        throw new UnsupportedOperationException(
+                "Cannot delete users from LDAP server, this is for anonymous verification only");
+    }
+
     public Collection<ConanUser> getUsers() {
         return ldapTemplate.search("", "(objectclass=person)", new ConanUserMapper());
     }
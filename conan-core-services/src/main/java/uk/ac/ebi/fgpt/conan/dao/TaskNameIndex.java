@@ -0,0 +1,242 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index over the names of tasks, used to resolve task name searches to the IDs of matching tasks without
+ * scanning the task table.
+ * <p/>
+ * Substring searches use a trigram index: every name is broken into its overlapping three character fragments, and a
+ * search for a fragment of three or more characters only has to consider tasks whose names contain every trigram of
+ * the search string.  Candidates are then checked against the full name, so results are exact.  Shorter searches are
+ * resolved by checking every indexed name, which is still far cheaper than a database scan.  Names are also kept in
+ * sorted order, so that prefix lookups for typeahead can be answered from a range of the index.
+ * <p/>
+ * All matching is case insensitive.  The index is safe for concurrent use, and is maintained incrementally: callers
+ * should {@link #index(String, String)} each task as it is saved.
+ *
+ * @date 18-Oct-2026
+ */
+public class TaskNameIndex {
+    public static final int GRAM_LENGTH = 3;
+
+    // trigram -> IDs of tasks whose name contains it
+    private final Map<String, Set<String>> taskIDsByGram;
+    // task ID -> name, as originally supplied
+    private final Map<String, String> namesByTaskID;
+    // lower cased name -> IDs of tasks with that name
+    private final TreeMap<String, Set<String>> taskIDsByName;
+
+    private final ReadWriteLock lock;
+
+    public TaskNameIndex() {
+        this.taskIDsByGram = new HashMap<String, Set<String>>();
+        this.namesByTaskID = new HashMap<String, String>();
+        this.taskIDsByName = new TreeMap<String, Set<String>>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adds a task to the index, or updates the indexed name of a task that has already been added.  Tasks with no name
+     * are removed from the index.
+     *
+     * @param taskID the ID of the task
+     * @param name   the name of the task
+     */
+    public void index(String taskID, String name) {
+        Assert.notNull(taskID, "Cannot index a task with no ID");
+        // tasks are re-indexed on every write but hardly ever renamed, so check before locking out readers
+        lock.readLock().lock();
+        try {
+            String previousName = namesByTaskID.get(taskID);
+            if (previousName != null && previousName.equals(name)) {
+                return;
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            String previousName = namesByTaskID.get(taskID);
+            if (previousName != null && previousName.equals(name)) {
+                return;
+            }
+            if (previousName != null) {
+                unindex(taskID, previousName);
+            }
+            if (name != null) {
+                namesByTaskID.put(taskID, name);
+                String key = name.toLowerCase();
+                for (String gram : getGrams(key)) {
+                    Set<String> taskIDs = taskIDsByGram.get(gram);
+                    if (taskIDs == null) {
+                        taskIDs = new HashSet<String>();
+                        taskIDsByGram.put(gram, taskIDs);
+                    }
+                    taskIDs.add(taskID);
+                }
+                Set<String> taskIDs = taskIDsByName.get(key);
+                if (taskIDs == null) {
+                    taskIDs = new HashSet<String>();
+                    taskIDsByName.put(key, taskIDs);
+                }
+                taskIDs.add(taskID);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a task from the index
+     *
+     * @param taskID the ID of the task to remove
+     */
+    public void remove(String taskID) {
+        lock.writeLock().lock();
+        try {
+            String name = namesByTaskID.get(taskID);
+            if (name != null) {
+                unindex(taskID, name);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every task from the index
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            taskIDsByGram.clear();
+            namesByTaskID.clear();
+            taskIDsByName.clear();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of tasks in the index
+     *
+     * @return the number of indexed tasks
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return namesByTaskID.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the IDs of all indexed tasks with a name containing the given fragment, ignoring case.
+     *
+     * @param fragment the fragment of the task name to search for
+     * @return the IDs of every matching task
+     */
+    public Set<String> findTaskIDs(String fragment) {
+        String key = fragment.toLowerCase();
+        Set<String> results = new HashSet<String>();
+        lock.readLock().lock();
+        try {
+            Collection<String> candidates;
+            if (key.length() < GRAM_LENGTH) {
+                candidates = namesByTaskID.keySet();
+            }
+            else {
+                // intersecting from the rarest trigram keeps the candidate set as small as possible
+                Set<String> rarest = null;
+                for (String gram : getGrams(key)) {
+                    Set<String> taskIDs = taskIDsByGram.get(gram);
+                    if (taskIDs == null) {
+                        return results;
+                    }
+                    if (rarest == null || taskIDs.size() < rarest.size()) {
+                        rarest = taskIDs;
+                    }
+                }
+                candidates = rarest;
+            }
+
+            for (String taskID : candidates) {
+                if (namesByTaskID.get(taskID).toLowerCase().contains(key)) {
+                    results.add(taskID);
+                }
+            }
+            return results;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the distinct names of indexed tasks that start with the given prefix, ignoring case, in alphabetical
+     * order.
+     *
+     * @param prefix     the start of the task name
+     * @param maxResults the maximum number of names to return
+     * @return the matching task names
+     */
+    public List<String> findNamesStartingWith(String prefix, int maxResults) {
+        String key = prefix.toLowerCase();
+        List<String> results = new ArrayList<String>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Set<String>> entry : taskIDsByName.tailMap(key, true).entrySet()) {
+                if (results.size() >= maxResults || !entry.getKey().startsWith(key)) {
+                    break;
+                }
+                // names differing only by case are returned once, as any one of the original names
+                results.add(namesByTaskID.get(entry.getValue().iterator().next()));
+            }
+            return results;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(String taskID, String name) {
+        namesByTaskID.remove(taskID);
+        String key = name.toLowerCase();
+        for (String gram : getGrams(key)) {
+            Set<String> taskIDs = taskIDsByGram.get(gram);
+            if (taskIDs != null) {
+                taskIDs.remove(taskID);
+                if (taskIDs.isEmpty()) {
+                    taskIDsByGram.remove(gram);
+                }
+            }
+        }
+        Set<String> taskIDs = taskIDsByName.get(key);
+        if (taskIDs != null) {
+            taskIDs.remove(taskID);
+            if (taskIDs.isEmpty()) {
+                taskIDsByName.remove(key);
+            }
+        }
+    }
+
+    private Set<String> getGrams(String key) {
+        Set<String> grams = new HashSet<String>();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
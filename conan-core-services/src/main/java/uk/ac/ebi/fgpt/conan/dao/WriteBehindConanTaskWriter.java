@@ -0,0 +1,340 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessRun;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+
+import java.util.*;
+
+/**
+ * Persists changes to {@link ConanTask}s and their {@link ConanProcessRun}s in the background, so that threads executing
+ * tasks do not wait on the database whenever a task changes state.
+ * <p/>
+ * Writes are held in a bounded set of pending tasks.  Successive writes for a task that is already pending are merged:
+ * only the latest state of the task is written, along with every process run written for it since the last flush.  A
+ * single writer thread takes pending tasks in the order they first became pending and group-commits them using {@link
+ * ConanTaskDAO#writeTaskUpdates(java.util.List, java.util.Map)}.  Because there is only ever one writer, and a task
+ * can only be pending once, the writes for any one task always reach the database in the order they were made.
+ * <p/>
+ * If the pending set is full, callers writing a task that is not already pending block until the writer catches up.
+ * When this writer is shut down, all pending writes are flushed before {@link #destroy()} returns, and any writes made
+ * afterwards are passed straight through to the DAO.  Writes made whilst the pending writes are still being flushed
+ * wait for the flush to finish first, so that an older state of a task is never written over a newer one.
+ *
+ * @date 18-Oct-2026
+ */
+public class WriteBehindConanTaskWriter {
+    private final Map<String, PendingWrite> pendingWrites;
+
+    private ConanTaskDAO conanTaskDAO;
+
+    private int maxPendingTasks = 1000;
+    private int maxBatchSize = 100;
+    private long batchDelay = 50;
+
+    private Thread writerThread;
+    private boolean running;
+    private boolean writing;
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    public WriteBehindConanTaskWriter() {
+        this.pendingWrites = new LinkedHashMap<String, PendingWrite>();
+    }
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    public ConanTaskDAO getConanTaskDAO() {
+        return conanTaskDAO;
+    }
+
+    public void setConanTaskDAO(ConanTaskDAO conanTaskDAO) {
+        this.conanTaskDAO = conanTaskDAO;
+    }
+
+    public int getMaxPendingTasks() {
+        return maxPendingTasks;
+    }
+
+    /**
+     * Sets the maximum number of distinct tasks that may have unwritten changes at any one time.  Defaults to 1000.
+     *
+     * @param maxPendingTasks the capacity of the pending set
+     */
+    public void setMaxPendingTasks(int maxPendingTasks) {
+        Assert.isTrue(maxPendingTasks > 0, "maxPendingTasks must be greater than zero");
+        this.maxPendingTasks = maxPendingTasks;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of tasks written in a single batch.  Defaults to 100.
+     *
+     * @param maxBatchSize the maximum number of tasks per batch
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be greater than zero");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getBatchDelay() {
+        return batchDelay;
+    }
+
+    /**
+     * Sets the time, in milliseconds, that the writer will wait for further writes to arrive before committing a batch
+     * that is not yet full.  Defaults to 50.
+     *
+     * @param batchDelay the group commit delay in milliseconds
+     */
+    public void setBatchDelay(long batchDelay) {
+        Assert.isTrue(batchDelay >= 0, "batchDelay must not be negative");
+        this.batchDelay = batchDelay;
+    }
+
+    /**
+     * Starts the background writer thread.
+     */
+    public void init() {
+        Assert.notNull(getConanTaskDAO(), getClass().getSimpleName() + " must have a ConanTaskDAO set");
+        synchronized (pendingWrites) {
+            if (running) {
+                return;
+            }
+            running = true;
+            writerThread = new Thread(new Writer(), "conan-task-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        getLog().debug("Started write-behind task writer");
+    }
+
+    /**
+     * Stops accepting background writes, and blocks until every pending write has been flushed to the DAO.
+     */
+    public void destroy() {
+        Thread thread;
+        synchronized (pendingWrites) {
+            running = false;
+            pendingWrites.notifyAll();
+            thread = writerThread;
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                getLog().warn("Interrupted whilst flushing pending task writes, some task updates may be lost");
+                Thread.currentThread().interrupt();
+            }
+        }
+        getLog().debug("Stopped write-behind task writer");
+    }
+
+    /**
+     * Blocks until every write made before this call has been written to the DAO.
+     *
+     * @throws InterruptedException if interrupted whilst waiting
+     */
+    public void flush() throws InterruptedException {
+        synchronized (pendingWrites) {
+            while ((!pendingWrites.isEmpty() || writing) && writerThread != null && writerThread.isAlive()) {
+                pendingWrites.wait();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tasks that currently have unwritten changes
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingTaskCount() {
+        synchronized (pendingWrites) {
+            return pendingWrites.size();
+        }
+    }
+
+    /**
+     * Schedules the current state of this task to be written.
+     *
+     * @param conanTask the task to write
+     */
+    public void writeTask(ConanTask<? extends ConanPipeline> conanTask) {
+        writeTask(conanTask, null);
+    }
+
+    /**
+     * Schedules the current state of this task, and the given process run, to be written.
+     *
+     * @param conanTask       the task to write
+     * @param conanProcessRun the process run to write, or null if only the task has changed
+     */
+    public void writeTask(ConanTask<? extends ConanPipeline> conanTask, ConanProcessRun conanProcessRun) {
+        if (conanTask.getId() != null) {
+            synchronized (pendingWrites) {
+                PendingWrite pendingWrite = pendingWrites.get(conanTask.getId());
+                while (running && pendingWrite == null && pendingWrites.size() >= getMaxPendingTasks()) {
+                    try {
+                        pendingWrites.wait();
+                    }
+                    catch (InterruptedException e) {
+                        // accept the write anyway rather than lose it
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    pendingWrite = pendingWrites.get(conanTask.getId());
+                }
+
+                if (running) {
+                    if (pendingWrite == null) {
+                        pendingWrite = new PendingWrite();
+                        pendingWrites.put(conanTask.getId(), pendingWrite);
+                    }
+                    pendingWrite.merge(conanTask, conanProcessRun);
+                    pendingWrites.notifyAll();
+                    return;
+                }
+            }
+        }
+
+        // not running, or task has never been saved, so write directly
+        if (conanTask.getId() != null && Thread.currentThread() != writerThread) {
+            // but only once older writes still being flushed are done, or they could overwrite this one
+            try {
+                flush();
+            }
+            catch (InterruptedException e) {
+                getLog().warn("Interrupted whilst waiting for pending task writes to flush, " +
+                                      "task '" + conanTask.getId() + "' may be overwritten with an older state");
+                Thread.currentThread().interrupt();
+            }
+        }
+        getConanTaskDAO().updateTask(conanTask);
+        if (conanProcessRun != null) {
+            getConanTaskDAO().writeProcessRun(conanTask.getId(), conanProcessRun);
+        }
+    }
+
+    protected void write(List<PendingWrite> batch) {
+        List<ConanTask<? extends ConanPipeline>> tasks = new ArrayList<ConanTask<? extends ConanPipeline>>();
+        Map<String, List<ConanProcessRun>> processRuns = new LinkedHashMap<String, List<ConanProcessRun>>();
+        for (PendingWrite pendingWrite : batch) {
+            tasks.add(pendingWrite.conanTask);
+            if (!pendingWrite.processRuns.isEmpty()) {
+                processRuns.put(pendingWrite.conanTask.getId(), pendingWrite.processRuns);
+            }
+        }
+
+        try {
+            getConanTaskDAO().writeTaskUpdates(tasks, processRuns);
+        }
+        catch (RuntimeException e) {
+            // one bad task shouldn't lose the rest of the batch, so retry one at a time
+            getLog().warn("Failed to write a batch of " + batch.size() + " task updates, " +
+                                  "retrying each task individually", e);
+            for (PendingWrite pendingWrite : batch) {
+                try {
+                    getConanTaskDAO().updateTask(pendingWrite.conanTask);
+                    for (ConanProcessRun conanProcessRun : pendingWrite.processRuns) {
+                        getConanTaskDAO().writeProcessRun(pendingWrite.conanTask.getId(), conanProcessRun);
+                    }
+                }
+                catch (RuntimeException ex) {
+                    getLog().error("Failed to write updates for task '" + pendingWrite.conanTask.getId() + "', " +
+                                           "these changes will be lost", ex);
+                }
+            }
+        }
+    }
+
+    private List<PendingWrite> takeBatch() throws InterruptedException {
+        synchronized (pendingWrites) {
+            while (running && pendingWrites.isEmpty()) {
+                pendingWrites.wait();
+            }
+            if (pendingWrites.isEmpty()) {
+                // shut down and fully drained
+                return null;
+            }
+
+            // give other writes a chance to join this batch
+            long deadline = System.currentTimeMillis() + getBatchDelay();
+            long remaining = getBatchDelay();
+            while (running && pendingWrites.size() < getMaxBatchSize() && remaining > 0) {
+                pendingWrites.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+
+            List<PendingWrite> batch = new ArrayList<PendingWrite>();
+            Iterator<PendingWrite> pendingIterator = pendingWrites.values().iterator();
+            while (pendingIterator.hasNext() && batch.size() < getMaxBatchSize()) {
+                batch.add(pendingIterator.next());
+                pendingIterator.remove();
+            }
+            writing = true;
+            pendingWrites.notifyAll();
+            return batch;
+        }
+    }
+
+    private class Writer implements Runnable {
+        public void run() {
+            while (true) {
+                List<PendingWrite> batch;
+                try {
+                    batch = takeBatch();
+                }
+                catch (InterruptedException e) {
+                    getLog().debug("Write-behind task writer interrupted, flushing pending writes");
+                    synchronized (pendingWrites) {
+                        running = false;
+                    }
+                    continue;
+                }
+                if (batch == null) {
+                    break;
+                }
+
+                try {
+                    write(batch);
+                }
+                finally {
+                    synchronized (pendingWrites) {
+                        writing = false;
+                        pendingWrites.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The coalesced changes for a single task that have not yet been written
+     */
+    protected static class PendingWrite {
+        private ConanTask<? extends ConanPipeline> conanTask;
+        private final List<ConanProcessRun> processRuns = new ArrayList<ConanProcessRun>();
+
+        private void merge(ConanTask<? extends ConanPipeline> conanTask, ConanProcessRun conanProcessRun) {
+            this.conanTask = conanTask;
+            if (conanProcessRun != null) {
+                // process runs are mutable, so the same run only needs writing once, in its latest state
+                for (ConanProcessRun processRun : processRuns) {
+                    if (processRun == conanProcessRun) {
+                        return;
+                    }
+                }
+                processRuns.add(conanProcessRun);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package uk.ac.ebi.fgpt.conan.dao.dialect;
+
+/**
+ * The {@link SQLDialect} for H2 databases, used when running Conan against a local embedded database.  Sequence blocks
+ * are fetched by drawing one value per row of a <code>SYSTEM_RANGE</code>, and paging uses <code>LIMIT</code> and
+ * <code>OFFSET</code>.
+ *
+ * @date 18-Oct-2026
+ */
+public class H2SQLDialect implements SQLDialect {
+    public String getSequenceBlockSelect(String sequenceName) {
+        return "select NEXT VALUE FOR " + sequenceName + " from SYSTEM_RANGE(1, ?)";
+    }
+
+    public String getLimitedQuery(String orderedQuery) {
+        return orderedQuery + " limit ?";
+    }
+
+    public String getPagedQuery(String orderedQuery) {
+        return orderedQuery + " limit ? offset ?";
+    }
+
+    public Object[] getPagingArgs(int maxRecords, int startingFrom) {
+        return new Object[]{maxRecords, startingFrom};
+    }
+}
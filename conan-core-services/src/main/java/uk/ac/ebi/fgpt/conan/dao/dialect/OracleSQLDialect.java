@@ -0,0 +1,26 @@
+package uk.ac.ebi.fgpt.conan.dao.dialect;
+
+/**
+ * The {@link SQLDialect} for Oracle databases.  Sequence blocks are fetched with a hierarchical query against
+ * <code>dual</code>, and paging uses nested <code>ROWNUM</code> filters.
+ *
+ * @date 18-Oct-2026
+ */
+public class OracleSQLDialect implements SQLDialect {
+    public String getSequenceBlockSelect(String sequenceName) {
+        return "select " + sequenceName + ".NEXTVAL from dual connect by level <= ?";
+    }
+
+    public String getLimitedQuery(String orderedQuery) {
+        return "select * from (" + orderedQuery + ") where ROWNUM <= ?";
+    }
+
+    public String getPagedQuery(String orderedQuery) {
+        // RN must be filtered outside the query that assigns it, as ROWNUM is assigned before the outer filter applies
+        return "select * from (select q.*, ROWNUM RN from (" + orderedQuery + ") q where ROWNUM <= ?) where RN > ?";
+    }
+
+    public Object[] getPagingArgs(int maxRecords, int startingFrom) {
+        return new Object[]{startingFrom + maxRecords, startingFrom};
+    }
+}
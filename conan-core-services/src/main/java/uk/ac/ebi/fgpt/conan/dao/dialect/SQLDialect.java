@@ -0,0 +1,49 @@
+package uk.ac.ebi.fgpt.conan.dao.dialect;
+
+/**
+ * Encapsulates the parts of Conan's SQL that differ between databases, so that the JDBC backed DAOs can be pointed at
+ * either an Oracle database or a local, embedded one.  Everything else Conan issues is plain ANSI SQL, and dates are
+ * always bound as JDBC timestamps, so only sequence access and result paging need to vary.
+ * <p/>
+ * Paging is applied by wrapping an already ordered query.  The bind parameters for the wrapped query come first,
+ * followed by the bind parameters for the paging clause.
+ *
+ * @date 18-Oct-2026
+ */
+public interface SQLDialect {
+    /**
+     * Gets a query that draws a block of values from the named sequence, returning one value per row.  The query takes
+     * the number of values to fetch as its only bind parameter.
+     *
+     * @param sequenceName the name of the sequence to draw from
+     * @return the sequence block query
+     */
+    String getSequenceBlockSelect(String sequenceName);
+
+    /**
+     * Limits an ordered query to its first few rows.  The returned query takes one extra bind parameter, after those of
+     * the original query: the maximum number of rows to return.
+     *
+     * @param orderedQuery the query to limit, including its order by clause
+     * @return the limited query
+     */
+    String getLimitedQuery(String orderedQuery);
+
+    /**
+     * Restricts an ordered query to a single page of rows.  The returned query takes extra bind parameters, after those
+     * of the original query, which should be obtained from {@link #getPagingArgs(int, int)}.
+     *
+     * @param orderedQuery the query to page, including its order by clause
+     * @return the paged query
+     */
+    String getPagedQuery(String orderedQuery);
+
+    /**
+     * Gets the bind parameters for the paging clause added by {@link #getPagedQuery(String)}
+     *
+     * @param maxRecords   the maximum number of rows to return
+     * @param startingFrom the number of rows to skip
+     * @return the paging bind parameters, in order
+     */
+    Object[] getPagingArgs(int maxRecords, int startingFrom);
+}
@@ -0,0 +1,98 @@
+package uk.ac.ebi.fgpt.conan.dao.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out unique IDs from blocks reserved in advance from an {@link IDBlockSource}.  Rather than making a database
+ * round trip for every new ID, the allocator reserves a block of IDs in one call and then serves subsequent requests
+ * from memory.  Serving an ID from the current block is lock-free; only the thread that finds the block exhausted
+ * takes a lock, in order to reserve the next block.
+ * <p/>
+ * IDs left in the current block when the application shuts down are never used, so IDs are unique but not gap free.
+ * A single allocator can safely be shared between several DAOs that draw IDs from the same source.
+ *
+ * @date 18-Oct-2026
+ */
+public class BlockIDAllocator {
+    private final IDBlockSource idBlockSource;
+    private int blockSize = 50;
+
+    private volatile IDBlock currentBlock;
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    public BlockIDAllocator(IDBlockSource idBlockSource) {
+        Assert.notNull(idBlockSource, "An IDBlockSource must be supplied");
+        this.idBlockSource = idBlockSource;
+    }
+
+    protected Logger getLog() {
+        return log;
+    }
+
+    public IDBlockSource getIDBlockSource() {
+        return idBlockSource;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets the number of IDs to reserve in each call to the underlying {@link IDBlockSource}.  Larger blocks mean fewer
+     * round trips, at the cost of larger gaps in IDs after a restart.
+     *
+     * @param blockSize the number of IDs to reserve at once
+     */
+    public void setBlockSize(int blockSize) {
+        Assert.isTrue(blockSize > 0, "Block size must be greater than zero");
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Gets the next unique ID.
+     *
+     * @return a new unique ID
+     */
+    public long nextID() {
+        while (true) {
+            IDBlock block = currentBlock;
+            if (block != null) {
+                long id = block.next();
+                if (id > 0) {
+                    return id;
+                }
+            }
+            refill(block);
+        }
+    }
+
+    private synchronized void refill(IDBlock exhausted) {
+        // another thread may already have replaced the block we found empty
+        if (currentBlock == exhausted) {
+            long[] ids = getIDBlockSource().reserveBlock(getBlockSize());
+            Assert.isTrue(ids.length > 0, getIDBlockSource().getClass().getSimpleName() + " reserved no IDs");
+            getLog().debug("Reserved block of " + ids.length + " IDs, starting at " + ids[0]);
+            currentBlock = new IDBlock(ids);
+        }
+    }
+
+    private static class IDBlock {
+        private final long[] ids;
+        private final AtomicInteger index;
+
+        private IDBlock(long[] ids) {
+            this.ids = ids;
+            this.index = new AtomicInteger(0);
+        }
+
+        private long next() {
+            int i = index.getAndIncrement();
+            return i < ids.length ? ids[i] : -1;
+        }
+    }
+}
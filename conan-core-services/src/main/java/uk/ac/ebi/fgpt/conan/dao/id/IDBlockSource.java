@@ -0,0 +1,24 @@
+package uk.ac.ebi.fgpt.conan.dao.id;
+
+/**
+ * A strategy for reserving blocks of unique IDs from some backing datasource.  Implementations should reserve all of
+ * the IDs in a block with as few round trips as possible (ideally one), and must guarantee that no ID is ever handed
+ * out twice, even across restarts or by several Conan instances sharing the same datasource.  IDs that are reserved
+ * but never used are simply lost, so IDs may contain gaps.
+ * <p/>
+ * Different databases support different mechanisms for doing this: Oracle can fetch many sequence values in a single
+ * query, whereas most embedded databases are better served by reserving a range from a counter table.
+ *
+ * @date 18-Oct-2026
+ * @see BlockIDAllocator
+ */
+public interface IDBlockSource {
+    /**
+     * Reserves a block of unique IDs.  The returned IDs must all be positive, and must never have been returned
+     * before.
+     *
+     * @param blockSize the number of IDs to reserve
+     * @return the reserved IDs, which should contain at least one and normally exactly blockSize values
+     */
+    long[] reserveBlock(int blockSize);
+}
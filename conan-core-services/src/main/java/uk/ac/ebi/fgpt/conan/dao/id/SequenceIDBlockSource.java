@@ -0,0 +1,100 @@
+package uk.ac.ebi.fgpt.conan.dao.id;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.dao.dialect.OracleSQLDialect;
+import uk.ac.ebi.fgpt.conan.dao.dialect.SQLDialect;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * An {@link IDBlockSource} that reserves IDs from a database sequence, fetching a whole block of sequence values in a
+ * single query.  The query must take the block size as its only bind parameter and return one sequence value per row.
+ * By default, the query is generated by the configured {@link SQLDialect} (Oracle, unless set otherwise) and draws
+ * values from the <code>SEQ_CONAN</code> sequence.
+ *
+ * @date 18-Oct-2026
+ */
+public class SequenceIDBlockSource implements IDBlockSource {
+    public static final String DEFAULT_SEQUENCE_NAME = "SEQ_CONAN";
+
+    private JdbcTemplate jdbcTemplate;
+    private SQLDialect sqlDialect = new OracleSQLDialect();
+    private String sequenceName = DEFAULT_SEQUENCE_NAME;
+    private String sequenceBlockSelect;
+
+    public SequenceIDBlockSource() {
+    }
+
+    public SequenceIDBlockSource(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public SequenceIDBlockSource(JdbcTemplate jdbcTemplate, SQLDialect sqlDialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        setSQLDialect(sqlDialect);
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public SQLDialect getSQLDialect() {
+        return sqlDialect;
+    }
+
+    public void setSQLDialect(SQLDialect sqlDialect) {
+        Assert.notNull(sqlDialect, "An SQLDialect must be supplied");
+        this.sqlDialect = sqlDialect;
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    public void setSequenceName(String sequenceName) {
+        this.sequenceName = sequenceName;
+    }
+
+    /**
+     * Gets the query used to fetch a block of sequence values.  Unless a query has been set explicitly, this is
+     * generated by the SQL dialect for the configured sequence.
+     *
+     * @return the sequence block query
+     */
+    public String getSequenceBlockSelect() {
+        if (sequenceBlockSelect == null) {
+            return getSQLDialect().getSequenceBlockSelect(getSequenceName());
+        }
+        return sequenceBlockSelect;
+    }
+
+    /**
+     * Sets the query used to fetch a block of sequence values, overriding the query generated by the SQL dialect.  This
+     * should take the number of values to fetch as a single bind parameter.
+     *
+     * @param sequenceBlockSelect the query to fetch a block of sequence values with
+     */
+    public void setSequenceBlockSelect(String sequenceBlockSelect) {
+        this.sequenceBlockSelect = sequenceBlockSelect;
+    }
+
+    public long[] reserveBlock(int blockSize) {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        List<Long> values = getJdbcTemplate().queryForList(getSequenceBlockSelect(), Long.class, blockSize);
+        long[] ids = new long[values.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = values.get(i);
+        }
+        return ids;
+    }
+}
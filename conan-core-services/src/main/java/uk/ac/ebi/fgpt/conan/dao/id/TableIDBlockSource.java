@@ -0,0 +1,75 @@
+package uk.ac.ebi.fgpt.conan.dao.id;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+
+/**
+ * An {@link IDBlockSource} that reserves contiguous ranges of IDs from a single row counter table.  This is the
+ * portable "hi/lo" strategy, suitable for embedded databases or any database without usable sequences.  The table
+ * should look like:
+ * <pre>
+ * CREATE TABLE CONAN_ID_BLOCKS (NEXT_ID BIGINT NOT NULL);
+ * INSERT INTO CONAN_ID_BLOCKS (NEXT_ID) VALUES (1);
+ * </pre>
+ * A block is reserved by advancing the counter by the block size and reading it back inside one transaction: the row
+ * lock taken by the update guarantees that concurrent reservations never overlap.  This transaction is always a new one,
+ * committed as soon as the block is reserved: if it joined the transaction of the caller that needed an ID, rolling
+ * that back would also roll back the counter, and the IDs already handed out would be reserved again.
+ *
+ * @date 18-Oct-2026
+ */
+public class TableIDBlockSource implements IDBlockSource {
+    public static final String ID_BLOCK_UPDATE =
+            "update CONAN_ID_BLOCKS set NEXT_ID = NEXT_ID + ?";
+    public static final String ID_BLOCK_SELECT =
+            "select NEXT_ID from CONAN_ID_BLOCKS";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    public TableIDBlockSource() {
+    }
+
+    public TableIDBlockSource(JdbcTemplate jdbcTemplate) {
+        setJdbcTemplate(jdbcTemplate);
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        setJdbcTemplate(new JdbcTemplate(dataSource));
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long[] reserveBlock(final int blockSize) {
+        Assert.notNull(getJdbcTemplate(), getClass().getSimpleName() + " must have a valid JdbcTemplate set");
+        long next = transactionTemplate.execute(new TransactionCallback<Long>() {
+            public Long doInTransaction(TransactionStatus status) {
+                getJdbcTemplate().update(ID_BLOCK_UPDATE, blockSize);
+                return getJdbcTemplate().queryForLong(ID_BLOCK_SELECT);
+            }
+        });
+
+        // we now own every ID in the range [next - blockSize, next)
+        long[] ids = new long[blockSize];
+        for (int i = 0; i < blockSize; i++) {
+            ids[i] = next - blockSize + i;
+        }
+        return ids;
+    }
+}
@@ -3,6 +3,8 @@ package uk.ac.ebi.fgpt.conan.factory;
 import uk.ac.ebi.fgpt.conan.core.task.ConanTaskEvent;
 import uk.ac.ebi.fgpt.conan.core.task.ConanTaskListener;
 import uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO;
+import uk.ac.ebi.fgpt.conan.dao.WriteBehindConanTaskWriter;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessRun;
 import uk.ac.ebi.fgpt.conan.model.ConanTask;
 import uk.ac.ebi.fgpt.conan.service.ConanResponderService;
 
@@ -11,6 +13,9 @@ import java.util.Set;
 
 /**
  * A dedicated listener that writes status updates from any {@link uk.ac.ebi.fgpt.conan.model.ConanTask} to a database.
+ * <p/>
+ * By default, updates are written synchronously on the thread that raised the event.  If a {@link
+ * WriteBehindConanTaskWriter} is supplied, updates are instead handed to it and written in the background.
  *
  * @author Tony Burdett
  * @date 15-Oct-2010
@@ -18,6 +23,7 @@ import java.util.Set;
 public class DAOWritingConanTaskListener implements ConanTaskListener {
     private Set<ConanResponderService> responderServices;
     private ConanTaskDAO conanTaskDAO;
+    private WriteBehindConanTaskWriter taskWriter;
 
     public DAOWritingConanTaskListener() {
         this.responderServices = new HashSet<ConanResponderService>();
@@ -31,6 +37,14 @@ public class DAOWritingConanTaskListener implements ConanTaskListener {
         this.conanTaskDAO = conanTaskDAO;
     }
 
+    public WriteBehindConanTaskWriter getTaskWriter() {
+        return taskWriter;
+    }
+
+    public void setTaskWriter(WriteBehindConanTaskWriter taskWriter) {
+        this.taskWriter = taskWriter;
+    }
+
     public Set<ConanResponderService> getResponderServices() {
         return responderServices;
     }
@@ -40,7 +54,7 @@ public class DAOWritingConanTaskListener implements ConanTaskListener {
     }
 
     public void stateChanged(ConanTaskEvent event) {
-        getConanTaskDAO().updateTask(event.getTask());
+        writeTask(event.getTask(), null);
 
         // if the state has changed to complete, we might need to issue a response
         if (event.getCurrentState() == ConanTask.State.COMPLETED) {
@@ -53,21 +67,13 @@ public class DAOWritingConanTaskListener implements ConanTaskListener {
     }
 
     public void processStarted(ConanTaskEvent event) {
-        // update task, as current execution index needs to be updated
-        getConanTaskDAO().updateTask(event.getTask());
-        // save process run
-        if (event.getCurrentProcessRun() != null) {
-            getConanTaskDAO().saveProcessRun(event.getTask().getId(), event.getCurrentProcessRun());
-        }
+        // update task, as current execution index needs to be updated, and save process run
+        writeTask(event.getTask(), event.getCurrentProcessRun());
     }
 
     public void processEnded(ConanTaskEvent event) {
-        // update task, as current execution index needs to be updated
-        getConanTaskDAO().updateTask(event.getTask());
-
-        if (event.getCurrentProcessRun() != null) {
-            getConanTaskDAO().saveProcessRun(event.getTask().getId(), event.getCurrentProcessRun());
-        }
+        // update task, as current execution index needs to be updated, and save process run
+        writeTask(event.getTask(), event.getCurrentProcessRun());
 
         // and because this process ended, we might need to issue a response
         for (ConanResponderService responder : getResponderServices()) {
@@ -78,12 +84,8 @@ public class DAOWritingConanTaskListener implements ConanTaskListener {
     }
 
     public void processFailed(ConanTaskEvent event) {
-        // state should be updated to FAILED
-        stateChanged(event);
-
-        if (event.getCurrentProcessRun() != null) {
-            getConanTaskDAO().saveProcessRun(event.getTask().getId(), event.getCurrentProcessRun());
-        }
+        // state should be updated to FAILED, and save process run
+        writeTask(event.getTask(), event.getCurrentProcessRun());
 
         // because this process failed, we might need to issue a response
         for (ConanResponderService responder : getResponderServices()) {
@@ -97,4 +99,16 @@ public class DAOWritingConanTaskListener implements ConanTaskListener {
             }
         }
     }
+
+    private void writeTask(ConanTask<?> conanTask, ConanProcessRun conanProcessRun) {
+        if (getTaskWriter() != null) {
+            getTaskWriter().writeTask(conanTask, conanProcessRun);
+        }
+        else {
+            getConanTaskDAO().updateTask(conanTask);
+            if (conanProcessRun != null) {
+                getConanTaskDAO().writeProcessRun(conanTask.getId(), conanProcessRun);
+            }
+        }
+    }
 }
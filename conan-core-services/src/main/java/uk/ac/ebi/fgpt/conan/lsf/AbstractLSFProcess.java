@@ -2,8 +2,9 @@ package uk.ac.ebi.fgpt.conan.lsf;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.fgpt.conan.model.AsyncConanProcess;
 import uk.ac.ebi.fgpt.conan.model.ConanParameter;
-import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessFuture;
 import uk.ac.ebi.fgpt.conan.properties.ConanProperties;
 import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
 import uk.ac.ebi.fgpt.conan.utils.CommandExecutionException;
@@ -19,11 +20,14 @@ import java.util.Map;
 /**
  * An abstract {@link uk.ac.ebi.fgpt.conan.model.ConanProcess} that is designed for dispatching operating system
  * processes to the EBI LSF cluster for execution.  You can tailor memory requirements by process.
+ * <p/>
+ * LSF processes are {@link AsyncConanProcess}es: once a job has been dispatched, the LSF output file is polled on a
+ * shared scheduler, so tasks that don't want to wait for the job to finish need not hold a thread whilst it runs.
  *
  * @author Tony Burdett
  * @date 02-Nov-2010
  */
-public abstract class AbstractLSFProcess implements ConanProcess {
+public abstract class AbstractLSFProcess implements AsyncConanProcess {
     private String bsubPath = "bsub";
     private String queueName = "production-rh6";
     private int monitorInterval = 15;
@@ -116,8 +120,8 @@ public abstract class AbstractLSFProcess implements ConanProcess {
     /**
      * Executes this process with the supplied parameters.  This implementation executes a process by dispatching it to
      * the EBI LSF cluster, and therefore it's <code>execute</code> method is split into two key parts, {@link
-     * #dispatch(String)} and a blocking call to an {@link LSFProcessListener} implementation to monitor the status of
-     * the underlying process and block until completion.
+     * #dispatch(String)} and a blocking wait on an {@link LSFProcessListener} implementation that monitors the status
+     * of the underlying process until completion.
      * <p/>
      * The first part governs dispatch - after creation of the command, the command is wrapped inside a call to "bsub"
      * (optionally with memory requirements specified) and executed as a native OS process.  This process then runs
@@ -146,6 +150,37 @@ public abstract class AbstractLSFProcess implements ConanProcess {
      */
     public boolean execute(Map<ConanParameter, String> parameters)
             throws IllegalArgumentException, ProcessExecutionException, InterruptedException {
+        LSFProcessMonitor monitor = dispatchAndMonitor(parameters);
+        try {
+            getLog().debug("Monitoring process, waiting for completion");
+            return monitor.get();
+        }
+        catch (InterruptedException e) {
+            // stop monitoring, but leave the output file in place so that this process can be recovered
+            monitor.stopMonitoring();
+            throw e;
+        }
+    }
+
+    /**
+     * Dispatches this process with the supplied parameters, exactly as {@link #execute(java.util.Map)} does, but
+     * returns as soon as the process has been dispatched to the LSF cluster.  The returned future is completed once the
+     * LSF output file indicates that the process has exited.  Recovery of processes that are already running works in
+     * the same way.
+     *
+     * @param parameters maps parameters to the supplied values required in order to execute a process
+     * @return a future holding the result of the LSF process
+     * @throws IllegalArgumentException  if an incorrect set of parameter values has been supplied, or if required
+     *                                   values are null
+     * @throws ProcessExecutionException if the process could not be dispatched to the LSF cluster
+     */
+    public ConanProcessFuture executeAsync(Map<ConanParameter, String> parameters)
+            throws IllegalArgumentException, ProcessExecutionException {
+        return dispatchAndMonitor(parameters);
+    }
+
+    private LSFProcessMonitor dispatchAndMonitor(Map<ConanParameter, String> parameters)
+            throws IllegalArgumentException, ProcessExecutionException {
         getLog().debug("Executing an LSF process with parameters: " + parameters);
         int memReq = getMemoryRequirement(parameters);
         String lsfOptions = getLSFOptions(parameters);
@@ -200,10 +235,8 @@ public abstract class AbstractLSFProcess implements ConanProcess {
         }
 
         // set up monitoring of the lsfOutputFile
-        InvocationTrackingLSFProcessListener listener = new InvocationTrackingLSFProcessListener();
-
-        final LSFProcessAdapter adapter = new LSFProcessAdapter(lsfOutputFilePath, getMonitorInterval());
-        adapter.addLSFProcessListener(listener);
+        LSFProcessMonitor monitor = new LSFProcessMonitor(lsfOutputFilePath);
+        monitor.startMonitoring();
 
         // process dispatch
         boolean dispatched = false;
@@ -243,38 +276,13 @@ public abstract class AbstractLSFProcess implements ConanProcess {
         finally {
             if (!dispatched) {
                 // this process didn't start, so delete output files to cleanup before throwing the exception
+                monitor.stopMonitoring();
                 getLog().debug("Deleting " + lsfOutputFile.getAbsolutePath());
                 ProcessUtils.deleteFiles(lsfOutputFile);
             }
         }
 
-        // process exit value, initialise to -1
-        int exitValue = -1;
-
-        // process monitoring
-        try {
-            getLog().debug("Monitoring process, waiting for completion");
-            exitValue = listener.waitFor();
-            getLog().debug("LSF Process completed with exit value " + exitValue);
-
-            ProcessExecutionException pex = interpretExitValue(exitValue);
-            if (pex == null) {
-                return true;
-            }
-            else {
-                pex.setProcessOutput(adapter.getProcessOutput());
-                pex.setProcessExecutionHost(adapter.getProcessExecutionHost());
-                throw pex;
-            }
-        }
-        finally {
-            // this process DID start, so only delete output files to cleanup if the process actually exited,
-            // and wasn't e.g. interrupted prior to completion
-            if (exitValue != -1) {
-                getLog().debug("Deleting " + lsfOutputFile.getAbsolutePath());
-                ProcessUtils.deleteFiles(lsfOutputFile);
-            }
-        }
+        return monitor;
     }
 
     /**
@@ -387,61 +395,72 @@ public abstract class AbstractLSFProcess implements ConanProcess {
             throws IllegalArgumentException;
 
     /**
-     * An {@link LSFProcessListener} that encapsulates the state of each invocation of a process and updates flags for
-     * completion and success.  Processes using this listener implementation can block on {@link #waitFor()}, which only
-     * returns once the LSF process being listened to is complete.
+     * An {@link LSFProcessListener} that monitors a single invocation of a process, and completes with the result of
+     * the process once the LSF process being listened to has exited.  Output files are cleaned up before this future
+     * is completed, so that the process can be executed again straight away.
      */
-    private class InvocationTrackingLSFProcessListener implements LSFProcessListener {
-        private boolean complete;
-        private int exitValue;
+    private class LSFProcessMonitor extends ConanProcessFuture implements LSFProcessListener {
+        private final LSFProcessAdapter adapter;
 
-        private InvocationTrackingLSFProcessListener() {
-            complete = false;
-            exitValue = -1;
+        private LSFProcessMonitor(String lsfOutputFilePath) {
+            this.adapter = new LSFProcessAdapter(lsfOutputFilePath, getMonitorInterval());
+        }
+
+        private void startMonitoring() {
+            adapter.addLSFProcessListener(this);
+        }
+
+        private void stopMonitoring() {
+            adapter.removeLSFProcessListener(this);
         }
 
         public void processComplete(LSFProcessEvent evt) {
             getLog().debug("File finished writing, process exit value was " + evt.getExitValue());
-            exitValue = evt.getExitValue();
-            complete = true;
-            synchronized (this) {
-                notifyAll();
-            }
+            processExited(evt.getExitValue());
         }
 
         public void processUpdate(LSFProcessEvent evt) {
             // do nothing, not yet finished
             getLog().debug("File was modified");
-            synchronized (this) {
-                notifyAll();
-            }
         }
 
         public void processError(LSFProcessEvent evt) {
             // something went wrong
             getLog().debug("File was deleted by an external process");
-            exitValue = 1;
-            complete = true;
-            synchronized (this) {
-                notifyAll();
-            }
+            processExited(1);
         }
 
-        /**
-         * Returns the success of the LSFProcess being listened to, only once complete.  This method blocks until
-         * completion or an interruption occurs.
-         *
-         * @return the exit value of the underlying process
-         * @throws InterruptedException if the thread was interrupted whilst waiting
-         */
-        public int waitFor() throws InterruptedException {
-            while (!complete) {
-                synchronized (this) {
-                    wait();
+        private void processExited(int exitValue) {
+            if (isDone()) {
+                return;
+            }
+            getLog().debug("LSF Process completed with exit value " + exitValue);
+
+            ProcessExecutionException pex = null;
+            RuntimeException unexpected = null;
+            try {
+                pex = interpretExitValue(exitValue);
+                if (pex != null) {
+                    pex.setProcessOutput(adapter.getProcessOutput());
+                    pex.setProcessExecutionHost(adapter.getProcessExecutionHost());
                 }
             }
-            getLog().debug("Process completed: exitValue = " + exitValue);
-            return exitValue;
+            catch (RuntimeException e) {
+                unexpected = e;
+            }
+
+            // this process has exited, so delete output files to cleanup before anything can re-execute it
+            getLog().debug("Deleting " + adapter.getAbsolutePath());
+            ProcessUtils.deleteFiles(adapter);
+            if (unexpected != null) {
+                fail(unexpected);
+            }
+            else if (pex == null) {
+                complete(true);
+            }
+            else {
+                fail(pex);
+            }
         }
     }
 }
@@ -2,6 +2,7 @@ package uk.ac.ebi.fgpt.conan.lsf;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.fgpt.conan.core.process.ProcessMonitorScheduler;
 
 import java.io.File;
 import java.io.FileReader;
@@ -12,13 +13,19 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An adapter over an LSF process being executed as a native system process.  This adapter works by wrapping the {@link
  * File} object that the LSF process is writing it's output to and polling this file for updates.  Whenever output lines
  * are written that are recognised as LSF key phrases, events are triggered on any registered listeners.
  * <p/>
- * You can set the monitoring period to adjust the frequency of file polling operations as required.
+ * You can set the monitoring period to adjust the frequency of file polling operations as required.  Polling is done
+ * on the shared {@link ProcessMonitorScheduler}, so monitoring an LSF process does not need a thread of its own.
  *
  * @author Tony Burdett
  * @date 20-Jun-2008
@@ -26,11 +33,12 @@ import java.util.Set;
 public class LSFProcessAdapter extends File implements LSFProcess {
     private final LSFOutputFileMonitor fileMonitor;
     private final Set<LSFProcessListener> listeners;
+    // signalled once the process completes, for threads waiting on the exit code
+    private final Lock completionLock = new ReentrantLock();
+    private final Condition completion = completionLock.newCondition();
 
-    private Thread fileMonitorThread;
-
-    private boolean complete = false;
-    private int exitValue = -1;
+    private volatile boolean complete = false;
+    private volatile int exitValue = -1;
     private String processExecutionHost = "unknown";
     private List<String> processOutput = new ArrayList<String>();
 
@@ -80,13 +88,9 @@ public class LSFProcessAdapter extends File implements LSFProcess {
             exitValue = -1;
             lastLineReadIndex = -1;
 
-            // create new thread if required
-            if (fileMonitorThread == null || !fileMonitorThread.isAlive()) {
-                getLog().debug("Creating new file monitor thread");
-                fileMonitorThread = new Thread(fileMonitor);
-            }
-            fileMonitorThread.start();
-            getLog().debug("Started file monitor thread");
+            // schedule polling of the output file
+            fileMonitor.start();
+            getLog().debug("Started file monitor");
         }
     }
 
@@ -102,10 +106,16 @@ public class LSFProcessAdapter extends File implements LSFProcess {
     }
 
     public int waitForExitCode() throws InterruptedException {
-        while (!isComplete()) {
-            wait();
+        completionLock.lock();
+        try {
+            while (!isComplete()) {
+                completion.await();
+            }
+            return exitValue;
+        }
+        finally {
+            completionLock.unlock();
         }
-        return exitValue;
     }
 
     public String getProcessExecutionHost() {
@@ -133,6 +143,10 @@ public class LSFProcessAdapter extends File implements LSFProcess {
             lastLineReadIndex = reader.getLineNumber();
             reader.close();
 
+            if (complete) {
+                signalCompletion();
+            }
+
             // only fire completion events if already completed
             LSFProcessEvent evt = new LSFProcessEvent(lines.toArray(new String[lines.size()]), lastModified, exitValue);
             for (LSFProcessListener listener : listeners) {
@@ -171,6 +185,10 @@ public class LSFProcessAdapter extends File implements LSFProcess {
             lastLineReadIndex = reader.getLineNumber();
             reader.close();
 
+            if (complete) {
+                signalCompletion();
+            }
+
             // now create our event and fire listeners
             LSFProcessEvent evt = new LSFProcessEvent(lines.toArray(new String[lines.size()]), lastModified, exitValue);
             for (LSFProcessListener listener : listeners) {
@@ -200,6 +218,16 @@ public class LSFProcessAdapter extends File implements LSFProcess {
         }
     }
 
+    private void signalCompletion() {
+        completionLock.lock();
+        try {
+            completion.signalAll();
+        }
+        finally {
+            completionLock.unlock();
+        }
+    }
+
     private void parseLine(String line, List<String> lines) {
         // if the line indicates the LSF process is complete, set flag
         if (line.startsWith("Successfully completed")) {
@@ -255,7 +283,8 @@ public class LSFProcessAdapter extends File implements LSFProcess {
         private final File lsfOutputFile;
         private final int interval;
 
-        private boolean running;
+        private volatile boolean running;
+        private ScheduledFuture<?> schedule;
 
         private boolean fileExisted;
         private long lastModified;
@@ -265,71 +294,81 @@ public class LSFProcessAdapter extends File implements LSFProcess {
             this.lsfOutputFile = lsfOutputFile;
             this.interval = interval;
 
-            this.running = true;
+            this.running = false;
             this.fileExisted = false;
             this.lastModified = -1;
             this.lastLength = -1;
         }
 
+        public synchronized void start() {
+            if (schedule == null || schedule.isDone()) {
+                getLog().debug("Starting file monitor for " + lsfOutputFile.getAbsolutePath());
+                running = true;
+                schedule = ProcessMonitorScheduler.getScheduler().scheduleWithFixedDelay(
+                        this, 0, Math.max(interval, 1), TimeUnit.SECONDS);
+            }
+        }
+
         public void run() {
-            getLog().debug("Starting file monitor for " + lsfOutputFile.getAbsolutePath());
-            while (running) {
-                synchronized (lsfOutputFile) {
-                    // check the lsfOutputFile exists
-                    if (lsfOutputFile.exists()) {
-                        // we have found our file
-                        if (!fileExisted) {
-                            // the lsfOutputFile has been detected for the first time
-                            fileExisted = true;
-                            getLog().debug("File detected at " + lsfOutputFile.lastModified() + " " +
-                                    "(size " + lsfOutputFile.length() + ")");
-                            fireOutputFileDetectedEvent(lsfOutputFile.lastModified());
-                        }
-                        else {
-                            // check for modifications
-                            if (lsfOutputFile.lastModified() > lastModified ||
-                                    lsfOutputFile.length() != lastLength) {
-                                // the lsfOutputFile has been updated since we last checked
-                                getLog().debug("File updated: " +
-                                        "modified -  " + lsfOutputFile.lastModified() + " " +
-                                        "(previously " + lastModified + "); " +
-                                        "size - " + lsfOutputFile.length() + " " +
-                                        "(previously " + lastLength + ")");
-                                fireOutputFileUpdateEvent(lsfOutputFile.lastModified());
-                            }
-                        }
+            if (!running) {
+                return;
+            }
+            try {
+                poll();
+            }
+            catch (RuntimeException e) {
+                // don't let one bad read cancel all future polls
+                getLog().error("Failed to poll " + lsfOutputFile.getAbsolutePath() + " for updates", e);
+            }
+        }
+
+        private void poll() {
+            synchronized (lsfOutputFile) {
+                // check the lsfOutputFile exists
+                if (lsfOutputFile.exists()) {
+                    // we have found our file
+                    if (!fileExisted) {
+                        // the lsfOutputFile has been detected for the first time
+                        fileExisted = true;
+                        getLog().debug("File detected at " + lsfOutputFile.lastModified() + " " +
+                                "(size " + lsfOutputFile.length() + ")");
+                        fireOutputFileDetectedEvent(lsfOutputFile.lastModified());
                     }
                     else {
-                        if (fileExisted) {
-                            // the lsfOutputFile was found before, so it definitely existed at some point...
-                            // therefore it has been deleted by an external process
-                            getLog().debug("File previously existed but has been deleted");
-                            fireOutputFileDeleteEvent(lsfOutputFile.lastModified());
+                        // check for modifications
+                        if (lsfOutputFile.lastModified() > lastModified ||
+                                lsfOutputFile.length() != lastLength) {
+                            // the lsfOutputFile has been updated since we last checked
+                            getLog().debug("File updated: " +
+                                    "modified -  " + lsfOutputFile.lastModified() + " " +
+                                    "(previously " + lastModified + "); " +
+                                    "size - " + lsfOutputFile.length() + " " +
+                                    "(previously " + lastLength + ")");
+                            fireOutputFileUpdateEvent(lsfOutputFile.lastModified());
                         }
                     }
-
-                    // updated the lastModified time
-                    lastModified = lsfOutputFile.lastModified();
-                    lastLength = lsfOutputFile.length();
                 }
-
-                // sleep for interval seconds
-                synchronized (this) {
-                    try {
-                        wait(interval * 1000);
-                    }
-                    catch (InterruptedException e) {
-                        // if interrupted, die
-                        getLog().debug("Interrupted exception causing thread to die");
-                        stop();
+                else {
+                    if (fileExisted) {
+                        // the lsfOutputFile was found before, so it definitely existed at some point...
+                        // therefore it has been deleted by an external process
+                        getLog().debug("File previously existed but has been deleted");
+                        fireOutputFileDeleteEvent(lsfOutputFile.lastModified());
                     }
                 }
+
+                // updated the lastModified time
+                lastModified = lsfOutputFile.lastModified();
+                lastLength = lsfOutputFile.length();
             }
-            getLog().debug("Stopping file monitor for " + lsfOutputFile.getAbsolutePath());
         }
 
-        public void stop() {
+        public synchronized void stop() {
             running = false;
+            if (schedule != null) {
+                schedule.cancel(false);
+                getLog().debug("Stopping file monitor for " + lsfOutputFile.getAbsolutePath());
+            }
         }
     }
 }
@@ -17,8 +17,10 @@ import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.fgpt.conan.core.process.ProcessMonitorScheduler;
+import uk.ac.ebi.fgpt.conan.model.AsyncConanProcess;
 import uk.ac.ebi.fgpt.conan.model.ConanParameter;
-import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessFuture;
 import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
 
 import java.io.BufferedWriter;
@@ -29,16 +31,21 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST API - Representational state transfer application programming interface.
  * An abstract {@link uk.ac.ebi.fgpt.conan.model.ConanProcess} that is designed for to process REST API requests.
  * You can tailor monitor interval by process.
+ * <p/>
+ * REST API processes are {@link AsyncConanProcess}es: the status of each request is polled on a shared scheduler, so
+ * tasks that don't want to wait for a request to complete need not hold a thread whilst it runs.
  *
  * @author Natalja Kurbatova
  * @date 23-05-2011
  */
-public abstract class AbstractRESTAPIProcess implements ConanProcess {
+public abstract class AbstractRESTAPIProcess implements AsyncConanProcess {
 
     public static final int MONITOR_INTERVAL = 15;
 
@@ -67,9 +74,27 @@ public abstract class AbstractRESTAPIProcess implements ConanProcess {
     public boolean execute(Map<ConanParameter, String> parameters)
             throws ProcessExecutionException, IllegalArgumentException,
             InterruptedException {
+        return executeAsync(parameters).get();
+    }
+
+    /**
+     * Executes this process with the supplied parameters, returning once the REST API request has been made.  The
+     * returned future is completed once the status of the request shows it is complete.  Requests that do not need to
+     * be monitored return a future that has already completed.
+     *
+     * @param parameters maps parameters to the supplied values required in order to execute a process
+     * @return a future holding the result of the REST API process
+     * @throws ProcessExecutionException if the REST API request could not be made
+     * @throws IllegalArgumentException  if an incorrect set of parameter values has been supplied, or if required
+     *                                   values are null
+     */
+    public ConanProcessFuture executeAsync(Map<ConanParameter, String> parameters)
+            throws ProcessExecutionException, IllegalArgumentException {
         // process exit value, initialise to -1
         int exitValue = -1;
         BufferedWriter log = null;
+        // once monitoring starts, the status monitor is responsible for the log
+        boolean monitoring = false;
         try {
             String reportsDir = logName(parameters)[0];
             String fileName = logName(parameters)[1] +
@@ -84,8 +109,6 @@ public abstract class AbstractRESTAPIProcess implements ConanProcess {
             log.write(logName(parameters)[2] + "\n");
             log.write("Executing REST API process with parameters: " + parameters + "\n");
 
-            HashMap<String, Object> response;
-
             //in most of the cases have to login to start work with REST API
             //initialize http objects needed to login
             HttpClient httpclient = new DefaultHttpClient();
@@ -147,38 +170,25 @@ public abstract class AbstractRESTAPIProcess implements ConanProcess {
                 log.write("REST API task to monitor: " + idToMonitor + "\n");
                     if (!idToMonitor.equals(RESTAPIEvents.WITHOUT_MONITORING)) {
                         // set up monitoring
-                        final RESTAPIStatusMonitor
+                        RESTAPIStatusMonitor
                                 statusMonitor =
                                 new RESTAPIStatusMonitor(getMonitoringRequest(idToMonitor),
                                                          MONITOR_INTERVAL, httpclient, localContext, log);
 
                         // process monitoring
                         log.write("Monitoring process, waiting for completion\n");
-                        new Thread(statusMonitor).start();
-                        response = statusMonitor.waitFor();
-                        exitValue = getExitCode(response);
-                        log.write("REST API Process completed with exit value " + exitValue + "\n");
-
-                        ProcessExecutionException pex = new ProcessExecutionException(exitValue, getMessage(response));
-                        if (exitValue == 0) {
-                            return true;
-                        }
-                        else {
-                            String[] errors = new String[1];
-                            errors[0] = getMessage(response);
-                            pex.setProcessOutput(errors);
-                            throw pex;
-                        }
-
+                        statusMonitor.start();
+                        monitoring = true;
+                        return statusMonitor;
                     }
                     else {
                         exitValue = 0;
                         log.write("REST API Process completed with exit value " + exitValue + "\n");
-                        return true;
+                        return ConanProcessFuture.completed(true);
                     }
             }
             else {
-                return false;
+                return ConanProcessFuture.completed(false);
             }
         }
         catch (IOException e) {
@@ -192,19 +202,8 @@ public abstract class AbstractRESTAPIProcess implements ConanProcess {
             throw pex;
         }
         finally {
-            try {
-                log.write("REST API: FINISHED\n");
-                log.close();
-            }
-            catch (IOException e) {
-                e.printStackTrace();
-                exitValue = 1;
-
-                ProcessExecutionException pex = new ProcessExecutionException(exitValue, e.getMessage());
-                String[] errors = new String[1];
-                errors[0] = e.getMessage();
-                pex.setProcessOutput(errors);
-                throw pex;
+            if (!monitoring) {
+                closeLog(log);
             }
         }
 
@@ -267,13 +266,34 @@ public abstract class AbstractRESTAPIProcess implements ConanProcess {
         return requestResults;
     }
 
-    private class RESTAPIStatusMonitor implements Runnable {
+    private void closeLog(BufferedWriter log) throws ProcessExecutionException {
+        try {
+            log.write("REST API: FINISHED\n");
+            log.close();
+        }
+        catch (IOException e) {
+            getLog().error("Failed to close log", e);
+            int exitValue = 1;
+
+            ProcessExecutionException pex = new ProcessExecutionException(exitValue, e.getMessage());
+            String[] errors = new String[1];
+            errors[0] = e.getMessage();
+            pex.setProcessOutput(errors);
+            throw pex;
+        }
+    }
+
+    /**
+     * Polls the status of a REST API request on the shared {@link ProcessMonitorScheduler}, and completes with the
+     * result of the request once it is complete.  The log for this request is closed once monitoring ends.
+     */
+    private class RESTAPIStatusMonitor extends ConanProcessFuture implements Runnable {
         private final String restApiStatusURL;
         private final int interval;
 
         private HashMap<String, Object> response;
-        private boolean running;
-        private boolean complete;
+        private volatile boolean running;
+        private ScheduledFuture<?> schedule;
         //http objects needed to login
         private HttpClient httpclient = new DefaultHttpClient();
         // Create local HTTP context
@@ -289,74 +309,63 @@ public abstract class AbstractRESTAPIProcess implements ConanProcess {
             this.httpclient = httpclient;
             this.localContext = localContext;
 
-            this.running = true;
-            this.complete = false;
+            this.running = false;
+        }
+
+        public synchronized void start() {
+            getLog().debug("Polling " + restApiStatusURL + " for status");
+            running = true;
+            schedule = ProcessMonitorScheduler.getScheduler().scheduleWithFixedDelay(
+                    this, 0, interval, TimeUnit.SECONDS);
         }
 
         public void run() {
+            if (!running) {
+                return;
+            }
             try {
-                //log.write("Polling " + restApiStatusURL + " for status\n");
-                getLog().debug("Polling " + restApiStatusURL + " for status\n");
-                while (running) {
-                    // make request to restApiStatusURL
-                    // parse response to determine if complete yet
-                    response = restApiRequest(restApiStatusURL, httpclient, localContext, log);
-                    if (isComplete(response)) {
-                        complete = true;
-                        stop();
+                // make request to restApiStatusURL
+                // parse response to determine if complete yet
+                response = restApiRequest(restApiStatusURL, httpclient, localContext, log);
+                if (isComplete(response)) {
+                    stop();
+                    getLog().debug("Process completed: status message = " + getMessage(response));
+                    int exitValue = getExitCode(response);
+                    log.write("REST API Process completed with exit value " + exitValue + "\n");
+                    closeLog(log);
+                    if (exitValue == 0) {
+                        complete(true);
                     }
-                    synchronized (this) {
-                        notifyAll();
-                    }
-
-                    // sleep for interval seconds
-                    if (running) {
-                        synchronized (this) {
-                            try {
-                                wait(interval * 1000);
-                            }
-                            catch (InterruptedException e) {
-                                // if interrupted, die
-                                stop();
-                            }
-                        }
+                    else {
+                        ProcessExecutionException pex = new ProcessExecutionException(exitValue, getMessage(response));
+                        String[] errors = new String[1];
+                        errors[0] = getMessage(response);
+                        pex.setProcessOutput(errors);
+                        fail(pex);
                     }
                 }
             }
+            catch (ProcessExecutionException e) {
+                fail(e);
+            }
             catch (Exception e) {
                 e.printStackTrace();
                 stop();
+
+                ProcessExecutionException pex = new ProcessExecutionException(1, e.getMessage(), e);
+                String[] errors = new String[1];
+                errors[0] = e.getMessage();
+                pex.setProcessOutput(errors);
+                fail(pex);
             }
         }
 
-        public void stop() {
+        public synchronized void stop() {
             running = false;
-        }
-
-        /**
-         * Returns the success of the RESTAPIProcess being listened to, only once complete.  This method blocks until
-         * completion or an interruption occurs.
-         *
-         * @return the exit value of the underlying process
-         * @throws InterruptedException if the thread was interrupted whilst waiting
-         */
-        public HashMap<String, Object> waitFor() throws InterruptedException {
-            while (!complete) {
-                synchronized (this) {
-                    wait();
-                }
+            if (schedule != null) {
+                schedule.cancel(false);
             }
-            try {
-                getLog().debug("Process completed: status message = " + getMessage(response));
-                //log.write("Process completed: status message = " + getMessage(response) + "\n");
-            }
-            catch (Exception e) {
-                e.printStackTrace();
-            }
-            return response;
         }
-
-
     }
 
 
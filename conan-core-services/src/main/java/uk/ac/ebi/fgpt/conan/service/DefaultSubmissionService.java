@@ -3,41 +3,129 @@ package uk.ac.ebi.fgpt.conan.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.core.process.ProcessResultCache;
+import uk.ac.ebi.fgpt.conan.core.task.AbstractConanTask;
+import uk.ac.ebi.fgpt.conan.core.task.ProcessCompletionListener;
+import uk.ac.ebi.fgpt.conan.core.task.ProcessConcurrencyLimiter;
 import uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO;
-import uk.ac.ebi.fgpt.conan.model.ConanParameter;
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
 import uk.ac.ebi.fgpt.conan.model.ConanTask;
 import uk.ac.ebi.fgpt.conan.service.exception.SubmissionException;
 
+import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A default implementation of a {@link ConanSubmissionService} that queues jobs in an {@link ExecutorService} for
  * parallel execution.  This service should be assigned a number of parallel jobs (the max number of jobs that are
  * allowed to be running at any one time) and a cooling off period (which is the amount of time a job will remain
- * "pending" for before execution actually commences).
+ * "pending" for before execution actually commences).  Tasks in their cooling off period are held on a scheduler,
+ * and are only released to the executor once they become eligible to run, so they do not tie up any of the parallel
+ * jobs whilst they wait.
+ * <p/>
+ * As well as the overall number of parallel jobs, the number of processes that may run at once can be limited for
+ * individual pipelines and processes, so that one heavy pipeline cannot take every job.  These limits are checked by
+ * each task before it starts a process: a task that has to wait for a slot gives up its job, and is queued again once a
+ * slot is released.
+ * <p/>
+ * Processes can also be skipped altogether, if a {@link uk.ac.ebi.fgpt.conan.core.process.ProcessResultCache} is set
+ * and the process has already completed for identical inputs.  This means a task that is resubmitted, or retried after
+ * a later process failed, does not repeat work that has already been done.
+ * <p/>
+ * Tasks do not hold a parallel job whilst they wait for an {@link uk.ac.ebi.fgpt.conan.model.AsyncConanProcess}, such
+ * as an LSF job, to complete.  Once such a process has started, the task gives up its job, and is queued again to carry
+ * on with its pipeline once the process completes.  These tasks are still reported as executing whilst they wait.
+ * <p/>
+ * Tasks can be run in one of two {@link ExecutorMode}s.  By default, tasks share a fixed pool of threads, one per
+ * parallel job.  Alternatively, each task can be run on a thread of its own - a virtual thread, on a JDK that supports
+ * them - in which case the number of tasks that may run at once is capped by a separate admission limit instead.  As
+ * most tasks spend almost all of their time blocked on external jobs, this limit can be set much higher than the
+ * number of platform threads it would be sensible to create.
+ * <p/>
+ * Tasks waiting for a free job are run in order of priority, and then in order of submission.  So that a large batch of
+ * low priority tasks cannot be held back indefinitely by a stream of higher priority ones, waiting tasks age: each
+ * priority level a task is given is worth one priority aging interval of waiting time.  A {@link
+ * uk.ac.ebi.fgpt.conan.model.ConanTask.Priority#LOW} task that has waited for one aging interval therefore runs ahead of
+ * a {@link uk.ac.ebi.fgpt.conan.model.ConanTask.Priority#MEDIUM} task submitted just now.
  * <p/>
  * This implementation also prevents "duplicate" tasks from being executed together.  "Duplicate" tasks are any tasks
  * with and identical set of parameter/parameter value pairs: they do not have to be submitted to the same pipeline.
+ * Incomplete tasks are kept in a {@link TaskParameterIndex}, which is rebuilt on startup, so that each new submission
+ * can be checked for duplication with a single lookup.
  *
  * @author Tony Burdett
  * @date 15-Oct-2010
  */
 public class DefaultSubmissionService implements ConanSubmissionService {
-    private final ExecutorService taskExecutor;
+    public static final int DEFAULT_PRIORITY_AGING_INTERVAL = 600;
+
+    private final ExecutorMode executorMode;
+    private final ThreadPoolExecutor taskExecutor;
+    private final ScheduledExecutorService coolingOffScheduler;
     private final int coolingOffPeriod;
+    private int priorityAgingInterval = DEFAULT_PRIORITY_AGING_INTERVAL;
+    private final ProcessConcurrencyLimiter concurrencyLimiter;
+    private final ProcessCompletionListener processCompletionListener;
+    private ProcessResultCache processResultCache;
+
+    // breaks ties between tasks that are queued with the same rank, in submission order
+    private final AtomicLong submissionSequence;
 
     private final ConcurrentMap<String, Future<Boolean>> executingFutures;
+    // task ID -> the live task object being executed, so executing tasks can be read without going to the DAO
+    private final ConcurrentMap<String, ConanTask<? extends ConanPipeline>> executingTasks;
+    // parameter values of every incomplete task, to check new submissions for duplication
+    private final TaskParameterIndex incompleteTaskIndex;
 
     private ConanTaskDAO conanTaskDAO;
 
     private Logger log = LoggerFactory.getLogger(getClass());
 
     public DefaultSubmissionService(int numberOfParallelJobs, int coolingOffPeriod) {
-        this.taskExecutor = Executors.newFixedThreadPool(numberOfParallelJobs);
+        this(numberOfParallelJobs, coolingOffPeriod, ExecutorMode.POOLED);
+    }
+
+    public DefaultSubmissionService(int numberOfParallelJobs, int coolingOffPeriod, ExecutorMode executorMode) {
+        Assert.notNull(executorMode, "An ExecutorMode must be supplied");
+        this.executorMode = executorMode;
+        if (executorMode == ExecutorMode.THREAD_PER_TASK) {
+            // threads are started for each task admitted, and discarded as soon as they are idle
+            this.taskExecutor = new ThreadPoolExecutor(numberOfParallelJobs, numberOfParallelJobs,
+                                                       1L, TimeUnit.MILLISECONDS,
+                                                       new PriorityBlockingQueue<Runnable>(),
+                                                       createTaskThreadFactory());
+            this.taskExecutor.allowCoreThreadTimeOut(true);
+        }
+        else {
+            this.taskExecutor = new ThreadPoolExecutor(numberOfParallelJobs, numberOfParallelJobs,
+                                                       0L, TimeUnit.MILLISECONDS,
+                                                       new PriorityBlockingQueue<Runnable>());
+        }
+        this.coolingOffScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "conan-cooling-off");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
         this.coolingOffPeriod = coolingOffPeriod;
+        this.submissionSequence = new AtomicLong();
+        this.concurrencyLimiter = new ProcessConcurrencyLimiter(new ProcessConcurrencyLimiter.SlotListener() {
+            public void slotAvailable(ConanTask<? extends ConanPipeline> task) {
+                requeueWaitingTask(task);
+            }
+        });
+        this.processCompletionListener = new ProcessCompletionListener() {
+            public void processCompleted(ConanTask<? extends ConanPipeline> task) {
+                resumeTask(task);
+            }
+        };
         this.executingFutures = new ConcurrentHashMap<String, Future<Boolean>>();
+        this.executingTasks = new ConcurrentHashMap<String, ConanTask<? extends ConanPipeline>>();
+        this.incompleteTaskIndex = new TaskParameterIndex();
     }
 
     protected Logger getLog() {
@@ -53,50 +141,148 @@ public class DefaultSubmissionService implements ConanSubmissionService {
         this.conanTaskDAO = conanTaskDAO;
     }
 
+    public int getPriorityAgingInterval() {
+        return priorityAgingInterval;
+    }
+
+    /**
+     * Sets the time, in seconds, that a queued task must wait to be promoted by one priority level over newly submitted
+     * tasks.  Defaults to {@link #DEFAULT_PRIORITY_AGING_INTERVAL}.
+     *
+     * @param priorityAgingInterval the number of seconds of waiting that each priority level is worth
+     */
+    public void setPriorityAgingInterval(int priorityAgingInterval) {
+        Assert.isTrue(priorityAgingInterval > 0, "The priority aging interval must be at least one second");
+        this.priorityAgingInterval = priorityAgingInterval;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public int getAdmissionLimit() {
+        return taskExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Sets the maximum number of tasks that may be running at once when each task is given a thread of its own.  This
+     * replaces the number of parallel jobs as the cap on concurrency, and can only be set in {@link
+     * ExecutorMode#THREAD_PER_TASK} mode.
+     *
+     * @param admissionLimit the maximum number of tasks that may run at once
+     */
+    public void setAdmissionLimit(int admissionLimit) {
+        Assert.isTrue(executorMode == ExecutorMode.THREAD_PER_TASK,
+                      "An admission limit can only be set in " + ExecutorMode.THREAD_PER_TASK + " mode");
+        Assert.isTrue(admissionLimit > 0, "The admission limit must be at least one");
+        // grow the maximum before the core size, or shrink the core size before the maximum
+        if (admissionLimit > taskExecutor.getMaximumPoolSize()) {
+            taskExecutor.setMaximumPoolSize(admissionLimit);
+            taskExecutor.setCorePoolSize(admissionLimit);
+        }
+        else {
+            taskExecutor.setCorePoolSize(admissionLimit);
+            taskExecutor.setMaximumPoolSize(admissionLimit);
+        }
+    }
+
+    public Map<String, Integer> getPipelineConcurrencyLimits() {
+        return concurrencyLimiter.getPipelineLimits();
+    }
+
+    /**
+     * Sets the maximum number of processes that may run at once for the tasks of each pipeline, keyed by pipeline name.
+     * Pipelines without a limit may use every parallel job.
+     *
+     * @param pipelineConcurrencyLimits the concurrency limit for each pipeline name
+     */
+    public void setPipelineConcurrencyLimits(Map<String, Integer> pipelineConcurrencyLimits) {
+        concurrencyLimiter.setPipelineLimits(pipelineConcurrencyLimits);
+    }
+
+    public Map<String, Integer> getProcessConcurrencyLimits() {
+        return concurrencyLimiter.getProcessLimits();
+    }
+
+    /**
+     * Sets the maximum number of executions of each process that may run at once across all tasks, keyed by process
+     * name.  Processes without a limit may use every parallel job.
+     *
+     * @param processConcurrencyLimits the concurrency limit for each process name
+     */
+    public void setProcessConcurrencyLimits(Map<String, Integer> processConcurrencyLimits) {
+        concurrencyLimiter.setProcessLimits(processConcurrencyLimits);
+    }
+
+    public ProcessResultCache getProcessResultCache() {
+        return processResultCache;
+    }
+
+    /**
+     * Sets the cache of process results that tasks check before executing each process, so that processes which have
+     * already completed for identical inputs are skipped.  By default, no results are cached and every process is
+     * executed.
+     *
+     * @param processResultCache the cache of process results, or null to always execute every process
+     */
+    public void setProcessResultCache(ProcessResultCache processResultCache) {
+        this.processResultCache = processResultCache;
+    }
+
     public void submitTask(ConanTask<? extends ConanPipeline> conanTask) throws SubmissionException {
         // grab task id, executor service always grabs latest version of conanTask from task service
         // rather than retaining a (possibly out of date) reference
         final String taskID = conanTask.getId();
         log.debug("Task submission received! Task ID = " + taskID);
 
-        ConanTask duplicate = checkForDuplication(conanTask);
-        if (duplicate == null) {
-            // wrap task in a callable and submit
-            Future<Boolean> f = taskExecutor.submit(new Callable<Boolean>() {
-                public Boolean call() throws Exception {
-                    ConanTask<? extends ConanPipeline> executingTask = null;
-                    try {
-                        // all tasks go into a holding pattern for a while before executing
-                        Date creationDate = getConanTaskDAO().getTask(taskID).getCreationDate();
-                        Date allowedStartDate = new Date(System.currentTimeMillis() - (coolingOffPeriod * 1000));
-                        while (creationDate.after(allowedStartDate)) {
-                            synchronized (this) {
-                                wait(1000);
-                            }
-                            allowedStartDate = new Date(System.currentTimeMillis() - (coolingOffPeriod * 1000));
-                        }
-
-                        // now we've waited for the prescribed cooling off period, execute
-                        executingTask = getConanTaskDAO().getTask(taskID);
-                        return executingTask.execute();
-                    }
-                    catch (Exception e) {
-                        getLog().error("There was a problem executing task '" + taskID + "'", e);
-                        throw e;
-                    }
-                    finally {
-                        if (executingTask != null && executingFutures.containsKey(executingTask.getId())) {
-                            executingFutures.remove(executingTask.getId());
-                        }
-                    }
+        // check and index together, so two identical tasks submitted at once can't both get through
+        ConanTask duplicate = null;
+        boolean indexed = false;
+        while (duplicate == null && !indexed) {
+            Set<String> unresolvedIDs = new HashSet<String>();
+            synchronized (incompleteTaskIndex) {
+                duplicate = checkForExecutingDuplication(conanTask, unresolvedIDs);
+                if (duplicate == null && unresolvedIDs.isEmpty()) {
+                    incompleteTaskIndex.index(taskID, conanTask.getParameterValues());
+                    indexed = true;
                 }
-            });
-            executingFutures.put(conanTask.getId(), f);
+            }
+            if (duplicate == null && !indexed) {
+                // look up candidates that aren't executing without holding the lock, then check again
+                duplicate = checkForDuplication(conanTask, unresolvedIDs);
+            }
+        }
+        if (duplicate == null) {
+            getLog().debug("Task ID '" + taskID + "' [" + conanTask.getName() + "] does not duplicate another task");
 
-            // flag the fact that this task was submitted, if it hasn't been restarted
+            // flag the fact that this task was submitted, if it hasn't been restarted, before it can start executing
             if (!conanTask.isSubmitted()) {
                 conanTask.submit();
             }
+
+            // wrap task in a callable, to be queued by priority once it has cooled off
+            final QueuedTask f = createQueuedTask(taskID, conanTask.getPriority(), null);
+            executingFutures.put(taskID, f);
+
+            // all tasks go into a holding pattern for a while before executing
+            Date creationDate = conanTask.getCreationDate();
+            long coolingOffRemaining = creationDate == null
+                    ? 0
+                    : creationDate.getTime() + (coolingOffPeriod * 1000L) - System.currentTimeMillis();
+            if (coolingOffRemaining > 0) {
+                getLog().debug("Holding task ID '" + taskID + "' for " + coolingOffRemaining + "ms before queueing");
+                coolingOffScheduler.schedule(new Runnable() {
+                    public void run() {
+                        // don't queue tasks that were interrupted whilst cooling off
+                        if (!f.isDone()) {
+                            taskExecutor.execute(f);
+                        }
+                    }
+                }, coolingOffRemaining, TimeUnit.MILLISECONDS);
+            }
+            else {
+                taskExecutor.execute(f);
+            }
         }
         else {
             // abort task, otherwise it will be forever stuck with "created" status
@@ -107,6 +293,48 @@ public class DefaultSubmissionService implements ConanSubmissionService {
         }
     }
 
+    /**
+     * Queues a task that stopped to wait for a process slot, now that a slot has been released.  Waiting tasks have
+     * already cooled off and been checked for duplication, so they are queued straight away.  The limiter holds the
+     * task object that stopped to wait, so that same object is executed again, as it may be more up to date than the
+     * copy held by the DAO.
+     *
+     * @param conanTask the task that was waiting for a process slot
+     */
+    protected void requeueWaitingTask(ConanTask<? extends ConanPipeline> conanTask) {
+        getLog().debug("Requeueing task ID '" + conanTask.getId() + "', which was waiting for a process slot");
+        requeueTask(createQueuedTask(conanTask.getId(), conanTask.getPriority(), conanTask));
+    }
+
+    /**
+     * Queues a task that left an asynchronous process running, now that the process has completed, so that it can
+     * continue with its pipeline.  The task is still executing, so the same task object is executed again.
+     *
+     * @param conanTask the task that was waiting on an asynchronous process
+     */
+    protected void resumeTask(ConanTask<? extends ConanPipeline> conanTask) {
+        getLog().debug("Requeueing task ID '" + conanTask.getId() + "', the process it was waiting on has completed");
+        requeueTask(createQueuedTask(conanTask.getId(), conanTask.getPriority(), conanTask));
+    }
+
+    private void requeueTask(QueuedTask f) {
+        Future<Boolean> previous = executingFutures.put(f.taskID, f);
+        // the execution that stopped this task may still be returning, so let it finish first
+        if (!(previous instanceof QueuedTask) || !((QueuedTask) previous).followWith(f)) {
+            queue(f);
+        }
+    }
+
+    private void queue(QueuedTask f) {
+        try {
+            taskExecutor.execute(f);
+        }
+        catch (RejectedExecutionException e) {
+            getLog().debug("Task ID '" + f.taskID + "' could not be requeued, this service is shutting down");
+            executingFutures.remove(f.taskID, f);
+        }
+    }
+
     /**
      * Resubmits any recovered tasks to Conan.  Recovered tasks are those that were interrupted whilst running (for
      * example, due to a Conan shutdown or failure) and have been retrieved from e.g. a {@link
@@ -127,6 +355,10 @@ public class DefaultSubmissionService implements ConanSubmissionService {
         if (f != null) {
             getLog().debug("Forcing interruption of Task ID = " + conanTask.getId());
             f.cancel(true);
+            if (f instanceof QueuedTask) {
+                // if this task was still queued, make way for the tasks behind it
+                taskExecutor.remove((QueuedTask) f);
+            }
             getLog().debug("Cancelled Task ID = " + conanTask.getId() + " successfully");
         }
         else {
@@ -135,13 +367,33 @@ public class DefaultSubmissionService implements ConanSubmissionService {
     }
 
     public Set<ConanTask<? extends ConanPipeline>> getExecutingTasks() {
-        // retrieve all tasks by ID from the executingFutures keySet
-        Set<ConanTask<? extends ConanPipeline>> executingTasks = new HashSet<ConanTask<? extends ConanPipeline>>();
-        for (String taskID : executingFutures.keySet()) {
-            executingTasks.add(getConanTaskDAO().getTask(taskID));
-        }
         // retrieve the snapshot of the currently executing tasks
-        return Collections.unmodifiableSet(executingTasks);
+        return Collections.unmodifiableSet(new HashSet<ConanTask<? extends ConanPipeline>>(executingTasks.values()));
+    }
+
+    public ConanTask<? extends ConanPipeline> getExecutingTask(String taskID) {
+        return taskID == null ? null : executingTasks.get(taskID);
+    }
+
+    public int getQueuePosition(String taskID) {
+        Future<Boolean> f = taskID == null ? null : executingFutures.get(taskID);
+        if (!(f instanceof QueuedTask)) {
+            return -1;
+        }
+
+        // walk a snapshot of the queue, counting the tasks that will run ahead of this one
+        QueuedTask queuedTask = (QueuedTask) f;
+        boolean queued = false;
+        int ahead = 0;
+        for (Object waiting : taskExecutor.getQueue().toArray()) {
+            if (waiting == queuedTask) {
+                queued = true;
+            }
+            else if (((QueuedTask) waiting).compareTo(queuedTask) < 0) {
+                ahead++;
+            }
+        }
+        return queued ? ahead + 1 : -1;
     }
 
     /**
@@ -154,6 +406,12 @@ public class DefaultSubmissionService implements ConanSubmissionService {
 
         long start = System.currentTimeMillis();
         getLog().debug("Startup of " + getClass().getSimpleName() + " triggered, recovering running tasks");
+        // index every incomplete task, so new submissions can be checked for duplication
+        incompleteTaskIndex.clear();
+        for (ConanTask<? extends ConanPipeline> incompleteTask : getConanTaskDAO().getIncompleteTasks()) {
+            incompleteTaskIndex.index(incompleteTask.getId(), incompleteTask.getParameterValues());
+        }
+
         List<ConanTask<? extends ConanPipeline>> recoveredTasks = new ArrayList<ConanTask<? extends ConanPipeline>>();
         // add any pending tasks that were submitted and never started (i.e. not those that are paused or failed)
         for (ConanTask pendingTask : getConanTaskDAO().getPendingTasks()) {
@@ -197,7 +455,8 @@ public class DefaultSubmissionService implements ConanSubmissionService {
         getLog().debug("Shutdown of " + getClass().getSimpleName() + " triggered, " +
                                "will attempt shutdownNow() on " + taskExecutor.getClass().getSimpleName());
 
-        // shutdown the taskExecutor
+        // stop releasing cooled off tasks, then shutdown the taskExecutor
+        coolingOffScheduler.shutdownNow();
         taskExecutor.shutdownNow();
 
         // and block until termination succeeds
@@ -220,114 +479,228 @@ public class DefaultSubmissionService implements ConanSubmissionService {
     }
 
     /**
-     * Checks whether this task would duplicate another.  If so, returns the duplicated task, else returns null
+     * Checks whether this task would duplicate another task that is currently executing.  If so, returns the duplicated
+     * task, else returns null.  Executing tasks are checked without reading from the DAO, so this is cheap enough to
+     * call whilst holding the lock on the index of incomplete tasks.  Indexed tasks that have finished executing are
+     * removed from the index, and the IDs of any other indexed tasks with the same parameters, which are not executing
+     * and so must be looked up with {@link #checkForDuplication(ConanTask, java.util.Set)}, are added to the given set.
      *
-     * @param task the task to check for duplication
-     * @return the duplicated task, or null if the task passed doesn't duplicate anything
+     * @param task          the task to check for duplication
+     * @param unresolvedIDs the set to add the IDs of candidate tasks that are not executing to
+     * @return the duplicated executing task, or null if the task passed doesn't duplicate an executing task
      */
-    private ConanTask checkForDuplication(ConanTask<? extends ConanPipeline> task) {
-        // comparator that checks for tasks that are equal or have all the same params
-        TaskParametersComparator comparator = new TaskParametersComparator();
-
-        for (ConanTask executingTask : getConanTaskDAO().getIncompleteTasks()) {
+    private ConanTask checkForExecutingDuplication(ConanTask<? extends ConanPipeline> task,
+                                                   Set<String> unresolvedIDs) {
+        // look up the incomplete tasks that have all the same params
+        for (String candidateID : incompleteTaskIndex.getTaskIDsWithParameterValues(task.getParameterValues())) {
             // don't compare tasks if they have the same ID
-            if (!task.getId().equals(executingTask.getId())) {
-                // compare all parameters of executing task to our new task
-                if (comparator.compare(task, executingTask) == 0) {
-                    // tasks are equal, so this IS a duplicate
-                    getLog().debug("Found task with duplicated parameters: " +
-                                           "task '" + task.getId() + "' [" + task.getName() + "] would duplicate " +
-                                           "task '" + executingTask.getId() + "' [" + executingTask.getName() + "]");
+            if (!task.getId().equals(candidateID)) {
+                ConanTask executingTask = executingTasks.get(candidateID);
+                if (executingTask == null) {
+                    unresolvedIDs.add(candidateID);
+                }
+                else if (isIncomplete(executingTask)) {
+                    logDuplication(task, executingTask);
                     return executingTask;
                 }
+                else {
+                    // this task has finished since it was indexed
+                    incompleteTaskIndex.unindex(candidateID);
+                }
             }
         }
-
-        // found no duplicated executing task, this is ok
-        getLog().debug("Task ID '" + task.getId() + "' [" + task.getName() + "] does not duplicate another task");
         return null;
     }
 
-    private class TaskParametersComparator implements Comparator<ConanTask> {
-        public int compare(ConanTask task1, ConanTask task2) {
-            getLog().debug("Comparing task ID '" + task1.getId() + "' [" + task1.getName() + "] with " +
-                                   "task '" + task2.getId() + "' [" + task2.getName() + "]");
-
-            if (task1.equals(task2)) {
-                getLog().debug("Task '" + task1.getId() + "' [" + task1.getName() + "] is equal to " +
-                                       "task '" + task2.getId() + "' [" + task2.getName() + "]");
-                return 0;
+    /**
+     * Checks whether this task would duplicate any of the given tasks, which are looked up from the DAO.  If so,
+     * returns the duplicated task, else returns null.  Tasks that have finished, or no longer exist, are removed from
+     * the index of incomplete tasks.
+     *
+     * @param task         the task to check for duplication
+     * @param candidateIDs the IDs of the tasks with the same parameters as this task
+     * @return the duplicated task, or null if the task passed doesn't duplicate any of the candidates
+     */
+    private ConanTask checkForDuplication(ConanTask<? extends ConanPipeline> task, Set<String> candidateIDs) {
+        for (String candidateID : candidateIDs) {
+            ConanTask candidate = getConanTaskDAO().getTask(candidateID);
+            if (candidate != null && isIncomplete(candidate)) {
+                logDuplication(task, candidate);
+                return candidate;
             }
             else {
-                boolean allEqual = true;
-                int diffCount = 0;
-
-                // do pairwise check of parameters
-                getLog().debug("Comparing parameter values of task '" + task1.getId() + "' [" + task1.getName() + "] " +
-                                       "and task '" + task2.getId() + "' [" + task2.getName() + "]");
-                Map<ConanParameter, String> paramValues1 = task1.getParameterValues();
-                Map<ConanParameter, String> paramValues2 = task2.getParameterValues();
-                if (paramValues1 != null) {
-                    for (ConanParameter param : paramValues1.keySet()) {
-                        if (paramValues2 != null) {
-                            if (paramValues2.containsKey(param)) {
-                                // get the values for this key and check
-                                getLog().debug(
-                                        "Compared tasks have parameter type " + param.getName() + " in common, " +
-                                                "checking values...");
-                                String val1 = paramValues1.get(param);
-                                String val2 = paramValues2.get(param);
-
-                                // if values are equal, all vals are still equal
-                                getLog().debug("Comparing values '" + val1 + "' and '" + val2 + "'");
-                                if (!val1.equals(val2)) {
-                                    diffCount++;
-                                }
-                                allEqual = allEqual && val1.equals(val2);
-                            }
-                            else {
-                                allEqual = false;
-                                diffCount++;
-                            }
+                // this task has finished (or been aborted without executing) since it was indexed
+                incompleteTaskIndex.unindex(candidateID);
+            }
+        }
+        return null;
+    }
+
+    private boolean isIncomplete(ConanTask task) {
+        return task.getCurrentState() != ConanTask.State.COMPLETED &&
+                task.getCurrentState() != ConanTask.State.ABORTED;
+    }
+
+    private void logDuplication(ConanTask task, ConanTask duplicatedTask) {
+        // tasks are equal, so this IS a duplicate
+        getLog().debug("Found task with duplicated parameters: " +
+                               "task '" + task.getId() + "' [" + task.getName() + "] would duplicate " +
+                               "task '" + duplicatedTask.getId() + "' [" + duplicatedTask.getName() + "]");
+    }
+
+    private QueuedTask createQueuedTask(final String taskID,
+                                        ConanTask.Priority priority,
+                                        final ConanTask<? extends ConanPipeline> executingTask) {
+        return new QueuedTask(taskID, priority, new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                ConanTask<? extends ConanPipeline> task = executingTask;
+                try {
+                    // we've waited for the prescribed cooling off period, execute
+                    if (task == null) {
+                        task = getConanTaskDAO().getTask(taskID);
+                    }
+                    if (task instanceof AbstractConanTask) {
+                        ((AbstractConanTask) task).setConcurrencyLimiter(concurrencyLimiter);
+                        ((AbstractConanTask) task).setProcessCompletionListener(processCompletionListener);
+                        ((AbstractConanTask) task).setProcessResultCache(processResultCache);
+                    }
+                    executingTasks.put(taskID, task);
+                    return task.execute();
+                }
+                catch (Exception e) {
+                    getLog().error("There was a problem executing task '" + taskID + "'", e);
+                    throw e;
+                }
+                finally {
+                    if (task != null) {
+                        // tasks waiting on a process are still executing, even though they don't hold a job
+                        if (!(task instanceof AbstractConanTask) || !((AbstractConanTask) task).hasPendingProcess()) {
+                            // only remove our own entry, in case this task has since been resubmitted
+                            executingTasks.remove(taskID, task);
                         }
-                        else {
-                            // paramValues1 is not null, but paramValues2 is - not all equal
-                            allEqual = false;
+                        if (task.getCurrentState() == ConanTask.State.COMPLETED ||
+                                task.getCurrentState() == ConanTask.State.ABORTED) {
+                            // finished tasks can no longer be duplicated
+                            incompleteTaskIndex.unindex(taskID);
                         }
                     }
                 }
-                else {
-                    // null paramValues1, if paramValues2 is not also null, allEqual = false
-                    if (paramValues2 != null) {
-                        allEqual = false;
-                    }
+            }
+        });
+    }
+
+    /**
+     * Creates the factory for the threads that tasks run on in {@link ExecutorMode#THREAD_PER_TASK} mode.  These are
+     * virtual threads if the JDK Conan is running on supports them, otherwise they are ordinary platform threads.
+     *
+     * @return a factory for task threads
+     */
+    private ThreadFactory createTaskThreadFactory() {
+        try {
+            // looked up reflectively, so this still runs on JDKs without virtual threads
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, "conan-task-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            getLog().info("Tasks will each be executed on a virtual thread");
+            return factory;
+        }
+        catch (Exception e) {
+            getLog().info("Virtual threads are not supported by this JDK, " +
+                                  "tasks will each be executed on a platform thread");
+            getLog().debug("Virtual thread lookup failed with an exception", e);
+            return new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, "conan-task-" + threadCount.incrementAndGet());
                 }
+            };
+        }
+    }
 
-                if (allEqual) {
-                    // if all our parameters are equal, we must return 0
-                    getLog().debug("All parameter values are equal, so these tasks duplicate each other");
-                    return 0;
+    /**
+     * The ways in which this service can execute tasks.
+     */
+    public enum ExecutorMode {
+        /**
+         * Tasks share a fixed pool of platform threads, one for each parallel job
+         */
+        POOLED,
+        /**
+         * Each task is executed on a thread of its own, which will be a virtual thread if supported, and the number of
+         * tasks running at once is capped by an admission limit
+         */
+        THREAD_PER_TASK
+    }
+
+    /**
+     * A task waiting in the run queue.  Queued tasks are ranked by the time they were submitted, brought forward by one
+     * priority aging interval for every priority level above {@link uk.ac.ebi.fgpt.conan.model.ConanTask.Priority#LOWEST}.
+     * This ranking is fixed on submission, so it is stable for as long as the task is in the queue, but has the same
+     * effect as promoting waiting tasks by one priority level each aging interval.
+     */
+    private class QueuedTask extends FutureTask<Boolean> implements Comparable<QueuedTask> {
+        private final String taskID;
+        private final long rank;
+        private final long sequence;
+
+        // the task to queue once this one is done, guarded by this
+        private QueuedTask following;
+        private boolean finished;
+
+        private QueuedTask(String taskID, ConanTask.Priority priority, Callable<Boolean> callable) {
+            super(callable);
+            this.taskID = taskID;
+            int level = (priority == null ? ConanTask.Priority.MEDIUM : priority).ordinal();
+            this.rank = System.currentTimeMillis() - (level * priorityAgingInterval * 1000L);
+            this.sequence = submissionSequence.getAndIncrement();
+            getLog().debug("Queueing task ID '" + taskID + "' at priority " + priority + " with rank " + rank);
+        }
+
+        /**
+         * Arranges for the given task to be queued once this task is done, unless this task is cancelled.
+         *
+         * @param next the task to queue next
+         * @return true if the task will be queued, false if this task is already done
+         */
+        private synchronized boolean followWith(QueuedTask next) {
+            if (finished) {
+                return false;
+            }
+            following = next;
+            return true;
+        }
+
+        @Override
+        protected void done() {
+            // called once this task completes or is cancelled, whether or not it ever started
+            QueuedTask next;
+            synchronized (this) {
+                finished = true;
+                next = following;
+                following = null;
+            }
+            executingFutures.remove(taskID, this);
+            if (next != null) {
+                if (isCancelled() || next.isDone()) {
+                    // this task was interrupted, so don't run it again
+                    executingFutures.remove(taskID, next);
                 }
                 else {
-                    // otherwise they're different, so to obey the contract we must return some sorted integer value
-                    // return the number of different parameters -
-                    // positive if task1 has more params than task2, or if they have the same number of params,
-                    // and negative if negative if task2 has more params
-                    int result;
-                    if (diffCount != 0) {
-                        result = task1.getParameterValues().size() < task2.getParameterValues().size()
-                                ? 0 - diffCount
-                                : diffCount;
-                    }
-                    else {
-                        // don't let result be zero
-                        result = 1;
-                    }
-
-                    getLog().debug("Comparison of tasks gives result: " + result);
-                    return result;
+                    queue(next);
                 }
             }
         }
+
+        public int compareTo(QueuedTask other) {
+            if (rank != other.rank) {
+                return rank < other.rank ? -1 : 1;
+            }
+            else {
+                return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+            }
+        }
     }
 }
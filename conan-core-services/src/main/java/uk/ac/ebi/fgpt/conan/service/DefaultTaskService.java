@@ -3,7 +3,6 @@ package uk.ac.ebi.fgpt.conan.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
-import org.springframework.util.StringUtils;
 import uk.ac.ebi.fgpt.conan.dao.ConanPipelineDAO;
 import uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO;
 import uk.ac.ebi.fgpt.conan.factory.ConanTaskFactory;
@@ -11,8 +10,6 @@ import uk.ac.ebi.fgpt.conan.model.*;
 import uk.ac.ebi.fgpt.conan.service.exception.ConanPipelineLookupException;
 import uk.ac.ebi.fgpt.conan.service.exception.MissingRequiredParameterException;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
 
 /**
@@ -112,12 +109,11 @@ public class DefaultTaskService implements ConanTaskService {
     }
 
     public ConanTask<? extends ConanPipeline> getTask(String taskID) {
-        for (ConanTask<? extends ConanPipeline> nextExecutingTask : getConanSubmissionService().getExecutingTasks()) {
-            if (nextExecutingTask.getId().equals(taskID)) {
-                getLog().debug("Task ID '" + taskID + "' is currently executing " +
-                                       "and was retrieved from submission service");
-                return nextExecutingTask;
-            }
+        ConanTask<? extends ConanPipeline> executingTask = getConanSubmissionService().getExecutingTask(taskID);
+        if (executingTask != null) {
+            getLog().debug("Task ID '" + taskID + "' is currently executing " +
+                                   "and was retrieved from submission service");
+            return executingTask;
         }
         // if we got to here, the task is not currently executing so fetch from DAO
         return getConanTaskDAO().getTask(taskID);
@@ -134,11 +130,11 @@ public class DefaultTaskService implements ConanTaskService {
         return result;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getTasksSummary() {
+    public List<ConanTaskSummary> getTasksSummary() {
         long start = System.currentTimeMillis();
         getLog().trace("Retrieving all tasks...");
-        List<ConanTask<? extends ConanPipeline>> result = getConanTaskDAO().getAllTasksSummary();
-        replaceAnyExecutingTasks(result);
+        List<ConanTaskSummary> result = getConanTaskDAO().getAllTasksSummary();
+        replaceAnyExecutingSummaries(result);
         long end = System.currentTimeMillis();
         double time = ((double) (end - start)) / 1000;
         getLog().trace("Fetched and mapped all tasks in " + time + "s.");
@@ -179,11 +175,11 @@ public class DefaultTaskService implements ConanTaskService {
         return result;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getPendingTasksSummary() {
+    public List<ConanTaskSummary> getPendingTasksSummary() {
         long start = System.currentTimeMillis();
         getLog().trace("Retrieving pending tasks...");
-        List<ConanTask<? extends ConanPipeline>> result = getConanTaskDAO().getPendingTasksSummary();
-        replaceAnyExecutingTasks(result);
+        List<ConanTaskSummary> result = getConanTaskDAO().getPendingTasksSummary();
+        replaceAnyExecutingSummaries(result);
         long end = System.currentTimeMillis();
         double time = ((double) (end - start)) / 1000;
         getLog().trace("Fetched and mapped all pending tasks in " + time + "s.");
@@ -191,17 +187,15 @@ public class DefaultTaskService implements ConanTaskService {
     }
 
     public List<ConanTask<? extends ConanPipeline>> getPendingTasks(int maxRecords, int startingFrom) {
-        // return sublist based on maxRecords, startingFrom
-        List<ConanTask<? extends ConanPipeline>> tasks = getConanTaskDAO().getPendingTasks();
-        replaceAnyExecutingTasks(tasks);
-        return tasks.subList(startingFrom, startingFrom + maxRecords);
+        return getPendingTasks(maxRecords, startingFrom, "creationDate");
     }
 
     public List<ConanTask<? extends ConanPipeline>> getPendingTasks(int maxRecords, int startingFrom, String orderBy) {
-        List<ConanTask<? extends ConanPipeline>> tasks = getConanTaskDAO().getPendingTasks();
+        // the DAO orders and pages, so only the tasks on this page are ever retrieved
+        List<ConanTask<? extends ConanPipeline>> tasks =
+                getConanTaskDAO().getPendingTasks(maxRecords, startingFrom, orderBy);
         replaceAnyExecutingTasks(tasks);
-        reorderTasks(tasks, orderBy);
-        return tasks.subList(startingFrom, startingFrom + maxRecords);
+        return tasks;
     }
 
     public List<ConanTask<? extends ConanPipeline>> getRunningTasks() {
@@ -215,11 +209,11 @@ public class DefaultTaskService implements ConanTaskService {
         return result;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getRunningTasksSummary() {
+    public List<ConanTaskSummary> getRunningTasksSummary() {
         long start = System.currentTimeMillis();
         getLog().trace("Retrieving running tasks...");
-        List<ConanTask<? extends ConanPipeline>> result = getConanTaskDAO().getRunningTasksSummary();
-        replaceAnyExecutingTasks(result);
+        List<ConanTaskSummary> result = getConanTaskDAO().getRunningTasksSummary();
+        replaceAnyExecutingSummaries(result);
         long end = System.currentTimeMillis();
         double time = ((double) (end - start)) / 1000;
         getLog().trace("Fetched and mapped all running tasks in " + time + "s.");
@@ -227,17 +221,15 @@ public class DefaultTaskService implements ConanTaskService {
     }
 
     public List<ConanTask<? extends ConanPipeline>> getRunningTasks(int maxRecords, int startingFrom) {
-        // return sublist based on maxRecords, startingFrom
-        List<ConanTask<? extends ConanPipeline>> tasks = getConanTaskDAO().getRunningTasks();
-        replaceAnyExecutingTasks(tasks);
-        return tasks.subList(startingFrom, startingFrom + maxRecords);
+        return getRunningTasks(maxRecords, startingFrom, "startDate");
     }
 
     public List<ConanTask<? extends ConanPipeline>> getRunningTasks(int maxRecords, int startingFrom, String orderBy) {
-        List<ConanTask<? extends ConanPipeline>> tasks = getConanTaskDAO().getRunningTasks();
+        // the DAO orders and pages, so only the tasks on this page are ever retrieved
+        List<ConanTask<? extends ConanPipeline>> tasks =
+                getConanTaskDAO().getRunningTasks(maxRecords, startingFrom, orderBy);
         replaceAnyExecutingTasks(tasks);
-        reorderTasks(tasks, orderBy);
-        return tasks.subList(startingFrom, startingFrom + maxRecords);
+        return tasks;
     }
 
     public List<ConanTask<? extends ConanPipeline>> getCompletedTasks() {
@@ -260,11 +252,11 @@ public class DefaultTaskService implements ConanTaskService {
      *
      * @return the tasks that have completed
      */
-    public List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary() {
+    public List<ConanTaskSummary> getCompletedTasksSummary() {
         long start = System.currentTimeMillis();
         getLog().trace("Retrieving completed tasks...");
-        List<ConanTask<? extends ConanPipeline>> result = getConanTaskDAO().getCompletedTasksSummary(100, 0);
-        replaceAnyExecutingTasks(result);
+        List<ConanTaskSummary> result = getConanTaskDAO().getCompletedTasksSummary(100, 0);
+        replaceAnyExecutingSummaries(result);
         long end = System.currentTimeMillis();
         double time = ((double) (end - start)) / 1000;
         getLog().trace("Fetched and mapped all completed tasks in " + time + "s.");
@@ -282,6 +274,30 @@ public class DefaultTaskService implements ConanTaskService {
         return result;
     }
 
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, String pageToken)
+            throws IllegalArgumentException {
+        long start = System.currentTimeMillis();
+        getLog().trace("Retrieving page of completed tasks...");
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> result = getConanTaskDAO().getCompletedTasks(maxRecords, pageToken);
+        replaceAnyExecutingTasks(result.getTasks());
+        long end = System.currentTimeMillis();
+        double time = ((double) (end - start)) / 1000;
+        getLog().trace("Fetched and mapped page of completed tasks in " + time + "s.");
+        return result;
+    }
+
+    public ConanTaskPage<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, String pageToken)
+            throws IllegalArgumentException {
+        long start = System.currentTimeMillis();
+        getLog().trace("Retrieving page of completed tasks...");
+        ConanTaskPage<ConanTaskSummary> result = getConanTaskDAO().getCompletedTasksSummary(maxRecords, pageToken);
+        replaceAnyExecutingSummaries(result.getTasks());
+        long end = System.currentTimeMillis();
+        double time = ((double) (end - start)) / 1000;
+        getLog().trace("Fetched and mapped page of completed tasks in " + time + "s.");
+        return result;
+    }
+
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name,
                                                                          ConanUser conanUser,
                                                                          Date fromDate,
@@ -327,6 +343,33 @@ public class DefaultTaskService implements ConanTaskService {
         return result;
     }
 
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> queryTasks(ConanTaskQuery query)
+            throws IllegalArgumentException {
+        long start = System.currentTimeMillis();
+        getLog().trace("Querying tasks: " + query);
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> result = getConanTaskDAO().queryTasks(query);
+        replaceAnyExecutingTasks(result.getTasks());
+        long end = System.currentTimeMillis();
+        double time = ((double) (end - start)) / 1000;
+        getLog().trace("Queried and retrieved page of tasks in " + time + "s.");
+        return result;
+    }
+
+    public ConanTaskPage<ConanTaskSummary> queryTasksSummary(ConanTaskQuery query) throws IllegalArgumentException {
+        long start = System.currentTimeMillis();
+        getLog().trace("Querying task summaries: " + query);
+        ConanTaskPage<ConanTaskSummary> result = getConanTaskDAO().queryTasksSummary(query);
+        replaceAnyExecutingSummaries(result.getTasks());
+        long end = System.currentTimeMillis();
+        double time = ((double) (end - start)) / 1000;
+        getLog().trace("Queried and retrieved page of task summaries in " + time + "s.");
+        return result;
+    }
+
+    public List<String> getTaskNamesStartingWith(String prefix, int maxResults) {
+        return getConanTaskDAO().getTaskNamesStartingWith(prefix, maxResults);
+    }
+
     public void extractConanParameters(Map<ConanParameter, String> parameters,
                                        Map<String, String> inputValues,
                                        ConanProcess process) {
@@ -346,66 +389,25 @@ public class DefaultTaskService implements ConanTaskService {
     }
 
     private void replaceAnyExecutingTasks(List<ConanTask<? extends ConanPipeline>> retrievedTasks) {
-        Set<ConanTask<? extends ConanPipeline>> executingTasks = getConanSubmissionService().getExecutingTasks();
-        for (ConanTask executingTask : executingTasks) {
-            if (retrievedTasks.contains(executingTask)) {
-                // we need to replace the retrieved task (which may be stale as it was recovered from the DAO)
-                // with the reference to the in-memory object
-                int index = retrievedTasks.indexOf(executingTask);
-                retrievedTasks.remove(index);
-                retrievedTasks.add(index, executingTask);
+        for (int i = 0; i < retrievedTasks.size(); i++) {
+            // we need to replace the retrieved task (which may be stale as it was recovered from the DAO)
+            // with the reference to the in-memory object
+            ConanTask<? extends ConanPipeline> executingTask =
+                    getConanSubmissionService().getExecutingTask(retrievedTasks.get(i).getId());
+            if (executingTask != null) {
+                retrievedTasks.set(i, executingTask);
             }
         }
     }
 
-    private void reorderTasks(List<ConanTask<? extends ConanPipeline>> tasks, String orderBy) {
-        Collections.sort(tasks, getComparatorFor(orderBy));
-    }
-
-    private Comparator<ConanTask> getComparatorFor(final String orderBy) {
-        return new Comparator<ConanTask>() {
-            public int compare(ConanTask task1, ConanTask task2) {
-                try {
-                    // get orderBy property
-                    Method compareMethod = ConanTask.class.getMethod("get" + StringUtils.capitalize(orderBy));
-                    try {
-                        // invoke orderBy property and compare values
-                        Object val1 = compareMethod.invoke(task1);
-                        try {
-                            Object val2 = compareMethod.invoke(task2);
-                            if (val1 instanceof Comparable && val2 instanceof Comparable) {
-                                // if values are comparable, return comparison
-                                return ((Comparable) val1).compareTo(val2);
-                            }
-                            else if (val1 instanceof ConanProcess && val2 instanceof ConanProcess) {
-                                // if values are processes, compare names
-                                return ((ConanProcess) val1).getName().compareTo(((ConanProcess) val2).getName());
-                            }
-                            else {
-                                // otherwise, assume equal
-                                return 0;
-                            }
-                        }
-                        catch (InvocationTargetException e) {
-                            getLog().error(
-                                    "Could not get value for '" + orderBy + "' property on task " + task1.getName());
-                        }
-                    }
-                    catch (InvocationTargetException e) {
-                        getLog().error(
-                                "Could not get value for '" + orderBy + "' property on task " + task2.getName());
-                    }
-                }
-                catch (NoSuchMethodException e) {
-                    // warn, but don't reorder
-                    getLog().warn("No such property '" + orderBy + "' to reorder on, using DAO default ordering");
-                }
-                catch (IllegalAccessException e) {
-                    getLog().error("Could not compare tasks: ", e);
-                }
-
-                return 0;
+    private void replaceAnyExecutingSummaries(List<ConanTaskSummary> retrievedSummaries) {
+        for (int i = 0; i < retrievedSummaries.size(); i++) {
+            // summaries may be stale as they were recovered from the DAO, so summarise the in-memory object instead
+            ConanTask<? extends ConanPipeline> executingTask =
+                    getConanSubmissionService().getExecutingTask(retrievedSummaries.get(i).getId());
+            if (executingTask != null) {
+                retrievedSummaries.set(i, ConanTaskSummary.fromTask(executingTask));
             }
-        };
+        }
     }
 }
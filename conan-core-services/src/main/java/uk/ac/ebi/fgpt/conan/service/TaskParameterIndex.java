@@ -0,0 +1,155 @@
+package uk.ac.ebi.fgpt.conan.service;
+
+import org.springframework.util.Assert;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An in-memory index over the parameter values of tasks, used to find tasks that another task would duplicate without
+ * comparing it against every candidate in turn.
+ * <p/>
+ * Every parameter value supplied to a task is reduced to a canonical fingerprint of the parameter name and its value.
+ * One task duplicates another if every one of its parameter values is also set on the other task, so the tasks it
+ * would duplicate are those indexed under all of its fingerprints: a lookup only has to intersect one set of task IDs
+ * per parameter, starting from the smallest.
+ * <p/>
+ * The index is safe for concurrent use: lookups never lock, and changes are made one at a time.  It is maintained
+ * incrementally: callers should {@link #index(String, java.util.Map)} each task as it is submitted and {@link
+ * #unindex(String)} it once it is complete.
+ *
+ * @date 18-Oct-2026
+ */
+public class TaskParameterIndex {
+    // parameter fingerprint -> IDs of tasks with this parameter value
+    private final ConcurrentMap<String, Set<String>> taskIDsByFingerprint;
+    // task ID -> fingerprints of all the parameter values of that task
+    private final ConcurrentMap<String, Set<String>> fingerprintsByTaskID;
+
+    public TaskParameterIndex() {
+        this.taskIDsByFingerprint = new ConcurrentHashMap<String, Set<String>>();
+        this.fingerprintsByTaskID = new ConcurrentHashMap<String, Set<String>>();
+    }
+
+    /**
+     * Adds a task to the index, replacing any parameter values previously indexed for it.
+     *
+     * @param taskID          the ID of the task
+     * @param parameterValues the parameter values of this task
+     */
+    public synchronized void index(String taskID, Map<ConanParameter, String> parameterValues) {
+        Assert.notNull(taskID, "Cannot index a task with no ID");
+        Set<String> fingerprints = getFingerprints(parameterValues);
+        Set<String> previous = fingerprintsByTaskID.put(taskID, fingerprints);
+        if (previous != null) {
+            for (String fingerprint : previous) {
+                if (!fingerprints.contains(fingerprint)) {
+                    removeFrom(fingerprint, taskID);
+                }
+            }
+        }
+        for (String fingerprint : fingerprints) {
+            Set<String> taskIDs = taskIDsByFingerprint.get(fingerprint);
+            if (taskIDs == null) {
+                taskIDs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                taskIDsByFingerprint.put(fingerprint, taskIDs);
+            }
+            taskIDs.add(taskID);
+        }
+    }
+
+    /**
+     * Removes a task from the index.  Removing a task that is not indexed does nothing.
+     *
+     * @param taskID the ID of the task
+     */
+    public synchronized void unindex(String taskID) {
+        Set<String> previous = fingerprintsByTaskID.remove(taskID);
+        if (previous != null) {
+            for (String fingerprint : previous) {
+                removeFrom(fingerprint, taskID);
+            }
+        }
+    }
+
+    /**
+     * Removes every task from the index.
+     */
+    public synchronized void clear() {
+        fingerprintsByTaskID.clear();
+        taskIDsByFingerprint.clear();
+    }
+
+    /**
+     * Returns the IDs of indexed tasks that have every one of the given parameter values set.
+     *
+     * @param parameterValues the parameter values to look for
+     * @return the IDs of the indexed tasks with all of these parameter values
+     */
+    public Set<String> getTaskIDsWithParameterValues(Map<ConanParameter, String> parameterValues) {
+        Set<String> fingerprints = getFingerprints(parameterValues);
+        if (fingerprints.isEmpty()) {
+            // every task has all of no parameter values
+            return new HashSet<String>(fingerprintsByTaskID.keySet());
+        }
+
+        // start from the smallest set of candidates, then check they have every other value
+        List<Set<String>> candidates = new ArrayList<Set<String>>();
+        for (String fingerprint : fingerprints) {
+            Set<String> taskIDs = taskIDsByFingerprint.get(fingerprint);
+            if (taskIDs == null || taskIDs.isEmpty()) {
+                return Collections.emptySet();
+            }
+            candidates.add(taskIDs);
+        }
+        Set<String> smallest = Collections.min(candidates, new Comparator<Set<String>>() {
+            public int compare(Set<String> set1, Set<String> set2) {
+                return set1.size() - set2.size();
+            }
+        });
+        Set<String> results = new HashSet<String>();
+        for (String taskID : smallest) {
+            Set<String> taskFingerprints = fingerprintsByTaskID.get(taskID);
+            if (taskFingerprints != null && taskFingerprints.containsAll(fingerprints)) {
+                results.add(taskID);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of tasks in this index.
+     *
+     * @return the number of indexed tasks
+     */
+    public int size() {
+        return fingerprintsByTaskID.size();
+    }
+
+    private Set<String> getFingerprints(Map<ConanParameter, String> parameterValues) {
+        Set<String> fingerprints = new HashSet<String>();
+        if (parameterValues != null) {
+            for (Map.Entry<ConanParameter, String> parameterValue : parameterValues.entrySet()) {
+                fingerprints.add(getFingerprint(parameterValue.getKey().getName(), parameterValue.getValue()));
+            }
+        }
+        return fingerprints;
+    }
+
+    private String getFingerprint(String parameterName, String value) {
+        // length prefix the name, so no name and value pair can run into another
+        return parameterName.length() + ":" + parameterName + "=" + value;
+    }
+
+    private void removeFrom(String fingerprint, String taskID) {
+        Set<String> taskIDs = taskIDsByFingerprint.get(fingerprint);
+        if (taskIDs != null) {
+            taskIDs.remove(taskID);
+            if (taskIDs.isEmpty()) {
+                taskIDsByFingerprint.remove(fingerprint);
+            }
+        }
+    }
+}
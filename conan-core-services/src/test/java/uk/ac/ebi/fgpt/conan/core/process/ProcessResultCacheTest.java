@@ -0,0 +1,207 @@
+package uk.ac.ebi.fgpt.conan.core.process;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.fgpt.conan.model.AbstractConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.FingerprintedConanProcess;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the keying, expiry and invalidation of results in a {@link ProcessResultCache}.
+ */
+public class ProcessResultCacheTest {
+    private ProcessResultCache cache;
+
+    private ConanParameter accessionParameter;
+    private ConanParameter speciesParameter;
+    private TestProcess align;
+    private TestProcess report;
+
+    @Before
+    public void setUp() {
+        accessionParameter = new AbstractConanParameter("accession") {
+        };
+        speciesParameter = new AbstractConanParameter("species") {
+        };
+        align = new TestProcess("align");
+        report = new TestProcess("report");
+
+        cache = new ProcessResultCache();
+        cache.setProcessNames(Collections.singleton("align"));
+    }
+
+    @Test
+    public void testOnlyNamedProcessesAreCached() {
+        assertTrue(cache.isCached(align));
+        assertFalse(cache.isCached(report));
+
+        cache.putResult(report, createParameters("E-TEST-1", "human"));
+        assertFalse(cache.hasResult(report, createParameters("E-TEST-1", "human")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testParameterOrderMakesNoDifference() {
+        Map<ConanParameter, String> parameters = new LinkedHashMap<ConanParameter, String>();
+        parameters.put(accessionParameter, "E-TEST-1");
+        parameters.put(speciesParameter, "human");
+        Map<ConanParameter, String> reordered = new LinkedHashMap<ConanParameter, String>();
+        reordered.put(speciesParameter, "human");
+        reordered.put(accessionParameter, "E-TEST-1");
+
+        cache.putResult(align, parameters);
+        assertTrue(cache.hasResult(align, reordered));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testDifferentValuesAreNotHits() {
+        cache.putResult(align, createParameters("E-TEST-1", "human"));
+
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-2", "human")));
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", "mouse")));
+        // fields are length prefixed, so values can't run into each other
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1h", "uman")));
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", null)));
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", "null")));
+    }
+
+    @Test
+    public void testNullValuesAreCachedDistinctly() {
+        cache.putResult(align, createParameters("E-TEST-1", null));
+
+        assertTrue(cache.hasResult(align, createParameters("E-TEST-1", null)));
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", "null")));
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", "")));
+    }
+
+    @Test
+    public void testChangedFingerprintIsNotAHit() {
+        FingerprintedProcess process = new FingerprintedProcess("align");
+        process.fingerprint = "checksum 1";
+        cache.putResult(process, createParameters("E-TEST-1", "human"));
+        assertTrue(cache.hasResult(process, createParameters("E-TEST-1", "human")));
+
+        // the inputs of this process have changed since it completed
+        process.fingerprint = "checksum 2";
+        assertFalse(cache.hasResult(process, createParameters("E-TEST-1", "human")));
+    }
+
+    @Test
+    public void testProcessesThatCannotBeFingerprintedAreNotCached() {
+        FingerprintedProcess process = new FingerprintedProcess("align");
+        process.fingerprint = null;
+        cache.putResult(process, createParameters("E-TEST-1", "human"));
+
+        assertEquals(0, cache.size());
+        assertFalse(cache.hasResult(process, createParameters("E-TEST-1", "human")));
+    }
+
+    @Test
+    public void testScatteredProcessesAreCachedSeparately() {
+        ScatterProcessDecorator scattered = new ScatterProcessDecorator(align, accessionParameter, 2);
+        cache.putResult(align, createParameters("E-TEST-1", "human"));
+
+        assertFalse(cache.hasResult(scattered, createParameters("E-TEST-1", "human")));
+        cache.putResult(scattered, createParameters("E-TEST-1", "human"));
+        assertTrue(cache.hasResult(scattered, createParameters("E-TEST-1", "human")));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testResultsExpire() throws InterruptedException {
+        cache.setTimeToLive(1);
+        cache.putResult(align, createParameters("E-TEST-1", "human"));
+        assertTrue(cache.hasResult(align, createParameters("E-TEST-1", "human")));
+
+        Thread.sleep(1100);
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", "human")));
+        assertEquals("Expired results should be removed once found", 0, cache.size());
+    }
+
+    @Test
+    public void testExpiredResultsAreRemovedOnPut() throws InterruptedException {
+        cache.setTimeToLive(1);
+        cache.putResult(align, createParameters("E-TEST-1", "human"));
+
+        Thread.sleep(1100);
+        cache.putResult(align, createParameters("E-TEST-2", "human"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testInvalidateSingleResult() {
+        cache.putResult(align, createParameters("E-TEST-1", "human"));
+        cache.putResult(align, createParameters("E-TEST-2", "human"));
+
+        cache.invalidate(align, createParameters("E-TEST-1", "human"));
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", "human")));
+        assertTrue(cache.hasResult(align, createParameters("E-TEST-2", "human")));
+    }
+
+    @Test
+    public void testInvalidateProcessAndClear() {
+        cache.setProcessNames(Arrays.asList("align", "report"));
+        cache.putResult(align, createParameters("E-TEST-1", "human"));
+        cache.putResult(align, createParameters("E-TEST-2", "human"));
+        cache.putResult(report, createParameters("E-TEST-1", "human"));
+
+        cache.invalidate("align");
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-1", "human")));
+        assertFalse(cache.hasResult(align, createParameters("E-TEST-2", "human")));
+        assertTrue(cache.hasResult(report, createParameters("E-TEST-1", "human")));
+
+        cache.clear();
+        assertFalse(cache.hasResult(report, createParameters("E-TEST-1", "human")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeToLiveIsRejected() {
+        cache.setTimeToLive(-1);
+    }
+
+    private Map<ConanParameter, String> createParameters(String accession, String species) {
+        Map<ConanParameter, String> parameters = new HashMap<ConanParameter, String>();
+        parameters.put(accessionParameter, accession);
+        parameters.put(speciesParameter, species);
+        return parameters;
+    }
+
+    private class TestProcess implements ConanProcess {
+        private final String name;
+
+        private TestProcess(String name) {
+            this.name = name;
+        }
+
+        public boolean execute(Map<ConanParameter, String> parameters) {
+            return true;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Collection<ConanParameter> getParameters() {
+            return Arrays.asList(accessionParameter, speciesParameter);
+        }
+    }
+
+    private class FingerprintedProcess extends TestProcess implements FingerprintedConanProcess {
+        private String fingerprint;
+
+        private FingerprintedProcess(String name) {
+            super(name);
+        }
+
+        public String getInputFingerprint(Map<ConanParameter, String> parameters) {
+            return fingerprint;
+        }
+    }
+}
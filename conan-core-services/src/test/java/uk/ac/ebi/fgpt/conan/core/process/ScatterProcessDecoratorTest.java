@@ -0,0 +1,202 @@
+package uk.ac.ebi.fgpt.conan.core.process;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.fgpt.conan.model.AbstractConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the fan-out, gathering and failure reporting of a {@link ScatterProcessDecorator}.
+ */
+public class ScatterProcessDecoratorTest {
+    private ConanParameter sampleParameter;
+    private ConanParameter accessionParameter;
+
+    // the values each sub-run was executed with
+    private List<String> executed;
+    // values that fail, and values that return false
+    private Set<String> failing;
+    private Set<String> unsuccessful;
+    private AtomicInteger running;
+    private AtomicInteger maxRunning;
+
+    @Before
+    public void setUp() {
+        sampleParameter = new AbstractConanParameter("sample") {
+        };
+        accessionParameter = new AbstractConanParameter("accession") {
+        };
+        executed = Collections.synchronizedList(new ArrayList<String>());
+        failing = Collections.synchronizedSet(new HashSet<String>());
+        unsuccessful = Collections.synchronizedSet(new HashSet<String>());
+        running = new AtomicInteger();
+        maxRunning = new AtomicInteger();
+    }
+
+    @Test
+    public void testFanOutWidthIsRespected() throws Exception {
+        ScatterProcessDecorator process = new ScatterProcessDecorator(new SampleProcess(20), sampleParameter, 3);
+
+        assertTrue(process.execute(createParameters(createValues("sample-", 10))));
+        assertEquals(10, executed.size());
+        assertEquals(new HashSet<String>(createValues("sample-", 10)), new HashSet<String>(executed));
+        assertTrue("Ran " + maxRunning.get() + " sub-runs at once", maxRunning.get() <= 3);
+        assertTrue("Sub-runs should overlap", maxRunning.get() > 1);
+    }
+
+    @Test
+    public void testSubRunsReceiveOtherParameters() throws Exception {
+        final List<String> accessions = Collections.synchronizedList(new ArrayList<String>());
+        ConanProcess recording = new SampleProcess(0) {
+            @Override
+            public boolean execute(Map<ConanParameter, String> parameters)
+                    throws ProcessExecutionException, InterruptedException {
+                accessions.add(parameters.get(accessionParameter));
+                return super.execute(parameters);
+            }
+        };
+        ScatterProcessDecorator process = new ScatterProcessDecorator(recording, sampleParameter, 2);
+
+        assertTrue(process.execute(createParameters(createValues("sample-", 4))));
+        assertEquals(Arrays.asList("E-TEST-1", "E-TEST-1", "E-TEST-1", "E-TEST-1"), accessions);
+    }
+
+    @Test
+    public void testGatheredResultIsFalseIfAnySubRunIs() throws Exception {
+        unsuccessful.add("sample-2");
+        ScatterProcessDecorator process = new ScatterProcessDecorator(new SampleProcess(0), sampleParameter, 2);
+
+        assertFalse(process.execute(createParameters(createValues("sample-", 5))));
+        assertEquals(5, executed.size());
+    }
+
+    @Test
+    public void testFailureStopsFurtherSubRuns() throws Exception {
+        failing.add("sample-0");
+        ScatterProcessDecorator process = new ScatterProcessDecorator(new SampleProcess(0), sampleParameter, 1);
+
+        try {
+            process.execute(createParameters(createValues("sample-", 5)));
+            fail("The scattered process should fail");
+        }
+        catch (ProcessExecutionException e) {
+            assertEquals("1 of 5 values of 'sample' failed, 4 were not run: sample-0", e.getErrorMessage());
+        }
+        assertEquals(Collections.singletonList("sample-0"), executed);
+    }
+
+    @Test
+    public void testFailureSummaryFitsTheErrorMessageColumn() throws Exception {
+        // multi-byte values, so the summary has fewer characters than bytes
+        List<String> values = createValues("échantillon-日本-", 40);
+        failing.addAll(values);
+        ScatterProcessDecorator process = new ScatterProcessDecorator(new SampleProcess(0), sampleParameter, 40);
+
+        try {
+            process.execute(createParameters(values));
+            fail("The scattered process should fail");
+        }
+        catch (ProcessExecutionException e) {
+            String summary = e.getErrorMessage();
+            int summaryBytes = summary.getBytes("UTF-8").length;
+            assertTrue("Summary is " + summaryBytes + " bytes",
+                       summaryBytes <= ScatterProcessDecorator.MAX_SUMMARY_LENGTH);
+            assertTrue(summary, summary.startsWith("40 of 40 values of 'sample' failed: échantillon-日本-"));
+            assertTrue(summary, summary.endsWith(" more"));
+        }
+    }
+
+    @Test
+    public void testLongValuesAreTruncatedWithoutSplittingCharacters() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            value.append("日");
+        }
+        failing.add(value.toString());
+        ScatterProcessDecorator process = new ScatterProcessDecorator(new SampleProcess(0), sampleParameter, 1);
+
+        try {
+            process.execute(createParameters(Collections.singletonList(value.toString())));
+            fail("The scattered process should fail");
+        }
+        catch (ProcessExecutionException e) {
+            String summary = e.getErrorMessage();
+            assertTrue(summary.getBytes("UTF-8").length <= ScatterProcessDecorator.MAX_SUMMARY_LENGTH);
+            assertEquals("1 of 1 values of 'sample' failed: 1 more", summary);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoValuesAreRejected() throws Exception {
+        new ScatterProcessDecorator(new SampleProcess(0), sampleParameter, 2).execute(createParameters(
+                Collections.singletonList(" ")));
+    }
+
+    @Test
+    public void testScatterValuesAreSplitOnNewlines() {
+        assertEquals(Arrays.asList("a", "b", "c"), ScatterProcessDecorator.getScatterValues("a\n\n b \nc\n"));
+        assertTrue(ScatterProcessDecorator.getScatterValues(null).isEmpty());
+    }
+
+    private List<String> createValues(String prefix, int count) {
+        List<String> values = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            values.add(prefix + i);
+        }
+        return values;
+    }
+
+    private Map<ConanParameter, String> createParameters(List<String> values) {
+        StringBuilder scatterValue = new StringBuilder();
+        for (String value : values) {
+            scatterValue.append(value).append("\n");
+        }
+        Map<ConanParameter, String> parameters = new HashMap<ConanParameter, String>();
+        parameters.put(sampleParameter, scatterValue.toString());
+        parameters.put(accessionParameter, "E-TEST-1");
+        return parameters;
+    }
+
+    private class SampleProcess implements ConanProcess {
+        private final long duration;
+
+        private SampleProcess(long duration) {
+            this.duration = duration;
+        }
+
+        public boolean execute(Map<ConanParameter, String> parameters)
+                throws ProcessExecutionException, InterruptedException {
+            String sample = parameters.get(sampleParameter);
+            executed.add(sample);
+            int nowRunning = running.incrementAndGet();
+            try {
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+                }
+                Thread.sleep(duration);
+                if (failing.contains(sample)) {
+                    throw new ProcessExecutionException(1, "Failed to process " + sample);
+                }
+                return !unsuccessful.contains(sample);
+            }
+            finally {
+                running.decrementAndGet();
+            }
+        }
+
+        public String getName() {
+            return "sample process";
+        }
+
+        public Collection<ConanParameter> getParameters() {
+            return Arrays.asList(sampleParameter, accessionParameter);
+        }
+    }
+}
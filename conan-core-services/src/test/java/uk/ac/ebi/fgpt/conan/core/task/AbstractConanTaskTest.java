@@ -0,0 +1,161 @@
+package uk.ac.ebi.fgpt.conan.core.task;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.fgpt.conan.core.pipeline.DefaultConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
+import uk.ac.ebi.fgpt.conan.service.exception.TaskExecutionException;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests how {@link AbstractConanTask} runs pipelines whose processes declare dependencies on one another.
+ */
+public class AbstractConanTaskTest {
+    // "started name" and "ended name" for every process, in the order they happened
+    private List<String> events;
+    // processes that should fail the next time they run
+    private Set<String> failing;
+
+    // "fetch" and "annotate" must run together, "merge" needs both, and "publish" needs "merge"
+    private CyclicBarrier rendezvous;
+    private DatabaseRecoveredConanTask<ConanPipeline> task;
+
+    @Before
+    public void setUp() {
+        events = Collections.synchronizedList(new ArrayList<String>());
+        failing = Collections.synchronizedSet(new HashSet<String>());
+        rendezvous = new CyclicBarrier(2);
+
+        DefaultConanPipeline pipeline = new DefaultConanPipeline("pipeline", null, false);
+        pipeline.setProcesses(Arrays.<ConanProcess>asList(new TestProcess("fetch", true),
+                                                          new TestProcess("annotate", true),
+                                                          new TestProcess("merge", false),
+                                                          new TestProcess("publish", false)));
+        Map<String, List<String>> dependencies = new HashMap<String, List<String>>();
+        dependencies.put("merge", Arrays.asList("fetch", "annotate"));
+        dependencies.put("publish", Collections.singletonList("merge"));
+        pipeline.setDependencies(dependencies);
+
+        task = new DatabaseRecoveredConanTask<ConanPipeline>();
+        task.setId("1");
+        task.setName("task 1");
+        task.setPipeline(pipeline);
+        task.setParameterValues(new HashMap<ConanParameter, String>());
+        task.submit();
+    }
+
+    @Test
+    public void testIndependentProcessesRunTogether() throws Exception {
+        // fetch and annotate each wait for the other to start, so would time out if run one after the other
+        assertTrue(task.execute());
+        assertEquals(ConanTask.State.COMPLETED, task.getCurrentState());
+
+        assertBefore("ended fetch", "started merge");
+        assertBefore("ended annotate", "started merge");
+        assertBefore("ended merge", "started publish");
+        assertEquals(8, events.size());
+        assertEquals(4, task.getConanProcessRuns().size());
+    }
+
+    @Test
+    public void testFailureStopsNewProcessesStarting() throws Exception {
+        rendezvous = null;
+        failing.add("fetch");
+        try {
+            task.execute();
+            fail("The task should fail with fetch");
+        }
+        catch (TaskExecutionException e) {
+            // expected
+        }
+        assertEquals(ConanTask.State.FAILED, task.getCurrentState());
+
+        // annotate started alongside fetch, so is left to finish, but nothing that depends on fetch starts
+        assertTrue(events.contains("ended annotate"));
+        assertFalse(events.contains("started merge"));
+        assertFalse(events.contains("started publish"));
+    }
+
+    @Test
+    public void testRetryOnlyRunsIncompleteProcesses() throws Exception {
+        rendezvous = null;
+        failing.add("fetch");
+        try {
+            task.execute();
+            fail("The task should fail with fetch");
+        }
+        catch (TaskExecutionException e) {
+            // expected
+        }
+
+        // annotate has already completed, so isn't run again
+        events.clear();
+        task.retryLastProcess();
+        assertTrue(task.execute());
+
+        assertEquals(Arrays.asList("started fetch", "ended fetch",
+                                   "started merge", "ended merge",
+                                   "started publish", "ended publish"), events);
+        assertEquals(ConanTask.State.COMPLETED, task.getCurrentState());
+    }
+
+    private void assertBefore(String first, String second) {
+        int firstIndex = events.indexOf(first);
+        int secondIndex = events.indexOf(second);
+        assertTrue("Expected '" + first + "' in " + events, firstIndex != -1);
+        assertTrue("Expected '" + second + "' in " + events, secondIndex != -1);
+        assertTrue("Expected '" + first + "' before '" + second + "' in " + events, firstIndex < secondIndex);
+    }
+
+    private class TestProcess implements ConanProcess {
+        private final String name;
+        private final boolean meetsOther;
+
+        private TestProcess(String name, boolean meetsOther) {
+            this.name = name;
+            this.meetsOther = meetsOther;
+        }
+
+        public boolean execute(Map<ConanParameter, String> parameters)
+                throws ProcessExecutionException, IllegalArgumentException, InterruptedException {
+            events.add("started " + name);
+            try {
+                if (failing.remove(name)) {
+                    throw new ProcessExecutionException(1, name + " failed");
+                }
+                CyclicBarrier barrier = rendezvous;
+                if (meetsOther && barrier != null) {
+                    try {
+                        barrier.await(5, TimeUnit.SECONDS);
+                    }
+                    catch (BrokenBarrierException e) {
+                        throw new ProcessExecutionException(1, name + " stopped waiting for another process");
+                    }
+                    catch (TimeoutException e) {
+                        throw new ProcessExecutionException(1, name + " never ran alongside another process");
+                    }
+                }
+                return true;
+            }
+            finally {
+                events.add("ended " + name);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Collection<ConanParameter> getParameters() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package uk.ac.ebi.fgpt.conan.core.task;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.fgpt.conan.core.pipeline.DefaultConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanProcess;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the pipeline and process limits enforced by a {@link ProcessConcurrencyLimiter}.
+ */
+public class ProcessConcurrencyLimiterTest {
+    private ProcessConcurrencyLimiter limiter;
+    // tasks passed to the slot listener, in the order they were released
+    private List<ConanTask<? extends ConanPipeline>> released;
+
+    private ConanProcess align;
+    private ConanProcess report;
+
+    @Before
+    public void setUp() {
+        released = new ArrayList<ConanTask<? extends ConanPipeline>>();
+        limiter = new ProcessConcurrencyLimiter(new ProcessConcurrencyLimiter.SlotListener() {
+            public void slotAvailable(ConanTask<? extends ConanPipeline> task) {
+                released.add(task);
+            }
+        });
+        align = createProcess("align");
+        report = createProcess("report");
+    }
+
+    @Test
+    public void testUnlimitedProcessesAlwaysAcquire() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(createTask(Integer.toString(i), "pipeline"), align));
+        }
+        assertEquals(0, limiter.getWaitingTaskCount());
+    }
+
+    @Test
+    public void testPipelineLimit() {
+        limiter.setPipelineLimits(Collections.singletonMap("pipeline", 2));
+        ConanTask<? extends ConanPipeline> first = createTask("1", "pipeline");
+        ConanTask<? extends ConanPipeline> second = createTask("2", "pipeline");
+        ConanTask<? extends ConanPipeline> third = createTask("3", "pipeline");
+
+        assertTrue(limiter.tryAcquire(first, align));
+        assertTrue(limiter.tryAcquire(second, report));
+        assertFalse(limiter.tryAcquire(third, align));
+        assertEquals(1, limiter.getWaitingTaskCount());
+
+        // other pipelines are unaffected
+        assertTrue(limiter.tryAcquire(createTask("4", "other pipeline"), align));
+
+        limiter.release(first, align);
+        assertEquals(Collections.<ConanTask<? extends ConanPipeline>>singletonList(third), released);
+        assertEquals(0, limiter.getWaitingTaskCount());
+        assertTrue(limiter.tryAcquire(third, align));
+    }
+
+    @Test
+    public void testProcessLimitAppliesAcrossPipelines() {
+        limiter.setProcessLimits(Collections.singletonMap("align", 1));
+        ConanTask<? extends ConanPipeline> first = createTask("1", "pipeline");
+        ConanTask<? extends ConanPipeline> second = createTask("2", "other pipeline");
+
+        assertTrue(limiter.tryAcquire(first, align));
+        assertFalse(limiter.tryAcquire(second, align));
+        assertTrue("Other processes should be unaffected", limiter.tryAcquire(second, report));
+
+        // releasing an unrelated slot doesn't wake the waiting task
+        limiter.release(second, report);
+        assertTrue(released.isEmpty());
+
+        limiter.release(first, align);
+        assertEquals(Collections.<ConanTask<? extends ConanPipeline>>singletonList(second), released);
+    }
+
+    @Test
+    public void testEveryWaitingTaskIsReleasedOnce() {
+        limiter.setProcessLimits(Collections.singletonMap("align", 1));
+        limiter.setPipelineLimits(Collections.singletonMap("pipeline", 1));
+        ConanTask<? extends ConanPipeline> first = createTask("1", "pipeline");
+        assertTrue(limiter.tryAcquire(first, align));
+
+        // one task waits on the pipeline, another on the process, and one tries twice
+        ConanTask<? extends ConanPipeline> second = createTask("2", "pipeline");
+        ConanTask<? extends ConanPipeline> third = createTask("3", "other pipeline");
+        assertFalse(limiter.tryAcquire(second, report));
+        assertFalse(limiter.tryAcquire(third, align));
+        assertFalse(limiter.tryAcquire(third, align));
+        assertEquals(2, limiter.getWaitingTaskCount());
+
+        limiter.release(first, align);
+        assertEquals(2, released.size());
+        assertTrue(released.containsAll(Arrays.asList(second, third)));
+        assertEquals(0, limiter.getWaitingTaskCount());
+    }
+
+    @Test
+    public void testTryAcquireWithoutWaiting() {
+        limiter.setProcessLimits(Collections.singletonMap("align", 1));
+        ConanTask<? extends ConanPipeline> first = createTask("1", "pipeline");
+        ConanTask<? extends ConanPipeline> second = createTask("2", "pipeline");
+
+        assertTrue(limiter.tryAcquire(first, align));
+        assertFalse(limiter.tryAcquire(second, align, false));
+        assertEquals(0, limiter.getWaitingTaskCount());
+
+        limiter.release(first, align);
+        assertTrue("Tasks that didn't wait should not be released", released.isEmpty());
+        assertTrue(limiter.tryAcquire(second, align, false));
+    }
+
+    @Test
+    public void testReleasingUnlimitedSlotsDoesNothing() {
+        ConanTask<? extends ConanPipeline> task = createTask("1", "pipeline");
+        assertTrue(limiter.tryAcquire(task, align));
+
+        // limits set after the slot was taken don't apply to it
+        limiter.setProcessLimits(Collections.singletonMap("align", 1));
+        limiter.release(task, align);
+        assertTrue(released.isEmpty());
+        assertTrue(limiter.tryAcquire(createTask("2", "pipeline"), align));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitsMustBePositive() {
+        limiter.setProcessLimits(Collections.singletonMap("align", 0));
+    }
+
+    private ConanTask<? extends ConanPipeline> createTask(String id, String pipelineName) {
+        DatabaseRecoveredConanTask<ConanPipeline> task = new DatabaseRecoveredConanTask<ConanPipeline>();
+        task.setId(id);
+        task.setName("task " + id);
+        task.setPipeline(new DefaultConanPipeline(pipelineName, null, false));
+        return task;
+    }
+
+    private ConanProcess createProcess(final String name) {
+        return (ConanProcess) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{ConanProcess.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getName")) {
+                    return name;
+                }
+                else if (method.getName().equals("equals")) {
+                    return proxy == args[0];
+                }
+                else if (method.getName().equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                else {
+                    return null;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import uk.ac.ebi.fgpt.conan.dao.dialect.H2SQLDialect;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that {@link DatabaseConanTaskDAO} finds archived tasks by name through its task name index.
+ */
+public class DatabaseConanTaskDAOTest {
+    private DatabaseConanTaskDAO dao;
+    private TaskTables tables;
+
+    @Before
+    public void setUp() {
+        tables = new TaskTables();
+        tables.live.put("1", "E-MTAB-100 load");
+        tables.live.put("2", "E-MTAB-200 load");
+
+        dao = new DatabaseConanTaskDAO();
+        dao.setJdbcTemplate(tables);
+        dao.setSQLDialect(new H2SQLDialect());
+        dao.setTaskNameIndex(new TaskNameIndex());
+        dao.setArchiveEnabled(true);
+    }
+
+    @Test
+    public void testArchivedTasksAreFoundByNameAfterReload() {
+        assertEquals(Collections.singleton("1"), dao.getLoadedTaskNameIndex().findTaskIDs("MTAB-100"));
+
+        // archive a task, then restart with an empty index
+        tables.archive.put("1", tables.live.remove("1"));
+        dao.setTaskNameIndex(new TaskNameIndex());
+
+        assertEquals(Collections.singleton("1"), dao.getLoadedTaskNameIndex().findTaskIDs("MTAB-100"));
+        assertEquals(Arrays.asList("E-MTAB-100 load", "E-MTAB-200 load"), dao.getTaskNamesStartingWith("e-mtab", 10));
+    }
+
+    @Test
+    public void testArchivedTasksAreNotIndexedUnlessEnabled() {
+        tables.archive.put("1", tables.live.remove("1"));
+        dao.setArchiveEnabled(false);
+
+        assertTrue(dao.getLoadedTaskNameIndex().findTaskIDs("MTAB-100").isEmpty());
+        assertEquals(Collections.singleton("2"), dao.getLoadedTaskNameIndex().findTaskIDs("MTAB-200"));
+    }
+
+    @Test
+    public void testNameCompletionIncludesArchiveWithoutIndex() {
+        tables.archive.put("1", tables.live.remove("1"));
+        tables.archive.put("3", "E-MTAB-200 load");
+        dao.setTaskNameIndex(null);
+
+        // names are returned once, even if they are both live and archived
+        assertEquals(Arrays.asList("E-MTAB-100 load", "E-MTAB-200 load"), dao.getTaskNamesStartingWith("e-mtab", 10));
+
+        dao.setArchiveEnabled(false);
+        assertEquals(Collections.singletonList("E-MTAB-200 load"), dao.getTaskNamesStartingWith("e-mtab", 10));
+    }
+
+    /**
+     * Stands in for the task name queries against the live and archive task tables.
+     */
+    private static class TaskTables extends JdbcTemplate {
+        // task ID -> task name
+        private final Map<String, String> live = new TreeMap<String, String>();
+        private final Map<String, String> archive = new TreeMap<String, String>();
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch) {
+            if (!sql.startsWith(DatabaseConanTaskDAO.TASK_NAME_SELECT)) {
+                throw new UnsupportedOperationException(sql);
+            }
+            Map<String, String> rows = new TreeMap<String, String>(live);
+            if (sql.contains("CONAN_TASKS_ARCHIVE")) {
+                rows.putAll(archive);
+            }
+            for (Map.Entry<String, String> row : rows.entrySet()) {
+                try {
+                    rch.processRow(createRow(row.getKey(), row.getValue()));
+                }
+                catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            boolean withArchive = sql.contains("CONAN_TASKS_ARCHIVE");
+            String pattern = (String) args[0];
+            // every bind parameter but the row limit is the same pattern
+            assertEquals(withArchive ? 3 : 2, args.length);
+            Set<String> names = new TreeSet<String>();
+            addMatches(names, live.values(), pattern);
+            if (withArchive) {
+                addMatches(names, archive.values(), (String) args[1]);
+            }
+            List<T> results = new ArrayList<T>();
+            for (String name : names) {
+                if (results.size() < (Integer) args[args.length - 1]) {
+                    results.add((T) name);
+                }
+            }
+            return results;
+        }
+
+        private void addMatches(Set<String> names, Collection<String> values, String pattern) {
+            String prefix = pattern.substring(0, pattern.length() - 1);
+            for (String value : values) {
+                if (value.toLowerCase().startsWith(prefix)) {
+                    names.add(value);
+                }
+            }
+        }
+
+        private ResultSet createRow(final String id, final String name) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class[]{ResultSet.class}, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("getString")) {
+                        return ((Integer) args[0]) == 1 ? id : name;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import uk.ac.ebi.fgpt.conan.core.pipeline.DefaultConanPipeline;
+import uk.ac.ebi.fgpt.conan.core.task.DatabaseRecoveredConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A standalone benchmark of contention in {@link InMemoryConanTaskDAO}: reader threads look up single tasks and list
+ * running tasks, whilst writer threads move tasks between states.  This is not run as part of the build; run the
+ * main method with the test classpath, optionally passing the number of reader threads, writer threads, seconds to
+ * measure for and tasks to hold, in that order.  For example:
+ * <pre>
+ * java -cp ... uk.ac.ebi.fgpt.conan.dao.InMemoryConanTaskDAOContentionBenchmark 8 2 10 10000
+ * </pre>
+ * Compare the results with and without writer threads to see how far updates hold up readers.
+ *
+ * @date 18-Oct-2026
+ */
+public class InMemoryConanTaskDAOContentionBenchmark {
+    private final int readers;
+    private final int writers;
+    private final int seconds;
+    private final int taskCount;
+
+    private final InMemoryConanTaskDAO dao;
+    private final ConanPipeline pipeline;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean measuring = new AtomicBoolean();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong lookupNanos = new AtomicLong();
+    private final AtomicLong listings = new AtomicLong();
+    private final AtomicLong listingNanos = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong updateNanos = new AtomicLong();
+
+    public static void main(String[] args) throws InterruptedException {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int taskCount = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        new InMemoryConanTaskDAOContentionBenchmark(readers, writers, seconds, taskCount).run();
+    }
+
+    public InMemoryConanTaskDAOContentionBenchmark(int readers, int writers, int seconds, int taskCount) {
+        this.readers = readers;
+        this.writers = writers;
+        this.seconds = seconds;
+        this.taskCount = taskCount;
+        this.dao = new InMemoryConanTaskDAO();
+        this.dao.setConanTaskPersistenceDAO(createPassThroughDAO());
+        this.pipeline = new DefaultConanPipeline("benchmark", null, false);
+    }
+
+    public void run() throws InterruptedException {
+        // one task in ten is running, the rest are pending or completed
+        Random random = new Random(0);
+        for (int i = 0; i < taskCount; i++) {
+            dao.saveTask(createTask(Integer.toString(i), random.nextInt(10)));
+        }
+
+        System.out.println("Benchmarking " + taskCount + " tasks with " + readers + " readers and " +
+                                   writers + " writers for " + seconds + "s");
+        running.set(true);
+        List<Thread> threads = new ArrayList<Thread>();
+        CountDownLatch started = new CountDownLatch(readers + writers);
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(new Reader(i, started), "reader-" + i));
+        }
+        for (int i = 0; i < writers; i++) {
+            threads.add(new Thread(new Writer(i, started), "writer-" + i));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        started.await();
+
+        // warm up for a second before measuring
+        Thread.sleep(1000);
+        measuring.set(true);
+        Thread.sleep(seconds * 1000L);
+        measuring.set(false);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        report("getTask", lookups.get(), lookupNanos.get());
+        report("getRunningTasks", listings.get(), listingNanos.get());
+        report("updateTask", updates.get(), updateNanos.get());
+    }
+
+    private void report(String operation, long count, long nanos) {
+        if (count == 0) {
+            System.out.println(String.format("%-16s no calls", operation));
+        }
+        else {
+            System.out.println(String.format("%-16s %12.0f calls/s %12.0f ns/call",
+                                             operation, (double) count / seconds, (double) nanos / count));
+        }
+    }
+
+    private DatabaseRecoveredConanTask<ConanPipeline> createTask(String id, int stateChoice) {
+        DatabaseRecoveredConanTask<ConanPipeline> task = new DatabaseRecoveredConanTask<ConanPipeline>();
+        task.setId(id);
+        task.setName("task " + id);
+        task.setPipeline(pipeline);
+        if (stateChoice == 0) {
+            task.setCurrentState(ConanTask.State.RUNNING);
+        }
+        else if (stateChoice < 5) {
+            task.setCurrentState(ConanTask.State.SUBMITTED);
+        }
+        else {
+            task.setCurrentState(ConanTask.State.COMPLETED);
+            task.setCompletionDate(new Date(stateChoice * 1000L));
+        }
+        return task;
+    }
+
+    private ConanTaskDAO createPassThroughDAO() {
+        // stores nothing, so only the in-memory DAO is measured
+        return (ConanTaskDAO) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{ConanTaskDAO.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("saveTask") || method.getName().equals("updateTask")) {
+                    return args[0];
+                }
+                else if (method.getReturnType() == boolean.class) {
+                    return false;
+                }
+                else if (method.getReturnType() == List.class) {
+                    return new ArrayList<Object>();
+                }
+                else {
+                    return null;
+                }
+            }
+        });
+    }
+
+    private class Reader implements Runnable {
+        private final Random random;
+        private final CountDownLatch started;
+
+        private Reader(int seed, CountDownLatch started) {
+            this.random = new Random(seed);
+            this.started = started;
+        }
+
+        public void run() {
+            started.countDown();
+            int calls = 0;
+            while (running.get()) {
+                // mostly single task lookups, as made when polling a task's progress
+                if (++calls % 100 == 0) {
+                    long start = System.nanoTime();
+                    dao.getRunningTasks();
+                    record(listings, listingNanos, start);
+                }
+                else {
+                    long start = System.nanoTime();
+                    dao.getTask(Integer.toString(random.nextInt(taskCount)));
+                    record(lookups, lookupNanos, start);
+                }
+            }
+        }
+    }
+
+    private class Writer implements Runnable {
+        private final Random random;
+        private final CountDownLatch started;
+
+        private Writer(int seed, CountDownLatch started) {
+            this.random = new Random(-1 - seed);
+            this.started = started;
+        }
+
+        public void run() {
+            started.countDown();
+            while (running.get()) {
+                // replace a random task with a copy in a new state, which moves it between the state indexes
+                DatabaseRecoveredConanTask<ConanPipeline> task =
+                        createTask(Integer.toString(random.nextInt(taskCount)), random.nextInt(10));
+                long start = System.nanoTime();
+                dao.updateTask(task);
+                record(updates, updateNanos, start);
+            }
+        }
+    }
+
+    private void record(AtomicLong count, AtomicLong nanos, long start) {
+        if (measuring.get()) {
+            nanos.addAndGet(System.nanoTime() - start);
+            count.incrementAndGet();
+        }
+    }
+}
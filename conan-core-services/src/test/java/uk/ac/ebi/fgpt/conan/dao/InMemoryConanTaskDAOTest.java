@@ -0,0 +1,122 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.fgpt.conan.core.pipeline.DefaultConanPipeline;
+import uk.ac.ebi.fgpt.conan.core.task.DatabaseRecoveredConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskPage;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests keyset paging of completed tasks in {@link InMemoryConanTaskDAO}.
+ */
+public class InMemoryConanTaskDAOTest {
+    private InMemoryConanTaskDAO dao;
+    private List<ConanTask<? extends ConanPipeline>> completed;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryConanTaskDAO();
+        dao.setConanTaskPersistenceDAO(createPassThroughDAO());
+
+        // includes tied completion dates, and tasks with no completion date
+        completed = new ArrayList<ConanTask<? extends ConanPipeline>>();
+        long[] completionDates = {5000, 3000, 3000, 3000, 1000, -1, -1, 9000, 7000};
+        for (int i = 0; i < completionDates.length; i++) {
+            Date completionDate = completionDates[i] < 0 ? null : new Date(completionDates[i]);
+            completed.add(dao.saveTask(createTask(Integer.toString(i + 1), ConanTask.State.COMPLETED,
+                                                  completionDate)));
+        }
+        dao.saveTask(createTask("100", ConanTask.State.RUNNING, null));
+        Collections.sort(completed, ConanTaskPage.COMPLETION_ORDER);
+    }
+
+    @Test
+    public void testPagesVisitEveryCompletedTaskOnceInOrder() {
+        for (int pageSize = 1; pageSize <= completed.size() + 1; pageSize++) {
+            List<ConanTask<? extends ConanPipeline>> visited = new ArrayList<ConanTask<? extends ConanPipeline>>();
+            String pageToken = null;
+            do {
+                ConanTaskPage<ConanTask<? extends ConanPipeline>> page = dao.getCompletedTasks(pageSize, pageToken);
+                assertTrue("Page holds more than " + pageSize + " tasks", page.getTasks().size() <= pageSize);
+                visited.addAll(page.getTasks());
+                pageToken = page.getNextPageToken();
+            }
+            while (pageToken != null);
+            assertEquals("Wrong tasks paged with page size " + pageSize, completed, visited);
+        }
+    }
+
+    @Test
+    public void testTasksWithoutCompletionDateComeLast() {
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> page = dao.getCompletedTasks(completed.size(), null);
+        int size = page.getTasks().size();
+        assertNull(page.getTasks().get(size - 1).getCompletionDate());
+        assertNull(page.getTasks().get(size - 2).getCompletionDate());
+        assertEquals(new Date(9000), page.getTasks().get(0).getCompletionDate());
+        assertNull(page.getNextPageToken());
+    }
+
+    @Test
+    public void testPageTokenPrecedesFollowingTasks() {
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> page = dao.getCompletedTasks(3, null);
+        ConanTaskPage.PageToken token = ConanTaskPage.PageToken.decode(page.getNextPageToken());
+        for (ConanTask<? extends ConanPipeline> task : completed.subList(3, completed.size())) {
+            assertTrue(token.precedes(task));
+        }
+        for (ConanTask<? extends ConanPipeline> task : completed.subList(0, 3)) {
+            assertFalse(token.precedes(task));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPagesAreRejected() {
+        dao.getCompletedTasks(0, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedPageTokensAreRejected() {
+        dao.getCompletedTasks(2, "not a token");
+    }
+
+    private DatabaseRecoveredConanTask<ConanPipeline> createTask(String id,
+                                                                 ConanTask.State state,
+                                                                 Date completionDate) {
+        DatabaseRecoveredConanTask<ConanPipeline> task = new DatabaseRecoveredConanTask<ConanPipeline>();
+        task.setId(id);
+        task.setName("task " + id);
+        task.setPipeline(new DefaultConanPipeline("pipeline", null, false));
+        task.setCurrentState(state);
+        task.setCompletionDate(completionDate);
+        return task;
+    }
+
+    private ConanTaskDAO createPassThroughDAO() {
+        // stores nothing, returning every task it is asked to save
+        return (ConanTaskDAO) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{ConanTaskDAO.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("saveTask") || method.getName().equals("updateTask")) {
+                    return args[0];
+                }
+                else if (method.getReturnType() == boolean.class) {
+                    return false;
+                }
+                else if (method.getReturnType() == List.class) {
+                    return new ArrayList<Object>();
+                }
+                else {
+                    return null;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,181 @@
+package uk.ac.ebi.fgpt.conan.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.fgpt.conan.core.process.DefaultProcessRun;
+import uk.ac.ebi.fgpt.conan.core.task.DatabaseRecoveredConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanProcessRun;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the ordering and batching of writes made through a {@link WriteBehindConanTaskWriter}.
+ */
+public class WriteBehindConanTaskWriterTest {
+    private WriteBehindConanTaskWriter writer;
+
+    // "task ID=status message" for every task written, in the order they reached the DAO
+    private List<String> written;
+    // the number of tasks in each batch written
+    private List<Integer> batchSizes;
+    private List<ConanProcessRun> writtenProcessRuns;
+    // if set, batch writes wait for this latch, to hold the writer part way through a flush
+    private CountDownLatch batchLatch;
+    private CountDownLatch batchStarted;
+
+    @Before
+    public void setUp() {
+        written = Collections.synchronizedList(new ArrayList<String>());
+        batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        writtenProcessRuns = Collections.synchronizedList(new ArrayList<ConanProcessRun>());
+        batchStarted = new CountDownLatch(1);
+
+        writer = new WriteBehindConanTaskWriter();
+        writer.setConanTaskDAO(createRecordingDAO());
+        writer.setBatchDelay(20);
+        writer.init();
+    }
+
+    @After
+    public void tearDown() {
+        if (batchLatch != null) {
+            batchLatch.countDown();
+        }
+        writer.destroy();
+    }
+
+    @Test
+    public void testWritesAreCoalescedToTheLatestState() throws InterruptedException {
+        DatabaseRecoveredConanTask<ConanPipeline> task = createTask("1", "first");
+        batchLatch = new CountDownLatch(1);
+        writer.writeTask(createTask("0", "blocking"));
+        assertTrue(batchStarted.await(5, TimeUnit.SECONDS));
+
+        // whilst the writer is busy, change the same task several times
+        DefaultProcessRun run = new DefaultProcessRun("process", null);
+        for (int i = 0; i < 10; i++) {
+            task.setCurrentStatusMessage("update " + i);
+            writer.writeTask(task, i % 2 == 0 ? run : null);
+        }
+        assertEquals(1, writer.getPendingTaskCount());
+
+        batchLatch.countDown();
+        writer.flush();
+        assertEquals(Arrays.asList("0=blocking", "1=update 9"), written);
+        assertEquals("The same process run should only be written once", 1, writtenProcessRuns.size());
+    }
+
+    @Test
+    public void testWritesForEachTaskArriveInOrder() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            writer.writeTask(createTask(Integer.toString(i % 5), "update " + i));
+        }
+        writer.flush();
+
+        Map<String, Integer> lastUpdate = new HashMap<String, Integer>();
+        for (String write : written) {
+            String taskID = write.substring(0, write.indexOf('='));
+            int update = Integer.parseInt(write.substring(write.indexOf("update ") + 7));
+            Integer previous = lastUpdate.put(taskID, update);
+            assertTrue("Task " + taskID + " went back from update " + previous + " to " + update,
+                       previous == null || previous < update);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(45 + i), lastUpdate.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testWritesAreGroupCommitted() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            writer.writeTask(createTask(Integer.toString(i), "update"));
+        }
+        writer.flush();
+
+        assertEquals(10, written.size());
+        assertTrue("10 writes took " + batchSizes.size() + " batches", batchSizes.size() < 10);
+    }
+
+    @Test
+    public void testDirectWritesWaitForShutdownFlush() throws InterruptedException {
+        batchLatch = new CountDownLatch(1);
+        writer.writeTask(createTask("1", "older"));
+        assertTrue(batchStarted.await(5, TimeUnit.SECONDS));
+
+        // shut down whilst the older write is still being flushed
+        Thread destroyer = new Thread(new Runnable() {
+            public void run() {
+                writer.destroy();
+            }
+        });
+        destroyer.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (destroyer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // a newer copy of the same task, written once the writer is no longer accepting background writes
+        Thread directWriter = new Thread(new Runnable() {
+            public void run() {
+                writer.writeTask(createTask("1", "newer"));
+            }
+        });
+        directWriter.start();
+        Thread.sleep(100);
+        assertTrue("The newer write should wait for the flush", written.isEmpty());
+
+        batchLatch.countDown();
+        directWriter.join(5000);
+        destroyer.join(5000);
+        assertEquals(Arrays.asList("1=older", "1=newer"), written);
+    }
+
+    private DatabaseRecoveredConanTask<ConanPipeline> createTask(String id, String statusMessage) {
+        DatabaseRecoveredConanTask<ConanPipeline> task = new DatabaseRecoveredConanTask<ConanPipeline>();
+        task.setId(id);
+        task.setCurrentStatusMessage(statusMessage);
+        return task;
+    }
+
+    private ConanTaskDAO createRecordingDAO() {
+        return (ConanTaskDAO) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{ConanTaskDAO.class}, new InvocationHandler() {
+            @SuppressWarnings("unchecked")
+            public Object invoke(Object proxy, Method method, Object[] args) throws InterruptedException {
+                if (method.getName().equals("writeTaskUpdates")) {
+                    batchStarted.countDown();
+                    if (batchLatch != null) {
+                        batchLatch.await(5, TimeUnit.SECONDS);
+                    }
+                    List<ConanTask<? extends ConanPipeline>> tasks = (List<ConanTask<? extends ConanPipeline>>) args[0];
+                    for (ConanTask<? extends ConanPipeline> task : tasks) {
+                        written.add(task.getId() + "=" + task.getStatusMessage());
+                    }
+                    for (List<ConanProcessRun> runs : ((Map<String, List<ConanProcessRun>>) args[1]).values()) {
+                        writtenProcessRuns.addAll(runs);
+                    }
+                    batchSizes.add(tasks.size());
+                }
+                else if (method.getName().equals("updateTask")) {
+                    ConanTask<? extends ConanPipeline> task = (ConanTask<? extends ConanPipeline>) args[0];
+                    written.add(task.getId() + "=" + task.getStatusMessage());
+                    return task;
+                }
+                else if (method.getName().equals("writeProcessRun")) {
+                    writtenProcessRuns.add((ConanProcessRun) args[1]);
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,188 @@
+package uk.ac.ebi.fgpt.conan.dao.id;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that IDs reserved by a {@link TableIDBlockSource} are never handed out twice.
+ */
+public class TableIDBlockSourceTest {
+    private CounterTable counterTable;
+    private BlockIDAllocator allocator;
+
+    @Before
+    public void setUp() {
+        counterTable = new CounterTable();
+        allocator = new BlockIDAllocator(new TableIDBlockSource(new JdbcTemplate(counterTable.getDataSource())));
+        allocator.setBlockSize(5);
+    }
+
+    @Test
+    public void testBlocksDoNotOverlap() {
+        Set<Long> ids = new HashSet<Long>();
+        for (int i = 0; i < 23; i++) {
+            assertTrue("ID handed out twice", ids.add(allocator.nextID()));
+        }
+        assertEquals(26, counterTable.committed);
+    }
+
+    @Test
+    public void testReservationSurvivesCallerRollback() {
+        final Set<Long> ids = new HashSet<Long>();
+
+        // a save that reserves a block and then fails, rolling back its transaction
+        TransactionTemplate saveTransaction =
+                new TransactionTemplate(new DataSourceTransactionManager(counterTable.getDataSource()));
+        saveTransaction.execute(new TransactionCallbackWithoutResult() {
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (int i = 0; i < 5; i++) {
+                    ids.add(allocator.nextID());
+                }
+                status.setRollbackOnly();
+            }
+        });
+
+        // the next block must follow on from the one already handed out
+        for (int i = 0; i < 5; i++) {
+            long id = allocator.nextID();
+            assertTrue("ID " + id + " was handed out twice", ids.add(id));
+        }
+        assertEquals(11, counterTable.committed);
+    }
+
+    /**
+     * A single row CONAN_ID_BLOCKS table, in which updates made in a transaction are only visible to other connections
+     * once committed.
+     */
+    private static class CounterTable {
+        private long committed = 1;
+        private final DataSource dataSource = (DataSource) proxy(DataSource.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getConnection")) {
+                    return createConnection();
+                }
+                return defaultValue(method);
+            }
+        });
+
+        private DataSource getDataSource() {
+            return dataSource;
+        }
+
+        private Connection createConnection() {
+            return (Connection) proxy(Connection.class, new InvocationHandler() {
+                private boolean autoCommit = true;
+                private long pending = 0;
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    String name = method.getName();
+                    if (name.equals("getAutoCommit")) {
+                        return autoCommit;
+                    }
+                    else if (name.equals("setAutoCommit")) {
+                        autoCommit = (Boolean) args[0];
+                    }
+                    else if (name.equals("commit")) {
+                        committed += pending;
+                        pending = 0;
+                    }
+                    else if (name.equals("rollback")) {
+                        pending = 0;
+                    }
+                    else if (name.equals("prepareStatement") || name.equals("createStatement")) {
+                        return createStatement();
+                    }
+                    return defaultValue(method);
+                }
+
+                private Object createStatement() {
+                    return proxy(PreparedStatement.class, new InvocationHandler() {
+                        private Object parameter;
+
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            String name = method.getName();
+                            if (name.startsWith("set") && args != null && args.length == 2) {
+                                parameter = args[1];
+                            }
+                            else if (name.equals("executeUpdate")) {
+                                pending += ((Number) parameter).longValue();
+                                if (autoCommit) {
+                                    committed += pending;
+                                    pending = 0;
+                                }
+                                return 1;
+                            }
+                            else if (name.equals("executeQuery")) {
+                                return createResultSet(committed + pending);
+                            }
+                            return defaultValue(method);
+                        }
+                    });
+                }
+            });
+        }
+
+        private ResultSet createResultSet(final long value) {
+            return (ResultSet) proxy(ResultSet.class, new InvocationHandler() {
+                private boolean read = false;
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    String name = method.getName();
+                    if (name.equals("next")) {
+                        boolean hasRow = !read;
+                        read = true;
+                        return hasRow;
+                    }
+                    else if (name.equals("getLong")) {
+                        return value;
+                    }
+                    else if (name.equals("getObject")) {
+                        return value;
+                    }
+                    else if (name.equals("getMetaData")) {
+                        return proxy(ResultSetMetaData.class, new InvocationHandler() {
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                return method.getName().equals("getColumnCount") ? 1 : defaultValue(method);
+                            }
+                        });
+                    }
+                    return defaultValue(method);
+                }
+            });
+        }
+
+        private static Object proxy(Class<?> type, InvocationHandler handler) {
+            return Proxy.newProxyInstance(CounterTable.class.getClassLoader(), new Class[]{type}, handler);
+        }
+
+        private static Object defaultValue(Method method) {
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class) {
+                return false;
+            }
+            else if (type == int.class) {
+                return 0;
+            }
+            else if (type == long.class) {
+                return 0L;
+            }
+            else {
+                return null;
+            }
+        }
+    }
+}
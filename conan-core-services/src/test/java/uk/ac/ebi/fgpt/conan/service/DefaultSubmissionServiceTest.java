@@ -0,0 +1,243 @@
+package uk.ac.ebi.fgpt.conan.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO;
+import uk.ac.ebi.fgpt.conan.model.AbstractConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanParameter;
+import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
+import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.service.exception.SubmissionException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the order in which {@link DefaultSubmissionService} runs queued tasks, by priority and time spent waiting, and
+ * how it rejects tasks that would duplicate another.
+ */
+public class DefaultSubmissionServiceTest {
+    private DefaultSubmissionService submissionService;
+
+    private Map<String, ConanTask<? extends ConanPipeline>> tasks;
+    // IDs of tasks in the order they were executed
+    private List<String> executed;
+    // IDs of tasks read from the DAO
+    private List<String> lookups;
+    private CountDownLatch blockerStarted;
+    private CountDownLatch blockerLatch;
+
+    @Before
+    public void setUp() {
+        tasks = new ConcurrentHashMap<String, ConanTask<? extends ConanPipeline>>();
+        executed = Collections.synchronizedList(new ArrayList<String>());
+        lookups = Collections.synchronizedList(new ArrayList<String>());
+        blockerStarted = new CountDownLatch(1);
+        blockerLatch = new CountDownLatch(1);
+
+        // a single job and no cooling off, so tasks queue behind a blocking task in the order they will run
+        submissionService = new DefaultSubmissionService(1, 0);
+        submissionService.setConanTaskDAO(createDAO());
+        submissionService.setPriorityAgingInterval(1);
+        submissionService.init();
+    }
+
+    @After
+    public void tearDown() {
+        blockerLatch.countDown();
+        submissionService.destroy();
+    }
+
+    @Test
+    public void testHigherPriorityTasksRunFirst() throws Exception {
+        submitBlocker();
+        submitTask("low", ConanTask.Priority.LOW);
+        submitTask("medium", ConanTask.Priority.MEDIUM);
+        submitTask("high", ConanTask.Priority.HIGH);
+
+        assertEquals(1, submissionService.getQueuePosition("high"));
+        assertEquals(2, submissionService.getQueuePosition("medium"));
+        assertEquals(3, submissionService.getQueuePosition("low"));
+
+        assertEquals(Arrays.asList("blocker", "high", "medium", "low"), releaseBlocker(4));
+    }
+
+    @Test
+    public void testWaitingTasksAge() throws Exception {
+        submitBlocker();
+        submitTask("low", ConanTask.Priority.LOW);
+
+        // more than one aging interval later, the low priority task has caught up with new medium priority tasks
+        Thread.sleep(1500);
+        submitTask("medium", ConanTask.Priority.MEDIUM);
+        submitTask("high", ConanTask.Priority.HIGH);
+
+        assertEquals(2, submissionService.getQueuePosition("low"));
+        assertEquals(Arrays.asList("blocker", "high", "low", "medium"), releaseBlocker(4));
+    }
+
+    @Test
+    public void testTasksOfEqualRankRunInSubmissionOrder() throws Exception {
+        submitBlocker();
+        for (int i = 0; i < 5; i++) {
+            submitTask("task " + i, ConanTask.Priority.MEDIUM);
+        }
+
+        List<String> order = releaseBlocker(6);
+        assertEquals(Arrays.asList("blocker", "task 0", "task 1", "task 2", "task 3", "task 4"), order);
+    }
+
+    @Test
+    public void testDuplicateOfExecutingTaskIsFoundWithoutDAO() throws Exception {
+        submitBlocker();
+        lookups.clear();
+
+        try {
+            submitTask("copy", ConanTask.Priority.MEDIUM, "blocker");
+            fail("A task duplicating the executing task should be rejected");
+        }
+        catch (SubmissionException e) {
+            // expected
+        }
+        assertTrue("Read " + lookups + " from the DAO", lookups.isEmpty());
+        assertEquals(Collections.singletonList("blocker"), releaseBlocker(1));
+    }
+
+    @Test
+    public void testDuplicateOfQueuedTaskIsFoundFromDAO() throws Exception {
+        submitBlocker();
+        submitTask("first", ConanTask.Priority.MEDIUM, "E-TEST-1");
+        lookups.clear();
+
+        try {
+            submitTask("second", ConanTask.Priority.MEDIUM, "E-TEST-1");
+            fail("A task duplicating the queued task should be rejected");
+        }
+        catch (SubmissionException e) {
+            // expected
+        }
+        assertEquals(Collections.singletonList("first"), lookups);
+        assertEquals(Arrays.asList("blocker", "first"), releaseBlocker(2));
+    }
+
+    @Test
+    public void testFinishedTasksAreNotDuplicated() throws Exception {
+        submitTask("first", ConanTask.Priority.MEDIUM, "E-TEST-1");
+        assertEquals(Collections.singletonList("first"), releaseBlocker(1));
+
+        // once first has completed, the same parameters can be submitted again
+        submitTask("second", ConanTask.Priority.MEDIUM, "E-TEST-1");
+        assertEquals(Arrays.asList("first", "second"), releaseBlocker(2));
+    }
+
+    private void submitBlocker() throws Exception {
+        submitTask("blocker", ConanTask.Priority.HIGHEST);
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    private List<String> releaseBlocker(int expectedTasks) throws InterruptedException {
+        blockerLatch.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executed.size() < expectedTasks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return new ArrayList<String>(executed);
+    }
+
+    private void submitTask(String id, ConanTask.Priority priority) throws Exception {
+        submitTask(id, priority, id);
+    }
+
+    private void submitTask(String id, ConanTask.Priority priority, String value) throws Exception {
+        ConanTask<? extends ConanPipeline> task = createTask(id, priority, value);
+        tasks.put(id, task);
+        submissionService.submitTask(task);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConanTask<? extends ConanPipeline> createTask(final String id,
+                                                          final ConanTask.Priority priority,
+                                                          String value) {
+        // tasks only duplicate one another if they have the same parameter value
+        final Map<ConanParameter, String> parameterValues = new HashMap<ConanParameter, String>();
+        parameterValues.put(new AbstractConanParameter("id") {
+        }, value);
+
+        return (ConanTask<? extends ConanPipeline>) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{ConanTask.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws InterruptedException {
+                String name = method.getName();
+                if (name.equals("execute")) {
+                    if (id.equals("blocker")) {
+                        blockerStarted.countDown();
+                        blockerLatch.await(5, TimeUnit.SECONDS);
+                    }
+                    executed.add(id);
+                    return true;
+                }
+                else if (name.equals("getId")) {
+                    return id;
+                }
+                else if (name.equals("getName")) {
+                    return "task " + id;
+                }
+                else if (name.equals("getPriority")) {
+                    return priority;
+                }
+                else if (name.equals("getParameterValues")) {
+                    return parameterValues;
+                }
+                else if (name.equals("getCurrentState")) {
+                    return executed.contains(id) ? ConanTask.State.COMPLETED : ConanTask.State.SUBMITTED;
+                }
+                else if (name.equals("isSubmitted")) {
+                    return true;
+                }
+                else if (name.equals("equals")) {
+                    return proxy == args[0];
+                }
+                else if (name.equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                else if (name.equals("toString")) {
+                    return "task " + id;
+                }
+                else if (method.getReturnType() == boolean.class) {
+                    return false;
+                }
+                else {
+                    return null;
+                }
+            }
+        });
+    }
+
+    private ConanTaskDAO createDAO() {
+        return (ConanTaskDAO) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{ConanTaskDAO.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getTask")) {
+                    lookups.add((String) args[0]);
+                    return tasks.get((String) args[0]);
+                }
+                else if (method.getReturnType() == List.class) {
+                    return new ArrayList<Object>();
+                }
+                else if (method.getReturnType() == boolean.class) {
+                    return false;
+                }
+                else {
+                    return null;
+                }
+            }
+        });
+    }
+}
@@ -6,6 +6,10 @@ import uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO;
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
 import uk.ac.ebi.fgpt.conan.model.ConanProcessRun;
 import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskPage;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskQuery;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskSummary;
 
 import java.util.*;
 
@@ -77,6 +81,35 @@ public class DummyTaskDAO implements ConanTaskDAO {
         return (ConanTask<P>) task;
     }
 
+    public void writeProcessRun(String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException {
+        // process runs are held by the task in memory, nothing to write
+    }
+
+    public String writeProcessRunAndReturnID(String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException {
+        return conanProcessRun.getId();
+    }
+
+    public void writeTaskUpdates(List<ConanTask<? extends ConanPipeline>> conanTasks,
+                                 Map<String, List<ConanProcessRun>> processRuns)
+            throws IllegalArgumentException {
+        for (ConanTask<? extends ConanPipeline> conanTask : conanTasks) {
+            updateTask(conanTask);
+        }
+    }
+
+    public List<String> getTaskNamesStartingWith(String prefix, int maxResults) {
+        SortedSet<String> names = new TreeSet<String>();
+        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
+            if (task.getName() != null && task.getName().toLowerCase().startsWith(prefix.toLowerCase())) {
+                names.add(task.getName());
+            }
+        }
+        List<String> results = new ArrayList<String>(names);
+        return results.size() > maxResults ? results.subList(0, maxResults) : results;
+    }
+
     public List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(String name) {
         return getCompletedTasks();
     }
@@ -114,16 +147,16 @@ public class DummyTaskDAO implements ConanTaskDAO {
         return result;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getAllTasksSummary() {
-        return getAllTasks();
+    public List<ConanTaskSummary> getAllTasksSummary() {
+        return ConanTaskSummary.fromTasks(getAllTasks());
     }
 
     public List<ConanTask<? extends ConanPipeline>> getAllTasks(int maxRecords, int startingFrom) {
-        return getAllTasks().subList(startingFrom, startingFrom + maxRecords);
+        return getAllTasks(maxRecords, startingFrom, null);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getAllTasks(int maxRecords, int startingFrom, String orderBy) {
-        return getAllTasks().subList(startingFrom, startingFrom + maxRecords);
+        return getOrderedPage(getAllTasks(), maxRecords, startingFrom, orderBy);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getPendingTasks() {
@@ -155,8 +188,12 @@ public class DummyTaskDAO implements ConanTaskDAO {
         return results;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getPendingTasksSummary() {
-        return getPendingTasks();
+    public List<ConanTaskSummary> getPendingTasksSummary() {
+        return ConanTaskSummary.fromTasks(getPendingTasks());
+    }
+
+    public List<ConanTask<? extends ConanPipeline>> getPendingTasks(int maxRecords, int startingFrom, String orderBy) {
+        return getOrderedPage(getPendingTasks(), maxRecords, startingFrom, orderBy);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getRunningTasks() {
@@ -169,8 +206,12 @@ public class DummyTaskDAO implements ConanTaskDAO {
         return results;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getRunningTasksSummary() {
-        return getRunningTasks();
+    public List<ConanTaskSummary> getRunningTasksSummary() {
+        return ConanTaskSummary.fromTasks(getRunningTasks());
+    }
+
+    public List<ConanTask<? extends ConanPipeline>> getRunningTasks(int maxRecords, int startingFrom, String orderBy) {
+        return getOrderedPage(getRunningTasks(), maxRecords, startingFrom, orderBy);
     }
 
     public List<ConanTask<? extends ConanPipeline>> getCompletedTasks() {
@@ -189,8 +230,8 @@ public class DummyTaskDAO implements ConanTaskDAO {
         return results;
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary() {
-        return getCompletedTasks();
+    public List<ConanTaskSummary> getCompletedTasksSummary() {
+        return ConanTaskSummary.fromTasks(getCompletedTasks());
     }
 
     public List<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, int startingFrom) {
@@ -209,8 +250,54 @@ public class DummyTaskDAO implements ConanTaskDAO {
         }
     }
 
-    public List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary(int maxRecords, int startingFrom) {
-        return getCompletedTasks(maxRecords, startingFrom);
+    public List<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, int startingFrom) {
+        return ConanTaskSummary.fromTasks(getCompletedTasks(maxRecords, startingFrom));
+    }
+
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, String pageToken) throws IllegalArgumentException {
+        ConanTaskPage.PageToken token = pageToken == null ? null : ConanTaskPage.PageToken.decode(pageToken);
+        List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
+        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
+            if (task.getCurrentState() == ConanTask.State.COMPLETED ||
+                    task.getCurrentState() == ConanTask.State.ABORTED) {
+                if (token == null || token.precedes(task)) {
+                    results.add(task);
+                }
+            }
+        }
+        Collections.sort(results, ConanTaskPage.COMPLETION_ORDER);
+        if (results.size() > maxRecords + 1) {
+            results = results.subList(0, maxRecords + 1);
+        }
+        return ConanTaskPage.fromResults(results, maxRecords);
+    }
+
+    public ConanTaskPage<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, String pageToken)
+            throws IllegalArgumentException {
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> page = getCompletedTasks(maxRecords, pageToken);
+        return new ConanTaskPage<ConanTaskSummary>(ConanTaskSummary.fromTasks(page.getTasks()),
+                                                   page.getNextPageToken());
+    }
+
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> queryTasks(ConanTaskQuery query)
+            throws IllegalArgumentException {
+        List<ConanTask<? extends ConanPipeline>> results = new ArrayList<ConanTask<? extends ConanPipeline>>();
+        for (ConanTask<? extends ConanPipeline> task : getAllTasks()) {
+            if (query.matches(task) && query.follows(task)) {
+                results.add(task);
+            }
+        }
+        Collections.sort(results, query.getComparator());
+        if (results.size() > query.getMaxRecords() + 1) {
+            results = results.subList(0, query.getMaxRecords() + 1);
+        }
+        return query.getPage(results);
+    }
+
+    public ConanTaskPage<ConanTaskSummary> queryTasksSummary(ConanTaskQuery query) throws IllegalArgumentException {
+        ConanTaskPage<ConanTask<? extends ConanPipeline>> page = queryTasks(query);
+        return new ConanTaskPage<ConanTaskSummary>(ConanTaskSummary.fromTasks(page.getTasks()),
+                                                   page.getNextPageToken());
     }
 
     public List<ConanTask<? extends ConanPipeline>> getIncompleteTasks() {
@@ -228,4 +315,14 @@ public class DummyTaskDAO implements ConanTaskDAO {
         }
         return results;
     }
+
+    private List<ConanTask<? extends ConanPipeline>> getOrderedPage(List<ConanTask<? extends ConanPipeline>> tasks,
+                                                                    int maxRecords,
+                                                                    int startingFrom,
+                                                                    String orderBy) {
+        Collections.sort(tasks, ConanTaskOrdering.getComparator(orderBy));
+        int from = Math.min(startingFrom, tasks.size());
+        int to = (int) Math.min((long) from + maxRecords, tasks.size());
+        return new ArrayList<ConanTask<? extends ConanPipeline>>(tasks.subList(from, to));
+    }
 }
@@ -52,4 +52,8 @@ public class DummyUserDAO implements ConanUserDAO {
     public ConanUser saveUser(ConanUser user) throws IllegalArgumentException {
         return this.user;
     }
+
+    public void deleteUser(ConanUser user) {
+        // single dummy user, never deleted
+    }
 }
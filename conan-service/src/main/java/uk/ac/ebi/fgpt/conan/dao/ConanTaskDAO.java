@@ -3,9 +3,13 @@ package uk.ac.ebi.fgpt.conan.dao;
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
 import uk.ac.ebi.fgpt.conan.model.ConanProcessRun;
 import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskPage;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskQuery;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskSummary;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A data access object for retrieving {@link ConanTask}s and associated details from some datasource used to persist
@@ -47,13 +51,13 @@ public interface ConanTaskDAO {
     List<ConanTask<? extends ConanPipeline>> getAllTasks();
 
     /**
-     * Returns a list of all known tasks, excluding process information. This includes all pending, running and
+     * Returns summaries of all known tasks, excluding process information. This includes all pending, running and
      * completed tasks - basically a history of everything that has ever been submitted.  Tasks should be returned
      * ordered by creation date.
      *
      * @return the list of all  tasks
      */
-    List<ConanTask<? extends ConanPipeline>> getAllTasksSummary();
+    List<ConanTaskSummary> getAllTasksSummary();
 
     /**
      * Gets a list of the specified number of tasks. This includes all pending, running and completed tasks - basically
@@ -68,7 +72,8 @@ public interface ConanTaskDAO {
     /**
      * Gets a list of the specified number of tasks. This includes all pending, running and completed tasks - basically
      * a history of everything that has ever been submitted.  The tasks returned are ordered by creation date by
-     * default.
+     * default.  Tasks can be ordered by any of the {@link uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering} properties,
+     * and should be sorted in the same way as the corresponding comparator.
      *
      * @param maxRecords   the maximum number of tasks to return
      * @param startingFrom the first task index to return
@@ -86,13 +91,26 @@ public interface ConanTaskDAO {
     List<ConanTask<? extends ConanPipeline>> getPendingTasks();
 
     /**
-     * Gets a list of all tasks that have a "pending" status, excluding process info.  Tasks in this list may have been
+     * Gets summaries of all tasks that have a "pending" status, excluding process info.  Tasks in this list may have been
      * executed but failed: tasks that fail should highlight their failure to the submitter, and flag the task as
      * pending.
      *
      * @return a list of all tasks pending execution
      */
-    List<ConanTask<? extends ConanPipeline>> getPendingTasksSummary();
+    List<ConanTaskSummary> getPendingTasksSummary();
+
+    /**
+     * Gets a list of the specified number of tasks that have a "pending" status, ordered by the given task property.
+     * Tasks are ordered by creation date if no property, or a property that is not one of the {@link
+     * uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering} properties, is given.  If there are fewer tasks than requested,
+     * all remaining tasks are returned.
+     *
+     * @param maxRecords   the maximum number of tasks to return
+     * @param startingFrom the first task index to return
+     * @param orderBy      the ConanTask property to order the results by
+     * @return the requested page of tasks pending execution
+     */
+    List<ConanTask<? extends ConanPipeline>> getPendingTasks(int maxRecords, int startingFrom, String orderBy);
 
     /**
      * Gets a list of all tasks that have a "running" status.
@@ -102,11 +120,24 @@ public interface ConanTaskDAO {
     List<ConanTask<? extends ConanPipeline>> getRunningTasks();
 
     /**
-     * Gets a list of all tasks that have a "running" status, excluding process info.
+     * Gets summaries of all tasks that have a "running" status, excluding process info.
      *
      * @return the currently executing tasks
      */
-    List<ConanTask<? extends ConanPipeline>> getRunningTasksSummary();
+    List<ConanTaskSummary> getRunningTasksSummary();
+
+    /**
+     * Gets a list of the specified number of tasks that have a "running" status, ordered by the given task property.
+     * Tasks are ordered by creation date if no property, or a property that is not one of the {@link
+     * uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering} properties, is given.  If there are fewer tasks than requested,
+     * all remaining tasks are returned.
+     *
+     * @param maxRecords   the maximum number of tasks to return
+     * @param startingFrom the first task index to return
+     * @param orderBy      the ConanTask property to order the results by
+     * @return the requested page of currently executing tasks
+     */
+    List<ConanTask<? extends ConanPipeline>> getRunningTasks(int maxRecords, int startingFrom, String orderBy);
 
     /**
      * Gets a list of all tasks have a "completed" status.  This includes tasks that completed successfully, and those
@@ -126,13 +157,13 @@ public interface ConanTaskDAO {
     List<ConanTask<? extends ConanPipeline>> getIncompleteTasks();
 
     /**
-     * Gets a list of all tasks have a "completed" status, excluding process info.  This includes tasks that completed
+     * Gets summaries of all tasks have a "completed" status, excluding process info.  This includes tasks that completed
      * successfully, and those that completed because a process failed and was subsequently marked as complete by the
      * submitter.
      *
      * @return the tasks that have completed
      */
-    List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary();
+    List<ConanTaskSummary> getCompletedTasksSummary();
 
     /**
      * Gets a list of the specified number of tasks have a "completed" status.  This includes tasks that completed
@@ -154,7 +185,34 @@ public interface ConanTaskDAO {
      * @param startingFrom the position in the list of tasks to start from
      * @return a list of all tasks pending execution
      */
-    List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary(int maxRecords, int startingFrom);
+    List<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, int startingFrom);
+
+    /**
+     * Gets a page of tasks that have a "completed" status, using keyset paging.  Tasks are ordered by completion date,
+     * most recent first, with ties broken by task ID.  To fetch the first page, supply a null page token; to fetch
+     * subsequent pages, supply the token returned by {@link uk.ac.ebi.fgpt.conan.model.ConanTaskPage#getNextPageToken()}
+     * for the previous page.
+     * <p/>
+     * Unlike offset based paging, implementations should only ever fetch (and fully populate) the tasks that appear on
+     * the requested page, irrespective of how deep into the history that page is.
+     *
+     * @param maxRecords the maximum number of records to return
+     * @param pageToken  the continuation token from the previous page, or null to start from the most recent task
+     * @return the page of completed tasks
+     * @throws IllegalArgumentException if the page size is less than one, or the page token is malformed
+     */
+    ConanTaskPage<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, String pageToken) throws IllegalArgumentException;
+
+    /**
+     * Gets a page of tasks that have a "completed" status, using keyset paging and returning a summary view that
+     * excludes process info.  See {@link #getCompletedTasks(int, String)} for details of the paging contract.
+     *
+     * @param maxRecords the maximum number of records to return
+     * @param pageToken  the continuation token from the previous page, or null to start from the most recent task
+     * @return the page of completed tasks
+     * @throws IllegalArgumentException if the page size is less than one, or the page token is malformed
+     */
+    ConanTaskPage<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, String pageToken) throws IllegalArgumentException;
 
     /**
      * Persists new tasks to the backing datasource.  Generally, after creating new {@link
@@ -202,6 +260,47 @@ public interface ConanTaskDAO {
     <P extends ConanPipeline> ConanTask<P> saveProcessRun(String conanTaskID, ConanProcessRun conanProcessRun)
             throws IllegalArgumentException;
 
+    /**
+     * Writes a process run to the backing datasource without reading anything back.  This has the same insert-or-update
+     * semantics as {@link #saveProcessRun(String, uk.ac.ebi.fgpt.conan.model.ConanProcessRun)}, and will assign an ID
+     * to new process runs where this DAO {@link #supportsAutomaticIDAssignment()}, but does not reload the task that
+     * owns the run.  This should be preferred wherever the caller already holds a reference to the task, as is the case
+     * for listeners reacting to task events.
+     *
+     * @param conanTaskID     the ID of the task to assign the process run to
+     * @param conanProcessRun the process run to save, whether new or updated
+     * @throws IllegalArgumentException if the process run could not be written for the given task ID
+     */
+    void writeProcessRun(String conanTaskID, ConanProcessRun conanProcessRun) throws IllegalArgumentException;
+
+    /**
+     * Writes a process run to the backing datasource, as for {@link #writeProcessRun(String,
+     * uk.ac.ebi.fgpt.conan.model.ConanProcessRun)}, and returns only the ID of the process run.  For new process runs
+     * this will be the newly assigned ID.
+     *
+     * @param conanTaskID     the ID of the task to assign the process run to
+     * @param conanProcessRun the process run to save, whether new or updated
+     * @return the ID of the written process run
+     * @throws IllegalArgumentException if the process run could not be written for the given task ID
+     */
+    String writeProcessRunAndReturnID(String conanTaskID, ConanProcessRun conanProcessRun)
+            throws IllegalArgumentException;
+
+    /**
+     * Writes the current state of several tasks, and any new or changed process runs belonging to those tasks, as a
+     * single batch.  This is equivalent to calling {@link #updateTask(uk.ac.ebi.fgpt.conan.model.ConanTask)} for each
+     * task followed by {@link #writeProcessRun(String, uk.ac.ebi.fgpt.conan.model.ConanProcessRun)} for each process
+     * run, but implementations backed by a database should group these writes into as few round trips and commits as
+     * possible.  Nothing is read back.
+     *
+     * @param conanTasks  the tasks to update
+     * @param processRuns the process runs to write, keyed by the ID of the task they belong to
+     * @throws IllegalArgumentException if any of the supplied tasks or process runs could not be written
+     */
+    void writeTaskUpdates(List<ConanTask<? extends ConanPipeline>> conanTasks,
+                          Map<String, List<ConanProcessRun>> processRuns)
+            throws IllegalArgumentException;
+
     /**
      * Retrieves completed tasks from the underlying database which have a task name matching the supplied string.  Task
      * name searches should be case insensitive and should be considered as a fragment for matching - in other words,
@@ -281,4 +380,38 @@ public interface ConanTaskDAO {
                                                                   String userID,
                                                                   Date fromDate,
                                                                   Date toDate);
+
+    /**
+     * Retrieves a page of the tasks selected by the given query, in the order it specifies.  Tasks in any state may be
+     * selected, and implementations should evaluate every filter set on the query in the backing datasource (or against
+     * their own indexes) so that only the tasks on the requested page are ever fully populated.  The page returned
+     * carries a continuation token for the next page, created by {@link ConanTaskQuery#getPage(java.util.List)}, or
+     * null if this is the last page.  Only live tasks are queried: tasks that have been archived are not returned.
+     *
+     * @param query the query specifying the tasks to retrieve
+     * @return the requested page of tasks
+     * @throws IllegalArgumentException if the page token of the query is malformed
+     */
+    ConanTaskPage<ConanTask<? extends ConanPipeline>> queryTasks(ConanTaskQuery query) throws IllegalArgumentException;
+
+    /**
+     * Retrieves a page of summaries of the tasks selected by the given query, excluding process info.  See {@link
+     * #queryTasks(uk.ac.ebi.fgpt.conan.model.ConanTaskQuery)} for details of the query contract.
+     *
+     * @param query the query specifying the tasks to retrieve
+     * @return the requested page of task summaries
+     * @throws IllegalArgumentException if the page token of the query is malformed
+     */
+    ConanTaskPage<ConanTaskSummary> queryTasksSummary(ConanTaskQuery query) throws IllegalArgumentException;
+
+    /**
+     * Retrieves the distinct names of tasks that start with the given prefix, ignoring case, in alphabetical order.
+     * This is intended to support typeahead when searching by task name, so implementations should be able to answer
+     * without scanning every task.
+     *
+     * @param prefix     the start of the task name
+     * @param maxResults the maximum number of names to return
+     * @return the task names starting with this prefix
+     */
+    List<String> getTaskNamesStartingWith(String prefix, int maxResults);
 }
@@ -66,4 +66,12 @@ public interface ConanUserDAO {
      * @throws IllegalArgumentException if the user supplied cannot be saved because it is an illegal type
      */
     ConanUser saveUser(ConanUser user) throws IllegalArgumentException;
+
+    /**
+     * Removes a user from the backing datasource.  Implementations that are read-only, for example those used only for
+     * verification, may throw an {@link UnsupportedOperationException}.
+     *
+     * @param user the user to delete
+     */
+    void deleteUser(ConanUser user);
 }
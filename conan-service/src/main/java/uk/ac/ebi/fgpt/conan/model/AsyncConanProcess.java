@@ -0,0 +1,36 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
+
+import java.util.Map;
+
+/**
+ * A {@link ConanProcess} that can be dispatched without the caller having to wait for it to finish.  This is intended
+ * for processes that spend most of their time waiting on work done elsewhere - jobs submitted to a compute cluster, or
+ * requests to a remote service that must be polled for completion - so that tasks running these processes do not need
+ * to hold a thread for the duration.
+ * <p/>
+ * Asynchronous processes must still implement {@link #execute(java.util.Map)}, for callers that want to block: this
+ * should normally just wait on the future returned from {@link #executeAsync(java.util.Map)}.  The same guarantees
+ * apply to both methods; in particular, re-executing a process with the same parameters whilst it is still running
+ * should resume monitoring the existing process rather than start a new one.
+ *
+ * @date 18-Oct-2026
+ * @see ConanProcess
+ */
+public interface AsyncConanProcess extends ConanProcess {
+    /**
+     * Dispatches this process with the supplied parameters, and returns a future that will be completed once the
+     * process has finished.  This method should return as soon as the process has been started, and any failure to
+     * start it should be thrown from here rather than reported through the future.
+     *
+     * @param parameters maps parameters to the supplied values required in order to execute a process
+     * @return a future holding the result of the process
+     * @throws ProcessExecutionException if the process could not be dispatched
+     * @throws IllegalArgumentException  if an incorrect set of parameter values has been supplied, or if required
+     *                                   values are null
+     * @throws InterruptedException      if dispatching the process was interrupted
+     */
+    ConanProcessFuture executeAsync(Map<ConanParameter, String> parameters)
+            throws ProcessExecutionException, IllegalArgumentException, InterruptedException;
+}
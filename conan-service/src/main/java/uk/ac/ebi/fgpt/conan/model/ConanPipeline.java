@@ -9,6 +9,11 @@ import java.util.List;
 /**
  * Basically, a series of processes to run incrementally.  Pipeline objects also include some additional metadata, such
  * as an assigned name, the user that created it, and so on.
+ * <p/>
+ * Pipelines may instead declare the dependencies between their processes, in which case each process can start as soon
+ * as every process it depends on has completed, and processes that do not depend on each other may run concurrently.
+ * Processes may also be scatter stages, which run once for every value of a multi-valued parameter and gather these
+ * sub-runs back together before the next process starts.
  *
  * @author Tony Burdett
  * @date 28-Jul-2010
@@ -54,6 +59,26 @@ public interface ConanPipeline extends Serializable {
      */
     List<ConanProcess> getProcesses();
 
+    /**
+     * Gets whether the processes in this pipeline declare their dependencies on each other.  If so, processes may run
+     * concurrently once the processes they depend on have completed; otherwise, processes run one at a time in the order
+     * of {@link #getProcesses()}.
+     *
+     * @return true if processes in this pipeline may run concurrently, false if they must run in order
+     */
+    @JsonIgnore boolean isConcurrent();
+
+    /**
+     * Gets the processes in this pipeline that must complete before the given process can start.  For pipelines that
+     * do not declare dependencies, this is just the process before it.  A process can only ever depend on processes
+     * that come before it in {@link #getProcesses()}.
+     *
+     * @param process the process to get the dependencies of
+     * @return the processes this process depends on, which may be empty
+     * @throws IllegalArgumentException if the process is not part of this pipeline
+     */
+    List<ConanProcess> getDependencies(ConanProcess process) throws IllegalArgumentException;
+
     /**
      * Returns the set of input parameters that are required by this pipeline.  Pipeline parameters are the sum total of
      * all input parameters required by the {@link uk.ac.ebi.fgpt.conan.model.ConanProcess}es that make up this
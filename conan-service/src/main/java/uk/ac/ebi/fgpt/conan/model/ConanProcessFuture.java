@@ -0,0 +1,189 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import uk.ac.ebi.fgpt.conan.service.exception.ProcessExecutionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The pending result of an {@link AsyncConanProcess} that has been dispatched.  The process completes this future once
+ * it finishes, either with a true/false exit status or with the exception that caused it to fail, exactly as {@link
+ * ConanProcess#execute(java.util.Map)} would have returned or thrown.
+ * <p/>
+ * Callers that don't want to wait for the process can register completion listeners, which are run once, by the
+ * thread that completes the future.  Listeners should therefore return quickly, handing off any real work.
+ * <p/>
+ * Waiting on this future uses a {@link java.util.concurrent.locks.Lock} rather than a monitor, so that virtual threads
+ * waiting for a process are not pinned to their carrier thread.
+ *
+ * @date 18-Oct-2026
+ */
+public class ConanProcessFuture {
+    private final Lock lock;
+    private final Condition completed;
+    private final List<Runnable> completionListeners;
+
+    private boolean done;
+    private boolean result;
+    private ProcessExecutionException processFailure;
+    private RuntimeException unexpectedFailure;
+
+    public ConanProcessFuture() {
+        this.lock = new ReentrantLock();
+        this.completed = lock.newCondition();
+        this.completionListeners = new ArrayList<Runnable>();
+        this.done = false;
+    }
+
+    /**
+     * Creates a future that has already completed with the given exit status.
+     *
+     * @param result true if the process completed successfully, false if not
+     * @return a completed future
+     */
+    public static ConanProcessFuture completed(boolean result) {
+        ConanProcessFuture future = new ConanProcessFuture();
+        future.complete(result);
+        return future;
+    }
+
+    /**
+     * Completes this future with the exit status of the process.  Completing a future that is already done has no
+     * effect.
+     *
+     * @param result true if the process completed successfully, false if not
+     */
+    public void complete(boolean result) {
+        lock.lock();
+        try {
+            if (done) {
+                return;
+            }
+            this.result = result;
+            this.done = true;
+            completed.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+        fireCompletion();
+    }
+
+    /**
+     * Completes this future with the exception that caused the process to fail.  Completing a future that is already
+     * done has no effect.
+     *
+     * @param processFailure the exception describing the process failure
+     */
+    public void fail(ProcessExecutionException processFailure) {
+        lock.lock();
+        try {
+            if (done) {
+                return;
+            }
+            this.processFailure = processFailure;
+            this.done = true;
+            completed.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+        fireCompletion();
+    }
+
+    /**
+     * Completes this future with an unexpected exception that the process did not handle.  Completing a future that is
+     * already done has no effect.
+     *
+     * @param unexpectedFailure the unexpected exception
+     */
+    public void fail(RuntimeException unexpectedFailure) {
+        lock.lock();
+        try {
+            if (done) {
+                return;
+            }
+            this.unexpectedFailure = unexpectedFailure;
+            this.done = true;
+            completed.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+        fireCompletion();
+    }
+
+    public boolean isDone() {
+        lock.lock();
+        try {
+            return done;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the exit status of the process, blocking until it has completed.
+     *
+     * @return true if the process completed successfully, false if not
+     * @throws ProcessExecutionException if the process failed
+     * @throws InterruptedException      if the calling thread was interrupted whilst waiting
+     */
+    public boolean get() throws ProcessExecutionException, InterruptedException {
+        lock.lock();
+        try {
+            while (!done) {
+                completed.await();
+            }
+            if (processFailure != null) {
+                throw processFailure;
+            }
+            if (unexpectedFailure != null) {
+                throw unexpectedFailure;
+            }
+            return result;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a listener to be run once this future completes.  If it has already completed, the listener is run straight
+     * away, by the calling thread.
+     *
+     * @param listener the listener to run on completion
+     */
+    public void addCompletionListener(Runnable listener) {
+        lock.lock();
+        try {
+            if (!done) {
+                completionListeners.add(listener);
+                return;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        listener.run();
+    }
+
+    private void fireCompletion() {
+        List<Runnable> listeners;
+        lock.lock();
+        try {
+            listeners = new ArrayList<Runnable>(completionListeners);
+            completionListeners.clear();
+        }
+        finally {
+            lock.unlock();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -64,6 +64,14 @@ public interface ConanProcessRun extends Serializable {
      */
     String getErrorMessage();
 
+    /**
+     * Whether this process run was skipped, because the process had already completed for identical inputs.  Skipped
+     * runs did no work: they start and end at the same time, with an exit value of 0.
+     *
+     * @return true if this process run was skipped, false if the process was executed
+     */
+    boolean isSkipped();
+
     /**
      * The user who created this process run.  This is the user who owned the task when the process that generated this
      * run began.
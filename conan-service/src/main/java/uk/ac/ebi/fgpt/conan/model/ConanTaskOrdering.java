@@ -0,0 +1,317 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import java.util.*;
+
+/**
+ * The orderings that lists of {@link ConanTask}s can be sorted by, keyed by the name of the task property they sort on.
+ * Only the properties listed here can be used to order tasks: this list doubles as the whitelist of properties that DAOs
+ * may translate into an "order by" clause, so DAOs that sort in the database should support exactly these properties
+ * and sort them the same way.
+ * <p/>
+ * Each ordering sorts ascending, with nulls first, and uses the task ID to break ties so that paging through an ordered
+ * list is stable.  Priorities and states sort in the order they are declared in, not alphabetically.  Ordering by an
+ * unknown property, or by no property, sorts tasks by creation date.
+ * <p/>
+ * The value a task is sorted on can be extracted from either a full task or a {@link ConanTaskSummary}, and encoded
+ * as a string, so that the position of a task in an ordering can be written into a continuation token and compared
+ * against later.
+ *
+ * @date 18-Oct-2026
+ */
+public class ConanTaskOrdering {
+    public static final String DEFAULT_PROPERTY = "creationDate";
+
+    private static final Map<String, SortKey> sortKeys;
+
+    static {
+        Map<String, SortKey> map = new LinkedHashMap<String, SortKey>();
+        map.put("id", new IDKey() {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                // every task sorts equal here, so the ID tiebreak does the ordering
+                return null;
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return null;
+            }
+        });
+        map.put("name", new TextKey() {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getName();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getName();
+            }
+        });
+        map.put("pipeline", new TextKey() {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getPipeline() == null ? null : task.getPipeline().getName();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getPipeline() == null ? null : summary.getPipeline().getName();
+            }
+        });
+        map.put("submitter", new IDKey() {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getSubmitter() == null ? null : task.getSubmitter().getId();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getSubmitter() == null ? null : summary.getSubmitter().getId();
+            }
+        });
+        map.put("priority", new EnumKey<ConanTask.Priority>(ConanTask.Priority.class) {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getPriority();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getPriority();
+            }
+        });
+        map.put("currentState", new EnumKey<ConanTask.State>(ConanTask.State.class) {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getCurrentState();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getCurrentState();
+            }
+        });
+        map.put("creationDate", new DateKey() {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getCreationDate();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getCreationDate();
+            }
+        });
+        map.put("startDate", new DateKey() {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getStartDate();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getStartDate();
+            }
+        });
+        map.put("completionDate", new DateKey() {
+            protected Object getValue(ConanTask<? extends ConanPipeline> task) {
+                return task.getCompletionDate();
+            }
+
+            protected Object getValue(ConanTaskSummary summary) {
+                return summary.getCompletionDate();
+            }
+        });
+        sortKeys = Collections.unmodifiableMap(map);
+    }
+
+    private ConanTaskOrdering() {
+    }
+
+    /**
+     * Gets the names of every task property that tasks can be ordered by
+     *
+     * @return the orderable task properties
+     */
+    public static Set<String> getOrderableProperties() {
+        return sortKeys.keySet();
+    }
+
+    /**
+     * Tests whether tasks can be ordered by the given property
+     *
+     * @param property the task property name
+     * @return true if this property is one of the orderable properties
+     */
+    public static boolean isOrderable(String property) {
+        return property != null && sortKeys.containsKey(property);
+    }
+
+    /**
+     * Gets the comparator that orders tasks by the given property, or by creation date if tasks cannot be ordered by
+     * this property.
+     *
+     * @param property the task property name
+     * @return a comparator ordering tasks by this property
+     */
+    public static Comparator<ConanTask<? extends ConanPipeline>> getComparator(String property) {
+        return getSortKey(property);
+    }
+
+    /**
+     * Gets the comparator that orders tasks by the given property, as for {@link #getComparator(String)}, optionally
+     * reversed.  A descending ordering puts nulls last and breaks ties by descending ID.
+     *
+     * @param property   the task property name
+     * @param descending whether to reverse the ordering
+     * @return a comparator ordering tasks by this property
+     */
+    public static Comparator<ConanTask<? extends ConanPipeline>> getComparator(String property, boolean descending) {
+        return descending ? Collections.reverseOrder(getComparator(property)) : getComparator(property);
+    }
+
+    /**
+     * Gets the value of the given property that a task is sorted on.  This will be a String, Date, ConanTask.Priority
+     * or ConanTask.State depending on the property, and may be null.
+     *
+     * @param property the task property name
+     * @param task     the task
+     * @return the value the task is ordered by
+     */
+    public static Object getSortValue(String property, ConanTask<? extends ConanPipeline> task) {
+        return getSortKey(property).getValue(task);
+    }
+
+    /**
+     * Gets the value of the given property that a task summary is sorted on, which is always the same as the value the
+     * summarised task is sorted on.
+     *
+     * @param property the task property name
+     * @param summary  the task summary
+     * @return the value the summarised task is ordered by
+     */
+    public static Object getSortValue(String property, ConanTaskSummary summary) {
+        return getSortKey(property).getValue(summary);
+    }
+
+    /**
+     * Compares the positions of two tasks in the ascending ordering by the given property, given the value each task is
+     * sorted on and its ID.
+     *
+     * @param property the task property name
+     * @param value1   the sort value of the first task
+     * @param id1      the ID of the first task
+     * @param value2   the sort value of the second task
+     * @param id2      the ID of the second task
+     * @return a negative, zero or positive integer as the first task sorts before, with or after the second
+     */
+    public static int compare(String property, Object value1, String id1, Object value2, String id2) {
+        return getSortKey(property).compare(value1, id1, value2, id2);
+    }
+
+    /**
+     * Encodes a non-null sort value of the given property as a string
+     *
+     * @param property the task property name
+     * @param value    the sort value to encode
+     * @return the encoded value
+     */
+    public static String encodeSortValue(String property, Object value) {
+        return getSortKey(property).encode(value);
+    }
+
+    /**
+     * Decodes a sort value of the given property previously encoded with {@link #encodeSortValue(String, Object)}
+     *
+     * @param property the task property name
+     * @param encoded  the encoded value
+     * @return the decoded sort value
+     * @throws IllegalArgumentException if the value cannot be decoded as a value of this property
+     */
+    public static Object decodeSortValue(String property, String encoded) throws IllegalArgumentException {
+        return getSortKey(property).decode(encoded);
+    }
+
+    private static SortKey getSortKey(String property) {
+        return sortKeys.get(isOrderable(property) ? property : DEFAULT_PROPERTY);
+    }
+
+    /**
+     * Extracts, compares and encodes the value of a single property, and compares tasks by that value, then by ID
+     */
+    private static abstract class SortKey implements Comparator<ConanTask<? extends ConanPipeline>> {
+        public int compare(ConanTask<? extends ConanPipeline> task1, ConanTask<? extends ConanPipeline> task2) {
+            return compare(getValue(task1), task1.getId(), getValue(task2), task2.getId());
+        }
+
+        protected int compare(Object value1, String id1, Object value2, String id2) {
+            if (value1 != value2) {
+                if (value1 == null || value2 == null) {
+                    return value1 == null ? -1 : 1;
+                }
+                int result = compareValues(value1, value2);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return ConanTaskPage.compareIDs(id1, id2);
+        }
+
+        @SuppressWarnings("unchecked")
+        protected int compareValues(Object value1, Object value2) {
+            return ((Comparable) value1).compareTo(value2);
+        }
+
+        protected abstract Object getValue(ConanTask<? extends ConanPipeline> task);
+
+        protected abstract Object getValue(ConanTaskSummary summary);
+
+        protected abstract String encode(Object value);
+
+        protected abstract Object decode(String encoded) throws IllegalArgumentException;
+    }
+
+    /**
+     * A property holding free text
+     */
+    private static abstract class TextKey extends SortKey {
+        protected String encode(Object value) {
+            return (String) value;
+        }
+
+        protected Object decode(String encoded) {
+            return encoded;
+        }
+    }
+
+    /**
+     * A property holding an ID, which compares as a number where possible, in the same way as the database sorts it
+     */
+    private static abstract class IDKey extends TextKey {
+        protected int compareValues(Object value1, Object value2) {
+            return ConanTaskPage.compareIDs((String) value1, (String) value2);
+        }
+    }
+
+    /**
+     * A property holding a date, encoded as milliseconds in base 36
+     */
+    private static abstract class DateKey extends SortKey {
+        protected String encode(Object value) {
+            return Long.toString(((Date) value).getTime(), Character.MAX_RADIX);
+        }
+
+        protected Object decode(String encoded) throws IllegalArgumentException {
+            try {
+                return new Date(Long.parseLong(encoded, Character.MAX_RADIX));
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + encoded + "' is not an encoded date", e);
+            }
+        }
+    }
+
+    /**
+     * A property holding an enum value, encoded by name
+     */
+    private static abstract class EnumKey<E extends Enum<E>> extends SortKey {
+        private final Class<E> enumType;
+
+        private EnumKey(Class<E> enumType) {
+            this.enumType = enumType;
+        }
+
+        protected String encode(Object value) {
+            return ((Enum) value).name();
+        }
+
+        protected Object decode(String encoded) throws IllegalArgumentException {
+            return Enum.valueOf(enumType, encoded);
+        }
+    }
+}
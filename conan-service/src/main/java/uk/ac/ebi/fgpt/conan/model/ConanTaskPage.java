@@ -0,0 +1,212 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A single page of {@link ConanTask}s, or of {@link ConanTaskSummary}s, returned by keyset (or "cursor") based paging
+ * queries.  As well as the tasks on this page, a page carries an opaque continuation token that can be passed back to
+ * obtain the next page.  If there are no further results, the next page token will be null.
+ * <p/>
+ * Completed task pages are ordered by completion date, most recent first, with the task ID used to break ties.  The
+ * continuation token encodes the (completion date, task ID) pair of the last task on the page, so that the next page
+ * can be fetched by seeking past this position rather than by counting and discarding rows.  Clients should treat the
+ * token as an opaque string and never attempt to construct one themselves.
+ * <p/>
+ * Pages of the results of a {@link ConanTaskQuery} follow the ordering of that query instead, and carry tokens created
+ * by the query.
+ *
+ * @param <T> the type of task representation on this page
+ * @date 18-Oct-2026
+ */
+public class ConanTaskPage<T> implements Serializable {
+    /**
+     * Orders completed tasks by completion date, most recent first, using task ID (descending) to break ties.  This is
+     * the ordering that all keyset pages of completed tasks follow.
+     */
+    public static final Comparator<ConanTask<? extends ConanPipeline>> COMPLETION_ORDER =
+            new Comparator<ConanTask<? extends ConanPipeline>>() {
+                public int compare(ConanTask<? extends ConanPipeline> task1, ConanTask<? extends ConanPipeline> task2) {
+                    long date1 = task1.getCompletionDate() == null ? 0 : task1.getCompletionDate().getTime();
+                    long date2 = task2.getCompletionDate() == null ? 0 : task2.getCompletionDate().getTime();
+                    if (date1 != date2) {
+                        return date1 > date2 ? -1 : 1;
+                    }
+                    return -compareIDs(task1.getId(), task2.getId());
+                }
+            };
+
+    private final List<T> tasks;
+    private final String nextPageToken;
+
+    public ConanTaskPage(List<T> tasks, String nextPageToken) {
+        this.tasks = tasks;
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Creates a page from a list of results that may contain one more task than the requested page size.  Keyset paging
+     * queries can fetch <code>maxRecords + 1</code> rows to cheaply detect whether a further page exists: if the extra
+     * row is present it is trimmed off and a token pointing at the last task of this page is generated.
+     *
+     * @param results    the tasks retrieved, in {@link #COMPLETION_ORDER}
+     * @param maxRecords the requested page size
+     * @return the page of tasks
+     * @throws IllegalArgumentException if the page size is less than one
+     */
+    public static ConanTaskPage<ConanTask<? extends ConanPipeline>> fromResults(
+            List<ConanTask<? extends ConanPipeline>> results, int maxRecords) throws IllegalArgumentException {
+        checkPageSize(maxRecords);
+        if (results.size() > maxRecords) {
+            List<ConanTask<? extends ConanPipeline>> pageTasks = results.subList(0, maxRecords);
+            ConanTask<? extends ConanPipeline> last = pageTasks.get(pageTasks.size() - 1);
+            return new ConanTaskPage<ConanTask<? extends ConanPipeline>>(
+                    pageTasks, new PageToken(last.getCompletionDate(), last.getId()).encode());
+        }
+        else {
+            return new ConanTaskPage<ConanTask<? extends ConanPipeline>>(results, null);
+        }
+    }
+
+    /**
+     * Creates a page of summaries from a list of results that may contain one more summary than the requested page
+     * size, as for {@link #fromResults(java.util.List, int)}.
+     *
+     * @param results    the task summaries retrieved, in {@link #COMPLETION_ORDER}
+     * @param maxRecords the requested page size
+     * @return the page of task summaries
+     * @throws IllegalArgumentException if the page size is less than one
+     */
+    public static ConanTaskPage<ConanTaskSummary> fromSummaryResults(List<ConanTaskSummary> results, int maxRecords)
+            throws IllegalArgumentException {
+        checkPageSize(maxRecords);
+        if (results.size() > maxRecords) {
+            List<ConanTaskSummary> pageTasks = results.subList(0, maxRecords);
+            ConanTaskSummary last = pageTasks.get(pageTasks.size() - 1);
+            return new ConanTaskPage<ConanTaskSummary>(
+                    pageTasks, new PageToken(last.getCompletionDate(), last.getId()).encode());
+        }
+        else {
+            return new ConanTaskPage<ConanTaskSummary>(results, null);
+        }
+    }
+
+    /**
+     * Checks that a requested page size can hold at least one task, so that every page with a continuation token has a
+     * last task to continue from.
+     *
+     * @param maxRecords the requested page size
+     * @throws IllegalArgumentException if the page size is less than one
+     */
+    public static void checkPageSize(int maxRecords) throws IllegalArgumentException {
+        if (maxRecords < 1) {
+            throw new IllegalArgumentException("maxRecords must be greater than zero");
+        }
+    }
+
+    /**
+     * Gets the tasks on this page
+     *
+     * @return the tasks on this page
+     */
+    public List<T> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Gets the opaque token that should be supplied to retrieve the page following this one, or null if this is the
+     * last page
+     *
+     * @return the continuation token for the next page
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    /**
+     * Compares two task IDs.  IDs assigned from a database sequence are numeric, so these are compared numerically;
+     * any non-numeric IDs fall back to string comparison.
+     *
+     * @param id1 the first ID
+     * @param id2 the second ID
+     * @return a negative, zero or positive integer as the first ID is less than, equal to or greater than the second
+     */
+    public static int compareIDs(String id1, String id2) {
+        if (id1 == null || id2 == null) {
+            return id1 == null ? (id2 == null ? 0 : -1) : 1;
+        }
+        try {
+            long l1 = Long.parseLong(id1);
+            long l2 = Long.parseLong(id2);
+            return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+        }
+        catch (NumberFormatException e) {
+            return id1.compareTo(id2);
+        }
+    }
+
+    /**
+     * The decoded form of a continuation token: the completion date and ID of the last task on the previous page.
+     */
+    public static class PageToken {
+        private static final char SEPARATOR = '.';
+
+        private final Date completionDate;
+        private final String taskID;
+
+        public PageToken(Date completionDate, String taskID) {
+            this.completionDate = completionDate;
+            this.taskID = taskID;
+        }
+
+        /**
+         * Decodes a continuation token previously obtained from {@link ConanTaskPage#getNextPageToken()}
+         *
+         * @param token the token to decode
+         * @return the decoded token
+         * @throws IllegalArgumentException if the token is malformed
+         */
+        public static PageToken decode(String token) throws IllegalArgumentException {
+            int index = token == null ? -1 : token.indexOf(SEPARATOR);
+            if (index < 1 || index == token.length() - 1) {
+                throw new IllegalArgumentException("Malformed page token '" + token + "'");
+            }
+            try {
+                long millis = Long.parseLong(token.substring(0, index), Character.MAX_RADIX);
+                String id = token.substring(index + 1);
+                return new PageToken(new Date(millis), id);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed page token '" + token + "'", e);
+            }
+        }
+
+        public String encode() {
+            long millis = completionDate == null ? 0 : completionDate.getTime();
+            return Long.toString(millis, Character.MAX_RADIX) + SEPARATOR + taskID;
+        }
+
+        public Date getCompletionDate() {
+            return completionDate;
+        }
+
+        public String getTaskID() {
+            return taskID;
+        }
+
+        /**
+         * Tests whether the given task lies beyond this token in {@link ConanTaskPage#COMPLETION_ORDER}, and should
+         * therefore appear on a subsequent page.
+         *
+         * @param task the task to test
+         * @return true if the task sorts after the position marked by this token
+         */
+        public boolean precedes(ConanTask<? extends ConanPipeline> task) {
+            long tokenDate = completionDate == null ? 0 : completionDate.getTime();
+            long taskDate = task.getCompletionDate() == null ? 0 : task.getCompletionDate().getTime();
+            return taskDate < tokenDate || (taskDate == tokenDate && compareIDs(task.getId(), taskID) < 0);
+        }
+    }
+}
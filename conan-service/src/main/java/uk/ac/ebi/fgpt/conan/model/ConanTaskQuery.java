@@ -0,0 +1,466 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A specification of the {@link ConanTask}s to retrieve from a {@link uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO}, combining
+ * any number of filters with an ordering and a page size.  Every filter is optional, and a task is only returned if it
+ * passes all the filters that are set: a task must be in one of the given states, have one of the given priorities,
+ * run one of the given pipelines, and so on.  Name matches are case insensitive matches of a fragment of the name, as
+ * for searches; parameter filters match tasks that have a parameter with the given name set to exactly the given
+ * value.  Date ranges include their start and exclude their end.
+ * <p/>
+ * Results are ordered by any of the {@link ConanTaskOrdering} properties, ascending unless {@link #isDescending()},
+ * and are returned a page at a time using keyset paging.  The first page is fetched with no page token; each page
+ * carries a token, created by {@link #getPage(java.util.List)}, recording the position of its last task in the
+ * ordering, and the next page is fetched by setting that token on an otherwise identical query.  Tokens only make
+ * sense for the ordering they were created with.
+ * <p/>
+ * DAOs evaluate queries in whatever way suits their storage, for example by compiling them to SQL, but must return
+ * exactly the tasks that {@link #matches(ConanTask)} and {@link #follows(ConanTask)}, in the order given by {@link
+ * #getComparator()}.
+ *
+ * @date 18-Oct-2026
+ */
+public class ConanTaskQuery implements Serializable {
+    private static final char SEPARATOR = '.';
+
+    private Set<ConanTask.State> states;
+    private Set<ConanTask.Priority> priorities;
+    private Set<String> pipelineNames;
+    private Set<String> submitterIDs;
+    private String name;
+    private Map<String, String> parameterValues;
+    private Date createdFrom;
+    private Date createdTo;
+    private Date completedFrom;
+    private Date completedTo;
+
+    private String orderBy = ConanTaskOrdering.DEFAULT_PROPERTY;
+    private boolean descending;
+    private int maxRecords = 100;
+    private String pageToken;
+    private transient PagePosition pagePosition;
+
+    public Set<ConanTask.State> getStates() {
+        return states;
+    }
+
+    /**
+     * Restricts results to tasks in any of the given states.  Null or empty matches tasks in any state.
+     *
+     * @param states the states to match
+     */
+    public void setStates(Collection<ConanTask.State> states) {
+        this.states = copyOf(states);
+    }
+
+    public Set<ConanTask.Priority> getPriorities() {
+        return priorities;
+    }
+
+    /**
+     * Restricts results to tasks with any of the given priorities.  Null or empty matches tasks of any priority.
+     *
+     * @param priorities the priorities to match
+     */
+    public void setPriorities(Collection<ConanTask.Priority> priorities) {
+        this.priorities = copyOf(priorities);
+    }
+
+    public Set<String> getPipelineNames() {
+        return pipelineNames;
+    }
+
+    /**
+     * Restricts results to tasks running any of the named pipelines.  Null or empty matches tasks of any pipeline.
+     *
+     * @param pipelineNames the names of the pipelines to match
+     */
+    public void setPipelineNames(Collection<String> pipelineNames) {
+        this.pipelineNames = copyOf(pipelineNames);
+    }
+
+    public Set<String> getSubmitterIDs() {
+        return submitterIDs;
+    }
+
+    /**
+     * Restricts results to tasks submitted by any of the users with the given IDs.  Null or empty matches tasks
+     * submitted by anyone.
+     *
+     * @param submitterIDs the IDs of the submitting users to match
+     */
+    public void setSubmitterIDs(Collection<String> submitterIDs) {
+        this.submitterIDs = copyOf(submitterIDs);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Restricts results to tasks whose name contains the given fragment, ignoring case.  Null or empty matches tasks of
+     * any name.
+     *
+     * @param name the fragment of the task name to match
+     */
+    public void setName(String name) {
+        this.name = name == null || name.length() == 0 ? null : name;
+    }
+
+    public Map<String, String> getParameterValues() {
+        return parameterValues;
+    }
+
+    /**
+     * Restricts results to tasks that have every one of the given parameters, by name, set to exactly the given value.
+     * Null or empty matches tasks with any parameters.
+     *
+     * @param parameterValues the parameter values to match, keyed by parameter name
+     */
+    public void setParameterValues(Map<String, String> parameterValues) {
+        this.parameterValues = parameterValues == null || parameterValues.isEmpty()
+                ? null
+                : Collections.unmodifiableMap(new LinkedHashMap<String, String>(parameterValues));
+    }
+
+    public Date getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(Date createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public Date getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(Date createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    public Date getCompletedFrom() {
+        return completedFrom;
+    }
+
+    /**
+     * Restricts results to tasks completed at or after the given date.  Setting either end of the completion date range
+     * excludes tasks that have not completed.
+     *
+     * @param completedFrom the earliest completion date to match
+     */
+    public void setCompletedFrom(Date completedFrom) {
+        this.completedFrom = completedFrom;
+    }
+
+    public Date getCompletedTo() {
+        return completedTo;
+    }
+
+    /**
+     * Restricts results to tasks completed before the given date.  Setting either end of the completion date range
+     * excludes tasks that have not completed.
+     *
+     * @param completedTo the date to match tasks completed before
+     */
+    public void setCompletedTo(Date completedTo) {
+        this.completedTo = completedTo;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    /**
+     * Sets the task property to order results by.  This must be one of the {@link ConanTaskOrdering} properties.
+     * Defaults to creation date.
+     *
+     * @param orderBy the task property to order by
+     * @throws IllegalArgumentException if tasks cannot be ordered by this property
+     */
+    public void setOrderBy(String orderBy) throws IllegalArgumentException {
+        if (!ConanTaskOrdering.isOrderable(orderBy)) {
+            throw new IllegalArgumentException("Tasks cannot be ordered by '" + orderBy + "', " +
+                                                       "use one of " + ConanTaskOrdering.getOrderableProperties());
+        }
+        this.orderBy = orderBy;
+        this.pagePosition = null;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+
+    /**
+     * Sets the maximum number of tasks to return on each page.  Defaults to 100.
+     *
+     * @param maxRecords the page size
+     */
+    public void setMaxRecords(int maxRecords) {
+        if (maxRecords < 1) {
+            throw new IllegalArgumentException("maxRecords must be greater than zero");
+        }
+        this.maxRecords = maxRecords;
+    }
+
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    /**
+     * Sets the continuation token returned with the previous page of results for this query, or null to fetch the
+     * first page.
+     *
+     * @param pageToken the continuation token from the previous page
+     */
+    public void setPageToken(String pageToken) {
+        this.pageToken = pageToken;
+        this.pagePosition = null;
+    }
+
+    /**
+     * Tests whether the given task passes every filter of this query, irrespective of the page requested.
+     *
+     * @param task the task to test
+     * @return true if this query selects the task
+     */
+    public boolean matches(ConanTask<? extends ConanPipeline> task) {
+        if (states != null && !states.contains(task.getCurrentState())) {
+            return false;
+        }
+        if (priorities != null && !priorities.contains(task.getPriority())) {
+            return false;
+        }
+        if (pipelineNames != null &&
+                (task.getPipeline() == null || !pipelineNames.contains(task.getPipeline().getName()))) {
+            return false;
+        }
+        if (submitterIDs != null &&
+                (task.getSubmitter() == null || !submitterIDs.contains(task.getSubmitter().getId()))) {
+            return false;
+        }
+        if (name != null &&
+                (task.getName() == null || !task.getName().toLowerCase().contains(name.toLowerCase()))) {
+            return false;
+        }
+        if (!isWithin(task.getCreationDate(), createdFrom, createdTo)) {
+            return false;
+        }
+        if ((completedFrom != null || completedTo != null) &&
+                (!isComplete(task.getCurrentState()) ||
+                        !isWithin(task.getCompletionDate(), completedFrom, completedTo))) {
+            return false;
+        }
+        if (parameterValues != null) {
+            Map<String, String> taskValues = new HashMap<String, String>();
+            for (Map.Entry<ConanParameter, String> entry : task.getParameterValues().entrySet()) {
+                taskValues.put(entry.getKey().getName(), entry.getValue());
+            }
+            for (Map.Entry<String, String> entry : parameterValues.entrySet()) {
+                if (!entry.getValue().equals(taskValues.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests whether the given task lies beyond the position marked by the page token of this query, and so may appear
+     * on the requested page.  With no page token, every task follows.
+     *
+     * @param task the task to test
+     * @return true if the task sorts after the end of the previous page
+     * @throws IllegalArgumentException if the page token is malformed
+     */
+    public boolean follows(ConanTask<? extends ConanPipeline> task) throws IllegalArgumentException {
+        PagePosition position = getPagePosition();
+        if (position == null) {
+            return true;
+        }
+        int result = ConanTaskOrdering.compare(orderBy,
+                                               ConanTaskOrdering.getSortValue(orderBy, task),
+                                               task.getId(),
+                                               position.getSortValue(),
+                                               position.getTaskID());
+        return descending ? result < 0 : result > 0;
+    }
+
+    /**
+     * Gets the comparator that puts tasks into the order this query returns them in
+     *
+     * @return the comparator for this query's ordering
+     */
+    public Comparator<ConanTask<? extends ConanPipeline>> getComparator() {
+        return ConanTaskOrdering.getComparator(orderBy, descending);
+    }
+
+    /**
+     * Decodes the page token of this query into the position, in this query's ordering, of the last task on the
+     * previous page
+     *
+     * @return the position to continue from, or null if this query requests the first page
+     * @throws IllegalArgumentException if the page token is malformed
+     */
+    public PagePosition getPagePosition() throws IllegalArgumentException {
+        if (pageToken == null) {
+            return null;
+        }
+        if (pagePosition == null) {
+            pagePosition = decodePageToken();
+        }
+        return pagePosition;
+    }
+
+    private PagePosition decodePageToken() throws IllegalArgumentException {
+        // <ID length>.<ID>[.<sort value>], with the sort value absent if it was null
+        int index = pageToken.indexOf(SEPARATOR);
+        try {
+            int idEnd = index + 1 + Integer.parseInt(pageToken.substring(0, index), Character.MAX_RADIX);
+            String taskID = pageToken.substring(index + 1, idEnd);
+            if (taskID.length() == 0) {
+                throw new IllegalArgumentException("Malformed page token '" + pageToken + "'");
+            }
+            if (idEnd == pageToken.length()) {
+                return new PagePosition(null, taskID);
+            }
+            if (pageToken.charAt(idEnd) != SEPARATOR) {
+                throw new IllegalArgumentException("Malformed page token '" + pageToken + "'");
+            }
+            String encoded = pageToken.substring(idEnd + 1);
+            return new PagePosition(ConanTaskOrdering.decodeSortValue(orderBy, encoded), taskID);
+        }
+        catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed page token '" + pageToken + "'", e);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed page token '" + pageToken + "'", e);
+        }
+    }
+
+    /**
+     * Creates a page of results for this query from a list of tasks, in this query's order, that may contain one more
+     * task than the page size.  As for {@link ConanTaskPage#fromResults(java.util.List, int)}, DAOs can fetch
+     * <code>maxRecords + 1</code> tasks to cheaply detect whether there is a further page: if so the extra task is
+     * trimmed off and a token marking the position of the last task on this page is generated.
+     *
+     * @param results the tasks retrieved for this query
+     * @return the page of tasks
+     */
+    public ConanTaskPage<ConanTask<? extends ConanPipeline>> getPage(List<ConanTask<? extends ConanPipeline>> results) {
+        if (results.size() > maxRecords) {
+            List<ConanTask<? extends ConanPipeline>> pageTasks = results.subList(0, maxRecords);
+            ConanTask<? extends ConanPipeline> last = pageTasks.get(pageTasks.size() - 1);
+            return new ConanTaskPage<ConanTask<? extends ConanPipeline>>(
+                    pageTasks, encodePageToken(ConanTaskOrdering.getSortValue(orderBy, last), last.getId()));
+        }
+        else {
+            return new ConanTaskPage<ConanTask<? extends ConanPipeline>>(results, null);
+        }
+    }
+
+    /**
+     * Creates a page of summaries for this query, as for {@link #getPage(java.util.List)}.
+     *
+     * @param results the task summaries retrieved for this query
+     * @return the page of task summaries
+     */
+    public ConanTaskPage<ConanTaskSummary> getSummaryPage(List<ConanTaskSummary> results) {
+        if (results.size() > maxRecords) {
+            List<ConanTaskSummary> pageTasks = results.subList(0, maxRecords);
+            ConanTaskSummary last = pageTasks.get(pageTasks.size() - 1);
+            return new ConanTaskPage<ConanTaskSummary>(
+                    pageTasks, encodePageToken(ConanTaskOrdering.getSortValue(orderBy, last), last.getId()));
+        }
+        else {
+            return new ConanTaskPage<ConanTaskSummary>(results, null);
+        }
+    }
+
+    /**
+     * Tests whether this query can only ever match tasks that have not completed, because it is restricted to states
+     * that tasks are in before they complete.
+     *
+     * @return true if every task this query matches is incomplete
+     */
+    public boolean isIncompleteOnly() {
+        if (states == null || completedFrom != null || completedTo != null) {
+            return false;
+        }
+        for (ConanTask.State state : states) {
+            if (isComplete(state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ConanTaskQuery{states=" + states + ", priorities=" + priorities + ", pipelineNames=" + pipelineNames +
+                ", submitterIDs=" + submitterIDs + ", name='" + name + "', parameterValues=" + parameterValues +
+                ", created=[" + createdFrom + ", " + createdTo + "), completed=[" + completedFrom + ", " +
+                completedTo + "), orderBy='" + orderBy + "'" + (descending ? " desc" : "") +
+                ", maxRecords=" + maxRecords + ", pageToken='" + pageToken + "'}";
+    }
+
+    private String encodePageToken(Object sortValue, String taskID) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Integer.toString(taskID.length(), Character.MAX_RADIX)).append(SEPARATOR).append(taskID);
+        if (sortValue != null) {
+            sb.append(SEPARATOR).append(ConanTaskOrdering.encodeSortValue(orderBy, sortValue));
+        }
+        return sb.toString();
+    }
+
+    private static <T> Set<T> copyOf(Collection<T> values) {
+        return values == null || values.isEmpty()
+                ? null
+                : Collections.unmodifiableSet(new LinkedHashSet<T>(values));
+    }
+
+    private static boolean isComplete(ConanTask.State state) {
+        return state == ConanTask.State.COMPLETED || state == ConanTask.State.ABORTED;
+    }
+
+    private static boolean isWithin(Date date, Date fromDate, Date toDate) {
+        if (fromDate == null && toDate == null) {
+            return true;
+        }
+        return date != null &&
+                (fromDate == null || !date.before(fromDate)) &&
+                (toDate == null || date.before(toDate));
+    }
+
+    /**
+     * The position of the last task on a page: the value that task was sorted on, and its ID
+     */
+    public static class PagePosition {
+        private final Object sortValue;
+        private final String taskID;
+
+        public PagePosition(Object sortValue, String taskID) {
+            this.sortValue = sortValue;
+            this.taskID = taskID;
+        }
+
+        public Object getSortValue() {
+            return sortValue;
+        }
+
+        public String getTaskID() {
+            return taskID;
+        }
+    }
+}
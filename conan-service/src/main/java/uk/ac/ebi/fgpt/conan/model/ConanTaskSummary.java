@@ -0,0 +1,296 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A lightweight, read-only view of a {@link ConanTask}, containing only the task metadata needed to list tasks.  Unlike
+ * a full task, a summary carries no parameters, process runs or pipeline definition and cannot be executed; pipeline,
+ * process and submitter details are reduced to the few fields needed for display.
+ * <p/>
+ * Summaries serialize to the same JSON shape as the corresponding properties of a full task (for example, the pipeline
+ * is rendered as an object with a "name" property), so clients can use either interchangeably for display.
+ *
+ * @date 18-Oct-2026
+ */
+public class ConanTaskSummary implements Serializable {
+    private String id;
+    private String name;
+    private ConanTask.Priority priority;
+    private ConanTask.State currentState;
+    private String statusMessage;
+    private Date creationDate;
+    private Date startDate;
+    private Date completionDate;
+    private Reference pipeline;
+    private Reference firstProcess;
+    private Reference currentProcess;
+    private Reference nextProcess;
+    private Reference lastProcess;
+    private Submitter submitter;
+
+    /**
+     * Creates a summary of an existing task
+     *
+     * @param task the task to summarise
+     * @return a summary describing the current state of the task
+     */
+    public static ConanTaskSummary fromTask(ConanTask<? extends ConanPipeline> task) {
+        ConanTaskSummary summary = new ConanTaskSummary();
+        summary.setId(task.getId());
+        summary.setName(task.getName());
+        summary.setPriority(task.getPriority());
+        summary.setCurrentState(task.getCurrentState());
+        summary.setStatusMessage(task.getStatusMessage());
+        summary.setCreationDate(task.getCreationDate());
+        summary.setStartDate(task.getStartDate());
+        summary.setCompletionDate(task.getCompletionDate());
+        summary.setPipeline(Reference.to(task.getPipeline() == null ? null : task.getPipeline().getName()));
+        summary.setFirstProcess(Reference.to(task.getFirstProcess()));
+        summary.setCurrentProcess(Reference.to(task.getCurrentProcess()));
+        summary.setNextProcess(Reference.to(task.getNextProcess()));
+        summary.setLastProcess(Reference.to(task.getLastProcess()));
+        ConanUser user = task.getSubmitter();
+        if (user != null) {
+            summary.setSubmitter(new Submitter(user.getId(),
+                                               user.getUserName(),
+                                               user.getFirstName(),
+                                               user.getSurname(),
+                                               user.getEmail()));
+        }
+        return summary;
+    }
+
+    /**
+     * Creates summaries of each of the given tasks, in order
+     *
+     * @param tasks the tasks to summarise
+     * @return a list of summaries describing the current state of each task
+     */
+    public static List<ConanTaskSummary> fromTasks(Collection<? extends ConanTask<? extends ConanPipeline>> tasks) {
+        List<ConanTaskSummary> summaries = new ArrayList<ConanTaskSummary>(tasks.size());
+        for (ConanTask<? extends ConanPipeline> task : tasks) {
+            summaries.add(fromTask(task));
+        }
+        return summaries;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public ConanTask.Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(ConanTask.Priority priority) {
+        this.priority = priority;
+    }
+
+    public ConanTask.State getCurrentState() {
+        return currentState;
+    }
+
+    public void setCurrentState(ConanTask.State currentState) {
+        this.currentState = currentState;
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    public void setStatusMessage(String statusMessage) {
+        this.statusMessage = statusMessage;
+    }
+
+    public Date getCreationDate() {
+        return creationDate;
+    }
+
+    public void setCreationDate(Date creationDate) {
+        this.creationDate = creationDate;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = startDate;
+    }
+
+    public Date getCompletionDate() {
+        return completionDate;
+    }
+
+    public void setCompletionDate(Date completionDate) {
+        this.completionDate = completionDate;
+    }
+
+    public Reference getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(Reference pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public Reference getFirstProcess() {
+        return firstProcess;
+    }
+
+    public void setFirstProcess(Reference firstProcess) {
+        this.firstProcess = firstProcess;
+    }
+
+    public Reference getCurrentProcess() {
+        return currentProcess;
+    }
+
+    public void setCurrentProcess(Reference currentProcess) {
+        this.currentProcess = currentProcess;
+    }
+
+    public Reference getNextProcess() {
+        return nextProcess;
+    }
+
+    public void setNextProcess(Reference nextProcess) {
+        this.nextProcess = nextProcess;
+    }
+
+    public Reference getLastProcess() {
+        return lastProcess;
+    }
+
+    public void setLastProcess(Reference lastProcess) {
+        this.lastProcess = lastProcess;
+    }
+
+    public Submitter getSubmitter() {
+        return submitter;
+    }
+
+    public void setSubmitter(Submitter submitter) {
+        this.submitter = submitter;
+    }
+
+    /**
+     * Sets the first, current, next and last processes of this summary from the stored execution indices of the task,
+     * following the same rules as a full task.  The current state must be set before calling this method.
+     *
+     * @param processes             the processes of the task's pipeline, in execution order
+     * @param firstTaskIndex        the index of the first process this task executes
+     * @param currentExecutionIndex the index of the process currently executing, or next to execute
+     */
+    public void setExecutionPosition(List<? extends ConanProcess> processes,
+                                     int firstTaskIndex,
+                                     int currentExecutionIndex) {
+        int size = processes.size();
+        boolean running = getCurrentState() == ConanTask.State.RUNNING;
+
+        setFirstProcess(firstTaskIndex < size ? Reference.to(processes.get(firstTaskIndex)) : null);
+        setLastProcess(currentExecutionIndex > firstTaskIndex && currentExecutionIndex <= size
+                               ? Reference.to(processes.get(currentExecutionIndex - 1))
+                               : null);
+        setCurrentProcess(running && currentExecutionIndex < size
+                                  ? Reference.to(processes.get(currentExecutionIndex))
+                                  : null);
+        int nextIndex = running ? currentExecutionIndex + 1 : currentExecutionIndex;
+        setNextProcess(nextIndex < size ? Reference.to(processes.get(nextIndex)) : null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConanTaskSummary that = (ConanTaskSummary) o;
+        return id == null ? that.id == null : id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+
+    /**
+     * A reference to a named pipeline or process
+     */
+    public static class Reference implements Serializable {
+        private final String name;
+
+        public Reference(String name) {
+            this.name = name;
+        }
+
+        private static Reference to(ConanProcess process) {
+            return process == null ? null : new Reference(process.getName());
+        }
+
+        private static Reference to(String name) {
+            return name == null ? null : new Reference(name);
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * The display details of the user that submitted a task
+     */
+    public static class Submitter implements Serializable {
+        private final String id;
+        private final String userName;
+        private final String firstName;
+        private final String surname;
+        private final String email;
+
+        public Submitter(String id, String userName, String firstName, String surname, String email) {
+            this.id = id;
+            this.userName = userName;
+            this.firstName = firstName;
+            this.surname = surname;
+            this.email = email;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getSurname() {
+            return surname;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import java.util.Map;
+
+/**
+ * A {@link ConanProcess} that can fingerprint the inputs it would read for a set of parameter values.  Parameter values
+ * alone do not always identify the work a process does: the files they name may have changed since the process last
+ * ran.  When the results of a process are cached, so that it is not executed again for identical inputs, the
+ * fingerprint is cached alongside the parameter values and a change to either means the process runs again.
+ * <p/>
+ * Fingerprints might be a checksum of the input files, or their sizes and modification dates where checksums would
+ * take too long to compute.  They should be short, and must be the same whenever the inputs are.
+ *
+ * @date 18-Oct-2026
+ * @see ConanProcess
+ */
+public interface FingerprintedConanProcess extends ConanProcess {
+    /**
+     * Returns a fingerprint of the inputs this process would read if it were executed with the supplied parameters.
+     *
+     * @param parameters maps parameters to the supplied values required in order to execute a process
+     * @return a fingerprint of the inputs of this process, or null if they cannot be fingerprinted, in which case the
+     *         results of this process will not be cached
+     */
+    String getInputFingerprint(Map<ConanParameter, String> parameters);
+}
@@ -60,4 +60,25 @@ public interface ConanSubmissionService {
      * @return the set of currently executing Conan tasks.
      */
     Set<ConanTask<? extends ConanPipeline>> getExecutingTasks();
+
+    /**
+     * Returns the task with the given ID, if it is one of the tasks that is currently executing, or null otherwise.  The
+     * returned task is the live object being executed, rather than a (possibly stale) copy retrieved from a {@link
+     * uk.ac.ebi.fgpt.conan.dao.ConanTaskDAO}.  Implementations should make this a constant time lookup, as it is used
+     * to check every task returned from the DAO.
+     *
+     * @param taskID the ID of the task
+     * @return the executing task with this ID, or null if this task is not executing
+     */
+    ConanTask<? extends ConanPipeline> getExecutingTask(String taskID);
+
+    /**
+     * Returns the position of the task with the given ID in the queue of tasks waiting to be executed.  The task that
+     * will be executed next is at position 1.  Tasks that are not waiting in the queue - because they are already
+     * executing, have completed, or were never submitted to this service - have no queue position, and -1 is returned.
+     *
+     * @param taskID the ID of the task
+     * @return the queue position of this task, or -1 if it is not queued
+     */
+    int getQueuePosition(String taskID);
 }
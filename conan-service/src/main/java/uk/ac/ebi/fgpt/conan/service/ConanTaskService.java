@@ -2,6 +2,9 @@ package uk.ac.ebi.fgpt.conan.service;
 
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
 import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskPage;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskQuery;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskSummary;
 import uk.ac.ebi.fgpt.conan.model.ConanUser;
 
 import java.util.Date;
@@ -70,7 +73,7 @@ public interface ConanTaskService {
      *
      * @return the list of all submitted tasks
      */
-    List<ConanTask<? extends ConanPipeline>> getTasksSummary();
+    List<ConanTaskSummary> getTasksSummary();
 
     /**
      * Gets a list of all tasks. This includes all pending, running and completed tasks - basically a history of
@@ -90,7 +93,8 @@ public interface ConanTaskService {
      *
      * @param maxRecords   the maximum number of records to return
      * @param startingFrom the position in the list of tasks to start from
-     * @param orderBy      the ConanTask property to order the results by
+     * @param orderBy      the ConanTask property to order the results by, one of the {@link
+     *                     uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering} properties
      * @return a list of all tasks pending execution
      */
     List<ConanTask<? extends ConanPipeline>> getTasks(int maxRecords, int startingFrom, String orderBy);
@@ -111,13 +115,13 @@ public interface ConanTaskService {
      *
      * @return a list of all tasks pending execution
      */
-    List<ConanTask<? extends ConanPipeline>> getPendingTasksSummary();
+    List<ConanTaskSummary> getPendingTasksSummary();
 
     /**
      * Gets a list of the specified number of tasks that have a "pending" status.  Tasks in this list may have been
      * executed but failed: tasks that fail should highlight their failure to the submitter, and flag the task as
-     * pending. The records are ordered by submission date by default: this is equivalent to calling {@link
-     * #getPendingTasks(int, int, String)} with a value of "submissionDate".
+     * pending. The records are ordered by creation date by default: this is equivalent to calling {@link
+     * #getPendingTasks(int, int, String)} with a value of "creationDate".
      *
      * @param maxRecords   the maximum number of records to return
      * @param startingFrom the position in the list of tasks to start from
@@ -132,7 +136,8 @@ public interface ConanTaskService {
      *
      * @param maxRecords   the maximum number of records to return
      * @param startingFrom the position in the list of tasks to start from
-     * @param orderBy      the ConanTask property to order the results by
+     * @param orderBy      the ConanTask property to order the results by, one of the {@link
+     *                     uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering} properties
      * @return a list of all tasks pending execution
      */
     List<ConanTask<? extends ConanPipeline>> getPendingTasks(int maxRecords, int startingFrom, String orderBy);
@@ -150,7 +155,7 @@ public interface ConanTaskService {
      *
      * @return the currently executing tasks
      */
-    List<ConanTask<? extends ConanPipeline>> getRunningTasksSummary();
+    List<ConanTaskSummary> getRunningTasksSummary();
 
     /**
      * Gets a list of the specified number of tasks that have a "running" status. The records are ordered by start date
@@ -168,7 +173,8 @@ public interface ConanTaskService {
      *
      * @param maxRecords   the maximum number of records to return
      * @param startingFrom the position in the list of tasks to start from
-     * @param orderBy      the ConanTask property to order the results by
+     * @param orderBy      the ConanTask property to order the results by, one of the {@link
+     *                     uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering} properties
      * @return a list of all tasks pending execution
      */
     List<ConanTask<? extends ConanPipeline>> getRunningTasks(int maxRecords, int startingFrom, String orderBy);
@@ -189,7 +195,7 @@ public interface ConanTaskService {
      *
      * @return the tasks that have completed
      */
-    List<ConanTask<? extends ConanPipeline>> getCompletedTasksSummary();
+    List<ConanTaskSummary> getCompletedTasksSummary();
 
     /**
      * Gets a list of the specified number of tasks have a "completed" status.  This includes tasks that completed
@@ -202,6 +208,29 @@ public interface ConanTaskService {
      */
     List<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, int startingFrom);
 
+    /**
+     * Gets a page of tasks that have a "completed" status.  Pages are ordered by completion date, most recent first.
+     * Supply a null page token for the first page, and the token returned by the previous page to continue from where
+     * that page left off.
+     *
+     * @param maxRecords the maximum number of records to return
+     * @param pageToken  the continuation token from the previous page, or null for the first page
+     * @return a page of completed tasks
+     * @throws IllegalArgumentException if the page size is less than one, or the page token is malformed
+     */
+    ConanTaskPage<ConanTask<? extends ConanPipeline>> getCompletedTasks(int maxRecords, String pageToken) throws IllegalArgumentException;
+
+    /**
+     * Gets a page of tasks that have a "completed" status, summarised so as to exclude the query for process
+     * information.  See {@link #getCompletedTasks(int, String)} for details of the paging contract.
+     *
+     * @param maxRecords the maximum number of records to return
+     * @param pageToken  the continuation token from the previous page, or null for the first page
+     * @return a page of completed tasks
+     * @throws IllegalArgumentException if the page size is less than one, or the page token is malformed
+     */
+    ConanTaskPage<ConanTaskSummary> getCompletedTasksSummary(int maxRecords, String pageToken) throws IllegalArgumentException;
+
     /**
      * Search through the completed tasks for any tasks that match the given name, submitting user, and fall between the
      * range of dates.  For unspecified fields, you can supply nulls. Underlying implementations are free to specify
@@ -217,4 +246,35 @@ public interface ConanTaskService {
                                                                   ConanUser conanUser,
                                                                   Date fromDate,
                                                                   Date toDate);
+
+    /**
+     * Gets a page of the tasks, in any state, selected by the given query.  Every filter set on the query is applied
+     * by the underlying DAO, so this should be preferred to fetching a list of tasks and filtering it.  To fetch the
+     * next page, set the token returned with this page on the same query.
+     *
+     * @param query the query specifying the tasks to retrieve
+     * @return the requested page of tasks
+     * @throws IllegalArgumentException if the page token of the query is malformed
+     */
+    ConanTaskPage<ConanTask<? extends ConanPipeline>> queryTasks(ConanTaskQuery query) throws IllegalArgumentException;
+
+    /**
+     * Gets a page of summaries of the tasks selected by the given query, excluding process information.  See {@link
+     * #queryTasks(uk.ac.ebi.fgpt.conan.model.ConanTaskQuery)} for details.
+     *
+     * @param query the query specifying the tasks to retrieve
+     * @return the requested page of task summaries
+     * @throws IllegalArgumentException if the page token of the query is malformed
+     */
+    ConanTaskPage<ConanTaskSummary> queryTasksSummary(ConanTaskQuery query) throws IllegalArgumentException;
+
+    /**
+     * Gets the distinct names of tasks that start with the given prefix, ignoring case, in alphabetical order.  This is
+     * intended to suggest task names whilst a user types a search.
+     *
+     * @param prefix     the start of the task name
+     * @param maxResults the maximum number of names to return
+     * @return the task names starting with this prefix
+     */
+    List<String> getTaskNamesStartingWith(String prefix, int maxResults);
 }
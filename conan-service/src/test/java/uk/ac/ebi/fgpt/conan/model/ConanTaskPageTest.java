@@ -0,0 +1,68 @@
+package uk.ac.ebi.fgpt.conan.model;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the continuation tokens of {@link ConanTaskPage}s.
+ */
+public class ConanTaskPageTest {
+    @Test
+    public void testTokenRoundTrip() {
+        Date completionDate = new Date(1286971200000L);
+        String token = new ConanTaskPage.PageToken(completionDate, "1234").encode();
+
+        ConanTaskPage.PageToken decoded = ConanTaskPage.PageToken.decode(token);
+        assertEquals(completionDate, decoded.getCompletionDate());
+        assertEquals("1234", decoded.getTaskID());
+    }
+
+    @Test
+    public void testNullCompletionDateEncodesAsEpoch() {
+        String token = new ConanTaskPage.PageToken(null, "7").encode();
+
+        ConanTaskPage.PageToken decoded = ConanTaskPage.PageToken.decode(token);
+        assertEquals(new Date(0), decoded.getCompletionDate());
+        assertEquals("7", decoded.getTaskID());
+    }
+
+    @Test
+    public void testMalformedTokensAreRejected() {
+        String[] malformed = {"", ".", "abc", ".12", "12.", "!!.12"};
+        for (String token : malformed) {
+            try {
+                ConanTaskPage.PageToken.decode(token);
+                fail("Token '" + token + "' should have been rejected");
+            }
+            catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullTokenIsRejected() {
+        ConanTaskPage.PageToken.decode(null);
+    }
+
+    @Test
+    public void testCompareIDsNumerically() {
+        assertTrue(ConanTaskPage.compareIDs("9", "10") < 0);
+        assertTrue(ConanTaskPage.compareIDs("10", "9") > 0);
+        assertEquals(0, ConanTaskPage.compareIDs("10", "10"));
+        assertTrue(ConanTaskPage.compareIDs(null, "1") < 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPageSizeIsRejected() {
+        ConanTaskPage.checkPageSize(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptySummaryPageIsRejected() {
+        ConanTaskPage.fromSummaryResults(java.util.Collections.<ConanTaskSummary>emptyList(), 0);
+    }
+}
@@ -13,6 +13,7 @@ import uk.ac.ebi.fgpt.conan.service.ConanTaskService;
 import uk.ac.ebi.fgpt.conan.service.ConanUserService;
 import uk.ac.ebi.fgpt.conan.service.exception.SubmissionException;
 import uk.ac.ebi.fgpt.conan.web.view.BatchRequestBean;
+import uk.ac.ebi.fgpt.conan.web.view.QueuePositionResponseBean;
 import uk.ac.ebi.fgpt.conan.web.view.SubmissionRequestBean;
 import uk.ac.ebi.fgpt.conan.web.view.SubmissionResponseBean;
 
@@ -245,6 +246,20 @@ public class SubmissionController {
         }
     }
 
+    /**
+     * Reports the position of a submitted task in the queue of tasks waiting to be executed.  Queued tasks are executed
+     * in order of priority and then submission, with tasks that have waited a long time promoted ahead of newer, higher
+     * priority tasks.  Tasks that are still in their cooling off period, that are executing or finished, or that are not
+     * known to the submission service, are not queued.
+     *
+     * @param taskID the ID of the task
+     * @return the queue position of this task
+     */
+    @RequestMapping(value = "/{taskID}/queue", method = RequestMethod.GET)
+    public @ResponseBody QueuePositionResponseBean getQueuePosition(@PathVariable String taskID) {
+        return new QueuePositionResponseBean(taskID, getSubmissionService().getQueuePosition(taskID));
+    }
+
     /**
      * Resumes a paused task.  The halted task will continue execution from the next process.  If the pause occurred
      * because of an error executing a prior process, this error will be ignored.
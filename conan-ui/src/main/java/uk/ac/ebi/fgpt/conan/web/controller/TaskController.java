@@ -5,12 +5,15 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import uk.ac.ebi.fgpt.conan.model.ConanPipeline;
 import uk.ac.ebi.fgpt.conan.model.ConanTask;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskOrdering;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskPage;
+import uk.ac.ebi.fgpt.conan.model.ConanTaskQuery;
 import uk.ac.ebi.fgpt.conan.model.ConanUser;
 import uk.ac.ebi.fgpt.conan.service.ConanTaskService;
 import uk.ac.ebi.fgpt.conan.service.ConanUserService;
+import uk.ac.ebi.fgpt.conan.web.controller.exception.InvalidRequestException;
 
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 /**
  * Controls user interaction with {@link uk.ac.ebi.fgpt.conan.model.ConanTask}s.  Tasks can be paused (manually halted
@@ -59,13 +62,13 @@ public class TaskController {
      * Returns a list of all submitted tasks, in submission order. This includes all pending, running and completed
      * tasks - basically a history of everything that has ever been submitted.  The summaryView parameter controls
      * whether or not to do a deep fetch of these tasks, including all process run information.  The default is false
-     * (fetch all info), true just obtains task metadata
+     * (fetch all info), true just obtains task metadata as {@link uk.ac.ebi.fgpt.conan.model.ConanTaskSummary}s
      *
      * @param summaryView whether or not to display a summary of this task
      * @return the list of all submitted tasks
      */
     @RequestMapping(method = RequestMethod.GET)
-    public @ResponseBody List<ConanTask<? extends ConanPipeline>> getTasks(
+    public @ResponseBody List<?> getTasks(
             @RequestParam(defaultValue = "false") boolean summaryView) {
         return (summaryView ? getTaskService().getTasksSummary() : getTaskService().getTasks());
     }
@@ -80,7 +83,7 @@ public class TaskController {
      * @return a list of all tasks pending execution
      */
     @RequestMapping(method = RequestMethod.GET, params = "pending")
-    public @ResponseBody List<ConanTask<? extends ConanPipeline>> getPendingTasks(
+    public @ResponseBody List<?> getPendingTasks(
             @RequestParam(defaultValue = "false") boolean summaryView) {
         return (summaryView ? getTaskService().getPendingTasksSummary() : getTaskService().getPendingTasks());
     }
@@ -94,7 +97,7 @@ public class TaskController {
      * @return the currently executing tasks
      */
     @RequestMapping(method = RequestMethod.GET, params = "running")
-    public @ResponseBody List<ConanTask<? extends ConanPipeline>> getRunningTasks(
+    public @ResponseBody List<?> getRunningTasks(
             @RequestParam(defaultValue = "false") boolean summaryView) {
         return (summaryView ? getTaskService().getRunningTasksSummary() : getTaskService().getRunningTasks());
     }
@@ -109,11 +112,39 @@ public class TaskController {
      * @return the tasks that have completed
      */
     @RequestMapping(method = RequestMethod.GET, params = "complete")
-    public @ResponseBody List<ConanTask<? extends ConanPipeline>> getCompletedTasks(
+    public @ResponseBody List<?> getCompletedTasks(
             @RequestParam(defaultValue = "false") boolean summaryView) {
         return (summaryView ? getTaskService().getCompletedTasksSummary() : getTaskService().getCompletedTasks());
     }
 
+    /**
+     * Returns a single page of completed tasks, most recently completed first.  The first page is requested without a
+     * page token; every page returned includes a "nextPageToken" that can be supplied to fetch the following page, which
+     * will be null once the end of the history is reached.  The summaryView parameter controls whether or not to do a
+     * deep fetch of the tasks on this page, including all process run information.
+     *
+     * @param max         the maximum number of tasks to return on this page
+     * @param pageToken   the continuation token returned with the previous page, if any
+     * @param summaryView whether or not to display a summary of these tasks
+     * @return a page of completed tasks
+     */
+    @RequestMapping(value = "/history", method = RequestMethod.GET)
+    public @ResponseBody ConanTaskPage<?> getCompletedTasksPage(
+            @RequestParam(defaultValue = "100") int max,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "false") boolean summaryView) {
+        try {
+            ConanTaskPage.checkPageSize(max);
+            return (summaryView
+                    ? getTaskService().getCompletedTasksSummary(max, pageToken)
+                    : getTaskService().getCompletedTasks(max, pageToken));
+        }
+        catch (IllegalArgumentException e) {
+            // includes malformed page tokens
+            throw new InvalidRequestException("Invalid history request: " + e.getMessage(), e);
+        }
+    }
+
     @RequestMapping(value = "/search", method = RequestMethod.GET)
     public @ResponseBody List<ConanTask<? extends ConanPipeline>> searchCompletedTasks(
             @RequestParam(defaultValue = "") String name,
@@ -126,4 +157,118 @@ public class TaskController {
         Date toDate = to.equals("") ? null : new Date(Long.parseLong(to));
         return getTaskService().searchCompletedTasks(taskName, user, fromDate, toDate);
     }
+
+    /**
+     * Returns a single page of the tasks, in any state, that pass every one of the given filters.  Each filter is
+     * optional; filters that take a list of values (state, priority, pipeline and userID) may be repeated, and match
+     * tasks with any one of the values given.  Parameter filters take the form "name:value" and match tasks that have
+     * the named parameter set to exactly this value; every parameter filter given must match.  Dates are given in
+     * milliseconds, and each date range includes its start and excludes its end.
+     * <p/>
+     * Tasks are ordered by the given task property, ascending unless descending is set.  Every page returned includes a
+     * "nextPageToken" that can be supplied, along with the same filters and ordering, to fetch the following page; this
+     * will be null once there are no more tasks.  The summaryView parameter controls whether or not to do a deep fetch
+     * of the tasks on this page, including all process run information.
+     *
+     * @param state         the states to match
+     * @param priority      the priorities to match
+     * @param pipeline      the names of the pipelines to match
+     * @param userID        the IDs of the submitting users to match
+     * @param name          a fragment of the task name to match, ignoring case
+     * @param parameter     the parameter values to match, as "name:value"
+     * @param createdFrom   the earliest creation date to match
+     * @param createdTo     the date to match tasks created before
+     * @param completedFrom the earliest completion date to match
+     * @param completedTo   the date to match tasks completed before
+     * @param orderBy       the task property to order by
+     * @param descending    whether to reverse the ordering
+     * @param max           the maximum number of tasks to return on this page
+     * @param pageToken     the continuation token returned with the previous page, if any
+     * @param summaryView   whether or not to display a summary of these tasks
+     * @return a page of matching tasks
+     */
+    @RequestMapping(value = "/query", method = RequestMethod.GET)
+    public @ResponseBody ConanTaskPage<?> queryTasks(
+            @RequestParam(required = false) String[] state,
+            @RequestParam(required = false) String[] priority,
+            @RequestParam(required = false) String[] pipeline,
+            @RequestParam(required = false) String[] userID,
+            @RequestParam(defaultValue = "") String name,
+            @RequestParam(required = false) String[] parameter,
+            @RequestParam(defaultValue = "") String createdFrom,
+            @RequestParam(defaultValue = "") String createdTo,
+            @RequestParam(defaultValue = "") String completedFrom,
+            @RequestParam(defaultValue = "") String completedTo,
+            @RequestParam(defaultValue = ConanTaskOrdering.DEFAULT_PROPERTY) String orderBy,
+            @RequestParam(defaultValue = "false") boolean descending,
+            @RequestParam(defaultValue = "100") int max,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "false") boolean summaryView) {
+        ConanTaskQuery query = new ConanTaskQuery();
+        try {
+            if (state != null) {
+                List<ConanTask.State> states = new ArrayList<ConanTask.State>();
+                for (String s : state) {
+                    states.add(ConanTask.State.valueOf(s.toUpperCase()));
+                }
+                query.setStates(states);
+            }
+            if (priority != null) {
+                List<ConanTask.Priority> priorities = new ArrayList<ConanTask.Priority>();
+                for (String p : priority) {
+                    priorities.add(ConanTask.Priority.valueOf(p.toUpperCase()));
+                }
+                query.setPriorities(priorities);
+            }
+            if (pipeline != null) {
+                query.setPipelineNames(Arrays.asList(pipeline));
+            }
+            if (userID != null) {
+                query.setSubmitterIDs(Arrays.asList(userID));
+            }
+            query.setName(name);
+            if (parameter != null) {
+                Map<String, String> parameterValues = new HashMap<String, String>();
+                for (String p : parameter) {
+                    int index = p.indexOf(':');
+                    if (index < 1) {
+                        throw new IllegalArgumentException(
+                                "Parameter filter '" + p + "' should take the form 'name:value'");
+                    }
+                    parameterValues.put(p.substring(0, index), p.substring(index + 1));
+                }
+                query.setParameterValues(parameterValues);
+            }
+            query.setCreatedFrom(createdFrom.equals("") ? null : new Date(Long.parseLong(createdFrom)));
+            query.setCreatedTo(createdTo.equals("") ? null : new Date(Long.parseLong(createdTo)));
+            query.setCompletedFrom(completedFrom.equals("") ? null : new Date(Long.parseLong(completedFrom)));
+            query.setCompletedTo(completedTo.equals("") ? null : new Date(Long.parseLong(completedTo)));
+            query.setOrderBy(orderBy);
+            query.setDescending(descending);
+            query.setMaxRecords(max);
+            query.setPageToken(pageToken);
+
+            return (summaryView
+                    ? getTaskService().queryTasksSummary(query)
+                    : getTaskService().queryTasks(query));
+        }
+        catch (IllegalArgumentException e) {
+            // includes malformed numbers
+            throw new InvalidRequestException("Invalid task query: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Suggests the names of tasks starting with the given prefix, for use as typeahead in the task name search box.
+     *
+     * @param prefix the start of the task name
+     * @param max    the maximum number of names to suggest
+     * @return the matching task names, in alphabetical order
+     */
+    @RequestMapping(value = "/names", method = RequestMethod.GET)
+    public @ResponseBody List<String> getTaskNamesStartingWith(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int max) {
+        return getTaskService().getTaskNamesStartingWith(prefix, max);
+    }
 }
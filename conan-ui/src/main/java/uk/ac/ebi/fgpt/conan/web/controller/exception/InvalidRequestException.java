@@ -1,5 +1,8 @@
 package uk.ac.ebi.fgpt.conan.web.controller.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
 /**
  * A type of {@link RuntimeException} that is thrown whenever a controller class receives a request that it fails to
  * validate, or could not be understood for some reason.
@@ -7,6 +10,7 @@ package uk.ac.ebi.fgpt.conan.web.controller.exception;
  * @author Tony Burdett
  * @date 13-Oct-2010
  */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
 public class InvalidRequestException extends RuntimeException {
     public InvalidRequestException() {
         super();
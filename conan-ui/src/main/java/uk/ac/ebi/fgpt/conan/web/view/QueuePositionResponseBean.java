@@ -0,0 +1,29 @@
+package uk.ac.ebi.fgpt.conan.web.view;
+
+/**
+ * A simple bean reporting where a submitted task is in the queue of tasks waiting to be executed.  Queue positions start
+ * at 1 for the task that will be executed next; tasks that are not waiting in the queue have a queue position of -1.
+ *
+ * @date 18-Oct-2026
+ */
+public class QueuePositionResponseBean {
+    private final String taskID;
+    private final int queuePosition;
+
+    public QueuePositionResponseBean(String taskID, int queuePosition) {
+        this.taskID = taskID;
+        this.queuePosition = queuePosition;
+    }
+
+    public String getTaskID() {
+        return taskID;
+    }
+
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public boolean isQueued() {
+        return queuePosition > 0;
+    }
+}
@@ -85,7 +85,10 @@ function generateSummary(json) {
             endStr = endDate.toLocaleTimeString() + ", " + endDate.toDateString();
         }
         var exitState;
-        if (value.exitValue == 0) {
+        if (value.skipped) {
+            exitState = "Skipped, already completed for these inputs";
+        }
+        else if (value.exitValue == 0) {
             exitState = "Successfully completed";
         }
         else {
@@ -162,6 +162,12 @@ function configureUI() {
     // fetch users
     requestUsers();
 
+    // suggest task names as the user types a search
+    $("#conan-name-search").autocomplete({
+                                             source:requestTaskNames,
+                                             minLength:2
+                                         });
+
     // fetch queued/running/done tasks
     requestAllTaskInfoUpdates();
 
@@ -507,6 +513,24 @@ function clearSearchedTasks() {
     requestCompletedTasks();
 }
 
+/**
+ * Requests the names of tasks starting with the term typed so far, via an ajax request to the server, and passes them
+ * to the supplied autocomplete callback.
+ */
+function requestTaskNames(request, response) {
+    $.ajax({
+               url:'api/tasks/names',
+               dataType:'json',
+               data:{prefix:request.term, max:10},
+               success:function(json) {
+                   response(json);
+               },
+               error:function() {
+                   response([]);
+               }
+           });
+}
+
 function requestUsers() {
     submitterMap = new Object();
     $.ajax({
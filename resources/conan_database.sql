@@ -60,6 +60,7 @@ CREATE TABLE "CONAN_PROCESSES"
     "TASK_ID"   NUMBER NOT NULL ENABLE,
     "EXIT_CODE" NUMBER,
     "ERROR_MESSAGE" VARCHAR2(200 BYTE),
+    "SKIPPED" NUMBER(1) DEFAULT 0,
     CONSTRAINT "CONAN_PROCESSES_PK" PRIMARY KEY ("ID") ENABLE,
     CONSTRAINT "CONAN_PROCESSES_USER_ID_FK" FOREIGN KEY ("USER_ID") REFERENCES "CONAN_USERS" ("ID") ENABLE,
     CONSTRAINT "CONAN_PROCESSES_TASK_ID_FK" FOREIGN KEY ("TASK_ID") REFERENCES "CONAN_TASKS" ("ID") ENABLE
@@ -91,4 +92,62 @@ END IF;
 END IF;
 END;
 /
-ALTER TRIGGER "CONAN_PARAMETERS_PK" ENABLE;
\ No newline at end of file
+ALTER TRIGGER "CONAN_PARAMETERS_PK" ENABLE;
+
+CREATE INDEX CONAN_TASKS_STATE_END_DATE ON CONAN_TASKS (STATE, END_DATE);
+
+CREATE INDEX CONAN_PARAMETERS_NAME_VALUE ON CONAN_PARAMETERS (PARAMETER_NAME, PARAMETER_VALUE, TASK_ID);
+
+-- Archive tables, holding tasks moved out of the live tables some time after they completed.  IDs are copied from the
+-- live tables, so no sequence triggers are needed.
+
+CREATE TABLE "CONAN_TASKS_ARCHIVE"
+  (
+    "ID"   NUMBER NOT NULL ENABLE,
+    "NAME" VARCHAR2(200 BYTE),
+    "START_DATE" TIMESTAMP (6) DEFAULT NULL,
+    "END_DATE" TIMESTAMP (6),
+    "USER_ID"                NUMBER NOT NULL ENABLE,
+    "PIPELINE_NAME"          VARCHAR2(200 BYTE) NOT NULL ENABLE,
+    "PRIORITY"               VARCHAR2(200 BYTE) DEFAULT NULL,
+    "FIRST_PROCESS_INDEX"    NUMBER DEFAULT NULL NOT NULL ENABLE,
+    "STATE"                  VARCHAR2(200 BYTE) DEFAULT NULL,
+    "STATUS_MESSAGE"         VARCHAR2(1000 BYTE) DEFAULT NULL,
+    "CURRENT_EXECUTED_INDEX" NUMBER DEFAULT NULL NOT NULL ENABLE,
+    "CREATION_DATE" TIMESTAMP (6),
+    CONSTRAINT "CONAN_TASKS_ARCHIVE_PK" PRIMARY KEY ("ID") ENABLE,
+    CONSTRAINT "CONAN_TASKS_ARCHIVE_USER_FK" FOREIGN KEY ("USER_ID") REFERENCES "CONAN_USERS" ("ID") ENABLE
+  )
+ ;
+
+CREATE TABLE "CONAN_PROCESSES_ARCHIVE"
+  (
+    "ID"   NUMBER NOT NULL ENABLE,
+    "NAME" VARCHAR2(200 BYTE) NOT NULL ENABLE,
+    "START_DATE" TIMESTAMP (6) NOT NULL ENABLE,
+    "END_DATE" TIMESTAMP (6),
+    "USER_ID"   NUMBER NOT NULL ENABLE,
+    "TASK_ID"   NUMBER NOT NULL ENABLE,
+    "EXIT_CODE" NUMBER,
+    "ERROR_MESSAGE" VARCHAR2(200 BYTE),
+    "SKIPPED" NUMBER(1) DEFAULT 0,
+    CONSTRAINT "CONAN_PROCESSES_ARCHIVE_PK" PRIMARY KEY ("ID") ENABLE,
+    CONSTRAINT "CONAN_PROC_ARCHIVE_USER_FK" FOREIGN KEY ("USER_ID") REFERENCES "CONAN_USERS" ("ID") ENABLE,
+    CONSTRAINT "CONAN_PROC_ARCHIVE_TASK_FK" FOREIGN KEY ("TASK_ID") REFERENCES "CONAN_TASKS_ARCHIVE" ("ID") ENABLE
+  )
+ ;
+
+CREATE INDEX CONAN_PROC_ARCHIVE_TASK_ID ON CONAN_PROCESSES_ARCHIVE (TASK_ID);
+
+CREATE TABLE "CONAN_PARAMETERS_ARCHIVE"
+  (
+    "ID"              NUMBER NOT NULL ENABLE,
+    "PARAMETER_NAME"  VARCHAR2(200 BYTE) NOT NULL ENABLE,
+    "PARAMETER_VALUE" VARCHAR2(1000 BYTE) NOT NULL ENABLE,
+    "TASK_ID"         NUMBER NOT NULL ENABLE,
+    CONSTRAINT "CONAN_PARAMETERS_ARCHIVE_PK" PRIMARY KEY ("ID") ENABLE,
+    CONSTRAINT "CONAN_PARAM_ARCHIVE_TASK_FK" FOREIGN KEY ("TASK_ID") REFERENCES "CONAN_TASKS_ARCHIVE" ("ID") ENABLE
+  )
+ ;
+
+CREATE INDEX CONAN_PARAM_ARCHIVE_TASK_ID ON CONAN_PARAMETERS_ARCHIVE (TASK_ID);
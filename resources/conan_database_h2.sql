@@ -0,0 +1,125 @@
+-- Conan schema for an embedded H2 database.  Equivalent to conan_database.sql, but every statement can safely be
+-- re-run against an existing database, so this script is executed every time the embedded profile starts up.
+-- Unlike Oracle, IDs are defaulted directly from SEQ_CONAN rather than being set by triggers.
+
+CREATE SEQUENCE IF NOT EXISTS SEQ_CONAN START WITH 1000 INCREMENT BY 1 CACHE 20;
+
+CREATE TABLE IF NOT EXISTS CONAN_USERS
+  (
+    ID          BIGINT DEFAULT NEXT VALUE FOR SEQ_CONAN NOT NULL,
+    FIRST_NAME  VARCHAR(200),
+    LAST_NAME   VARCHAR(200) NOT NULL,
+    EMAIL       VARCHAR(200) NOT NULL,
+    RESTAPIKEY  VARCHAR(200),
+    USER_NAME   VARCHAR(200) NOT NULL,
+    PERMISSIONS VARCHAR(200),
+    CONSTRAINT CONAN_USERS_PK PRIMARY KEY (ID)
+  );
+
+CREATE TABLE IF NOT EXISTS CONAN_TASKS
+  (
+    ID                     BIGINT DEFAULT NEXT VALUE FOR SEQ_CONAN NOT NULL,
+    NAME                   VARCHAR(200),
+    START_DATE             TIMESTAMP DEFAULT NULL,
+    END_DATE               TIMESTAMP,
+    USER_ID                BIGINT NOT NULL,
+    PIPELINE_NAME          VARCHAR(200) NOT NULL,
+    PRIORITY               VARCHAR(200) DEFAULT NULL,
+    FIRST_PROCESS_INDEX    INT NOT NULL,
+    STATE                  VARCHAR(200) DEFAULT NULL,
+    STATUS_MESSAGE         VARCHAR(1000) DEFAULT NULL,
+    CURRENT_EXECUTED_INDEX INT NOT NULL,
+    CREATION_DATE          TIMESTAMP,
+    CONSTRAINT CONAN_TASKS_PK PRIMARY KEY (ID),
+    CONSTRAINT CONAN_TASKS_USERS_ID_FK FOREIGN KEY (USER_ID) REFERENCES CONAN_USERS (ID)
+  );
+
+CREATE INDEX IF NOT EXISTS CONAN_TASKS_NAME_STATE ON CONAN_TASKS (NAME, STATE);
+
+CREATE TABLE IF NOT EXISTS CONAN_PROCESSES
+  (
+    ID            BIGINT DEFAULT NEXT VALUE FOR SEQ_CONAN NOT NULL,
+    NAME          VARCHAR(200) NOT NULL,
+    START_DATE    TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    END_DATE      TIMESTAMP,
+    USER_ID       BIGINT NOT NULL,
+    TASK_ID       BIGINT NOT NULL,
+    EXIT_CODE     INT,
+    ERROR_MESSAGE VARCHAR(200),
+    SKIPPED       INT DEFAULT 0,
+    CONSTRAINT CONAN_PROCESSES_PK PRIMARY KEY (ID),
+    CONSTRAINT CONAN_PROCESSES_USER_ID_FK FOREIGN KEY (USER_ID) REFERENCES CONAN_USERS (ID),
+    CONSTRAINT CONAN_PROCESSES_TASK_ID_FK FOREIGN KEY (TASK_ID) REFERENCES CONAN_TASKS (ID)
+  );
+
+CREATE TABLE IF NOT EXISTS CONAN_PARAMETERS
+  (
+    ID              BIGINT DEFAULT NEXT VALUE FOR SEQ_CONAN NOT NULL,
+    PARAMETER_NAME  VARCHAR(200) NOT NULL,
+    PARAMETER_VALUE VARCHAR(1000) NOT NULL,
+    TASK_ID         BIGINT NOT NULL,
+    CONSTRAINT CONAN_PAREMETERS_PK PRIMARY KEY (ID),
+    CONSTRAINT CONAN_PAREMETERS_TASK_ID_FK FOREIGN KEY (TASK_ID) REFERENCES CONAN_TASKS (ID)
+  );
+
+CREATE INDEX IF NOT EXISTS CONAN_TASKS_STATE_END_DATE ON CONAN_TASKS (STATE, END_DATE);
+
+CREATE INDEX IF NOT EXISTS CONAN_PARAMETERS_NAME_VALUE ON CONAN_PARAMETERS (PARAMETER_NAME, PARAMETER_VALUE, TASK_ID);
+
+-- archive tables, holding tasks moved out of the live tables some time after they completed
+CREATE TABLE IF NOT EXISTS CONAN_TASKS_ARCHIVE
+  (
+    ID                     BIGINT NOT NULL,
+    NAME                   VARCHAR(200),
+    START_DATE             TIMESTAMP DEFAULT NULL,
+    END_DATE               TIMESTAMP,
+    USER_ID                BIGINT NOT NULL,
+    PIPELINE_NAME          VARCHAR(200) NOT NULL,
+    PRIORITY               VARCHAR(200) DEFAULT NULL,
+    FIRST_PROCESS_INDEX    INT NOT NULL,
+    STATE                  VARCHAR(200) DEFAULT NULL,
+    STATUS_MESSAGE         VARCHAR(1000) DEFAULT NULL,
+    CURRENT_EXECUTED_INDEX INT NOT NULL,
+    CREATION_DATE          TIMESTAMP,
+    CONSTRAINT CONAN_TASKS_ARCHIVE_PK PRIMARY KEY (ID),
+    CONSTRAINT CONAN_TASKS_ARCHIVE_USER_FK FOREIGN KEY (USER_ID) REFERENCES CONAN_USERS (ID)
+  );
+
+CREATE TABLE IF NOT EXISTS CONAN_PROCESSES_ARCHIVE
+  (
+    ID            BIGINT NOT NULL,
+    NAME          VARCHAR(200) NOT NULL,
+    START_DATE    TIMESTAMP NOT NULL,
+    END_DATE      TIMESTAMP,
+    USER_ID       BIGINT NOT NULL,
+    TASK_ID       BIGINT NOT NULL,
+    EXIT_CODE     INT,
+    ERROR_MESSAGE VARCHAR(200),
+    SKIPPED       INT DEFAULT 0,
+    CONSTRAINT CONAN_PROCESSES_ARCHIVE_PK PRIMARY KEY (ID),
+    CONSTRAINT CONAN_PROC_ARCHIVE_USER_FK FOREIGN KEY (USER_ID) REFERENCES CONAN_USERS (ID),
+    CONSTRAINT CONAN_PROC_ARCHIVE_TASK_FK FOREIGN KEY (TASK_ID) REFERENCES CONAN_TASKS_ARCHIVE (ID)
+  );
+
+CREATE INDEX IF NOT EXISTS CONAN_PROC_ARCHIVE_TASK_ID ON CONAN_PROCESSES_ARCHIVE (TASK_ID);
+
+CREATE TABLE IF NOT EXISTS CONAN_PARAMETERS_ARCHIVE
+  (
+    ID              BIGINT NOT NULL,
+    PARAMETER_NAME  VARCHAR(200) NOT NULL,
+    PARAMETER_VALUE VARCHAR(1000) NOT NULL,
+    TASK_ID         BIGINT NOT NULL,
+    CONSTRAINT CONAN_PARAMETERS_ARCHIVE_PK PRIMARY KEY (ID),
+    CONSTRAINT CONAN_PARAM_ARCHIVE_TASK_FK FOREIGN KEY (TASK_ID) REFERENCES CONAN_TASKS_ARCHIVE (ID)
+  );
+
+CREATE INDEX IF NOT EXISTS CONAN_PARAM_ARCHIVE_TASK_ID ON CONAN_PARAMETERS_ARCHIVE (TASK_ID);
+
+-- columns added since the tables above were first created, so that existing embedded databases are upgraded too
+ALTER TABLE CONAN_PROCESSES ADD COLUMN IF NOT EXISTS SKIPPED INT DEFAULT 0;
+ALTER TABLE CONAN_PROCESSES_ARCHIVE ADD COLUMN IF NOT EXISTS SKIPPED INT DEFAULT 0;
+
+-- a default administrator, so that a fresh embedded database can be logged into with email anon@conan.com
+MERGE INTO CONAN_USERS (ID, FIRST_NAME, LAST_NAME, EMAIL, RESTAPIKEY, USER_NAME, PERMISSIONS)
+  KEY (ID)
+  VALUES (1, 'Jeff', 'Nonymous', 'anon@conan.com', '12345', 'anonymous', 'ADMINISTRATOR');
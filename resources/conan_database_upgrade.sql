@@ -0,0 +1,69 @@
+-- Upgrades an existing Conan schema, created from an earlier conan_database.sql, to the current one.  New installs
+-- should use conan_database.sql instead.  Each section can only be run once, and sections must be run in order.
+
+-- Task archiving.  The archive tables must exist before Conan is started with archiveEnabled set on the task DAO.
+
+CREATE INDEX CONAN_TASKS_STATE_END_DATE ON CONAN_TASKS (STATE, END_DATE);
+
+-- Archive tables, holding tasks moved out of the live tables some time after they completed.  IDs are copied from the
+-- live tables, so no sequence triggers are needed.
+
+CREATE TABLE "CONAN_TASKS_ARCHIVE"
+  (
+    "ID"   NUMBER NOT NULL ENABLE,
+    "NAME" VARCHAR2(200 BYTE),
+    "START_DATE" TIMESTAMP (6) DEFAULT NULL,
+    "END_DATE" TIMESTAMP (6),
+    "USER_ID"                NUMBER NOT NULL ENABLE,
+    "PIPELINE_NAME"          VARCHAR2(200 BYTE) NOT NULL ENABLE,
+    "PRIORITY"               VARCHAR2(200 BYTE) DEFAULT NULL,
+    "FIRST_PROCESS_INDEX"    NUMBER DEFAULT NULL NOT NULL ENABLE,
+    "STATE"                  VARCHAR2(200 BYTE) DEFAULT NULL,
+    "STATUS_MESSAGE"         VARCHAR2(1000 BYTE) DEFAULT NULL,
+    "CURRENT_EXECUTED_INDEX" NUMBER DEFAULT NULL NOT NULL ENABLE,
+    "CREATION_DATE" TIMESTAMP (6),
+    CONSTRAINT "CONAN_TASKS_ARCHIVE_PK" PRIMARY KEY ("ID") ENABLE,
+    CONSTRAINT "CONAN_TASKS_ARCHIVE_USER_FK" FOREIGN KEY ("USER_ID") REFERENCES "CONAN_USERS" ("ID") ENABLE
+  )
+ ;
+
+CREATE TABLE "CONAN_PROCESSES_ARCHIVE"
+  (
+    "ID"   NUMBER NOT NULL ENABLE,
+    "NAME" VARCHAR2(200 BYTE) NOT NULL ENABLE,
+    "START_DATE" TIMESTAMP (6) NOT NULL ENABLE,
+    "END_DATE" TIMESTAMP (6),
+    "USER_ID"   NUMBER NOT NULL ENABLE,
+    "TASK_ID"   NUMBER NOT NULL ENABLE,
+    "EXIT_CODE" NUMBER,
+    "ERROR_MESSAGE" VARCHAR2(200 BYTE),
+    CONSTRAINT "CONAN_PROCESSES_ARCHIVE_PK" PRIMARY KEY ("ID") ENABLE,
+    CONSTRAINT "CONAN_PROC_ARCHIVE_USER_FK" FOREIGN KEY ("USER_ID") REFERENCES "CONAN_USERS" ("ID") ENABLE,
+    CONSTRAINT "CONAN_PROC_ARCHIVE_TASK_FK" FOREIGN KEY ("TASK_ID") REFERENCES "CONAN_TASKS_ARCHIVE" ("ID") ENABLE
+  )
+ ;
+
+CREATE INDEX CONAN_PROC_ARCHIVE_TASK_ID ON CONAN_PROCESSES_ARCHIVE (TASK_ID);
+
+CREATE TABLE "CONAN_PARAMETERS_ARCHIVE"
+  (
+    "ID"              NUMBER NOT NULL ENABLE,
+    "PARAMETER_NAME"  VARCHAR2(200 BYTE) NOT NULL ENABLE,
+    "PARAMETER_VALUE" VARCHAR2(1000 BYTE) NOT NULL ENABLE,
+    "TASK_ID"         NUMBER NOT NULL ENABLE,
+    CONSTRAINT "CONAN_PARAMETERS_ARCHIVE_PK" PRIMARY KEY ("ID") ENABLE,
+    CONSTRAINT "CONAN_PARAM_ARCHIVE_TASK_FK" FOREIGN KEY ("TASK_ID") REFERENCES "CONAN_TASKS_ARCHIVE" ("ID") ENABLE
+  )
+ ;
+
+CREATE INDEX CONAN_PARAM_ARCHIVE_TASK_ID ON CONAN_PARAMETERS_ARCHIVE (TASK_ID);
+
+-- Task queries: lets tasks be filtered by parameter value without scanning every parameter.
+
+CREATE INDEX CONAN_PARAMETERS_NAME_VALUE ON CONAN_PARAMETERS (PARAMETER_NAME, PARAMETER_VALUE, TASK_ID);
+
+-- Skipped process runs: records which processes were skipped because they had already completed for the same inputs.
+
+ALTER TABLE "CONAN_PROCESSES" ADD ("SKIPPED" NUMBER(1) DEFAULT 0);
+
+ALTER TABLE "CONAN_PROCESSES_ARCHIVE" ADD ("SKIPPED" NUMBER(1) DEFAULT 0);